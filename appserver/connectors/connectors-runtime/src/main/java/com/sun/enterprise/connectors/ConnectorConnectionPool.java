@@ -116,6 +116,15 @@ public class ConnectorConnectionPool implements Serializable {
     private String connectionLeakTracingTimeout_ = null;
     private boolean connectionReclaim_ = false;
 
+    //number of connections that can be created concurrently in the background
+    //to bring the pool to steady-pool-size. 0 indicates that connections are
+    //created synchronously by the requesting thread.
+    private int connectionCreationParallelism_ = 0;
+
+    //size the pool as per the observed demand instead of scaling it down
+    //by resize-quantity on every idle-timeout.
+    private boolean adaptiveResize_ = false;
+
     public static final String DEFAULT_MAX_CONNECTION_USAGE = "0";
     public static final String DEFAULT_CON_CREATION_RETRY_ATTEMPTS = "0";
     public static final String DEFAULT_CON_CREATION_RETRY_INTERVAL = "10";
@@ -251,6 +260,8 @@ public class ConnectorConnectionPool implements Serializable {
                 (getConCreationRetryInterval());
         clone.setConCreationRetryAttempts(getConCreationRetryAttempts());
         clone.setPreferValidateOverRecreate(isPreferValidateOverRecreate());
+        clone.setConnectionCreationParallelism(getConnectionCreationParallelism());
+        clone.setAdaptiveResize(isAdaptiveResize());
         clone.setPooling(isPoolingOn());
         clone.setPingDuringPoolCreation(getPingDuringPoolCreation());
         return clone;
@@ -873,6 +884,22 @@ public class ConnectorConnectionPool implements Serializable {
         this.resourceSelectionStrategyClass = resourceSelectionStrategyClass;
     }
 
+    public int getConnectionCreationParallelism() {
+        return connectionCreationParallelism_;
+    }
+
+    public void setConnectionCreationParallelism(int connectionCreationParallelism) {
+        this.connectionCreationParallelism_ = connectionCreationParallelism;
+    }
+
+    public boolean isAdaptiveResize() {
+        return adaptiveResize_;
+    }
+
+    public void setAdaptiveResize(boolean adaptiveResize) {
+        this.adaptiveResize_ = adaptiveResize;
+    }
+
     public boolean isPreferValidateOverRecreate() {
         return preferValidateOverRecreate_;
     }
@@ -40,10 +40,14 @@
 
 package com.sun.enterprise.resource;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class ResourceState {
     private boolean enlisted;
     private boolean busy;
     private long timestamp;
+    //true while the resource is counted in the resources in use of its pool
+    private final AtomicBoolean inUse = new AtomicBoolean();
 
     public boolean isEnlisted() {
         return enlisted;
@@ -69,6 +73,15 @@ public class ResourceState {
         this.busy = busy;
     }
 
+    /**
+     * Marks the resource as counted, or not, in the resources in use of its pool.
+     *
+     * @return true if the mark changed, false if it already had the given value
+     */
+    public boolean setInUse(boolean inUse) {
+        return this.inUse.compareAndSet(!inUse, inUse);
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
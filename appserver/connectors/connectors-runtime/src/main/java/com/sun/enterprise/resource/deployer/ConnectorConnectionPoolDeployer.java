@@ -546,6 +546,24 @@ public class ConnectorConnectionPoolDeployer extends AbstractConnectorResourceDe
                                 value);
                     }
                     ccp.setPreferValidateOverRecreate(toBoolean(value, false));
+                } else if ("CONNECTION-CREATION-PARALLELISM".equals(ep.getName().toUpperCase(locale))) {
+                    String value = ep.getValue();
+                    try {
+                        ccp.setConnectionCreationParallelism(Integer.parseInt(value));
+                        if (_logger.isLoggable(Level.FINE)) {
+                            _logger.fine(" ConnectorConnectionPoolDeployer::  " +
+                                    "Setting CONNECTION-CREATION-PARALLELISM to " + value);
+                        }
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'connection-creation-parallelism' : " + value);
+                    }
+                } else if ("ADAPTIVE-RESIZE".equals(ep.getName().toUpperCase(locale))) {
+                    String value = ep.getValue();
+                    if (_logger.isLoggable(Level.FINE)) {
+                        _logger.fine(" ConnectorConnectionPoolDeployer::  " +
+                                "Setting ADAPTIVE-RESIZE to " + value);
+                    }
+                    ccp.setAdaptiveResize(toBoolean(value, false));
                 }
             }
         }
@@ -99,6 +99,12 @@ public interface PoolLifeCycleListener {
      */
     void connectionCreated();
 
+    /**
+     * indicates the time taken to create a new physical connection
+     * @param timeTakenInMillis time taken to create a connection
+     */
+    void connectionCreationTime(long timeTakenInMillis);
+
     /**
      * indicates that a potential connection leak happened
      */
@@ -188,6 +188,16 @@ public class AssocWithThreadResourcePool extends ConnectionPool {
         }
     }
 
+    /**
+     * Resources are associated with the thread when they are obtained from the free list,
+     * hence a freed resource is not handed over directly to a waiting request.
+     * @return boolean false
+     */
+    @Override
+    protected boolean isHandOffEnabled() {
+        return false;
+    }
+
 
     // this is the RI getResource() with some modifications
     /**
@@ -52,9 +52,12 @@ import com.sun.enterprise.resource.allocator.ResourceAllocator;
 import com.sun.enterprise.resource.listener.PoolLifeCycleListener;
 import com.sun.enterprise.resource.pool.datastructure.DataStructure;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
+import com.sun.enterprise.resource.pool.resizer.PoolDemandTracker;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
+import com.sun.enterprise.resource.pool.waitqueue.HandOffPoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueueFactory;
+import com.sun.enterprise.resource.pool.waitqueue.PoolWaitRequest;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
 import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.logging.LogDomains;
@@ -65,6 +68,7 @@ import javax.resource.ResourceException;
 import javax.resource.spi.RetryableUnavailableException;
 import javax.transaction.Transaction;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -96,6 +100,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     protected boolean preferValidateOverRecreate = false;
     // hold on to the resizer task so we can cancel/reschedule it.
     protected Resizer resizerTask;
+    //observed demand, used by the resizer when adaptive-resize is on.
+    protected PoolDemandTracker demandTracker;
+    //no. of resources marked busy, maintained so that the demand can be recorded
+    //on every request without scanning the datastructure.
+    private final AtomicInteger resourcesInUse = new AtomicInteger();
 
 
     protected volatile boolean poolInitialized = false;
@@ -123,6 +132,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
     protected ConnectionLeakDetector leakDetector;
 
+    //creates connections in the background when connection-creation-parallelism is set
+    protected PoolRefiller refiller;
+
     protected DataStructure ds;
     protected String dataStructureType;
     protected String dataStructureParameters;
@@ -227,21 +239,30 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
         this.allocator = allocator;
 
-        createResources(this.allocator, steadyPoolSize - ds.getResourcesSize());
+        if (refiller != null) {
+            //Connections are created in the background and numConnFree of
+            //monitoring statistics is incremented as and when they are added.
+            if(poolLifeCycleListener != null) {
+                poolLifeCycleListener.connectionsFreed(ds.getFreeListSize());
+            }
+            refiller.refill(this.allocator, steadyPoolSize);
+        } else {
+            createResources(this.allocator, steadyPoolSize - ds.getResourcesSize());
+
+            //Need to set the numConnFree of monitoring statistics to the steadyPoolSize
+            //as monitoring might be ON during the initialization of pool.
+            //Need not worry about the numConnUsed here as it would be initialized to
+            //0 automatically.
+            if(poolLifeCycleListener != null) {
+                poolLifeCycleListener.connectionsFreed(steadyPoolSize);
+            }
+        }
 
         // if the idle time out is 0, then don't schedule the resizer task
         if (idletime > 0) {
             scheduleResizerTask();
         }
 
-        //Need to set the numConnFree of monitoring statistics to the steadyPoolSize
-        //as monitoring might be ON during the initialization of pool.
-        //Need not worry about the numConnUsed here as it would be initialized to
-        //0 automatically.
-        if(poolLifeCycleListener != null) {
-            poolLifeCycleListener.connectionsFreed(steadyPoolSize);
-        }
-        
         poolInitialized = true;
     }
 
@@ -257,6 +278,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         }
 
         resizerTask = initializeResizer();
+        resizerTask.setDemandTracker(demandTracker);
 
         if (timer == null) {
             timer = ConnectorRuntime.getRuntime().getTimer();
@@ -304,7 +326,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
      * @param resourceHandle Resource
      */
     protected void setResourceStateToFree(ResourceHandle resourceHandle) {
-        getResourceState(resourceHandle).setBusy(false);
+        ResourceState state = getResourceState(resourceHandle);
+        if (state.setInUse(false)) {
+            resourcesInUse.decrementAndGet();
+        }
+        state.setBusy(false);
         leakDetector.stopConnectionLeakTracing(resourceHandle, this);
     }
 
@@ -320,7 +346,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
      * @param resourceHandle Resource
      */
     protected void setResourceStateToBusy(ResourceHandle resourceHandle) {
-        getResourceState(resourceHandle).setBusy(true);
+        ResourceState state = getResourceState(resourceHandle);
+        if (state.setInUse(true)) {
+            resourcesInUse.incrementAndGet();
+        }
+        state.setBusy(true);
         leakDetector.startConnectionLeakTracing(resourceHandle, this);
     }
 
@@ -361,13 +391,20 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
            //matching
         */
         ResourceHandle result = null;
+        //resource handed over by the thread that freed it, when the wait-queue supports hand-off
+        ResourceHandle handedOffResource = null;
+        PoolWaitRequest waitRequest = null;
 
         long startTime = System.currentTimeMillis();
         long elapsedWaitTime;
         long remainingWaitTime = 0;
 
         while (true) {
-            if (gateway.allowed()) {
+            if (handedOffResource != null) {
+                result = acceptHandedOffResource(handedOffResource, alloc);
+                handedOffResource = null;
+            }
+            if (result == null && gateway.allowed()) {
                 //See comment #1 above
                 JavaEETransaction jtx = ((JavaEETransaction) txn);
                 Set resourcesSet = null;
@@ -386,6 +423,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
             }
             if (result != null) {
                 // got one, return it
+                recordDemand();
                 if (poolLifeCycleListener != null) {
                     poolLifeCycleListener.connectionAcquired(result.getId());
                     elapsedWaitTime = System.currentTimeMillis() - startTime;
@@ -422,11 +460,24 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
                 if (!blocked) {
                     //add to wait-queue
-                    Object waitMonitor = new Object();
+                    Object waitMonitor;
+                    if (waitQueue instanceof HandOffPoolWaitQueue) {
+                        //same request is queued again so as to retain its order of arrival
+                        if (waitRequest == null) {
+                            waitRequest = new PoolWaitRequest(startTime, maxWaitTime);
+                        }
+                        waitMonitor = waitRequest;
+                    } else {
+                        waitMonitor = new Object();
+                    }
                     if (poolLifeCycleListener != null) {
                         poolLifeCycleListener.connectionRequestQueued();
                     }
+                    recordDemand();
                     synchronized (waitMonitor) {
+                        if (waitRequest != null) {
+                            waitRequest.startWaiting();
+                        }
                         waitQueue.addToQueue(waitMonitor);
 
                         try {
@@ -435,9 +486,20 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
                         } catch (InterruptedException ex) {
                             //Could be system shutdown.
+                            if (waitRequest != null) {
+                                waitQueue.removeFromQueue(waitRequest);
+                                ResourceHandle h = waitRequest.stopWaiting();
+                                if (h != null) {
+                                    returnHandedOffResource(h);
+                                }
+                            }
                             break;
                         }
 
+                        if (waitRequest != null) {
+                            handedOffResource = waitRequest.stopWaiting();
+                        }
+
                         //try to remove in case that the monitor has timed
                         // out.  We dont expect the queue to grow to great numbers
                         // so the overhead for removing inexistant objects is low.
@@ -492,6 +554,89 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return result;
     }
 
+    /**
+     * Validate and match the resource handed over to the waiting request, as is done
+     * for a free resource obtained from the pool.
+     *
+     * @param h     resource handed over by the thread that freed it
+     * @param alloc ResourceAllocator of the request
+     * @return ResourceHandle resource to be used by the request, null if the resource
+     *         can not be used
+     */
+    private ResourceHandle acceptHandedOffResource(ResourceHandle h, ResourceAllocator alloc) {
+        if (h.hasConnectionErrorOccurred()) {
+            ds.removeResource(h);
+            return null;
+        }
+        if (!matchConnection(h, alloc) || h.isShareable() != alloc.shareableWithinComponent()) {
+            returnHandedOffResource(h);
+            return null;
+        }
+        if (!isConnectionValid(h, alloc) || h.hasConnectionErrorOccurred()) {
+            ds.removeResource(h);
+            return null;
+        }
+        setResourceStateToBusy(h);
+        if (maxConnectionUsage_ > 0) {
+            h.incrementUsageCount();
+        }
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionUsed(h.getId());
+            poolLifeCycleListener.decrementNumConnFree();
+        }
+        return h;
+    }
+
+    /**
+     * Give a handed over resource that could not be used by the request
+     * to the next waiting request, or put it back to the free list.
+     *
+     * @param h resource handed over
+     */
+    private void returnHandedOffResource(ResourceHandle h) {
+        if (!handOffToWaitingRequest(h)) {
+            ds.returnResource(h);
+            notifyWaitingThreads();
+        }
+    }
+
+    /**
+     * hand over a freed resource directly to the oldest waiting request
+     *
+     * @param h freed resource
+     * @return boolean indicating whether the resource was handed over
+     */
+    private boolean handOffToWaitingRequest(ResourceHandle h) {
+        if (isHandOffEnabled() && ((HandOffPoolWaitQueue) waitQueue).handOff(h)) {
+            if (poolLifeCycleListener != null) {
+                poolLifeCycleListener.connectionRequestDequeued();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether freed resources can be handed over to waiting requests.<br>
+     * Overridden in AssocWithThreadResourcePool as resources are associated with
+     * threads only when they are obtained from the free list.
+     *
+     * @return boolean
+     */
+    protected boolean isHandOffEnabled() {
+        return waitQueue instanceof HandOffPoolWaitQueue;
+    }
+
+    /**
+     * record the current demand (connections in use and requests waiting) for adaptive resize.
+     */
+    private void recordDemand() {
+        PoolDemandTracker tracker = demandTracker;
+        if (tracker != null) {
+            tracker.recordDemand(resourcesInUse.get(), waitQueue.getQueueLength());
+        }
+    }
+
     /**
      * Overridden in AssocWithThreadResourcePool to fetch the resource
      * cached in the ThreadLocal
@@ -781,7 +926,13 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         if (ds.getResourcesSize() < steadyPoolSize) {
             // May be all invalid resources are destroyed as
             // a result no free resource found and no. of resources is less than steady-pool-size
-            numOfConnsToCreate = steadyPoolSize - ds.getResourcesSize();
+            if (refiller != null) {
+                // create one for this request, rest of them are created in the background
+                numOfConnsToCreate = 1;
+                refiller.refill(allocator, steadyPoolSize - numOfConnsToCreate);
+            } else {
+                numOfConnsToCreate = steadyPoolSize - ds.getResourcesSize();
+            }
         } else if (ds.getResourcesSize() + resizeQuantity <= maxPoolSize) {
             //Create and add resources of quantity "resizeQuantity"
             numOfConnsToCreate = resizeQuantity;
@@ -904,12 +1055,19 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                 count++;
                 startTime = System.currentTimeMillis();
                 resourceHandle = resourceAllocator.createResource();
+                long timeTaken = System.currentTimeMillis() - startTime;
                 if(_logger.isLoggable(Level.FINE)) {
                     _logger.log(Level.FINE, "Time taken to create a single "
                             + "resource : "
                             + resourceHandle.getResourceSpec().getResourceId()
                             + " and adding to the pool (ms) : "
-                            + (System.currentTimeMillis() - startTime));
+                            + timeTaken);
+                }
+                if (poolLifeCycleListener != null) {
+                    poolLifeCycleListener.connectionCreationTime(timeTaken);
+                }
+                if (demandTracker != null) {
+                    demandTracker.recordCreationTime(timeTaken);
                 }
                 if (validation || validateAtmostEveryIdleSecs)
                     resourceHandle.setLastValidated(System.currentTimeMillis());
@@ -965,6 +1123,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                 _logger.log(Level.FINE, "poolmgr.destroy_resource_failed", ex);
             }
         } finally {
+            //a busy resource that is destroyed is not in use anymore, it is not
+            //counted again if it is freed afterwards.
+            if (resourceHandle.getResourceState().setInUse(false)) {
+                resourcesInUse.decrementAndGet();
+            }
             //if connection leak tracing is running on connection being
             //destroyed due to error, then stop it
             if (resourceHandle.getResourceState().isBusy())
@@ -1040,10 +1203,14 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
         //compensate with a new resource only when the pool-size is less than steady-pool-size
         if (ds.getResourcesSize() < steadyPoolSize) {
-            try {
-                createResourceAndAddToPool(handle.getResourceAllocator());
-            } catch (Exception e) {
-                _logger.log(Level.WARNING, "resource_pool.failed_creating_resource", e);
+            if (refiller != null) {
+                refiller.refill(handle.getResourceAllocator(), steadyPoolSize);
+            } else {
+                try {
+                    createResourceAndAddToPool(handle.getResourceAllocator());
+                } catch (Exception e) {
+                    _logger.log(Level.WARNING, "resource_pool.failed_creating_resource", e);
+                }
             }
         }
     }
@@ -1054,22 +1221,28 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
     protected void freeResource(ResourceHandle resourceHandle) {
         if(cleanupResource(resourceHandle)) {
+            boolean handedOff = false;
             //Only when resource handle usage count is more than maxConnUsage
             if (maxConnectionUsage_ > 0 &&
                     resourceHandle.getUsageCount() >= maxConnectionUsage_) {
                  performMaxConnectionUsageOperation(resourceHandle);
             } else {
-                // Put it back to the free collection.
-                ds.returnResource(resourceHandle);
                 //update the monitoring data
                 if (poolLifeCycleListener != null && !resourceHandle.getDestroyByLeakTimeOut()) {
                     poolLifeCycleListener.decrementConnectionUsed(resourceHandle.getId());
                     poolLifeCycleListener.incrementNumConnFree(false, steadyPoolSize);
                 }
+                //give it to the oldest waiting request, if any, else put it back to the free collection.
+                handedOff = handOffToWaitingRequest(resourceHandle);
+                if (!handedOff) {
+                    ds.returnResource(resourceHandle);
+                }
             }
             //for both the cases of free.add and maxConUsageOperation, a free resource is added.
-            // Hence notify waiting threads
-            notifyWaitingThreads();
+            // Hence notify waiting threads, unless the resource is already handed over to one.
+            if (!handedOff) {
+                notifyWaitingThreads();
+            }
         }
     }
     
@@ -1141,7 +1314,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         
         emptyPool();
         try {
-            createResources(allocator, steadyPoolSize);
+            if (refiller != null) {
+                refiller.refill(allocator, steadyPoolSize);
+            } else {
+                createResources(allocator, steadyPoolSize);
+            }
         } catch (PoolingException pe) {
             //Ignore and hope the resizer does its stuff
             logFine("in doFailAllConnectionsProcessing couldn't create steady resources");
@@ -1258,6 +1435,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         if (_logger.isLoggable(Level.FINE)) {
             _logger.log(Level.FINE, "EmptyPool: Name = " + poolInfo);
         }
+        if (refiller != null) {
+            refiller.cancel();
+        }
         ds.removeAll();
     }
 
@@ -1334,6 +1514,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         
         try {
             cancelResizerTask();
+            if (refiller != null) {
+                refiller.cancel();
+            }
             ds.removeAll();
             scheduleResizerTask();
             increaseSteadyPoolSize(steadyPoolSize);
@@ -1465,6 +1648,29 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         long connectionLeakTimeoutInMilliSeconds_ = Integer.parseInt(
                 poolResource.getConnectionLeakTracingTimeout()) * 1000L;
 
+        int connectionCreationParallelism_ = poolResource.getConnectionCreationParallelism();
+        if (connectionCreationParallelism_ > 0) {
+            if (refiller == null) {
+                refiller = new PoolRefiller(poolInfo, this, connectionCreationParallelism_);
+            } else {
+                refiller.setParallelism(connectionCreationParallelism_);
+            }
+        } else if (refiller != null) {
+            refiller.shutdown();
+            refiller = null;
+        }
+
+        if (poolResource.isAdaptiveResize()) {
+            if (demandTracker == null) {
+                demandTracker = new PoolDemandTracker();
+            }
+        } else {
+            demandTracker = null;
+        }
+        if (resizerTask != null) {
+            resizerTask.setDemandTracker(demandTracker);
+        }
+
         boolean connectionLeakTracing_ = connectionLeakTimeoutInMilliSeconds_ > 0;
         if (leakDetector == null) {
             leakDetector = new ConnectionLeakDetector(poolInfo, connectionLeakTracing_,
@@ -1497,8 +1703,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     private void increaseSteadyPoolSize(int newSteadyPoolSize)
             throws PoolingException {
         cancelResizerTask();
-        for (int i = ds.getResourcesSize(); i < newSteadyPoolSize; i++) {
-            createResourceAndAddToPool(allocator);
+        if (refiller != null) {
+            refiller.refill(allocator, newSteadyPoolSize);
+        } else {
+            for (int i = ds.getResourcesSize(); i < newSteadyPoolSize; i++) {
+                createResourceAndAddToPool(allocator);
+            }
         }
         scheduleResizerTask();
     }
@@ -1538,6 +1748,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         if (timer != null) {
             timer.purge();
         }
+
+        //stop the refill threads, they are started again by the next refill (if any)
+        if (refiller != null) {
+            refiller.shutdown();
+        }
     }
 
 
@@ -1575,6 +1790,13 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return waitQueue.getQueueLength();
     }
 
+    /**
+     * @return number of resources (free and in-use) held by the pool
+     */
+    int getCurrentPoolSize() {
+        return ds.getResourcesSize();
+    }
+
     public int getSteadyPoolSize() {
         return steadyPoolSize;
     }
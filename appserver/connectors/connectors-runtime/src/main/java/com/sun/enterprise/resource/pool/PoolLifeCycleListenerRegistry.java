@@ -164,6 +164,12 @@ public class PoolLifeCycleListenerRegistry implements PoolLifeCycleListener {
         }
     }
 
+    public void connectionCreationTime(long timeTakenInMillis) {
+        for (PoolLifeCycleListener listener : poolListenersList) {
+            listener.connectionCreationTime(timeTakenInMillis);
+        }
+    }
+
     public void foundPotentialConnectionLeak() {
         for (PoolLifeCycleListener listener : poolListenersList) {
             listener.foundPotentialConnectionLeak();
@@ -0,0 +1,209 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates connections in the background so as to bring the pool back to
+ * steady-pool-size (eg: after a flush or a fail-all-connections) without
+ * blocking the requesting thread.<br>
+ * At most <i>parallelism</i> connections are created concurrently. Worker threads
+ * are released when the pool is not being refilled.<br>
+ * A refill is abandoned when the pool cancels it (resizer cancelled, pool destroyed)
+ * or when a connection creation fails, in which case the resizer will take care of
+ * maintaining the steady-pool-size.
+ */
+public class PoolRefiller {
+
+    private final static Logger _logger = LogDomains.getLogger(PoolRefiller.class, LogDomains.RSR_LOGGER);
+
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+
+    private final PoolInfo poolInfo;
+    private final ConnectionPool pool;
+    //guarded by this, null when no refill is done since creation or shutdown.
+    private ThreadPoolExecutor executor;
+    private int parallelism;
+
+    //number of connections submitted for creation, but not yet created.
+    private final AtomicInteger pending = new AtomicInteger();
+    //incremented on every cancel so that queued creations of an earlier refill are skipped.
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public PoolRefiller(PoolInfo poolInfo, ConnectionPool pool, int parallelism) {
+        this.poolInfo = poolInfo;
+        this.pool = pool;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Executor running the creations, started on the first refill after the refiller
+     * is created or shut down.
+     */
+    private ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(parallelism, parallelism, WORKER_KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger threadCount = new AtomicInteger();
+
+                        public Thread newThread(Runnable r) {
+                            Thread th = new Thread(r, "pool-refiller-" + poolInfo.getName() + "-"
+                                    + threadCount.incrementAndGet());
+                            th.setDaemon(true);
+                            return th;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Change the number of connections that can be created concurrently.
+     *
+     * @param parallelism number of connections to be created concurrently
+     */
+    public synchronized void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        if (executor == null) {
+            return;
+        }
+        if (parallelism > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(parallelism);
+            executor.setCorePoolSize(parallelism);
+        } else {
+            executor.setCorePoolSize(parallelism);
+            executor.setMaximumPoolSize(parallelism);
+        }
+    }
+
+    /**
+     * Asynchronously create connections till the pool reaches <i>targetSize</i>.
+     * Connections that are already being created by an earlier refill are accounted.
+     *
+     * @param alloc      ResourceAllocator used to create the connections
+     * @param targetSize pool size to be reached
+     * @return int number of connections submitted for creation
+     */
+    public synchronized int refill(ResourceAllocator alloc, int targetSize) {
+        int toCreate = targetSize - pool.getCurrentPoolSize() - pending.get();
+        int submitted = 0;
+        int currentGeneration = generation.get();
+        for (int i = 0; i < toCreate; i++) {
+            pending.incrementAndGet();
+            try {
+                getExecutor().execute(new RefillTask(alloc, currentGeneration));
+                submitted++;
+            } catch (RejectedExecutionException ree) {
+                pending.decrementAndGet();
+                break;
+            }
+        }
+        if (submitted > 0 && _logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Refilling pool [ " + poolInfo + " ] with " + submitted + " connections");
+        }
+        return submitted;
+    }
+
+    /**
+     * Skip creation of the connections that are submitted, but not yet created.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Cancel the submitted creations and stop the worker threads.<br>
+     * A later refill starts the workers again.
+     */
+    public synchronized void shutdown() {
+        cancel();
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private class RefillTask implements Runnable {
+        private final ResourceAllocator alloc;
+        private final int taskGeneration;
+
+        RefillTask(ResourceAllocator alloc, int taskGeneration) {
+            this.alloc = alloc;
+            this.taskGeneration = taskGeneration;
+        }
+
+        public void run() {
+            try {
+                if (taskGeneration != generation.get()
+                        || pool.getCurrentPoolSize() >= pool.getSteadyPoolSize()) {
+                    return;
+                }
+                pool.addResource(alloc);
+                pool.notifyWaitingThreads();
+            } catch (PoolingException pe) {
+                //stop the rest of this refill, resizer will maintain steady-pool-size.
+                if (generation.compareAndSet(taskGeneration, taskGeneration + 1)) {
+                    _logger.log(Level.WARNING, "resource_pool.refill_failed",
+                            new Object[]{poolInfo, pe.getMessage()});
+                    if (_logger.isLoggable(Level.FINE)) {
+                        _logger.log(Level.FINE, "Refill of pool [ " + poolInfo + " ] failed", pe);
+                    }
+                }
+            } finally {
+                pending.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.logging.LogDomains;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock free datastructure for pool.<br>
+ * Every resource lives in a slot whose state is changed using compare-and-set,
+ * hence checkout and return of a resource do not take any pool wide lock.
+ * A thread first tries to re-acquire the resource it returned last
+ * (thread affinity), failing which it scans the slots starting at an offset
+ * derived from the thread so that concurrent threads start their scans on
+ * different stripes of the pool.
+ * <p>
+ * Can be configured using the pool property
+ * <code>PoolDataStructure=com.sun.enterprise.resource.pool.datastructure.LockFreeDataStructure</code>
+ */
+public class LockFreeDataStructure implements DataStructure {
+
+    private static final int STATE_FREE = 0;
+    private static final int STATE_IN_USE = 1;
+    private static final int STATE_REMOVED = 2;
+
+    private final ResourceHandler handler;
+    private volatile int maxSize;
+
+    //slots are added/removed only when the pool grows or shrinks, under slotsLock. Each change
+    //publishes a new array, so a checkout scans the current array without copying it.
+    private final Object slotsLock = new Object();
+    private volatile Slot[] slots = new Slot[0];
+    private final ConcurrentHashMap<ResourceHandle, Slot> slotIndex;
+    //resource that was last returned by the thread, used as the fast path for the next checkout.
+    private final ThreadLocal<Slot> lastReturned = new ThreadLocal<Slot>();
+
+    //number of resources that are created or being created, used to honor maxSize.
+    private final AtomicInteger reservedSize = new AtomicInteger();
+    private final AtomicInteger freeSize = new AtomicInteger();
+
+    protected final static Logger _logger =
+            LogDomains.getLogger(LockFreeDataStructure.class, LogDomains.RSR_LOGGER);
+
+    //strategyClass is accepted for the DataStructureFactory constructor signature, no resource
+    //selection strategy is implemented : resources are always picked by the lock free scan.
+    public LockFreeDataStructure(String parameters, int maxSize,
+                                 ResourceHandler handler, String strategyClass) {
+        slotIndex = new ConcurrentHashMap<ResourceHandle, Slot>((maxSize > 1000) ? 1000 : Math.max(maxSize, 16));
+        this.maxSize = maxSize;
+        this.handler = handler;
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.log(Level.FINEST, "pool.datastructure.lockfreeds.init");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int addResource(ResourceAllocator allocator, int count) throws PoolingException {
+        int numResAdded = 0;
+        for (int i = 0; i < count && reserve(); i++) {
+            ResourceHandle handle;
+            try {
+                handle = handler.createResource(allocator);
+            } catch (Exception e) {
+                reservedSize.decrementAndGet();
+                PoolingException pe = new PoolingException(e.getMessage());
+                pe.initCause(e);
+                throw pe;
+            }
+            Slot slot = new Slot(handle);
+            slotIndex.put(handle, slot);
+            addSlot(slot);
+            freeSize.incrementAndGet();
+            numResAdded++;
+        }
+        return numResAdded;
+    }
+
+    /**
+     * reserve room for one more resource without exceeding maxSize
+     *
+     * @return boolean indicating whether a resource can be created
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = reservedSize.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (reservedSize.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ResourceHandle getResource() {
+        if (freeSize.get() <= 0) {
+            return null;
+        }
+
+        //fast path : resource last returned by this thread.
+        Slot preferred = lastReturned.get();
+        if (preferred != null) {
+            lastReturned.remove();
+            if (preferred.acquire()) {
+                freeSize.decrementAndGet();
+                return preferred.handle;
+            }
+        }
+
+        Slot[] snapshot = slots;
+        int length = snapshot.length;
+        if (length == 0) {
+            return null;
+        }
+        int start = stripe(length);
+        for (int i = 0; i < length; i++) {
+            Slot slot = snapshot[(start + i) % length];
+            if (slot.acquire()) {
+                freeSize.decrementAndGet();
+                return slot.handle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Offset from which the current thread starts scanning the slots.
+     */
+    private int stripe(int length) {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash >>> 1) % length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeResource(ResourceHandle resource) {
+        Slot slot = slotIndex.remove(resource);
+        if (slot != null) {
+            discard(slot);
+            handler.deleteResource(resource);
+        }
+    }
+
+    private void discard(Slot slot) {
+        if (slot.remove() == STATE_FREE) {
+            freeSize.decrementAndGet();
+        }
+        removeSlot(slot);
+        reservedSize.decrementAndGet();
+    }
+
+    private void addSlot(Slot slot) {
+        synchronized (slotsLock) {
+            Slot[] current = slots;
+            Slot[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = slot;
+            slots = updated;
+        }
+    }
+
+    private void removeSlot(Slot slot) {
+        synchronized (slotsLock) {
+            Slot[] current = slots;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == slot) {
+                    Slot[] updated = new Slot[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    slots = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void returnResource(ResourceHandle resource) {
+        Slot slot = slotIndex.get(resource);
+        if (slot != null && slot.release()) {
+            freeSize.incrementAndGet();
+            lastReturned.set(slot);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getFreeListSize() {
+        int free = freeSize.get();
+        return (free < 0) ? 0 : free;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeAll() {
+        for (Slot slot : slots) {
+            if (slotIndex.remove(slot.handle) != null) {
+                discard(slot);
+                handler.deleteResource(slot.handle);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getResourcesSize() {
+        return slots.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<ResourceHandle> getAllResources() {
+        Slot[] snapshot = slots;
+        ArrayList<ResourceHandle> resources = new ArrayList<ResourceHandle>(snapshot.length);
+        for (Slot slot : snapshot) {
+            resources.add(slot.handle);
+        }
+        return resources;
+    }
+
+    /**
+     * Holder for a resource and its state in the datastructure.
+     */
+    private static final class Slot {
+        private final ResourceHandle handle;
+        private final AtomicInteger state = new AtomicInteger(STATE_FREE);
+
+        Slot(ResourceHandle handle) {
+            this.handle = handle;
+        }
+
+        boolean acquire() {
+            return state.get() == STATE_FREE && state.compareAndSet(STATE_FREE, STATE_IN_USE);
+        }
+
+        boolean release() {
+            return state.compareAndSet(STATE_IN_USE, STATE_FREE);
+        }
+
+        int remove() {
+            return state.getAndSet(STATE_REMOVED);
+        }
+    }
+}
@@ -204,6 +204,16 @@ public class ConnectionPoolEmitterImpl implements PoolLifeCycleListener {
     public void connectionCreated() {
         poolProbeProvider.connectionCreatedEvent(poolName, appName, moduleName);
     }
+
+    /**
+     * Fires probe event related to the time taken to create a physical
+     * connection for the given jdbc connection pool.
+     *
+     * @param timeTakenInMillis time taken to create a connection
+     */
+    public void connectionCreationTime(long timeTakenInMillis) {
+        poolProbeProvider.connectionCreationTimeEvent(poolName, appName, moduleName, timeTakenInMillis);
+    }
     
     /**
      * Fires probe event related to the fact that the given jdbc connection pool
@@ -198,6 +198,20 @@ public abstract class ConnectionPoolProbeProvider {
     public void connectionCreatedEvent(String poolName, String appName, String moduleName) {
     }
 
+    /**
+     * Emits probe event/notification that a new physical connection was created
+     * in the time <code>timeTakenInMillis</code> for the given connection pool
+     * <code>poolName</code>
+     *
+     * @param poolName
+     * @param appName application-name in which the pool is defined
+     * @param moduleName module-name in which the pool is defined
+     * @param timeTakenInMillis time taken to create a connection
+     */
+    public void connectionCreationTimeEvent(String poolName, String appName, String moduleName,
+            long timeTakenInMillis) {
+    }
+
     public void toString(String poolName, String appName, String moduleName, StringBuffer stackTrace) {
     }
 
@@ -237,6 +237,22 @@ public class ConnectorConnPoolProbeProvider extends ConnectionPoolProbeProvider
                                        @ProbeParam("appName") String appName,
                                        @ProbeParam("moduleName") String moduleName
                                        ) { }
+
+    /**
+     * Emits probe event/notification that a new physical connection was
+     * created in <code>timeTakenInMillis</code> for the given jca connection
+     * pool <code>poolName</code>
+     * 
+     * @param poolName
+     * @param timeTakenInMillis time taken to create a connection
+     */
+    @Probe(name="connectionCreationTimeEvent")
+    @Override
+    public void connectionCreationTimeEvent(@ProbeParam("poolName") String poolName,
+                                            @ProbeParam("appName") String appName,
+                                            @ProbeParam("moduleName") String moduleName,
+                                            @ProbeParam("timeTakenInMillis") long timeTakenInMillis
+                                            ) { }
     
     @Probe(name="toString", hidden=true)
     @Override
@@ -47,10 +47,13 @@ import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
 import org.glassfish.external.statistics.RangeStatistic;
+import org.glassfish.external.statistics.TimeStatistic;
 import org.glassfish.external.statistics.annotations.Reset;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
 import org.glassfish.external.statistics.impl.RangeStatisticImpl;
 import org.glassfish.external.statistics.impl.StatisticImpl;
+import org.glassfish.flashlight.statistics.HistogramStatistic;
+import org.glassfish.flashlight.statistics.factory.HistogramStatisticFactory;
 import org.glassfish.gmbal.AMXMetadata;
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.ManagedAttribute;
@@ -109,6 +112,11 @@ public class ConnectorConnPoolStatsProvider {
             "current value indicates the wait time of the last request that was " +
             "serviced by the pool.", 
             System.currentTimeMillis(), System.currentTimeMillis());
+    private HistogramStatistic connRequestWaitTimeDistribution =
+            HistogramStatisticFactory.createHistogramMillis(
+            "ConnRequestWaitTimeDistribution", "Distribution of the wait times " +
+            "of the connection requests served by the pool, with the 50th, 90th, " +
+            "99th and 99.9th percentiles.");
     private CountStatisticImpl numConnDestroyed = new CountStatisticImpl(
             "NumConnDestroyed", StatisticImpl.UNIT_COUNT, 
             "Number of physical connections that were destroyed since the last reset.");
@@ -136,6 +144,18 @@ public class ConnectorConnPoolStatsProvider {
     private CountStatisticImpl averageConnWaitTime = new CountStatisticImpl(
             "AverageConnWaitTime", StatisticImpl.UNIT_MILLISECOND,
             "Average wait-time-duration per successful connection request");    
+    private RangeStatisticImpl connCreationTime = new RangeStatisticImpl(
+            0, 0, 0,
+            "ConnCreationTime", StatisticImpl.UNIT_MILLISECOND,
+            "The longest and shortest times taken to create a physical connection. " +
+            "The current value indicates the time taken to create the last connection.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+    private CountStatisticImpl totalConnCreationTime = new CountStatisticImpl(
+            "TotalConnCreationTime", StatisticImpl.UNIT_MILLISECOND,
+            "Total time taken to create physical connections");
+    private CountStatisticImpl averageConnCreationTime = new CountStatisticImpl(
+            "AverageConnCreationTime", StatisticImpl.UNIT_MILLISECOND,
+            "Average time taken to create a physical connection");
     private CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT, 
             "Number of connection requests in the queue waiting to be serviced.");    
@@ -370,6 +390,7 @@ public class ConnectorConnPoolStatsProvider {
             }
             connRequestWaitTime.setCurrent(timeTakenInMillis);
             totalConnRequestWaitTime.increment(timeTakenInMillis);
+            connRequestWaitTimeDistribution.record(timeTakenInMillis);
         }        
     }  
     
@@ -453,6 +474,27 @@ public class ConnectorConnPoolStatsProvider {
         }                                        
     }
 
+    /**
+     * When a physical connection is created, record the time taken to create it
+     */
+    @ProbeListener(JCA_PROBE_LISTENER + "connectionCreationTimeEvent")
+    public void connectionCreationTimeEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("timeTakenInMillis") long timeTakenInMillis) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)) {
+            if(logger.isLoggable(Level.FINEST)) {
+                logger.finest("Connection creation time event received - " +
+                    "poolName = " + poolName);
+            }
+            connCreationTime.setCurrent(timeTakenInMillis);
+            totalConnCreationTime.increment(timeTakenInMillis);
+        }
+    }
+
     /**
      * Reset pool statistics
      * When annotated with @Reset, this method is invoked whenever monitoring
@@ -474,12 +516,16 @@ public class ConnectorConnPoolStatsProvider {
         numConnAcquired.reset();
         numConnReleased.reset();
         connRequestWaitTime.reset();
+        connRequestWaitTimeDistribution.reset();
         numConnSuccessfullyMatched.reset();
         numConnNotSuccessfullyMatched.reset();
         numPotentialConnLeak.reset();
         averageConnWaitTime.reset();
         totalConnRequestWaitTime.reset();
         waitQueueLength.reset();        
+        connCreationTime.reset();
+        totalConnCreationTime.reset();
+        averageConnCreationTime.reset();
     }
     
     /**
@@ -658,6 +704,11 @@ public class ConnectorConnPoolStatsProvider {
         return connRequestWaitTime;
     }
 
+    @ManagedAttribute(id="connrequestwaittimedistribution")
+    public TimeStatistic getConnRequestWaitTimeDistribution() {
+        return connRequestWaitTimeDistribution;
+    }
+
     @ManagedAttribute(id="numconndestroyed")
     public CountStatistic getNumConnDestroyed() {
         return numConnDestroyed;
@@ -703,6 +754,24 @@ public class ConnectorConnPoolStatsProvider {
        return averageConnWaitTime;
     }
 
+    @ManagedAttribute(id="conncreationtime")
+    public RangeStatistic getConnCreationTime() {
+        return connCreationTime;
+    }
+
+    @ManagedAttribute(id="averageconncreationtime")
+    public CountStatistic getAverageConnCreationTime() {
+        //Time taken to create all connections divided by the number of
+        //connections created in the sampling period.
+        long averageCreationTime = 0;
+        if (numConnCreated.getCount() != 0) {
+            averageCreationTime = totalConnCreationTime.getCount() /
+                    numConnCreated.getCount();
+        }
+        averageConnCreationTime.setCount(averageCreationTime);
+        return averageConnCreationTime;
+    }
+
     @ManagedAttribute(id="waitqueuelength") 
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
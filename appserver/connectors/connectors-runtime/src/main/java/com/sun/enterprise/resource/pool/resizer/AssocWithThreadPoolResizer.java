@@ -78,7 +78,7 @@ public class AssocWithThreadPoolResizer extends Resizer {
         if (pool.getResizeQuantity() > 0 && forced) {
 
             scaleDownQuantity = (scaleDownQuantity <=
-                    (ds.getResourcesSize() - pool.getSteadyPoolSize())) ? scaleDownQuantity : 0;
+                    (ds.getResourcesSize() - targetPoolSize)) ? scaleDownQuantity : 0;
 
             debug("Scaling down pool by quantity : " + scaleDownQuantity);
             Set<ResourceHandle> resourcesToRemove = new HashSet<ResourceHandle>();
@@ -138,6 +138,9 @@ public class AssocWithThreadPoolResizer extends Resizer {
                                     resourcesToValidate.add(h);
                                 }
                             }
+                        } else if (isRetainedForDemand(ds.getResourcesSize() - resourcesToRemove.size())) {
+                            //idle, but needed to serve the observed demand.
+                            debug("Adaptive resize : Keeping idle resource " + h);
                         } else {
                             boolean isResourceEligibleForRemoval =
                                     isResourceEligibleForRemoval(h, validConnectionsCounter);
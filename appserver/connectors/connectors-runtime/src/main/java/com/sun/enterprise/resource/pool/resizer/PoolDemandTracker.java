@@ -0,0 +1,139 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.resizer;
+
+import com.sun.enterprise.resource.pool.PoolProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the demand on a pool so that the resizer can size the pool as per the
+ * observed load instead of scaling down by a fixed resize-quantity.<br>
+ * Demand is the number of connections in use plus the number of requests waiting
+ * for a connection. The peak demand of every resizer interval is kept for the last
+ * <i>windowSize</i> intervals. The pool is sized to the peak demand of the window,
+ * with some headroom when creating a connection is expensive, bounded by
+ * steady-pool-size and max-pool-size.
+ * <p>
+ * Enabled using the pool property <code>adaptive-resize=true</code>
+ */
+public class PoolDemandTracker {
+
+    public static final int DEFAULT_WINDOW_SIZE = 6;
+
+    //creation time at which the headroom reaches its maximum.
+    private static final long EXPENSIVE_CREATION_TIME_IN_MILLIS = 1000;
+    //maximum headroom, as a fraction of the peak demand.
+    private static final double MAX_HEADROOM = 0.25;
+    //weight of the latest sample in the average connection creation time.
+    private static final double CREATION_TIME_WEIGHT = 0.2;
+
+    private final AtomicInteger intervalPeakDemand = new AtomicInteger();
+    private final int[] window;
+    private int windowIndex;
+
+    private volatile double averageCreationTime;
+
+    public PoolDemandTracker() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public PoolDemandTracker(int windowSize) {
+        window = new int[windowSize > 0 ? windowSize : DEFAULT_WINDOW_SIZE];
+    }
+
+    /**
+     * record the current demand on the pool
+     *
+     * @param connectionsInUse  no. of connections in use
+     * @param waitingRequests   no. of requests waiting for a connection
+     */
+    public void recordDemand(int connectionsInUse, int waitingRequests) {
+        int demand = connectionsInUse + waitingRequests;
+        int peak;
+        while (demand > (peak = intervalPeakDemand.get())) {
+            if (intervalPeakDemand.compareAndSet(peak, demand)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * record the time taken to create a connection
+     *
+     * @param timeTakenInMillis time taken to create a connection
+     */
+    public synchronized void recordCreationTime(long timeTakenInMillis) {
+        if (averageCreationTime == 0) {
+            averageCreationTime = timeTakenInMillis;
+        } else {
+            averageCreationTime += CREATION_TIME_WEIGHT * (timeTakenInMillis - averageCreationTime);
+        }
+    }
+
+    public long getAverageCreationTime() {
+        return (long) averageCreationTime;
+    }
+
+    /**
+     * Closes the current interval and computes the size the pool has to be maintained at.
+     * To be called once per resizer run.
+     *
+     * @param pool pool properties
+     * @return int target pool size
+     */
+    public synchronized int nextTargetPoolSize(PoolProperties pool) {
+        window[windowIndex] = intervalPeakDemand.getAndSet(0);
+        windowIndex = (windowIndex + 1) % window.length;
+
+        int peakDemand = 0;
+        for (int demand : window) {
+            peakDemand = Math.max(peakDemand, demand);
+        }
+        double creationCost = Math.min(1.0, averageCreationTime / EXPENSIVE_CREATION_TIME_IN_MILLIS);
+        int headroom = (int) Math.ceil(peakDemand * MAX_HEADROOM * creationCost);
+
+        int target = peakDemand + headroom;
+        target = Math.max(target, pool.getSteadyPoolSize());
+        target = Math.min(target, pool.getMaxPoolSize());
+        return target;
+    }
+}
@@ -68,6 +68,11 @@ import java.util.logging.Logger;
  * iii) more than "pool-resize" quantity of resources are removed<br>
  * (1) if pool-size is less than steady-pool-size, bring it back to steady-pool-size.<br>
  * (2) if pool-size is greater than steady-pool-size, don't do anything.<br></code>
+ * <p>
+ * When a {@link PoolDemandTracker} is set (adaptive resize), the pool is sized as per the
+ * observed demand instead of the steady-pool-size : idle resources are retained and the pool
+ * is scaled down only till the target size computed by the tracker and it is scaled up to
+ * the target size.
  *
  * @author Jagadish Ramu
  */
@@ -78,6 +83,9 @@ public class
     protected PoolProperties pool;
     protected ResourceHandler handler;
     protected boolean preferValidateOverRecreate = false;
+    protected volatile PoolDemandTracker demandTracker;
+    //size to be maintained during the current run, steady-pool-size unless adaptive resize is on.
+    protected int targetPoolSize;
 
     protected final static Logger _logger = LogDomains.getLogger(Resizer.class, LogDomains.RSR_LOGGER);
 
@@ -90,6 +98,15 @@ public class
         this.preferValidateOverRecreate = preferValidateOverRecreate;
     }
 
+    /**
+     * Set the demand tracker to be used for adaptive resize, null to turn it off.
+     *
+     * @param demandTracker demand tracker of the pool
+     */
+    public void setDemandTracker(PoolDemandTracker demandTracker) {
+        this.demandTracker = demandTracker;
+    }
+
     public void run() {
         debug("Resizer for pool " + poolInfo);
         try {
@@ -107,6 +124,14 @@ public class
      */
     public void resizePool(boolean forced) {
 
+        PoolDemandTracker tracker = demandTracker;
+        if (tracker != null) {
+            targetPoolSize = tracker.nextTargetPoolSize(pool);
+            debug("Adaptive resize : target size of pool [ " + poolInfo + " ] is " + targetPoolSize);
+        } else {
+            targetPoolSize = pool.getSteadyPoolSize();
+        }
+
         //If the wait queue is NOT empty, don't do anything.
         if (pool.getWaitQueueLength() > 0) {
             return;
@@ -126,13 +151,13 @@ public class
     }
 
     /**
-     * Make sure that steady pool size is maintained after all idle-timed-out,
-     * invalid and scale-down resource removals.
+     * Make sure that steady pool size (target size in case of adaptive resize) is
+     * maintained after all idle-timed-out, invalid and scale-down resource removals.
      */
     private void ensureSteadyPool() {
-        if (ds.getResourcesSize() < pool.getSteadyPoolSize()) {
+        if (ds.getResourcesSize() < targetPoolSize) {
             // Create resources to match the steady pool size
-            for (int i = ds.getResourcesSize(); i < pool.getSteadyPoolSize(); i++) {
+            for (int i = ds.getResourcesSize(); i < targetPoolSize; i++) {
                 try {
                     handler.createResourceAndAddToPool();
                 } catch (PoolingException ex) {
@@ -153,7 +178,7 @@ public class
 
         if (pool.getResizeQuantity() > 0 && forced) {
 
-            scaleDownQuantity = (scaleDownQuantity <= (ds.getResourcesSize() - pool.getSteadyPoolSize())) ? scaleDownQuantity : 0;
+            scaleDownQuantity = (scaleDownQuantity <= (ds.getResourcesSize() - targetPoolSize)) ? scaleDownQuantity : 0;
 
             ResourceHandle h;
             while (scaleDownQuantity > 0 && ((h = ds.getResource()) != null)) {
@@ -193,6 +218,11 @@ public class
                     validConnectionsCounter++;
                     resourcesToValidate.add(h.toString());
                     activeResources.add(h);
+                } else if (isRetainedForDemand(ds.getResourcesSize())) {
+                    //idle, but needed to serve the observed demand.
+                    validConnectionsCounter++;
+                    resourcesToValidate.add(h.toString());
+                    activeResources.add(h);
                 } else {
                     boolean isResourceEligibleForRemoval = 
                             isResourceEligibleForRemoval(h, validConnectionsCounter);
@@ -292,6 +322,17 @@ public class
     }
 
 
+    /**
+     * In case of adaptive resize, idle resources are not removed as long as
+     * the pool is not larger than the target size.
+     *
+     * @param poolSize pool size after the removals done so far
+     * @return boolean indicating whether the idle resource is to be retained
+     */
+    protected boolean isRetainedForDemand(int poolSize) {
+        return demandTracker != null && poolSize <= targetPoolSize;
+    }
+
     protected static void debug(String debugStatement) {
         if (_logger.isLoggable(Level.FINE))
             _logger.log(Level.FINE, debugStatement);
@@ -42,6 +42,7 @@ package com.sun.enterprise.resource.pool.waitqueue;
 
 import com.sun.logging.LogDomains;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.logging.Level;
@@ -97,8 +98,11 @@ public class DefaultPoolWaitQueue implements PoolWaitQueue {
         return result;
     }
 
-    public Collection getQueueContents() {
-        return list;
+    /**
+     * @return a copy of the queue, taken under the queue lock
+     */
+    public synchronized Collection getQueueContents() {
+        return new ArrayList(list);
     }
 
     protected void debug(String debugStatement) {
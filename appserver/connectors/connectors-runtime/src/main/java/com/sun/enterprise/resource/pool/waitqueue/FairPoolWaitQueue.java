@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.logging.LogDomains;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fair wait queue for the connection pool.<br>
+ * Requests are served in their order of arrival. A freed resource is handed over
+ * to the oldest waiting request whose deadline has not passed, so that only one
+ * thread is woken up and newly arriving requests can not take the resource away
+ * from it. Requests whose deadline has passed are skipped, their threads remove
+ * them from the queue on time-out.
+ * <p>
+ * Can be configured using the pool property
+ * <code>PoolWaitQueue=com.sun.enterprise.resource.pool.waitqueue.FairPoolWaitQueue</code>
+ */
+public class FairPoolWaitQueue implements HandOffPoolWaitQueue {
+
+    private final LinkedList list = new LinkedList();
+
+    protected final static Logger _logger = LogDomains.getLogger(FairPoolWaitQueue.class, LogDomains.RSR_LOGGER);
+
+    public FairPoolWaitQueue() {
+        debug("Initializing fair Pool Wait Queue");
+    }
+
+    public synchronized int getQueueLength() {
+        return list.size();
+    }
+
+    /**
+     * Wait requests are placed as per their order of arrival, a request that is
+     * queued again goes ahead of the requests that arrived after it.
+     * Other monitors are added at the end of the queue.
+     */
+    public synchronized void addToQueue(Object waitMonitor) {
+        if (waitMonitor instanceof PoolWaitRequest && !list.isEmpty()) {
+            long sequence = ((PoolWaitRequest) waitMonitor).getSequence();
+            Object last = list.getLast();
+            if (!(last instanceof PoolWaitRequest) || ((PoolWaitRequest) last).getSequence() > sequence) {
+                ListIterator it = list.listIterator();
+                while (it.hasNext()) {
+                    Object o = it.next();
+                    if (o instanceof PoolWaitRequest && ((PoolWaitRequest) o).getSequence() > sequence) {
+                        it.previous();
+                        it.add(waitMonitor);
+                        return;
+                    }
+                }
+            }
+        }
+        list.addLast(waitMonitor);
+    }
+
+    public synchronized boolean removeFromQueue(Object o) {
+        return list.remove(o);
+    }
+
+    public synchronized Object remove() {
+        return list.removeFirst();
+    }
+
+    public synchronized Object peek() {
+        return list.peek();
+    }
+
+    /**
+     * @return a copy of the queue, taken under the queue lock
+     */
+    public synchronized Collection getQueueContents() {
+        return new ArrayList(list);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean handOff(ResourceHandle resource) {
+        PoolWaitRequest request = null;
+        long currentTime = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator it = list.iterator();
+            while (it.hasNext()) {
+                Object o = it.next();
+                if (o instanceof PoolWaitRequest && ((PoolWaitRequest) o).offer(resource, currentTime)) {
+                    it.remove();
+                    request = (PoolWaitRequest) o;
+                    break;
+                }
+            }
+        }
+        if (request == null) {
+            return false;
+        }
+        //wake up outside the queue lock as the requesting thread holds its monitor
+        //while adding itself to (or removing itself from) the queue.
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Handing over resource " + resource + " to " + request);
+        }
+        request.wakeUp();
+        return true;
+    }
+
+    protected void debug(String debugStatement) {
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, debugStatement);
+        }
+    }
+}
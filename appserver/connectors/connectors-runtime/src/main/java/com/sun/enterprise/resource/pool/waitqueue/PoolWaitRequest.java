@@ -0,0 +1,145 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A resource request waiting in a {@link HandOffPoolWaitQueue}.<br>
+ * The request is also the monitor on which the requesting thread waits. A resource
+ * that is freed can be handed over directly to the request, in which case only the
+ * requesting thread is woken up and the resource never goes back to the free list.<br>
+ * A request keeps its order of arrival when it is queued again (eg: a handed over
+ * resource did not match), so that it is still served before newer requests.
+ */
+public class PoolWaitRequest {
+
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    private static final Object WAITING = new Object();
+    private static final Object NOT_WAITING = new Object();
+
+    private final long sequence;
+    private final long requestTime;
+    private final long deadline;
+
+    //WAITING, NOT_WAITING or the resource handed over to the request.
+    private final AtomicReference<Object> state = new AtomicReference<Object>(NOT_WAITING);
+
+    /**
+     * @param requestTime time (in milliseconds) at which the resource was requested
+     * @param maxWaitTime max-wait-time-in-millis of the pool, 0 to wait indefinitely
+     */
+    public PoolWaitRequest(long requestTime, long maxWaitTime) {
+        this.sequence = sequencer.incrementAndGet();
+        this.requestTime = requestTime;
+        this.deadline = (maxWaitTime > 0) ? requestTime + maxWaitTime : Long.MAX_VALUE;
+    }
+
+    /**
+     * order of arrival of the request, lower value indicates an older request
+     * @return long sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getRequestTime() {
+        return requestTime;
+    }
+
+    /**
+     * time (in milliseconds) after which the request can not be served
+     * @return long deadline, Long.MAX_VALUE when the request waits indefinitely
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public boolean isExpired(long currentTime) {
+        return currentTime >= deadline;
+    }
+
+    /**
+     * Marks the request as waiting, a resource can be handed over to the request
+     * till {@link #stopWaiting()} is called.<br>
+     * Must be called by the requesting thread holding the monitor of this request.
+     */
+    public void startWaiting() {
+        state.set(WAITING);
+    }
+
+    /**
+     * Marks the request as no longer waiting.<br>
+     * Must be called by the requesting thread holding the monitor of this request.
+     * @return ResourceHandle the resource handed over to the request, if any.
+     */
+    public ResourceHandle stopWaiting() {
+        Object current = state.getAndSet(NOT_WAITING);
+        return (current instanceof ResourceHandle) ? (ResourceHandle) current : null;
+    }
+
+    /**
+     * hand over the resource if the request is still waiting and its deadline has not passed.
+     * @param resource resource to be handed over
+     * @param currentTime current time in milliseconds
+     * @return boolean indicating whether the request accepted the resource
+     */
+    boolean offer(ResourceHandle resource, long currentTime) {
+        return !isExpired(currentTime) && state.compareAndSet(WAITING, resource);
+    }
+
+    /**
+     * wake up the requesting thread.
+     */
+    void wakeUp() {
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    public String toString() {
+        return "PoolWaitRequest[" + sequence + "]";
+    }
+}
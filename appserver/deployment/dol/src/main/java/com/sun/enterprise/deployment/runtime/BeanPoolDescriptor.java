@@ -54,6 +54,7 @@ public class BeanPoolDescriptor extends Descriptor implements DescriptorConstant
     private int maxWaitTimeInMillis = MAX_WAIT_TIME_DEFAULT;
     private int poolResizeQuantity = POOL_RESIZE_QTY_DEFAULT;
     private int steadyPoolSize = STEADY_POOL_SIZE_DEFAULT;
+    private String poolType = null;
 
     
     /** Default constructor. */
@@ -129,5 +130,18 @@ public class BeanPoolDescriptor extends Descriptor implements DescriptorConstant
     public void setSteadyPoolSize(int steadyPoolSize) {
         this.steadyPoolSize = steadyPoolSize;
     }
-}
 
+    /** Getter for property poolType
+    * @return Value of property poolType, null if not specified.
+    */
+    public String getPoolType() {
+        return poolType;
+    }
+    
+    /** Setter for property poolType.
+     * @param poolType New value of property poolType.
+     */
+    public void setPoolType(String poolType) {
+        this.poolType = poolType;
+    }
+}
@@ -273,10 +273,10 @@ public final class DTDRegistry {
     public static final String SUN_CMP_MAPPING_810_DTD_SYSTEM_ID =
         "http://www.sun.com/software/appserver/dtds/sun-cmp-mapping_1_2.dtd";
 
-    public static final String GF_WEBAPP_301_DTD_PUBLIC_ID = 
+    public static final String GF_WEBAPP_302_DTD_PUBLIC_ID = 
         "-//GlassFish.org//DTD GlassFish Application Server 3.1 Servlet 3.0//EN";
-    public static final String GF_WEBAPP_301_DTD_SYSTEM_ID = 
-        "http://glassfish.org/dtds/glassfish-web-app_3_0-1.dtd";
+    public static final String GF_WEBAPP_302_DTD_SYSTEM_ID = 
+        "http://glassfish.org/dtds/glassfish-web-app_3_0-2.dtd";
 
     public static final String GF_APPLICATION_601_DTD_PUBLIC_ID =
         "-//GlassFish.org//DTD GlassFish Application Server 3.1 Java EE Application 6.0//EN";
@@ -208,6 +208,7 @@ public interface RuntimeTagNames extends TagNames {
     public static final String MAX_POOL_SIZE = "max-pool-size";
     public static final String POOL_IDLE_TIMEOUT_IN_SECONDS = "pool-idle-timeout-in-seconds";
     public static final String MAX_WAIT_TIME_IN_MILLIS = "max-wait-time-in-millis";
+    public static final String POOL_TYPE = "pool-type";
     
     // BEAN-CACHE related
     public static final String BEAN_CACHE = "bean-cache";
@@ -308,6 +309,7 @@ public interface RuntimeTagNames extends TagNames {
     public static final String HTTP_METHOD = "http-method";
     public static final String DISPATCHER = "dispatcher";
     public static final String SCOPE = "scope";
+    public static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate";
     public static final String CACHE_ON_MATCH = "cache-on-match";
     public static final String CACHE_ON_MATCH_FAILURE = "cache-on-match-failure";
     public static final String MATCH_EXPR = "match-expr";
@@ -281,6 +281,12 @@ public class EjbInvocation
     // True if lock is currently held for this invocation
     private boolean holdingSFSBSerializedLock = false;
 
+    // true while the invocation is in the free list of EjbInvocationFactory
+    boolean released;
+
+    // true once the invocation was passed to an interceptor chain
+    private boolean intercepted;
+
     public ClassLoader getOriginalContextClassLoader() {
         return originalContextClassLoader;
     }
@@ -329,6 +335,71 @@ public class EjbInvocation
         this.doTxProcessingInPostInvoke = doTxProcessingInPostInvoke;
     }
 
+    /**
+     * Resets this invocation to the state of a newly created one, so that
+     * it can be reused for another call of the same container.
+     * Called by EjbInvocationFactory when the invocation is recycled.
+     * The container reference is dropped as well, EjbInvocationFactory
+     * sets it again when the invocation is reused.
+     */
+    void recycle() {
+        clearCallState();
+
+        container = null;
+        context = null;
+        transactionOperationsManager = this;
+        ejbObject = null;
+        isLocal = false;
+        isRemote = false;
+        invocationInfo = null;
+        isBusinessInterface = false;
+        isWebService = false;
+        isTimerCallback = false;
+        isMessageDriven = false;
+        isHome = false;
+        clientInterface = null;
+        method = null;
+        ejb = null;
+        exception = null;
+        exceptionFromBeanMethod = null;
+        clientTx = null;
+        transactionAttribute = 0;
+        containerStartsTx = false;
+        originalContextClassLoader = null;
+        messageContext = null;
+        methodParams = null;
+        timer = null;
+        preInvokeTxStatus = null;
+        foundInTxCache = false;
+        useFastPath = false;
+        cmcLock = null;
+        doTxProcessingInPostInvoke = false;
+        invId = 0;
+        yetToSubmitStatus = true;
+        asyncFuture = null;
+        wasCancelCalled = false;
+        webServiceTie = null;
+        webServiceMethod = null;
+        holdingSFSBSerializedLock = false;
+        interceptorIndex = 0;
+        beanMethod = null;
+        webServiceContext = null;
+        message = null;
+        soapMessage = null;
+        contextData = null;
+        intercepted = false;
+    }
+
+    /**
+     * @return true if no reference to this invocation is kept once the
+     * call completed, i.e. it is not an asynchronous invocation and no
+     * interceptor was given this invocation as its InvocationContext
+     */
+    boolean isRecyclable() {
+        return !intercepted && asyncFuture == null &&
+            (invocationInfo == null || !invocationInfo.isAsynchronous());
+    }
+
     public EjbInvocation clone() {
         EjbInvocation newInv = (EjbInvocation) super.clone();
 
@@ -484,6 +555,14 @@ public class EjbInvocation
 
     private Map      contextData;
 
+    /**
+     * Marks this invocation as handed to the interceptors of the bean, which
+     * may keep a reference on it once the call completed.
+     */
+    public void setIntercepted() {
+        intercepted = true;
+    }
+
     public InterceptorManager.InterceptorChain getInterceptorChain() {
         return (invocationInfo == null)
             ? null : invocationInfo.interceptorChain;
@@ -40,31 +40,140 @@
 
 package com.sun.ejb;
 
+import java.util.ArrayDeque;
+
 /**
  * @author Mahesh Kannan
  *         Date: Jan 30, 2008
  */
 public class EjbInvocationFactory {
 
+    /**
+     * Value of the ejb-invocation-recycling property that enables the
+     * recycling of invocations.
+     */
+    public static final String RECYCLING_ENABLED = "true";
+
+    /**
+     * Value of the ejb-invocation-recycling property that enables the
+     * recycling of invocations along with checks that a released invocation
+     * is not released twice and that a reused invocation has been reset.
+     */
+    public static final String RECYCLING_DEBUG = "debug";
+
+    // Number of released invocations kept per thread and per container
+    private static final int MAX_FREE_INVOCATIONS_PER_THREAD = 4;
+
     private String compEnvId;
 
     private Container container;
 
+    // cleared when the container is shut down, so that no invocation is
+    // released to or taken from the free lists anymore
+    private volatile boolean recycling;
+
+    private final boolean debug;
+
+    private final ThreadLocal<ArrayDeque<EjbInvocation>> freeInvocations;
+
     public EjbInvocationFactory(String compEnvId, Container container) {
+        this(compEnvId, container, null);
+    }
+
+    /**
+     * The free lists are per thread. A released invocation holds no reference
+     * to the container, its bean or its classes (see EjbInvocation.recycle()),
+     * so a list left in a pooled thread does not keep an undeployed container
+     * or its class loader reachable.
+     *
+     * @param recyclingMode null or "false" to always create new invocations,
+     * RECYCLING_ENABLED or RECYCLING_DEBUG to reuse the released ones
+     */
+    public EjbInvocationFactory(String compEnvId, Container container, String recyclingMode) {
         this.compEnvId = compEnvId;
         this.container = container;
+        this.debug = RECYCLING_DEBUG.equalsIgnoreCase(recyclingMode);
+        this.recycling = debug || RECYCLING_ENABLED.equalsIgnoreCase(recyclingMode);
+        this.freeInvocations = recycling ? new ThreadLocal<ArrayDeque<EjbInvocation>>() {
+            @Override
+            protected ArrayDeque<EjbInvocation> initialValue() {
+                return new ArrayDeque<EjbInvocation>(MAX_FREE_INVOCATIONS_PER_THREAD);
+            }
+        } : null;
     }
 
     public EjbInvocation create() {
+        if (recycling) {
+            EjbInvocation ejbInv = freeInvocations.get().pollFirst();
+            if (ejbInv != null) {
+                if (debug) {
+                    checkReset(ejbInv);
+                }
+                ejbInv.released = false;
+                ejbInv.container = container;
+                return ejbInv;
+            }
+        }
         return new EjbInvocation(compEnvId, container);
     }
 
     public <C extends ComponentContext> EjbInvocation create(Object ejb, C ctx) {
-        EjbInvocation ejbInv = new EjbInvocation(compEnvId, container);
+        EjbInvocation ejbInv = create();
         ejbInv.ejb = ejb;
         ejbInv.instance = ejb;
         ejbInv.context = ctx;
 
         return ejbInv;
     }
+
+    public boolean isRecycling() {
+        return recycling;
+    }
+
+    /**
+     * Stops the recycling of invocations, called when the container is
+     * shut down or undeployed.
+     */
+    public void disableRecycling() {
+        if (recycling) {
+            recycling = false;
+            freeInvocations.remove();
+        }
+    }
+
+    /**
+     * Give back an invocation once the call completed, so that create()
+     * can reuse it on this thread. The caller must not use the invocation
+     * anymore. Asynchronous invocations are not recycled, as the future
+     * of the call keeps a reference on them, nor are the invocations that
+     * went through an interceptor chain, as an interceptor may keep its
+     * InvocationContext.
+     */
+    public void release(EjbInvocation ejbInv) {
+        if (!recycling || !ejbInv.isRecyclable()) {
+            return;
+        }
+        if (ejbInv.released) {
+            if (debug) {
+                throw new IllegalStateException("EjbInvocation released twice: " + ejbInv);
+            }
+            return;
+        }
+        ejbInv.recycle();
+        ejbInv.released = true;
+        ArrayDeque<EjbInvocation> free = freeInvocations.get();
+        if (free.size() < MAX_FREE_INVOCATIONS_PER_THREAD) {
+            free.addFirst(ejbInv);
+        }
+    }
+
+    private void checkReset(EjbInvocation ejbInv) {
+        if (!ejbInv.released || ejbInv.container != null || ejbInv.ejb != null || ejbInv.instance != null
+                || ejbInv.context != null || ejbInv.method != null
+                || ejbInv.invocationInfo != null || ejbInv.exception != null
+                || ejbInv.transaction != null || ejbInv.getAuth() != null
+                || ejbInv.isPreInvokeDone() || ejbInv.methodParams != null) {
+            throw new IllegalStateException("Reused EjbInvocation has not been reset: " + ejbInv);
+        }
+    }
 }
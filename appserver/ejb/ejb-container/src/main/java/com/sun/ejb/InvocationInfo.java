@@ -40,6 +40,7 @@
 
 package com.sun.ejb;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 
 import com.sun.ejb.containers.interceptors.InterceptorManager;
@@ -82,6 +83,11 @@ public class InvocationInfo {
     public Method     targetMethod2;
     public boolean    ejbIntfOverride;
 
+    // Invoker of targetMethod1 of type (Object, Object[])Object, linked
+    // when the container starts. Null if targetMethod1 is invoked through
+    // reflection.
+    public MethodHandle targetMethodInvoker;
+
     public boolean    flushEnabled;
     public boolean    checkpointEnabled;
 
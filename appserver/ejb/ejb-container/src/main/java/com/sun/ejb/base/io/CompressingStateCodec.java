@@ -0,0 +1,87 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.base.io;
+
+import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
+import com.sun.enterprise.util.io.LZCompressor;
+
+/**
+ * A StateCodec that compresses large states. The state is written with Java
+ * serialization, with the full class descriptors (once per state), so that
+ * it can be read by another version of the classes or by another instance;
+ * compression mostly removes the repeated class and field names. The state
+ * is always encoded whole, not as a delta against a replicated version.
+ */
+public class CompressingStateCodec
+    extends JavaSerializationStateCodec
+{
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    private final int compressionThreshold;
+
+    public CompressingStateCodec(JavaEEIOUtils javaEEIOUtils) {
+        this(javaEEIOUtils, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * @param compressionThreshold size in bytes above which the state is
+     *      compressed, a negative value to disable compression
+     */
+    public CompressingStateCodec(JavaEEIOUtils javaEEIOUtils, int compressionThreshold) {
+        super(javaEEIOUtils);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] encode(Object state)
+        throws java.io.IOException
+    {
+        byte[] data = javaEEIOUtils.serializeObject(state, true);
+        if (compressionThreshold >= 0 && data.length > compressionThreshold) {
+            byte[] compressed = LZCompressor.compress(data);
+            if (compressed.length < data.length) {
+                return compressed;
+            }
+        }
+        return data;
+    }
+
+}
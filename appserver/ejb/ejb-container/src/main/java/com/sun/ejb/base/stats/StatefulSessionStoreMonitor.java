@@ -119,6 +119,20 @@ public class StatefulSessionStoreMonitor {
 	}
     }
 
+    public final void setPassivationWriteLatency(long val) {
+	StatefulSessionStoreStatsImpl delegate = statsImpl;
+	if (delegate != null) {
+	    delegate.setPassivationWriteLatency(val);
+	}
+    }
+
+    public final void incrementPassivationBackPressureCount() {
+	StatefulSessionStoreStatsImpl delegate = statsImpl;
+	if (delegate != null) {
+	    delegate.incrementPassivationBackPressureCount();
+	}
+    }
+
     public final void incrementExpiredSessionsRemoved(long val) {
 	StatefulSessionStoreStatsImpl delegate = statsImpl;
 	if (delegate != null) {
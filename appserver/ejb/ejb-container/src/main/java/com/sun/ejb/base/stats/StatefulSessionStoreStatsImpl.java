@@ -86,6 +86,9 @@ public class StatefulSessionStoreStatsImpl
 
     private MutableAverageRangeStatisticImpl	passivationSize;
     private MutableAverageRangeStatisticImpl	passivationTime;
+    private MutableAverageRangeStatisticImpl	passivationWriteLatency;
+
+    private MutableCountStatisticImpl		passivationBackPressureCount;
 
     private Object currentSizeLock = new Object();
 
@@ -96,6 +99,8 @@ public class StatefulSessionStoreStatsImpl
     private Object passivationCountLock = new Object();
     private Object passivationSizeLock = new Object();
     private Object passivationTimeLock = new Object();
+    private Object passivationWriteLatencyLock = new Object();
+    private Object passivationBackPressureCountLock = new Object();
 
     private Object expiredSessionCountLock = new Object();
 
@@ -109,6 +114,8 @@ public class StatefulSessionStoreStatsImpl
 
     private long    expiredSessionCountVal;
 
+    private long    passivationBackPressureCountVal;
+
     public StatefulSessionStoreStatsImpl(
 	MonitorableSFSBStoreManager provider)
     {
@@ -188,6 +195,19 @@ public class StatefulSessionStoreStatsImpl
 			"millis", "Time spent on passivation", now, now)
 	    );
 	}
+
+	synchronized (passivationWriteLatencyLock) {
+	    passivationWriteLatency = new MutableAverageRangeStatisticImpl(
+	    	new BoundedRangeStatisticImpl(0, 0, Long.MAX_VALUE,
+			Long.MAX_VALUE, 0, "PassivationWriteLatency",
+			"millis", "Time between the passivation of a bean and the write of its state to the store", now, now)
+	    );
+	}
+
+	synchronized (passivationBackPressureCountLock) {
+	    passivationBackPressureCount = new MutableCountStatisticImpl(
+		new CountStatisticImpl("PassivationBackPressureCount"));
+	}
     }
 
     /**
@@ -306,6 +326,27 @@ public class StatefulSessionStoreStatsImpl
 	    return (AverageRangeStatistic) passivationTime.unmodifiableView();
 	}
     }
+
+    /**
+     * Returns the time between the passivation of beans and the write of
+     * their state to the store including total, min, max
+     */
+    public AverageRangeStatistic getPassivationWriteLatency() {
+	synchronized (passivationWriteLatencyLock) {
+	    return (AverageRangeStatistic) passivationWriteLatency.unmodifiableView();
+	}
+    }
+
+    /**
+     * Returns the number of times passivation waited for the pending
+     * writes to the store to drain
+     */
+    public CountStatistic getPassivationBackPressureCount() {
+	synchronized (passivationBackPressureCountLock) {
+	    passivationBackPressureCount.setCount(passivationBackPressureCountVal);
+	    return (CountStatistic) passivationBackPressureCount.unmodifiableView();
+	}
+    }
     
     //The following methods are called from StatefulSessionStoreMonitor
     //
@@ -355,6 +396,18 @@ public class StatefulSessionStoreStatsImpl
 	}
     }
 
+    void setPassivationWriteLatency(long val) {
+	synchronized (passivationWriteLatencyLock) {
+	    passivationWriteLatency.setCount(val);
+	}
+    }
+
+    void incrementPassivationBackPressureCount() {
+	synchronized (passivationBackPressureCountLock) {
+	    passivationBackPressureCountVal++;
+	}
+    }
+
     void incrementExpiredSessionCountVal(long val) {
 	synchronized (expiredSessionCountLock) {
 	    expiredSessionCountVal += val;
@@ -377,12 +430,15 @@ public class StatefulSessionStoreStatsImpl
 	    .append("PassivationErrorCount=").append(passivationErrorCountVal)
 	    .append("; ")
 	    .append("ExpiredSessionsRemoved=").append(expiredSessionCountVal)
+	    .append("; ")
+	    .append("PassivationBackPressureCount=").append(passivationBackPressureCountVal)
 	    .append("; ");
 
 	appendTimeStatistic(sbuf, "ActivationSize", activationSize);
 	appendTimeStatistic(sbuf, "ActivationTime", activationTime);
 	appendTimeStatistic(sbuf, "PassivationSize", passivationSize);
 	appendTimeStatistic(sbuf, "PassivationTime", passivationTime);
+	appendTimeStatistic(sbuf, "PassivationWriteLatency", passivationWriteLatency);
 
     }
 
@@ -41,6 +41,9 @@
 package com.sun.ejb.containers;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
@@ -151,6 +154,7 @@ import org.glassfish.deployment.common.DeploymentException;
 import org.glassfish.deployment.common.Descriptor;
 import org.glassfish.ejb.LogFacade;
 import org.glassfish.ejb.api.EjbEndpointFacade;
+import org.glassfish.ejb.config.EjbContainer;
 import org.glassfish.ejb.deployment.descriptor.EjbApplicationExceptionInfo;
 import org.glassfish.ejb.deployment.descriptor.EjbBundleDescriptorImpl;
 import org.glassfish.ejb.deployment.descriptor.EjbDescriptor;
@@ -188,6 +192,12 @@ public abstract class BaseContainer
 
     protected static final Logger _logger  = LogFacade.getLogger();
 
+    private static final MethodType METHOD_INVOKER_TYPE =
+            MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    // ejb-container property to reuse EjbInvocation objects : true or debug
+    private static final String EJB_INVOCATION_RECYCLING_PROPERTY = "ejb-invocation-recycling";
+
     @LogMessageInfo(
         message = "The feature {0} requires Full Java EE Profile to be supported",
         level = "WARNING")
@@ -952,6 +962,7 @@ public abstract class BaseContainer
             for(Object o : invocationInfoMap.values()) {
                 InvocationInfo next = (InvocationInfo) o;
                 setInterceptorChain(next);
+                next.targetMethodInvoker = createMethodInvoker(next.targetMethod1);
             }
             for(Object o : this.webServiceInvocationInfoMap.values()) {
                 InvocationInfo next = (InvocationInfo) o;
@@ -979,6 +990,35 @@ public abstract class BaseContainer
         }
     }
     
+    /**
+     * Links a method handle invoking the bean class method, with the
+     * parameters spread from an array as for Method.invoke(). Unlike
+     * Method.invoke(), the handle does not check the access and the
+     * arguments on every call.
+     *
+     * @return null if the method cannot be linked
+     */
+    private static MethodHandle createMethodInvoker(Method beanClassMethod) {
+        if (beanClassMethod == null || Modifier.isStatic(beanClassMethod.getModifiers())) {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().unreflect(beanClassMethod)
+                    .asSpreader(Object[].class, beanClassMethod.getParameterTypes().length)
+                    .asType(METHOD_INVOKER_TYPE);
+        } catch (IllegalAccessException iae) {
+            _logger.log(Level.FINE, "Bean class method {0} is invoked through reflection: {1}",
+                    new Object[]{beanClassMethod, iae});
+            return null;
+        }
+    }
+
+    private static MethodHandle getTargetMethodInvoker(EjbInvocation inv, Method beanClassMethod) {
+        InvocationInfo info = inv.invocationInfo;
+        return (info != null && info.targetMethod1 == beanClassMethod)
+                ? info.targetMethodInvoker : null;
+    }
+
     public final void setStoppedState() {
         containerState = CONTAINER_STOPPED;
     }
@@ -3736,6 +3776,15 @@ public abstract class BaseContainer
         return invFactory.create(ejb, context);
     }
 
+    /**
+     * Called by the invocation handlers once postInvoke() completed and the
+     * outcome of the call has been read from the invocation, so that the
+     * invocation can be reused when recycling is enabled.
+     */
+    void releaseEjbInvocation(EjbInvocation inv) {
+        invFactory.release(inv);
+    }
+
     // default impl
     protected EJBLocalHomeInvocationHandler getEJBLocalHomeInvocationHandler(Class homeIntfClass) throws Exception {
         return new EJBLocalHomeInvocationHandler(ejbDescriptor, homeIntfClass);
@@ -4002,7 +4051,10 @@ public abstract class BaseContainer
 
         ComponentEnvManager envManager = ejbContainerUtilImpl.getComponentEnvManager();
         componentId = envManager.bindToComponentNamespace(ejbDescriptor);
-        invFactory = new EjbInvocationFactory(componentId, this);
+        EjbContainer ejbContainerConfig = ejbContainerUtilImpl.getEjbContainer();
+        String recycling = (ejbContainerConfig == null)
+                ? null : ejbContainerConfig.getPropertyValue(EJB_INVOCATION_RECYCLING_PROPERTY);
+        invFactory = new EjbInvocationFactory(componentId, this, recycling);
         ejbContainerUtilImpl.registerContainer(this);
         // create envProps object to be returned from EJBContext.getEnvironment
         Set env = ejbDescriptor.getEnvironmentProperties();
@@ -4167,6 +4219,18 @@ public abstract class BaseContainer
         //callFlowAgent.endTime();
     }
 
+    final void onAsyncTaskQueued() {
+        ejbProbeNotifier.asyncTaskQueuedEvent(getContainerId(),
+                containerInfo.appName, containerInfo.modName,
+                containerInfo.ejbName);
+    }
+
+    final void onAsyncTaskStarted(long queueTime) {
+        ejbProbeNotifier.asyncTaskStartedEvent(getContainerId(),
+                containerInfo.appName, containerInfo.modName,
+                containerInfo.ejbName, queueTime);
+    }
+
     private void enteringEjbContainer() {
         if (interceptors == null)
             return;
@@ -4242,8 +4306,8 @@ public abstract class BaseContainer
                 return inv.getBeanMethod().invoke(inv.ejb, inv.methodParams);
             } else {
 
-                return securityManager.invoke(beanClassMethod, inv.isLocal, target,
-                        params);
+                return securityManager.invoke(getTargetMethodInvoker(inv, beanClassMethod),
+                        beanClassMethod, inv.isLocal, target, params);
             }
         } catch (InvocationTargetException ite) {
             inv.exception = ite.getCause();
@@ -4374,6 +4438,10 @@ public abstract class BaseContainer
                 ((EjbContainerUtilImpl) ejbContainerUtilImpl).getEjbAsyncInvocationManager();
             asyncManager.cleanupContainerTasks(this);
         }
+
+        if( invFactory != null ) {
+            invFactory.disableRecycling();
+        }
         
 
         final Thread currentThread = Thread.currentThread();
@@ -4789,6 +4857,7 @@ public abstract class BaseContainer
         if (interceptorManager.hasInterceptors()) {
             try {
                 onEjbMethodStart(inv.invocationInfo.str_method_sig);
+                inv.setIntercepted();
                 result = interceptorManager.intercept(inv.getInterceptorChain(), inv);
             } catch(Throwable t) {
                 inv.exception = t;
@@ -4817,7 +4886,9 @@ public abstract class BaseContainer
     {
         try {
 
-            return securityManager.invoke(inv.getBeanMethod(), inv.isLocal, inv.ejb,
+            Method beanMethod = inv.getBeanMethod();
+            return securityManager.invoke(getTargetMethodInvoker(inv, beanMethod),
+                                       beanMethod, inv.isLocal, inv.ejb,
                                        inv.getParameters());
           
         } catch(InvocationTargetException ite) {
@@ -219,10 +219,13 @@ public final class EJBLocalObjectInvocationHandler
         } finally {
             container.postInvoke(inv);
         }
-            
-        if (inv.exception != null) {
+
+        Throwable exception = inv.exception;
+        container.releaseEjbInvocation(inv);
+
+        if (exception != null) {
             InvocationHandlerUtil.throwLocalException
-                (inv.exception, method.getExceptionTypes());
+                (exception, method.getExceptionTypes());
         }
 
         return returnValue;
@@ -0,0 +1,339 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.ejb.EjbInvocation;
+import org.glassfish.ejb.deployment.descriptor.EjbDescriptor;
+
+/**
+ * Executor of the asynchronous EJB methods, used in place of the default
+ * EjbThreadPoolExecutor when the ejb-container property async-executor is
+ * set to work-stealing.
+ * <p/>
+ * The tasks are queued per application, or per bean, so that a large batch
+ * of asynchronous calls of one application does not delay the calls of the
+ * others : the queues that have tasks are served in turn. Each queue belongs
+ * to a priority lane, high, normal or low, and the workers serve the higher
+ * lanes first. One worker run out of eight serves the lanes in the reverse
+ * order so that the low lane is not starved.
+ * <p/>
+ * The workers are the threads of a ForkJoinPool. A run ticket is given to
+ * the pool for each queued task, and the ticket runs the next task of the
+ * lanes when a worker picks it. The tickets given by a worker, when an
+ * asynchronous method calls another one, go to its own deque and idle
+ * workers steal them.
+ */
+public class EjbAsyncExecutor {
+
+    private static final Logger _logger = EjbContainerUtilImpl.getLogger();
+
+    enum Priority { HIGH, NORMAL, LOW }
+
+    private static final int REVERSE_ORDER_PERIOD = 8;
+
+    private final ForkJoinPool workers;
+
+    private final boolean queuePerBean;
+
+    private final Set<String> highPriorityNames;
+
+    private final Set<String> lowPriorityNames;
+
+    private final ConcurrentLinkedQueue<TaskQueue>[] lanes;
+
+    private final ConcurrentHashMap<String, TaskQueue> queues =
+            new ConcurrentHashMap<String, TaskQueue>();
+
+    private final AtomicInteger queuedTaskCount = new AtomicInteger();
+
+    private final AtomicLong ticketCount = new AtomicLong();
+
+    // number of tickets that found no task while tasks were queued, each of
+    // them is given again to the pool when a queue is put back in its lane
+    private final AtomicInteger missedTickets = new AtomicInteger();
+
+    /**
+     * @param poolName prefix of the names of the worker threads
+     * @param parallelism number of workers
+     * @param queuePerBean true to queue the tasks per bean, false to queue
+     * them per application
+     * @param highPriorityNames names of the applications and beans whose
+     * tasks are queued in the high priority lane
+     * @param lowPriorityNames names of the applications and beans whose
+     * tasks are queued in the low priority lane
+     */
+    @SuppressWarnings("unchecked")
+    EjbAsyncExecutor(String poolName, int parallelism, boolean queuePerBean,
+            Set<String> highPriorityNames, Set<String> lowPriorityNames) {
+        this.queuePerBean = queuePerBean;
+        this.highPriorityNames = highPriorityNames;
+        this.lowPriorityNames = lowPriorityNames;
+        lanes = new ConcurrentLinkedQueue[Priority.values().length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ConcurrentLinkedQueue<TaskQueue>();
+        }
+        workers = new ForkJoinPool(parallelism, new WorkerThreadFactory(poolName),
+                null, true);
+    }
+
+    /**
+     * Parse a comma separated list of application or bean names.
+     */
+    static Set<String> parseNames(String names) {
+        if (names == null || names.trim().length() == 0) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<String>();
+        for (String name : names.split(",")) {
+            name = name.trim();
+            if (name.length() > 0) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Queue the task of an asynchronous invocation.
+     *
+     * @return the future of the task
+     * @throws RejectedExecutionException if the executor has been shut down
+     */
+    EjbFutureTask submit(EjbFutureTask futureTask) {
+        EjbInvocation inv = futureTask.getEjbAsyncTask().getEjbInvocation();
+        TaskQueue queue = getQueue(((BaseContainer) inv.container).getEjbDescriptor());
+
+        queue.tasks.add(futureTask);
+        queue.depth.incrementAndGet();
+        queuedTaskCount.incrementAndGet();
+        if (queue.scheduled.compareAndSet(false, true)) {
+            putBack(lanes[queue.priority.ordinal()], queue);
+        }
+        workers.execute(new RunTicket());
+
+        return futureTask;
+    }
+
+    /**
+     * Remove the queue of a container that is shutting down, if it has no
+     * more tasks.
+     */
+    void removeQueue(EjbDescriptor ejbDescriptor) {
+        String key = getQueueKey(ejbDescriptor);
+        TaskQueue queue = queues.get(key);
+        if (queue != null && queue.depth.get() == 0) {
+            queues.remove(key, queue);
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting for a worker
+     */
+    int getQueuedTaskCount() {
+        return queuedTaskCount.get();
+    }
+
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private TaskQueue getQueue(EjbDescriptor ejbDescriptor) {
+        String key = getQueueKey(ejbDescriptor);
+        TaskQueue queue = queues.get(key);
+        if (queue == null) {
+            String appName = ejbDescriptor.getApplication().getAppName();
+            String ejbName = ejbDescriptor.getName();
+            Priority priority = Priority.NORMAL;
+            if (highPriorityNames.contains(appName) || highPriorityNames.contains(ejbName)) {
+                priority = Priority.HIGH;
+            } else if (lowPriorityNames.contains(appName) || lowPriorityNames.contains(ejbName)) {
+                priority = Priority.LOW;
+            }
+            TaskQueue newQueue = new TaskQueue(key, priority);
+            queue = queues.putIfAbsent(key, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "Created async task queue " + key
+                            + " with priority " + priority);
+                }
+            }
+        }
+        return queue;
+    }
+
+    private String getQueueKey(EjbDescriptor ejbDescriptor) {
+        String appName = ejbDescriptor.getApplication().getAppName();
+        return queuePerBean ? appName + "/" + ejbDescriptor.getName() : appName;
+    }
+
+    /**
+     * Take the next task from the lanes. The queue the task comes from is
+     * put back at the end of its lane if it still has tasks.
+     */
+    private Runnable nextTask(boolean reverseOrder) {
+        for (int i = 0; i < lanes.length; i++) {
+            ConcurrentLinkedQueue<TaskQueue> lane = lanes[reverseOrder ? lanes.length - 1 - i : i];
+            TaskQueue queue = lane.poll();
+            if (queue == null) {
+                continue;
+            }
+            // A queue is in a lane at most once and only while it has tasks
+            Runnable task = queue.tasks.poll();
+            queue.depth.decrementAndGet();
+            queuedTaskCount.decrementAndGet();
+            if (!queue.tasks.isEmpty()) {
+                putBack(lane, queue);
+            } else {
+                queue.scheduled.set(false);
+                if (!queue.tasks.isEmpty() && queue.scheduled.compareAndSet(false, true)) {
+                    putBack(lane, queue);
+                }
+            }
+            return task;
+        }
+        return null;
+    }
+
+    /**
+     * Put a queue that has tasks in its lane, and give a missed ticket back
+     * to the pool as it can now take a task from that queue.
+     */
+    private void putBack(ConcurrentLinkedQueue<TaskQueue> lane, TaskQueue queue) {
+        lane.add(queue);
+        while (true) {
+            int missed = missedTickets.get();
+            if (missed <= 0) {
+                return;
+            }
+            if (missedTickets.compareAndSet(missed, missed - 1)) {
+                break;
+            }
+        }
+        try {
+            workers.execute(new RunTicket());
+        } catch (RejectedExecutionException e) {
+            // The executor is shutting down
+            missedTickets.incrementAndGet();
+        }
+    }
+
+    private static class TaskQueue {
+        final String key;
+        final Priority priority;
+        final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        final AtomicInteger depth = new AtomicInteger();
+        // true while the queue is in its lane
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        TaskQueue(String key, Priority priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Runs one task. There are as many tickets as queued tasks, yet a ticket
+     * finds no task while another worker holds the queue it would take from.
+     * Rather than waiting for that worker, the ticket is counted as missed
+     * and the worker is released : the ticket is given again to the pool when
+     * the queue is put back in its lane.
+     */
+    private class RunTicket implements Runnable {
+        public void run() {
+            boolean reverseOrder = ticketCount.incrementAndGet() % REVERSE_ORDER_PERIOD == 0;
+            Runnable task = nextTask(reverseOrder);
+            if (task == null) {
+                if (getQueuedTaskCount() <= 0) {
+                    return;
+                }
+                missedTickets.incrementAndGet();
+                // The queue may have been put back before the ticket was counted
+                task = nextTask(reverseOrder);
+                if (task == null) {
+                    return;
+                }
+                while (true) {
+                    int missed = missedTickets.get();
+                    if (missed <= 0 || missedTickets.compareAndSet(missed, missed - 1)) {
+                        break;
+                    }
+                }
+            }
+            try {
+                task.run();
+            } finally {
+                EjbThreadPoolExecutor.clearThreadTransaction();
+            }
+        }
+    }
+
+    private static class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final AtomicInteger threadId = new AtomicInteger(0);
+        private final String threadPoolName;
+
+        WorkerThreadFactory(String threadPoolName) {
+            this.threadPoolName = threadPoolName;
+        }
+
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread th = new ForkJoinWorkerThread(pool) {};
+            th.setName(threadPoolName + threadId.incrementAndGet());
+            th.setDaemon(true);
+            th.setContextClassLoader(null); //Prevent any app classloader being set as CCL
+            return th;
+        }
+    }
+}
@@ -142,8 +142,14 @@ public class EjbAsyncInvocationManager {
         // before authorization.
         futureTask.getEjbAsyncTask().initialize(asyncInv);
         
+        BaseContainer container = (BaseContainer) asyncInv.container;
         EjbContainerUtil ejbContainerUtil = EjbContainerUtilImpl.getInstance();
-        return ejbContainerUtil.getThreadPoolExecutor(null).submit(futureTask.getEjbAsyncTask());
+        EjbAsyncExecutor asyncExecutor = ejbContainerUtil.getAsyncExecutor();
+        Future result = (asyncExecutor != null)
+                ? asyncExecutor.submit(futureTask)
+                : ejbContainerUtil.getThreadPoolExecutor(null).submit(futureTask.getEjbAsyncTask());
+        container.onAsyncTaskQueued();
+        return result;
     }
 
     public void cleanupContainerTasks(Container container) {
@@ -172,6 +178,11 @@ public class EjbAsyncInvocationManager {
             }
         }
 
+        EjbAsyncExecutor asyncExecutor = EjbContainerUtilImpl.getInstance().getAsyncExecutor();
+        if (asyncExecutor != null) {
+            asyncExecutor.removeQueue(container.getEjbDescriptor());
+        }
+
         _logger.log(Level.FINE, "Cleaning up " + removedTasks.size() + "async tasks for " +
                    "EJB " + container.getEjbDescriptor().getName() + " .  Total of " +
                    remoteTaskMap.size() + " remaining");
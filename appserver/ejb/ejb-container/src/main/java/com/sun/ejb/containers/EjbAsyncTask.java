@@ -64,9 +64,12 @@ public class EjbAsyncTask<V>
 
     private SecurityContext callerSecurityContext;
 
+    private long submitTime;
+
     public void initialize(EjbInvocation inv) {
         this.inv = inv;
         this.ejbFutureTask = inv.getEjbFutureTask();
+        this.submitTime = System.currentTimeMillis();
 
         // Capture calling thread's security context and set
         // it on dispatch thread.
@@ -89,6 +92,7 @@ public class EjbAsyncTask<V>
             throws Exception {
         V returnValue = null;
         BaseContainer container = (BaseContainer) inv.container;
+        container.onAsyncTaskStarted(System.currentTimeMillis() - submitTime);
         ClassLoader prevCL = Thread.currentThread().getContextClassLoader();
         try {
             Utility.setContextClassLoader(container.getClassLoader());
@@ -159,6 +159,13 @@ public interface EjbContainerUtil {
     
     public ThreadPoolExecutor getThreadPoolExecutor(String poolName);
 
+    /**
+     * @return the executor of the asynchronous methods when the
+     * work-stealing async executor is configured, null if they are run by
+     * the default thread pool
+     */
+    public EjbAsyncExecutor getAsyncExecutor();
+
     public JavaEEIOUtils getJavaEEIOUtils();
 
     public Deployment getDeployment();
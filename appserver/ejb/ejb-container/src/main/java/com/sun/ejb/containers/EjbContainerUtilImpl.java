@@ -111,6 +111,18 @@ public class EjbContainerUtilImpl
     private static Logger _logger = LogDomains.getLogger(EjbContainerUtilImpl.class, LogDomains.EJB_LOGGER);
 
     private ThreadPoolExecutor defaultThreadPoolExecutor;
+
+    private EjbAsyncExecutor asyncExecutor;
+
+    // ejb-container properties of the executor of the asynchronous methods
+    private static final String ASYNC_EXECUTOR = "async-executor";
+    private static final String WORK_STEALING_ASYNC_EXECUTOR = "work-stealing";
+    private static final String ASYNC_THREADS = "async-threads";
+    private static final String ASYNC_QUEUE_PER = "async-queue-per";
+    private static final String ASYNC_QUEUE_PER_BEAN = "bean";
+    private static final String ASYNC_HIGH_PRIORITY = "async-high-priority";
+    private static final String ASYNC_LOW_PRIORITY = "async-low-priority";
+    private static final String ASYNC_THREAD_POOL_NAME = "__ejb-async-thread-pool";
     
     @Inject
     private ServiceLocator services;
@@ -192,6 +204,7 @@ public class EjbContainerUtilImpl
         }
 
         defaultThreadPoolExecutor = createThreadPoolExecutor(DEFAULT_THREAD_POOL_NAME);
+        asyncExecutor = createAsyncExecutor();
         
         //avoid starting JDK timer in application class loader.  The life of _timer
         //field is longer than deployed apps, and any reference to app class loader
@@ -217,6 +230,10 @@ public class EjbContainerUtilImpl
             defaultThreadPoolExecutor.shutdown();
             defaultThreadPoolExecutor = null;
         }
+        if( asyncExecutor != null ) {
+            asyncExecutor.shutdown();
+            asyncExecutor = null;
+        }
         EJBTimerService.onShutdown();
         EJBTimerService.unsetEJBTimerService();
     }
@@ -504,6 +521,49 @@ public class EjbContainerUtilImpl
         return result;
     }
     
+    private EjbAsyncExecutor createAsyncExecutor() {
+        String val = ejbContainer.getPropertyValue(ASYNC_EXECUTOR);
+        if (!WORK_STEALING_ASYNC_EXECUTOR.equalsIgnoreCase(val)) {
+            return null;
+        }
+
+        val = ejbContainer.getPropertyValue(ASYNC_THREADS);
+        if (val == null) {
+            val = ejbContainer.getPropertyValue(RuntimeTagNames.THREAD_MAX_POOL_SIZE);
+        }
+        int parallelism = EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE;
+        if (val != null) {
+            try {
+                parallelism = Integer.parseInt(val.trim());
+            } catch (NumberFormatException e) {
+                parallelism = 0;
+            }
+            if (parallelism <= 0) {
+                _logger.log(Level.WARNING, "Invalid number of async threads " + val
+                        + ", using " + EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE);
+                parallelism = EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE;
+            }
+        }
+
+        boolean queuePerBean = ASYNC_QUEUE_PER_BEAN.equalsIgnoreCase(
+                ejbContainer.getPropertyValue(ASYNC_QUEUE_PER));
+
+        EjbAsyncExecutor result = new EjbAsyncExecutor(ASYNC_THREAD_POOL_NAME, parallelism,
+                queuePerBean,
+                EjbAsyncExecutor.parseNames(ejbContainer.getPropertyValue(ASYNC_HIGH_PRIORITY)),
+                EjbAsyncExecutor.parseNames(ejbContainer.getPropertyValue(ASYNC_LOW_PRIORITY)));
+
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("Created work-stealing async executor with " + parallelism
+                    + " threads, queue per " + (queuePerBean ? "bean" : "application"));
+        }
+        return result;
+    }
+
+    public EjbAsyncExecutor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
     public ThreadPoolExecutor getThreadPoolExecutor(String poolName) {
         if(poolName == null) {
             return defaultThreadPoolExecutor;
@@ -86,6 +86,14 @@ public class EjbThreadPoolExecutor extends ThreadPoolExecutor {
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
+        clearThreadTransaction();
+    }
+
+    /**
+     * Clear a transaction that a task left associated with the current
+     * thread of the pool.
+     */
+    static void clearThreadTransaction() {
         try {
             JavaEETransactionManager tm = EjbContainerUtilImpl.getInstance().getTransactionManager();
             if (tm.getTransaction() != null) {
@@ -54,6 +54,8 @@ import com.sun.appserv.util.cache.CacheListener;
 import com.sun.ejb.Container;
 import com.sun.ejb.ContainerFactory;
 import com.sun.ejb.base.container.util.CacheProperties;
+import com.sun.ejb.base.io.CompressingStateCodec;
+import com.sun.ejb.base.io.JavaSerializationStateCodec;
 import com.sun.ejb.base.sfsb.util.ScrambledKeyGenerator;
 import com.sun.ejb.base.sfsb.util.SimpleKeyGenerator;
 import com.sun.ejb.containers.util.cache.FIFOSessionCache;
@@ -62,6 +64,7 @@ import com.sun.ejb.containers.util.cache.NRUSessionCache;
 import com.sun.ejb.containers.util.cache.UnBoundedSessionCache;
 import com.sun.enterprise.config.serverbeans.AvailabilityService;
 import com.sun.enterprise.config.serverbeans.Config;
+import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
 import com.sun.enterprise.security.SecurityManager;
 import com.sun.enterprise.util.Utility;
 import com.sun.logging.LogDomains;
@@ -175,6 +178,11 @@ public class StatefulContainerFactory extends BaseContainerFactory
 
     private static final Level TRACE_LEVEL = Level.FINE;
 
+    // ejb-container property selecting how SFSB state is encoded : "java"
+    // (the default) or "compressed"
+    private static final String SFSB_STATE_CODEC_PROPERTY = "sfsb-state-codec";
+    private static final String COMPRESSED_STATE_CODEC = "compressed";
+
     private EjbDescriptor		    ejbDescriptor;
 
     private StatefulSessionContainer sfsbContainer;
@@ -258,6 +266,7 @@ public class StatefulContainerFactory extends BaseContainerFactory
 
         buildCheckpointPolicy(this.HAEnabled);
         buildSFSBUUIDUtil(ipAddress, port);
+        buildStateCodec();
 
         //First build BackingStore before Cache is built
         if (sessionDescriptor.isPassivationCapable()){
@@ -281,6 +290,21 @@ public class StatefulContainerFactory extends BaseContainerFactory
         sfsbContainer.setHAEnabled(haEnabled);
     }
 
+    private void buildStateCodec() {
+        String codec = (ejbContainerConfig == null)
+                ? null : ejbContainerConfig.getPropertyValue(SFSB_STATE_CODEC_PROPERTY);
+        JavaEEIOUtils javaEEIOUtils = EjbContainerUtilImpl.getInstance().getJavaEEIOUtils();
+        if (COMPRESSED_STATE_CODEC.equalsIgnoreCase(codec)) {
+            sfsbContainer.setStateCodec(new CompressingStateCodec(javaEEIOUtils));
+        } else {
+            sfsbContainer.setStateCodec(new JavaSerializationStateCodec(javaEEIOUtils));
+        }
+        if (_logger.isLoggable(TRACE_LEVEL)) {
+            _logger.log(TRACE_LEVEL, "State codec for {0}: {1}",
+                    new Object[]{ejbDescriptor.getName(), codec});
+        }
+    }
+
     private void buildSFSBUUIDUtil(byte[] ipAddress, int port) {
         //Just for debugging purpose,  we instantiate
         //  two different key generators
@@ -418,6 +442,8 @@ public class StatefulContainerFactory extends BaseContainerFactory
                 sfsbContainer.MIN_PASSIVATION_BATCH_COUNT) {
             sfsbContainer.setPassivationBatchCount(
                     cacheProps.getNumberOfVictimsToSelect());
+            sessionCache.setPassivationWriteBatchSize(
+                    cacheProps.getNumberOfVictimsToSelect());
         }
 
         if (_logger.isLoggable(TRACE_LEVEL)) {
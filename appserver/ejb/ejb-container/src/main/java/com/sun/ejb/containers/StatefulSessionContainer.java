@@ -85,6 +85,8 @@ import com.sun.ejb.EJBUtils;
 import com.sun.ejb.EjbInvocation;
 import com.sun.ejb.InvocationInfo;
 import com.sun.ejb.MethodLockInfo;
+import com.sun.ejb.base.io.JavaSerializationStateCodec;
+import com.sun.ejb.base.io.StateCodec;
 import com.sun.ejb.base.stats.HAStatefulSessionStoreMonitor;
 import com.sun.ejb.base.stats.StatefulSessionStoreMonitor;
 import com.sun.ejb.containers.util.cache.LruSessionCache;
@@ -295,6 +297,8 @@ public final class StatefulSessionContainer
     private int passivationBatchCount
             = MIN_PASSIVATION_BATCH_COUNT;
 
+    private StateCodec stateCodec;
+
     private int containerTrimCount = 0;
 
     private LruSessionCache sessionBeanCache;
@@ -2472,6 +2476,18 @@ public final class StatefulSessionContainer
         this.passivationBatchCount = count;
     }
 
+    public final void setStateCodec(StateCodec stateCodec) {
+        this.stateCodec = stateCodec;
+    }
+
+    private StateCodec getStateCodec() {
+        if (stateCodec == null) {
+            stateCodec = new JavaSerializationStateCodec(
+                    ejbContainerUtilImpl.getJavaEEIOUtils());
+        }
+        return stateCodec;
+    }
+
     // called asynchronously from the Recycler
     public final boolean passivateEJB(StatefulEJBContext sfsbCtx) {
         return passivateEJB((ComponentContext) sfsbCtx.getSessionContext());
@@ -2671,7 +2687,7 @@ public final class StatefulSessionContainer
     }
 
     public Object deserializeData(byte[] data) throws Exception {
-        Object o = ejbContainerUtilImpl.getJavaEEIOUtils().deserializeObject(data, true, getClassLoader());
+        Object o = getStateCodec().decode(data, getClassLoader());
         if (o instanceof SessionContextImpl) {
             SessionContextImpl ctx = (SessionContextImpl)o;
             Object ejb = ctx.getEJB();
@@ -2709,7 +2725,7 @@ public final class StatefulSessionContainer
             ctx.setEJB(null);
             ctx.setEJB(new SerializableEJB(ejb));
         }
-        return ejbContainerUtilImpl.getJavaEEIOUtils().serializeObject(ctx, true);
+        return getStateCodec().encode(ctx);
     }
 
     private void decrementRefCountsForEEMs(SessionContextImpl context) {
@@ -3191,19 +3207,27 @@ public final class StatefulSessionContainer
                                 }
                             });
                 }
-                ComponentContext ctx = null;
+                ArrayList<ComponentContext> batch =
+                        new ArrayList<ComponentContext>(passivationBatchCount);
 
                 do {
+                    // take a batch of candidates at once rather than
+                    // contending on the semaphore for every bean
                     synchronized (asyncTaskSemaphore) {
                         int sz = passivationCandidates.size();
-                        if (sz > 0) {
-                            ctx = (ComponentContext)
-                                    passivationCandidates.remove(sz - 1);
-                        } else {
+                        if (sz == 0) {
                             return;
                         }
+                        int count = Math.min(sz, passivationBatchCount);
+                        for (int i = 0; i < count; i++) {
+                            batch.add((ComponentContext)
+                                    passivationCandidates.remove(--sz));
+                        }
+                    }
+                    for (ComponentContext ctx : batch) {
+                        passivateEJB(ctx);
                     }
-                    passivateEJB(ctx);
+                    batch.clear();
                 } while (true);
 
             } catch (Throwable th) {
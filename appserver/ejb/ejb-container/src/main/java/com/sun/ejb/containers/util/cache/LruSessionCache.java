@@ -56,6 +56,10 @@ import org.glassfish.ha.store.api.BackingStoreException;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.*;
 
 
@@ -125,6 +129,13 @@ public class LruSessionCache
                   "current stateful session bean passivation-capable value is false",
         level = "INFO")
     private static final String SFSB_NOT_FOUND_WHEN_PASSIVATION_DISABLED = "AS-EJB-00049";
+
+    @LogMessageInfo(
+        message = "[{0}]: Giving up saving the passivated state of [{1}] after {2} attempts, the session is lost",
+        level = "SEVERE",
+        cause = "The backing store failed to save the passivated state of the session repeatedly.",
+        action = "Check the backing store and the earlier backingStore.passivateSave exceptions.")
+    private static final String PASSIVATE_SAVE_GIVEN_UP = "AS-EJB-00064";
     
     protected int		    cacheIdleTimeoutInSeconds;
     protected int		    removalTimeoutInSeconds;
@@ -154,8 +165,27 @@ public class LruSessionCache
 
     protected int	confMaxCacheSize = Integer.MAX_VALUE;
 
-    // TODO enable when enabling monitoring in SFSB container
-    // private StatefulSessionStoreMonitor	    sfsbStoreMonitor;
+    private StatefulSessionStoreMonitor	    sfsbStoreMonitor;
+
+    // Passivated states are written to the backing store in batches by a
+    // background writer, off the passivating thread. Until written, the
+    // state is kept in pendingWrites so that the bean can be activated.
+    // Batches are written one at a time, under writerLock, in queue order.
+    private static final int DEFAULT_PASSIVATION_WRITE_BATCH_SIZE = 32;
+    private static final int MAX_PENDING_PASSIVATION_WRITES = 1024;
+    private static final int MAX_PASSIVATION_WRITE_ATTEMPTS = 3;
+    // time the passivating thread waits for the writer to make progress
+    // before writing a batch itself (writer starved of threads)
+    private static final long PASSIVATION_WRITER_STALL_MILLIS = 5000;
+
+    private final ConcurrentLinkedQueue<PendingWrite> writeQueue =
+        new ConcurrentLinkedQueue<PendingWrite>();
+    private final ConcurrentHashMap<Serializable, PendingWrite> pendingWrites =
+        new ConcurrentHashMap<Serializable, PendingWrite>();
+    private final AtomicInteger pendingWriteCount = new AtomicInteger();
+    private final AtomicBoolean writerScheduled = new AtomicBoolean();
+    private final Object writerLock = new Object();
+    private int passivationWriteBatchSize = DEFAULT_PASSIVATION_WRITE_BATCH_SIZE;
 
     /**
      * Destroys all references. This is the last method call of this object's 
@@ -199,7 +229,16 @@ public class LruSessionCache
     public void setStatefulSessionStoreMonitor(
 	StatefulSessionStoreMonitor storeMonitor)
     {
-	// this.sfsbStoreMonitor = storeMonitor;
+	this.sfsbStoreMonitor = storeMonitor;
+    }
+
+    /**
+     * Set the maximum number of passivated states written to the backing
+     * store in one batch
+     */
+    public void setPassivationWriteBatchSize(int size) {
+        this.passivationWriteBatchSize = (size <= 0)
+            ? DEFAULT_PASSIVATION_WRITE_BATCH_SIZE : size;
     }
     
     /**
@@ -209,17 +248,9 @@ public class LruSessionCache
     protected void trimItem(CacheItem item) {
         LruCacheItem removed = (LruCacheItem) item;
 
-        if (removeIfIdle) {
-            StatefulEJBContext ctx = (StatefulEJBContext) item.getValue();
-            
-            long idleThreshold = 
-                System.currentTimeMillis() - removalTimeoutInSeconds*1000L;
-            if (ctx.getLastAccessTime() <= idleThreshold) {
-                container.passivateEJB(ctx);
-                return;
-            }
-        }
-
+        // Beans idle for more than removalTimeoutInSeconds are removed
+        // instead of passivated by the (asynchronous) passivation itself,
+        // see eligibleForRemovalFromCache.
         for (int i = 0; i < listeners.size(); i++) {
             CacheListener listener = (CacheListener) listeners.get(i);
             listener.trimEvent(removed.getKey(), removed.getValue());
@@ -405,6 +436,11 @@ public class LruSessionCache
             //In case it had been checkpointed
 
             //  remove it from BackingStore outside sync block
+	    PendingWrite pending = pendingWrites.remove(sessionKey);
+	    if (pending != null) {
+		// the writer removes it from the store if it is being written
+		pending.removed = true;
+	    }
 	    if (removeFromStore) {
 		try {
             if (backingStore != null) {
@@ -531,7 +567,11 @@ public class LruSessionCache
 
         try {
             SimpleMetadata beanState = null;
-            if (backingStore != null) {
+            PendingWrite pending = pendingWrites.get(sessionKey);
+            if (pending != null) {
+                // passivated but not written to the store yet
+                beanState = pending.state;
+            } else if (backingStore != null) {
                 beanState = backingStore.load(sessionKey, null);
             }
             byte[] data = (beanState != null)
@@ -571,19 +611,221 @@ public class LruSessionCache
         //  this is called on an async thread and the client
         //  already has the correct version
         beanState.setVersion(ctx.getVersion());
-	    try {
-            if(backingStore != null) {
-                backingStore.save(sessionKey, beanState, !ctx.existsInStore());
-                // sfsbStoreMonitor.setPassivationSize(data.length);
-                status = true;
+        if(backingStore != null) {
+            if (sfsbStoreMonitor != null) {
+                sfsbStoreMonitor.setPassivationSize(data.length);
             }
-	    } catch (BackingStoreException sfsbEx) {
-		_logger.log(Level.WARNING, EXCEPTION_DURING_PASSIVATE_SAVE, new Object[]{cacheName, sessionKey, sfsbEx});
-	    }
+            queueWrite(new PendingWrite(sessionKey, beanState,
+                !ctx.existsInStore()));
+            status = true;
+        }
 	}
 
 	return status;
     }
+
+    /**
+     * Queue the passivated state for the writer. If too many states are not
+     * written yet, the caller blocks until the writer catches up.
+     */
+    private void queueWrite(PendingWrite write) {
+        if (pendingWriteCount.get() >= MAX_PENDING_PASSIVATION_WRITES) {
+            if (sfsbStoreMonitor != null) {
+                sfsbStoreMonitor.incrementPassivationBackPressureCount();
+            }
+            awaitWrites(MAX_PENDING_PASSIVATION_WRITES - 1);
+        }
+
+        pendingWrites.put(write.key, write);
+        pendingWriteCount.incrementAndGet();
+        writeQueue.offer(write);
+        scheduleWriter();
+    }
+
+    private void scheduleWriter() {
+        if (writerScheduled.compareAndSet(false, true)) {
+            try {
+                EjbContainerUtilImpl.getInstance().addWork(new PassivationWriter());
+            } catch (Throwable th) {
+                writerScheduled.set(false);
+                // write on this thread rather than keeping the states
+                writeBatches();
+            }
+        }
+    }
+
+    /**
+     * Write the queued states to the backing store, one batch at a time,
+     * until the queue is empty
+     */
+    private void writeBatches() {
+        while (writeBatch()) {
+        }
+    }
+
+    /**
+     * Write the next batch of queued states to the backing store. Only one
+     * batch is written at a time so that the states of a session are written
+     * in the order they were passivated.
+     *
+     * @return false if the queue was empty
+     */
+    private boolean writeBatch() {
+        synchronized (writerLock) {
+            ArrayList<PendingWrite> batch =
+                new ArrayList<PendingWrite>(passivationWriteBatchSize);
+            PendingWrite write;
+            while (batch.size() < passivationWriteBatchSize
+                    && (write = writeQueue.poll()) != null) {
+                batch.add(write);
+            }
+            if (batch.isEmpty()) {
+                return false;
+            }
+
+            int done = 0;
+            try {
+                for (PendingWrite next : batch) {
+                    if (writeToStore(next)) {
+                        done++;
+                    } else {
+                        // retried after the states queued so far
+                        writeQueue.offer(next);
+                    }
+                }
+            } finally {
+                pendingWriteCount.addAndGet(-done);
+                synchronized (writeQueue) {
+                    writeQueue.notifyAll();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Wait until at most maxPending states are not written yet. If the writer
+     * does not make any progress for a while (eg: no thread available to run
+     * it), the caller writes a batch itself.
+     */
+    private void awaitWrites(int maxPending) {
+        long lastProgress = System.currentTimeMillis();
+        int lastCount = pendingWriteCount.get();
+        while (pendingWriteCount.get() > maxPending) {
+            scheduleWriter();
+            synchronized (writeQueue) {
+                if (pendingWriteCount.get() > maxPending) {
+                    try {
+                        writeQueue.wait(100);
+                    } catch (InterruptedException inEx) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            int count = pendingWriteCount.get();
+            long now = System.currentTimeMillis();
+            if (count < lastCount) {
+                lastCount = count;
+                lastProgress = now;
+            } else if (now - lastProgress >= PASSIVATION_WRITER_STALL_MILLIS) {
+                writeBatch();
+                lastProgress = now;
+            }
+        }
+    }
+
+    /**
+     * Save the state, unless the session was passivated again or removed
+     * since the state was queued.
+     *
+     * @return false if the save failed and is to be attempted again
+     */
+    private boolean writeToStore(PendingWrite write) {
+        if (write.removed || pendingWrites.get(write.key) != write) {
+            return true;
+        }
+
+        boolean success = false;
+        write.attempts++;
+        try {
+            backingStore.save(write.key, write.state, write.isNew);
+            success = true;
+        } catch (BackingStoreException sfsbEx) {
+            // the state remains in pendingWrites, so the bean can still
+            // be activated till the save is attempted again
+            _logger.log(Level.WARNING, EXCEPTION_DURING_PASSIVATE_SAVE, new Object[]{cacheName, write.key, sfsbEx});
+        }
+
+        if (success) {
+            pendingWrites.remove(write.key, write);
+            if (write.removed) {
+                // removed while being written
+                try {
+                    backingStore.remove(write.key);
+                } catch (BackingStoreException sfsbEx) {
+                    _logger.log(Level.WARNING, EXCEPTION_BACKING_STORE_REMOVE, new Object[]{cacheName, write.key, sfsbEx});
+                }
+            }
+        } else if (write.attempts < MAX_PASSIVATION_WRITE_ATTEMPTS) {
+            return false;
+        } else {
+            pendingWrites.remove(write.key, write);
+            _logger.log(Level.SEVERE, PASSIVATE_SAVE_GIVEN_UP,
+                new Object[]{cacheName, write.key, write.attempts});
+        }
+
+        if (sfsbStoreMonitor != null) {
+            sfsbStoreMonitor.incrementPassivationCount(success);
+            sfsbStoreMonitor.setPassivationWriteLatency(
+                System.currentTimeMillis() - write.queuedAt);
+        }
+        return true;
+    }
+
+    /**
+     * Write all the passivated states to the store. As batches are written
+     * one at a time, the states being written by the writer are written too
+     * when this returns.
+     */
+    private void flushPassivationWrites() {
+        writeBatches();
+    }
+
+    public int getNumPendingPassivationWrites() {
+        return pendingWriteCount.get();
+    }
+
+    private class PassivationWriter implements Runnable {
+        public void run() {
+            do {
+                try {
+                    writeBatches();
+                } finally {
+                    writerScheduled.set(false);
+                }
+                // a state queued after the last poll may have found the
+                // writer still scheduled
+            } while (!writeQueue.isEmpty()
+                    && writerScheduled.compareAndSet(false, true));
+        }
+    }
+
+    private static final class PendingWrite {
+        final Serializable key;
+        final SimpleMetadata state;
+        final boolean isNew;
+        final long queuedAt = System.currentTimeMillis();
+        volatile boolean removed;
+        // guarded by writerLock
+        int attempts;
+
+        PendingWrite(Serializable key, SimpleMetadata state, boolean isNew) {
+            this.key = key;
+            this.state = state;
+            this.isNew = isNew;
+        }
+    }
     
     private void trimSelectedVictims(ArrayList victims) {
         int sz = victims.size();
@@ -659,6 +901,7 @@ public class LruSessionCache
         for (StatefulEJBContext ctx : valueList) {
             container.passivateEJB(ctx);
         }
+        flushPassivationWrites();
     }
     
 
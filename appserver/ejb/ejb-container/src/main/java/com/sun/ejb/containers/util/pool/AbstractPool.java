@@ -530,6 +530,18 @@ public abstract class AbstractPool
 	return destroyedCount;
     }
 
+    public long getTotalPoolWaits() {
+	return 0;
+    }
+
+    public long getTotalPoolWaitTimeInMillis() {
+	return 0;
+    }
+
+    public long getTotalBeansStolen() {
+	return 0;
+    }
+
     public String getAllMonitoredAttrbuteValues() {
         StringBuffer sbuf = new StringBuffer();
         synchronized (list) {
@@ -0,0 +1,558 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers.util.pool;
+
+import com.sun.ejb.containers.EJBContextImpl;
+import com.sun.ejb.containers.EjbContainerUtilImpl;
+import com.sun.enterprise.util.Utility;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+/**
+ * <p>StripedPool has the same semantics as NonBlockingPool : a new object is
+ * created when the pool is empty and an object returned to a full pool is
+ * destroyed. It differs in the way the idle objects are kept : instead of a
+ * single list guarded by a lock, the objects are kept in a number of stripes
+ * (one per processor) and a shared overflow queue. A thread first looks for
+ * an object in its own stripe, then in the overflow queue and finally steals
+ * one from the other stripes. None of these operations acquire a lock, so
+ * getting and returning objects scales with the number of processors.
+ * <p>The idle timer and the steady size maintenance run asynchronously and
+ * do not block the threads getting or returning objects either.
+ */
+public class StripedPool
+    extends AbstractPool
+{
+
+    // number of idle objects a stripe can hold before the overflow is used
+    private static final int SLOTS_PER_STRIPE = 8;
+
+    private final AtomicReferenceArray<Object> slots;
+    private final int stripeMask;
+    private final ConcurrentLinkedQueue<Object> overflow =
+        new ConcurrentLinkedQueue<Object>();
+
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong returnedCount = new AtomicLong();
+
+    // objects taken from the stripe of another thread
+    private final AtomicLong stealCount = new AtomicLong();
+
+    private final AtomicBoolean resizing = new AtomicBoolean();
+    private TimerTask poolTimerTask;
+    private boolean maintainSteadySize;
+    private volatile boolean poolClosed = false;
+
+    public StripedPool(long beanId, String poolName, ObjectFactory factory,
+        int steadyPoolSize, int resizeQuantity,
+        int maxPoolSize, int idleTimeoutInSeconds,
+        ClassLoader loader)
+    {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        this.stripeMask = stripes - 1;
+        this.slots = new AtomicReferenceArray<Object>(stripes * SLOTS_PER_STRIPE);
+
+        this.poolName = poolName;
+        this.beanId = beanId;
+        this.factory = factory;
+        this.steadyPoolSize = (steadyPoolSize <= 0) ? 0 : steadyPoolSize;
+        this.resizeQuantity = (resizeQuantity <= 0) ? 0 : resizeQuantity;
+        this.maxPoolSize = (maxPoolSize <= 0)
+            ? Integer.MAX_VALUE : maxPoolSize;
+        this.steadyPoolSize = (this.steadyPoolSize > this.maxPoolSize)
+            ? this.maxPoolSize : this.steadyPoolSize;
+        this.idleTimeoutInSeconds =
+            (idleTimeoutInSeconds <= 0) ? 0 : idleTimeoutInSeconds;
+        this.containerClassLoader = loader;
+        this.maintainSteadySize = (this.steadyPoolSize > 0);
+
+        if ((this.idleTimeoutInSeconds > 0) && (this.resizeQuantity > 0)) {
+            try {
+                this.poolTimerTask = new PoolResizeTimerTask();
+                EjbContainerUtilImpl.getInstance().getTimer().scheduleAtFixedRate
+                    (poolTimerTask, idleTimeoutInSeconds*1000L,
+                     idleTimeoutInSeconds*1000L);
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE,
+                      "[Pool-" + poolName + "]: Added PoolResizeTimerTask...");
+                }
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING,"[Pool-" +
+                            poolName + "]: Could not add"
+                            + " PoolTimerTask. Continuing anyway...", th);
+            }
+        }
+    }
+
+    public Object getObject(boolean canWait, Object param)
+        throws PoolException
+    {
+        return getObject(param);
+    }
+
+    public Object getObject(long maxWaitTime, Object param)
+        throws PoolException
+    {
+        return getObject(param);
+    }
+
+    public Object getObject(Object param)
+    {
+        Object obj = take();
+        if (obj != null) {
+            successCount.incrementAndGet();
+            return obj;
+        }
+
+        // the pool is empty; the calling thread creates a new object, it
+        // never waits for an object to be returned
+        if (maintainSteadySize) {
+            addResizeTaskForImmediateExecution();
+        }
+        poolProbeNotifier.ejbObjectAddedEvent(beanId, appName, modName, ejbName);
+        created.incrementAndGet();
+        try {
+            return factory.create(param);
+        } catch (RuntimeException th) {
+            poolProbeNotifier.ejbObjectAddFailedEvent(beanId, appName, modName, ejbName);
+            created.decrementAndGet();
+            throw th;
+        }
+    }
+
+    /**
+     * Return an object back to the pool. An object that is obtained through
+     *	getObject() must always be returned back to the pool using either
+     *	returnObject(obj) or through destroyObject(obj).
+     */
+    public void returnObject(Object object) {
+        if (!poolClosed) {
+            if (idleCount.incrementAndGet() <= maxPoolSize) {
+                returnedCount.incrementAndGet();
+                put(object, currentStripe());
+                return;
+            }
+            idleCount.decrementAndGet();
+        }
+        destroyObject(object);
+    }
+
+    /**
+     * Destroys an Object. Note that applications should not ignore
+     * the reference to the object that they got from getObject(). An object
+     * that is obtained through getObject() must always be returned back to
+     * the pool using either returnObject(obj) or through destroyObject(obj).
+     * This method tells that the object should be destroyed and cannot
+     * be reused.
+     */
+    public void destroyObject(Object object) {
+        poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+        destroyed.incrementAndGet();
+        try {
+            factory.destroy(object);
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "exception in destroyObject", ex);
+        }
+    }
+
+    private int currentStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+    }
+
+    /**
+     * Take an idle object: from the stripe of the current thread, then from
+     * the overflow and finally from the other stripes.
+     * @return the object or null if the pool is empty
+     */
+    private Object take() {
+        int stripe = currentStripe();
+        Object obj = takeFromStripe(stripe);
+        if (obj == null) {
+            obj = overflow.poll();
+        }
+        if (obj == null && idleCount.get() > 0) {
+            for (int i = 1; i <= stripeMask; i++) {
+                obj = takeFromStripe((stripe + i) & stripeMask);
+                if (obj != null) {
+                    stealCount.incrementAndGet();
+                    break;
+                }
+            }
+        }
+        if (obj != null) {
+            idleCount.decrementAndGet();
+        }
+        return obj;
+    }
+
+    private Object takeFromStripe(int stripe) {
+        int base = stripe * SLOTS_PER_STRIPE;
+        for (int i = base + SLOTS_PER_STRIPE - 1; i >= base; i--) {
+            Object obj = slots.get(i);
+            if (obj != null && slots.compareAndSet(i, obj, null)) {
+                return obj;
+            }
+        }
+        return null;
+    }
+
+    private void put(Object obj, int stripe) {
+        int base = stripe * SLOTS_PER_STRIPE;
+        for (int i = base; i < base + SLOTS_PER_STRIPE; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, obj)) {
+                return;
+            }
+        }
+        overflow.offer(obj);
+    }
+
+    /**
+     * Remove an idle object, if it is still in the pool.
+     * @return true if the object was removed
+     */
+    private boolean removeIdle(Object obj) {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) == obj) {
+                if (slots.compareAndSet(i, obj, null)) {
+                    idleCount.decrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        }
+        if (overflow.remove(obj)) {
+            idleCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the idle objects, the least recently returned first as
+     * far as the overflow is concerned
+     */
+    private ArrayList<Object> idleObjects() {
+        ArrayList<Object> result = new ArrayList<Object>(idleCount.get());
+        result.addAll(overflow);
+        for (int i = 0; i < slots.length(); i++) {
+            Object obj = slots.get(i);
+            if (obj != null) {
+                result.add(obj);
+            }
+        }
+        return result;
+    }
+
+    /**
+    * Preload the pool with objects.
+    * @param count the number of objects to be added.
+    */
+    protected void preload(int count) {
+        ArrayList<Object> instances = new ArrayList<Object>(count);
+        try {
+            for (int i=0; i<count; i++) {
+                instances.add(factory.create(null));
+            }
+        } catch (Exception ex) {
+            //Need not throw this exception up since we are pre-populating
+        }
+
+        created.addAndGet(instances.size());
+        int stripe = currentStripe();
+        for (Object obj : instances) {
+            if (!poolClosed) {
+                if (idleCount.incrementAndGet() <= maxPoolSize) {
+                    // spread the new objects over the stripes
+                    put(obj, stripe++ & stripeMask);
+                    continue;
+                }
+                idleCount.decrementAndGet();
+            }
+            destroyObject(obj);
+        }
+    }
+
+    /**
+    * Prepopulate the pool with objects.
+    * @param count the number of objects to be added.
+    */
+    public void prepopulate(int count) {
+        this.steadyPoolSize = (count <= 0) ? 0 : count;
+        this.steadyPoolSize = (this.steadyPoolSize > this.maxPoolSize)
+            ? this.maxPoolSize : this.steadyPoolSize;
+
+        if (this.steadyPoolSize > 0) {
+            preload(this.steadyPoolSize);
+        }
+    }
+
+    /**
+    * Close the pool
+    */
+    public void close() {
+        poolClosed = true;
+        if (poolTimerTask != null) {
+            try {
+                poolTimerTask.cancel();
+            } catch (Throwable th) {
+                //Can safely ignore this!!
+            }
+        }
+
+        // since we're calling into ejb code, we need to set context
+        // class loader
+        ClassLoader origLoader =
+            Utility.setContextClassLoader(containerClassLoader);
+        try {
+            for (Object obj : idleObjects()) {
+                if (removeIdle(obj)) {
+                    destroyObject(obj);
+                }
+            }
+        } finally {
+            unregisterProbeProvider();
+            Utility.setContextClassLoader(origLoader);
+        }
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE,"[Pool-"+poolName+"]: Pool closed....");
+        }
+    }
+
+    protected void remove(int count) {
+        Iterator<Object> iter = idleObjects().iterator();
+        for (int i = 0; i < count && iter.hasNext(); ) {
+            Object obj = iter.next();
+            if (removeIdle(obj)) {
+                destroyObject(obj);
+                i++;
+            }
+        }
+    }
+
+    protected void removeIdleObjects() {
+    }
+
+    private void addResizeTaskForImmediateExecution() {
+        if (idleCount.get() >= steadyPoolSize || !resizing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            EjbContainerUtilImpl.getInstance().addWork(new ReSizeWork());
+        } catch (Exception ex) {
+            resizing.set(false);
+            _logger.log(Level.WARNING, "[Pool-"+poolName+"]: Cannot perform "
+                        + " pool resize task", ex);
+        }
+    }
+
+    /**
+     * Destroy the objects idle for more than idleTimeoutInSeconds above the
+     * steady size, or populate the pool up to the steady size.
+     * Only called by one thread at a time, guarded by the resizing flag.
+     */
+    protected void doResize() {
+        if (poolClosed) {
+            return;
+        }
+
+        ClassLoader origLoader =
+            Utility.setContextClassLoader(containerClassLoader);
+        try {
+            int curSize = idleCount.get();
+            if (curSize > steadyPoolSize) {
+                if ((idleTimeoutInSeconds <= 0) || (resizeQuantity <= 0)) {
+                    return;
+                }
+                int victimCount = Math.min(resizeQuantity, curSize - steadyPoolSize);
+                long allowedIdleTime = System.currentTimeMillis() -
+                    idleTimeoutInSeconds*1000L;
+                for (Object obj : idleObjects()) {
+                    if (victimCount == 0) {
+                        break;
+                    }
+                    if (obj instanceof EJBContextImpl &&
+                            ((EJBContextImpl) obj).getLastTimeUsed() > allowedIdleTime) {
+                        continue;
+                    }
+                    if (removeIdle(obj)) {
+                        destroyObject(obj);
+                        victimCount--;
+                    }
+                }
+            } else if (curSize < steadyPoolSize && maintainSteadySize) {
+                int populateCount = steadyPoolSize - curSize;
+                if (resizeQuantity > 0) {
+                    populateCount = Math.max(populateCount,
+                        Math.min(resizeQuantity, maxPoolSize - curSize));
+                }
+                preload(populateCount);
+            }
+        } catch (Throwable th) {
+            _logger.log(Level.WARNING,
+                        "[Pool-"+poolName+"]: Exception during reSize", th);
+        } finally {
+            Utility.setContextClassLoader(origLoader);
+        }
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE,
+                "[Pool-"+poolName+"]: Resize completed at: "
+                + (new java.util.Date()) + "; after reSize: " +
+                getAllAttrValues());
+        }
+    }
+
+    private class ReSizeWork
+        implements Runnable
+    {
+        public void run() {
+            try {
+                doResize();
+            } finally {
+                resizing.set(false);
+            }
+        }
+    }
+
+    private class PoolResizeTimerTask
+        extends java.util.TimerTask
+    {
+        public void run() {
+            if (!resizing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                EjbContainerUtilImpl.getInstance().addWork(new ReSizeWork());
+            } catch (Exception ex) {
+                resizing.set(false);
+                _logger.log(Level.WARNING,
+                            "[Pool-"+poolName+"]: Cannot perform "
+                            + " pool idle bean cleanup", ex);
+            }
+        }
+    }
+
+    /**************** For Monitoring ***********************/
+    /*******************************************************/
+
+    public int getCreatedCount() {
+        return created.get();
+    }
+
+    public int getDestroyedCount() {
+        return destroyed.get();
+    }
+
+    public int getPoolSuccess() {
+        return (int) successCount.get();
+    }
+
+    public int getSize() {
+        return idleCount.get();
+    }
+
+    public int getNumBeansInPool() {
+        return idleCount.get();
+    }
+
+    public int getTotalBeansCreated() {
+        return created.get();
+    }
+
+    public int getTotalBeansDestroyed() {
+        return destroyed.get();
+    }
+
+    public long getTotalBeansStolen() {
+        return stealCount.get();
+    }
+
+    public void appendStats(StringBuffer sbuf) {
+        sbuf.append("[Pool: ")
+            .append("SZ=").append(idleCount.get()).append("; ")
+            .append("CC=").append(created.get()).append("; ")
+            .append("DC=").append(destroyed.get()).append("; ")
+            .append("WC=").append(getWaitCount()).append("; ")
+            .append("ST=").append(stealCount.get()).append("; ")
+            .append("MSG=0");
+        if (configData != null) {
+            sbuf.append(configData);
+        }
+        sbuf.append("]");
+    }
+
+    public String getAllMonitoredAttrbuteValues() {
+        StringBuffer sbuf = new StringBuffer();
+        sbuf.append("createdCount=").append(created.get()).append(";")
+            .append("destroyedCount=").append(destroyed.get()).append(";")
+            .append("waitCount=").append(getWaitCount()).append(";")
+            .append("size=").append(idleCount.get()).append(";")
+            .append("maxPoolSize=").append(maxPoolSize).append(";");
+        return sbuf.toString();
+    }
+
+    public String getAllAttrValues() {
+        StringBuffer sbuf = new StringBuffer("[Pool-"+poolName+"] ");
+        sbuf.append("CC=").append(created.get()).append("; ")
+            .append("DC=").append(destroyed.get()).append("; ")
+            .append("PR=").append(returnedCount.get()).append("; ")
+            .append("CS=").append(idleCount.get()).append("; ")
+            .append("SS=").append(steadyPoolSize).append("; ")
+            .append("MS=").append(maxPoolSize).append("; ")
+            .append("ST=").append(stealCount.get()).append(";");
+        return sbuf.toString();
+    }
+}
@@ -152,7 +152,12 @@ public class EjbMethodStatsProvider {
         invocationStat.increment();
     }
 
-    void methodEnd(boolean success) {
+    /**
+     * @return the execution time of the method, or -1 if its start was not
+     * monitored
+     */
+    long methodEnd(boolean success) {
+        long diff = -1;
         List list = (ArrayList) execThreadLocal.get();
         if ( (list != null) && (list.size() > 0) ) {
             int index = list.size();
@@ -163,10 +168,11 @@ public class EjbMethodStatsProvider {
                 errorStat.increment();
             }
             if (startTime != null) {
-                long diff = System.currentTimeMillis() - startTime.longValue();
+                diff = System.currentTimeMillis() - startTime.longValue();
                 executionStat.setCount(diff);
                 methodStat.incrementCount(diff);
             }
         }
+        return diff;
     }
 }
@@ -41,6 +41,7 @@
 package com.sun.ejb.monitoring.stats;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,6 +49,8 @@ import org.glassfish.external.probe.provider.StatsProviderManager;
 import org.glassfish.external.probe.provider.annotations.*;
 import org.glassfish.external.statistics.*;
 import org.glassfish.external.statistics.impl.*;
+import org.glassfish.flashlight.statistics.HistogramStatistic;
+import org.glassfish.flashlight.statistics.factory.HistogramStatisticFactory;
 import org.glassfish.gmbal.*;
 
 import com.sun.ejb.containers.EjbContainerUtilImpl;
@@ -77,6 +80,16 @@ public abstract class EjbMonitoringStatsProvider {
     private CountStatisticImpl removeStat = new CountStatisticImpl("RemoveCount", 
             "count", "Number of times EJB remove method is called");
 
+    private RangeStatisticImpl asyncQueueDepthStat;
+
+    private TimeStatisticImpl asyncQueueTimeStat;
+
+    private final AtomicLong asyncQueueDepth = new AtomicLong();
+
+    private HistogramStatistic executionTimeStat = HistogramStatisticFactory.createHistogramMillis(
+            "ExecutionTimeDistribution",
+            "Distribution of the execution times of the methods of the bean, with the 50th, 90th, 99th and 99.9th percentiles");
+
     static final Logger _logger = EjbContainerUtilImpl.getLogger();
 
     public EjbMonitoringStatsProvider(long beanId, String appName, String moduleName,
@@ -85,6 +98,16 @@ public abstract class EjbMonitoringStatsProvider {
         this.appName = appName;
         this.moduleName = moduleName;
         this.beanName = beanName;
+
+        long now = System.currentTimeMillis();
+        asyncQueueDepthStat = new RangeStatisticImpl(
+            0, 0, 0, "AsyncQueueDepth", "count",
+            "Number of asynchronous method calls waiting for a thread",
+            now, now);
+        asyncQueueTimeStat = new TimeStatisticImpl(
+            0, 0, 0, 0, "AsyncQueueTime", "millisecond",
+            "Time spent by asynchronous method calls waiting for a thread",
+            now, now);
     }
 
     public void addMethods(long beanId, String appName, String moduleName,
@@ -181,7 +204,10 @@ public abstract class EjbMonitoringStatsProvider {
             _log("ejbMethodEndEvent", method_sig);
             EjbMethodStatsProvider monitor = methodMonitorMap.get(method_sig);
             if (monitor != null) {
-                monitor.methodEnd((exception == null));
+                long executionTime = monitor.methodEnd((exception == null));
+                if (executionTime >= 0) {
+                    executionTimeStat.record(executionTime);
+                }
             }
         }
     }
@@ -210,6 +236,52 @@ public abstract class EjbMonitoringStatsProvider {
         }
     }
 
+    @ProbeListener("glassfish:ejb:bean:asyncTaskQueuedEvent")
+    public void asyncTaskQueuedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {
+        if (this.beanId == beanId) {
+            _log("asyncTaskQueuedEvent");
+            asyncQueueDepth.incrementAndGet();
+        }
+    }
+
+    @ProbeListener("glassfish:ejb:bean:asyncTaskStartedEvent")
+    public void asyncTaskStartedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName,
+            @ProbeParam("queueTime") long queueTime) {
+        if (this.beanId == beanId) {
+            _log("asyncTaskStartedEvent");
+            asyncQueueDepth.decrementAndGet();
+            asyncQueueTimeStat.incrementCount(queueTime);
+        }
+    }
+
+    @ManagedAttribute(id="asyncqueuedepth")
+    @Description( "Number of asynchronous method calls waiting for a thread")
+    public RangeStatistic getAsyncQueueDepth() {
+        // The task may start before the queued event is received
+        asyncQueueDepthStat.setCurrent(Math.max(0, asyncQueueDepth.get()));
+        return asyncQueueDepthStat;
+    }
+
+    @ManagedAttribute(id="asyncqueuetime")
+    @Description( "Time spent by asynchronous method calls waiting for a thread")
+    public TimeStatistic getAsyncQueueTime() {
+        return asyncQueueTimeStat;
+    }
+
+    @ManagedAttribute(id="executiontimedistribution")
+    @Description( "Distribution of the execution times of the methods of the bean")
+    public TimeStatistic getExecutionTimeDistribution() {
+        return executionTimeStat;
+    }
+
     @ManagedAttribute(id="createcount")
     @Description( "Number of times EJB create method is called")
     public CountStatistic getCreateCount() {
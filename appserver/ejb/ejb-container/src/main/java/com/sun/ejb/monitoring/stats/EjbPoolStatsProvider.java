@@ -74,6 +74,18 @@ public class EjbPoolStatsProvider {
             "JmsMaxMessagesLoad", "count", 
             "Provides the maximum number of messages to load into a JMS session, at a time.");
 
+    private CountStatisticImpl poolWaitsStat = new CountStatisticImpl(
+            "TotalPoolWaits", "count",
+            "Number of times a thread found the pool empty and waited for a new bean");
+
+    private CountStatisticImpl poolWaitTimeStat = new CountStatisticImpl(
+            "TotalPoolWaitTime", "millisecond",
+            "Time spent by threads waiting for a new bean when the pool was empty");
+
+    private CountStatisticImpl stolenStat = new CountStatisticImpl(
+            "TotalBeansStolen", "count",
+            "Number of beans taken from the pool stripe of another thread");
+
     private BoundedRangeStatisticImpl beansInPool;
     private BoundedRangeStatisticImpl threadsWaiting;
 
@@ -158,6 +170,27 @@ public class EjbPoolStatsProvider {
         return jmsStat;
     }
 
+    @ManagedAttribute(id="totalpoolwaits")
+    @Description( "Number of times a thread found the pool empty and waited for a new bean")
+    public CountStatistic getTotalPoolWaits() {
+        poolWaitsStat.setCount(delegate.getTotalPoolWaits());
+        return poolWaitsStat;
+    }
+
+    @ManagedAttribute(id="totalpoolwaittime")
+    @Description( "Time spent by threads waiting for a new bean when the pool was empty")
+    public CountStatistic getTotalPoolWaitTime() {
+        poolWaitTimeStat.setCount(delegate.getTotalPoolWaitTimeInMillis());
+        return poolWaitTimeStat;
+    }
+
+    @ManagedAttribute(id="totalbeansstolen")
+    @Description( "Number of beans taken from the pool stripe of another thread")
+    public CountStatistic getTotalBeansStolen() {
+        stolenStat.setCount(delegate.getTotalBeansStolen());
+        return stolenStat;
+    }
+
     @ProbeListener("glassfish:ejb:pool:objectAddedEvent")
     public void ejbObjectAddedEvent(
             @ProbeParam("beanId") long beanId,
@@ -71,6 +71,7 @@ public class BeanPoolNode extends DeploymentDescriptorNode<BeanPoolDescriptor> {
 	dispatchTable.put(RuntimeTagNames.MAX_POOL_SIZE, "setMaxPoolSize");
 	dispatchTable.put(RuntimeTagNames.POOL_IDLE_TIMEOUT_IN_SECONDS, "setPoolIdleTimeoutInSeconds");
 	dispatchTable.put(RuntimeTagNames.MAX_WAIT_TIME_IN_MILLIS, "setMaxWaitTimeInMillis");
+	dispatchTable.put(RuntimeTagNames.POOL_TYPE, "setPoolType");
 	return dispatchTable;
     }
 
@@ -82,6 +83,7 @@ public class BeanPoolNode extends DeploymentDescriptorNode<BeanPoolDescriptor> {
 	appendTextChild(beanpoolNode, RuntimeTagNames.MAX_POOL_SIZE, descriptor.getMaxPoolSize());
 	appendTextChild(beanpoolNode, RuntimeTagNames.POOL_IDLE_TIMEOUT_IN_SECONDS, descriptor.getPoolIdleTimeoutInSeconds());
 	appendTextChild(beanpoolNode, RuntimeTagNames.MAX_WAIT_TIME_IN_MILLIS, descriptor.getMaxWaitTimeInMillis());
+	appendTextChild(beanpoolNode, RuntimeTagNames.POOL_TYPE, descriptor.getPoolType());
 	return beanpoolNode;
     }
 }
@@ -40,6 +40,8 @@
 
 package org.glassfish.ejb.security.application;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -1170,6 +1172,31 @@ public final class EJBSecurityManager
         return ret;
     }
 
+    /**
+     * Dispatches through the method handle when the invocation does not
+     * need to run as privileged, as runMethod does with reflection.
+     */
+    public Object invoke(MethodHandle beanMethodInvoker, Method beanClassMethod,
+            boolean isLocal, Object o, Object[] oa)
+            throws Throwable {
+
+        if (beanMethodInvoker == null ||
+                !((isLocal && this.getUsesCallerIdentity()) ||
+                System.getSecurityManager() == null)) {
+            return invoke(beanClassMethod, isLocal, o, oa);
+        }
+
+        String oldCtxID = setPolicyContext(this.contextId);
+        try {
+            return (Object) beanMethodInvoker.invokeExact(o, oa);
+        } catch (Throwable t) {
+            // same exception semantics as Method.invoke()
+            throw new InvocationTargetException(t);
+        } finally {
+            resetPolicyContext(oldCtxID, this.contextId);
+        }
+    }
+
     @Override
     public void resetPolicyContext() {
         if (System.getSecurityManager() == null) {
@@ -40,10 +40,10 @@
 
 package com.sun.gjc.common;
 
-import java.lang.reflect.Method;
 import java.util.*;
 
 import com.sun.gjc.util.MethodExecutor;
+import com.sun.gjc.util.PropertyBinder;
 
 import javax.resource.ResourceException;
 
@@ -70,8 +70,11 @@ public class DataSourceObjectBuilder implements java.io.Serializable {
     private DataSourceSpec spec;
 
     private Hashtable driverProperties = null;
+    //values from which the driverProperties were parsed.
+    private String parsedDriverProperties;
+    private String parsedDelimiter;
+    private String parsedEscapeCharacter;
 
-    private MethodExecutor executor = null;
 
     private static Logger _logger;
 
@@ -92,6 +95,33 @@ public class DataSourceObjectBuilder implements java.io.Serializable {
     private static final StringManager sm = StringManager.getManager(
             DataSourceObjectBuilder.class);
 
+    //standard properties of the DataSourceSpec, indexed by the upper case name of their setter.
+    private static final Map<String, Integer> standardProperties = new LinkedHashMap<String, Integer>();
+
+    static {
+        addStandardProperty("setUser", DataSourceSpec.USERNAME);
+        addStandardProperty("setPassword", DataSourceSpec.PASSWORD);
+        addStandardProperty("setLoginTimeOut", DataSourceSpec.LOGINTIMEOUT);
+        addStandardProperty("setLogWriter", DataSourceSpec.LOGWRITER);
+        addStandardProperty("setDatabaseName", DataSourceSpec.DATABASENAME);
+        addStandardProperty("setDataSourceName", DataSourceSpec.DATASOURCENAME);
+        addStandardProperty("setDescription", DataSourceSpec.DESCRIPTION);
+        addStandardProperty("setNetworkProtocol", DataSourceSpec.NETWORKPROTOCOL);
+        addStandardProperty("setPortNumber", DataSourceSpec.PORTNUMBER);
+        addStandardProperty("setRoleName", DataSourceSpec.ROLENAME);
+        addStandardProperty("setServerName", DataSourceSpec.SERVERNAME);
+        addStandardProperty("setMaxStatements", DataSourceSpec.MAXSTATEMENTS);
+        addStandardProperty("setInitialPoolSize", DataSourceSpec.INITIALPOOLSIZE);
+        addStandardProperty("setMinPoolSize", DataSourceSpec.MINPOOLSIZE);
+        addStandardProperty("setMaxPoolSize", DataSourceSpec.MAXPOOLSIZE);
+        addStandardProperty("setMaxIdleTime", DataSourceSpec.MAXIDLETIME);
+        addStandardProperty("setPropertyCycle", DataSourceSpec.PROPERTYCYCLE);
+    }
+
+    private static void addStandardProperty(String methodName, int property) {
+        standardProperties.put(methodName.toUpperCase(Locale.getDefault()), property);
+    }
+
     /**
      * Construct a DataSource Object from the spec.
      *
@@ -99,7 +129,6 @@ public class DataSourceObjectBuilder implements java.io.Serializable {
      */
     public DataSourceObjectBuilder(DataSourceSpec spec) {
         this.spec = spec;
-        executor = new MethodExecutor();
     }
 
     /**
@@ -110,72 +139,50 @@ public class DataSourceObjectBuilder implements java.io.Serializable {
      *                                        some method.
      */
     public Object constructDataSourceObject() throws ResourceException {
-        driverProperties = parseDriverProperties(spec, true);
+        driverProperties = getDriverProperties();
         Object dataSourceObject = getDataSourceObject();
-        Method[] methods = dataSourceObject.getClass().getMethods();
-        for (int i = 0; i < methods.length; i++) {
-            String methodName = methods[i].getName();
-            //Check for driver properties first since some jdbc properties
-            //may be supported in form of driver properties
-            if (driverProperties.containsKey(methodName.toUpperCase(Locale.getDefault()))) {
-                Vector values = (Vector) driverProperties.get(methodName.toUpperCase(Locale.getDefault()));
-                executor.runMethod(methods[i], dataSourceObject, values);
-            } else if (methodName.equalsIgnoreCase("setUser")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.USERNAME), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setPassword")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.PASSWORD), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setLoginTimeOut")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.LOGINTIMEOUT), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setLogWriter")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.LOGWRITER), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setDatabaseName")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.DATABASENAME), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setDataSourceName")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.DATASOURCENAME), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setDescription")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.DESCRIPTION), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setNetworkProtocol")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.NETWORKPROTOCOL), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setPortNumber")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.PORTNUMBER), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setRoleName")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.ROLENAME), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setServerName")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.SERVERNAME), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setMaxStatements")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.MAXSTATEMENTS), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setInitialPoolSize")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.INITIALPOOLSIZE), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setMinPoolSize")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.MINPOOLSIZE), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setMaxPoolSize")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.MAXPOOLSIZE), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setMaxIdleTime")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.MAXIDLETIME), methods[i], dataSourceObject);
-
-            } else if (methodName.equalsIgnoreCase("setPropertyCycle")) {
-                executor.runJavaBeanMethod(spec.getDetail(DataSourceSpec.PROPERTYCYCLE), methods[i], dataSourceObject);
-
+        PropertyBinder binder = PropertyBinder.getBinder(dataSourceObject.getClass());
+        //Check for driver properties first since some jdbc properties
+        //may be supported in form of driver properties
+        Iterator iterator = driverProperties.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            binder.bindValues(dataSourceObject, (String) entry.getKey(), (Vector) entry.getValue());
+        }
+        for (Map.Entry<String, Integer> property : standardProperties.entrySet()) {
+            if (!driverProperties.containsKey(property.getKey())) {
+                binder.bindValue(dataSourceObject, property.getKey(), spec.getDetail(property.getValue()));
             }
         }
         return dataSourceObject;
     }
 
+    /**
+     * Driver properties are parsed again only when they are changed in the spec.
+     *
+     * @return Hashtable containing method names and parameters
+     * @throws ResourceException If delimiter is not provided and property string
+     *                           is not null.
+     */
+    private Hashtable getDriverProperties() throws ResourceException {
+        String prop = spec.getDetail(DataSourceSpec.DRIVERPROPERTIES);
+        String delim = spec.getDetail(DataSourceSpec.DELIMITER);
+        String escape = spec.getDetail(DataSourceSpec.ESCAPECHARACTER);
+        if (driverProperties == null || !isSame(prop, parsedDriverProperties)
+                || !isSame(delim, parsedDelimiter) || !isSame(escape, parsedEscapeCharacter)) {
+            Hashtable result = parseDriverProperties(spec, true);
+            parsedDriverProperties = prop;
+            parsedDelimiter = delim;
+            parsedEscapeCharacter = escape;
+            return result;
+        }
+        return driverProperties;
+    }
+
+    private static boolean isSame(String value, String other) {
+        return (value == null) ? other == null : value.equals(other);
+    }
+
     /**
      * Get the extra driver properties from the DataSourceSpec object and
      * parse them to a set of methodName and parameters. Prepare a hashtable
@@ -61,11 +61,21 @@ public interface JdbcRAConstants {
      */
     public static final String STATEMENT_CACHE_MISS = "statementCacheMissEvent";
 
+    /**
+     * Represents the statement cache eviction monitoring event.
+     */
+    public static final String STATEMENT_CACHE_EVICTION = "statementCacheEvictionEvent";
+
     /**
      * Represents caching of sql query event.
      */
     public static final String TRACE_SQL = "traceSQLEvent";
 
+    /**
+     * Represents completion of the execution of a sql query event.
+     */
+    public static final String SQL_EXECUTION_TIME = "sqlExecutionTimeEvent";
+
     public static final String POTENTIAL_STATEMENT_LEAK = "potentialStatementLeakEvent";
     
     /**
@@ -110,6 +120,21 @@ public interface JdbcRAConstants {
      */
     public static final String REPORT_QUERIES = "reportQueriesEvent";
 
+    /**
+     * List of method names of the statements that execute sql, used to monitor
+     * the execution times of the sql queries.
+     */
+    public static final List<String> sqlExecutionMethodNames =
+            Collections.unmodifiableList(
+            Arrays.asList(
+                "execute",
+                "executeQuery",
+                "executeUpdate",
+                "executeBatch",
+                "executeLargeUpdate",
+                "executeLargeBatch"
+            ));
+
     /**
      * List of valid method names that can be used for sql trace monitoring.
      */
@@ -67,4 +67,21 @@ public class SQLTraceProbeProvider {
             @ProbeParam("sql") String sql) {
 
     }
+
+    /**
+     * Emits probe event/notification that the given connection pool
+     * <code>poolName</code> has completed the execution of a sql query
+     *
+     * @param poolName for which sql query is executed
+     * @param sql sql query executed
+     * @param executionTime time taken by the execution in nano seconds
+     */
+    @Probe(name=JdbcRAConstants.SQL_EXECUTION_TIME)
+    public void sqlExecutionTimeEvent(@ProbeParam("poolName") String poolName,
+                                   @ProbeParam("appName") String appName,
+                                   @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("sql") String sql,
+            @ProbeParam("executionTime") long executionTime) {
+
+    }
 }
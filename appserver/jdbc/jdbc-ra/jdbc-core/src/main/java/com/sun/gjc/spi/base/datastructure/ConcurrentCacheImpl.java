@@ -0,0 +1,267 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.monitoring.StatementCacheProbeProvider;
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.PreparedStatementWrapper;
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Statement cache that does not take a cache wide lock.
+ * <p/>
+ * Look-ups are served by a <code>ConcurrentHashMap</code> with a small number
+ * of stripes as there is a cache per physical connection and hence very few
+ * threads access it concurrently. Entries are evicted in an approximate least
+ * recently used order ("second chance"): entries are queued in the order they
+ * are added, when the cache is full the entry at the head of the queue is
+ * evicted, unless it was used since it was queued, in which case it is queued
+ * again. A look-up only marks the entry as used, and an eviction does not scan
+ * the cache.
+ * <p/>
+ * Can be configured using <code>statement-cache-type=CONCURRENT</code>
+ */
+public class ConcurrentCacheImpl implements Cache {
+
+    //concurrency level of the map, statement cache is per physical connection.
+    private static final int STRIPES = 4;
+
+    private final ConcurrentHashMap<CacheObjectKey, CacheEntry> map;
+    //entries in eviction order, may contain entries that are already removed from the map.
+    private final ConcurrentLinkedQueue<CacheEntry> evictionQueue = new ConcurrentLinkedQueue<CacheEntry>();
+    private final int maxSize;
+    private final PoolInfo poolInfo;
+    private StatementCacheProbeProvider probeProvider = null;
+
+    protected final static Logger _logger =
+            LogDomains.getLogger(ConcurrentCacheImpl.class, LogDomains.RSR_LOGGER);
+
+    public ConcurrentCacheImpl(PoolInfo poolInfo, int maxSize) {
+        this.maxSize = maxSize;
+        this.poolInfo = poolInfo;
+        map = new ConcurrentHashMap<CacheObjectKey, CacheEntry>(maxSize + 1, 0.75f, STRIPES);
+        try {
+            probeProvider = new StatementCacheProbeProvider();
+        } catch(Exception ex) {
+            if(_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "Unable to initialize statement cache probe provider", ex);
+            }
+        }
+    }
+
+    /**
+     * Check if an entry is found for this key object and mark the entry as
+     * the most recently used one.
+     *
+     * @param key key whose mapping entry is to be checked.
+     * @return the statement of the entry, null when the key is not found in cache
+     */
+    public Object checkAndUpdateCache(CacheObjectKey key) {
+        Object result = null;
+        CacheEntry entry = map.get(key);
+        if(entry != null) {
+            //Cache hit
+            if(!entry.referenced) {
+                entry.referenced = true;
+            }
+            result = entry.entryObj;
+            if(_logger.isLoggable(Level.FINEST)) {
+                _logger.finest("Cache Hit");
+            }
+            if(probeProvider != null) {
+                probeProvider.statementCacheHitEvent(poolInfo.getName(), poolInfo.getApplicationName(),
+                        poolInfo.getModuleName());
+            }
+        } else {
+            //Cache miss
+            if(_logger.isLoggable(Level.FINEST)) {
+                _logger.finest("Cache Miss");
+            }
+            if(probeProvider != null) {
+                probeProvider.statementCacheMissEvent(poolInfo.getName(), poolInfo.getApplicationName(),
+                        poolInfo.getModuleName());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add the key and entry value into the cache, least recently used entries are
+     * evicted when the cache exceeds its maximum size.
+     * @param key key that contains the sql string and its type (PS/CS)
+     * @param o entry that is the wrapper of PreparedStatement or
+     * CallableStatement
+     * @param force If the already existing key is to be overwritten
+     */
+    public void addToCache(CacheObjectKey key, Object o, boolean force) {
+        CacheEntry entry = new CacheEntry(key, o);
+        if(force) {
+            CacheEntry replaced = map.put(key, entry);
+            if(replaced != null) {
+                evictionQueue.remove(replaced);
+            }
+        } else if(map.putIfAbsent(key, entry) != null) {
+            return;
+        }
+        evictionQueue.offer(entry);
+        while(map.size() > maxSize) {
+            if(evictLeastRecentlyUsed() && probeProvider != null) {
+                probeProvider.statementCacheEvictionEvent(poolInfo.getName(), poolInfo.getApplicationName(),
+                        poolInfo.getModuleName());
+            }
+        }
+    }
+
+    /**
+     * Remove the least recently used entry after closing its statement.
+     * Entries that were used since they were queued get a second chance and are
+     * queued again.
+     * @return boolean indicating whether an entry was removed
+     */
+    private boolean evictLeastRecentlyUsed() {
+        CacheEntry entry;
+        while((entry = evictionQueue.poll()) != null) {
+            if(map.get(entry.key) != entry) {
+                //already removed (purged or replaced)
+                continue;
+            }
+            if(entry.referenced) {
+                entry.referenced = false;
+                evictionQueue.offer(entry);
+            } else if(map.remove(entry.key, entry)) {
+                closeStatement(entry);
+                return true;
+            }
+        }
+        //cache is empty
+        return false;
+    }
+
+    private void closeStatement(CacheEntry entry) {
+        try{
+            PreparedStatementWrapper ps = (PreparedStatementWrapper) entry.entryObj;
+            ps.setCached(false);
+            ps.close();
+        }catch(SQLException e){
+            //ignore
+        }
+    }
+
+    /**
+     * Clears the statement cache
+     */
+    public void clearCache() {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("clearing objects in cache");
+        }
+        map.clear();
+        evictionQueue.clear();
+    }
+
+    public void flushCache() {
+        for(CacheObjectKey key : map.keySet()) {
+            CacheEntry entry = map.remove(key);
+            if(entry != null) {
+                closeStatement(entry);
+            }
+        }
+        evictionQueue.clear();
+    }
+
+    public void purge() {
+        evictLeastRecentlyUsed();
+    }
+
+    // Used only for purging the bad statements.
+    public void purge(Object obj) {
+        for(Map.Entry<CacheObjectKey, CacheEntry> entryTuple : map.entrySet()) {
+            CacheEntry entry = entryTuple.getValue();
+            if(entry.entryObj.equals(obj)) {
+                if(map.remove(entryTuple.getKey(), entry)) {
+                    evictionQueue.remove(entry);
+                    if(_logger.isLoggable(Level.FINEST)) {
+                        _logger.log(Level.FINEST, "Purging an entry from cache");
+                    }
+                    closeStatement(entry);
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries in the statement cache
+     * @return has integer value
+     */
+    public int getSize() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean isSynchronized() {
+        return true;
+    }
+
+    /**
+     * Cache object that has an entry and whether it was used since it was queued for eviction.
+     */
+    private static class CacheEntry {
+        private final CacheObjectKey key;
+        private final Object entryObj;
+        private volatile boolean referenced;
+
+        CacheEntry(CacheObjectKey key, Object o) {
+            this.key = key;
+            this.entryObj = o;
+        }
+    }
+}
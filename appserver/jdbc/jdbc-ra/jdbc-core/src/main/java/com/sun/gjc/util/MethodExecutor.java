@@ -188,59 +188,7 @@ public class MethodExecutor implements java.io.Serializable {
      *          a security violation.
      */
     private Object convertType(Class type, String parameter) throws ResourceException {
-        try {
-            String typeName = type.getName();
-            if (typeName.equals("java.lang.String") || typeName.equals("java.lang.Object")) {
-                return parameter;
-            }
-
-            if (typeName.equals("int") || typeName.equals("java.lang.Integer")) {
-                return Integer.valueOf(parameter);
-            }
-
-            if (typeName.equals("short") || typeName.equals("java.lang.Short")) {
-                return Short.valueOf(parameter);
-            }
-
-            if (typeName.equals("byte") || typeName.equals("java.lang.Byte")) {
-                return Byte.valueOf(parameter);
-            }
-
-            if (typeName.equals("long") || typeName.equals("java.lang.Long")) {
-                return Long.valueOf(parameter);
-            }
-
-            if (typeName.equals("float") || typeName.equals("java.lang.Float")) {
-                return Float.valueOf(parameter);
-            }
-
-            if (typeName.equals("double") || typeName.equals("java.lang.Double")) {
-                return Double.valueOf(parameter);
-            }
-
-            if (typeName.equals("java.math.BigDecimal")) {
-                return new java.math.BigDecimal(parameter);
-            }
-
-            if (typeName.equals("java.math.BigInteger")) {
-                return new java.math.BigInteger(parameter);
-            }
-
-            if (typeName.equals("boolean") || typeName.equals("java.lang.Boolean")) {
-                return Boolean.valueOf(parameter);
-            }
-            
-            if (typeName.equals("java.util.Properties")) {
-                Properties p = stringToProperties(parameter);
-                if (p!= null) return p;
-            }
-
-            return parameter;
-        } catch (NumberFormatException nfe) {
-            _logger.log(Level.SEVERE, "jdbc.exc_nfe", parameter);
-            String msg = sm.getString("me.invalid_param", parameter);
-            throw new ResourceException(msg);
-        }
+        return PropertyBinder.convert(PropertyBinder.ValueType.of(type), parameter);
     }
 
     public Object invokeMethod(Object object, String methodName, 
@@ -272,7 +220,7 @@ public class MethodExecutor implements java.io.Serializable {
         return returnValue;
     }
 
-    private Properties stringToProperties(String parameter)
+    static Properties stringToProperties(String parameter)
     {
          if (parameter == null) return null;
          String s = parameter.trim();
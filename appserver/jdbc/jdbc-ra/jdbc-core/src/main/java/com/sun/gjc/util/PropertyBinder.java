@@ -0,0 +1,352 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.gjc.util;
+
+import com.sun.enterprise.util.i18n.StringManager;
+import com.sun.gjc.common.DataSourceObjectBuilder;
+import com.sun.logging.LogDomains;
+
+import javax.resource.ResourceException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Vector;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binds configuration values to the methods of a vendor class (eg: DataSource,
+ * XADataSource).<br>
+ * The public methods of the class are indexed by their upper case name and the
+ * conversion required for each of their parameters is determined only once per
+ * class. A method is turned into a <code>MethodHandle</code> on its first use,
+ * so that subsequent DataSource objects of the class are configured without
+ * any reflective look-up.<br>
+ * Binders are cached per class and do not prevent the class from being unloaded.
+ *
+ * @see com.sun.gjc.common.DataSourceObjectBuilder
+ */
+public class PropertyBinder {
+
+    private final static Logger _logger = LogDomains.getLogger(PropertyBinder.class, LogDomains.RSR_LOGGER);
+
+    private final static StringManager sm = StringManager.getManager(DataSourceObjectBuilder.class);
+
+    private static final ClassValue<PropertyBinder> binders = new ClassValue<PropertyBinder>() {
+        @Override
+        protected PropertyBinder computeValue(Class<?> type) {
+            return new PropertyBinder(type);
+        }
+    };
+
+    private static final Setter[] NO_SETTERS = new Setter[0];
+
+    //public methods of the class indexed by their upper case name.
+    private final Map<String, Setter[]> setters;
+
+    /**
+     * Get the binder for the class
+     *
+     * @param type vendor class
+     * @return PropertyBinder
+     */
+    public static PropertyBinder getBinder(Class<?> type) {
+        return binders.get(type);
+    }
+
+    private PropertyBinder(Class<?> type) {
+        Map<String, List<Setter>> methodsByName = new HashMap<String, List<Setter>>();
+        for (Method method : type.getMethods()) {
+            String name = method.getName().toUpperCase(Locale.getDefault());
+            List<Setter> list = methodsByName.get(name);
+            if (list == null) {
+                list = new ArrayList<Setter>(1);
+                methodsByName.put(name, list);
+            }
+            list.add(new Setter(method));
+        }
+        setters = new HashMap<String, Setter[]>(methodsByName.size() * 2);
+        for (Map.Entry<String, List<Setter>> entry : methodsByName.entrySet()) {
+            setters.put(entry.getKey(), entry.getValue().toArray(NO_SETTERS));
+        }
+    }
+
+    /**
+     * Check whether the class has a public method of the given name
+     *
+     * @param upperCaseName method name in upper case
+     * @return boolean
+     */
+    public boolean hasMethod(String upperCaseName) {
+        return setters.containsKey(upperCaseName);
+    }
+
+    /**
+     * Set the value using the single parameter method(s) of the given name.
+     * Equivalent of <code>MethodExecutor.runJavaBeanMethod</code>.
+     *
+     * @param obj           Object on which the method is to be executed.
+     * @param upperCaseName method name in upper case
+     * @param value         value to be set, ignored when null or empty
+     * @throws ResourceException in case of the mismatch of parameter values or
+     *                           a security violation.
+     */
+    public void bindValue(Object obj, String upperCaseName, String value) throws ResourceException {
+        if (value == null || value.trim().equals("")) {
+            return;
+        }
+        Setter[] candidates = setters.get(upperCaseName);
+        if (candidates == null) {
+            return;
+        }
+        for (Setter setter : candidates) {
+            if (setter.types.length == 1) {
+                setter.invoke(obj, new Object[]{convert(setter.types[0], value)}, value);
+            }
+        }
+    }
+
+    /**
+     * Execute the method(s) of the given name whose number of parameters match
+     * the number of values. A value "NULL" is passed as null.
+     * Equivalent of <code>MethodExecutor.runMethod</code>.
+     *
+     * @param obj           Object on which the method is to be executed.
+     * @param upperCaseName method name in upper case
+     * @param values        parameter values
+     * @throws ResourceException in case of the mismatch of parameter values or
+     *                           a security violation.
+     */
+    public void bindValues(Object obj, String upperCaseName, Vector values) throws ResourceException {
+        Setter[] candidates = setters.get(upperCaseName);
+        if (candidates == null) {
+            return;
+        }
+        for (Setter setter : candidates) {
+            if (setter.types.length != values.size()) {
+                continue;
+            }
+            Object[] actualValues = new Object[setter.types.length];
+            for (int i = 0; i < actualValues.length; i++) {
+                String val = (String) values.get(i);
+                if (val.trim().equals("NULL")) {
+                    actualValues[i] = null;
+                } else {
+                    actualValues[i] = convert(setter.types[i], val);
+                }
+            }
+            setter.invoke(obj, actualValues, values);
+        }
+    }
+
+    /**
+     * Converts the value from String to the type.
+     *
+     * @param type      type to which the conversion is required.
+     * @param parameter String value to be converted.
+     * @return Converted value.
+     * @throws ResourceException in case the value can not be converted
+     */
+    static Object convert(ValueType type, String parameter) throws ResourceException {
+        try {
+            return type.convert(parameter);
+        } catch (NumberFormatException nfe) {
+            _logger.log(Level.SEVERE, "jdbc.exc_nfe", parameter);
+            String msg = sm.getString("me.invalid_param", parameter);
+            throw new ResourceException(msg);
+        }
+    }
+
+    /**
+     * Conversions supported from the String value of a property.
+     */
+    enum ValueType {
+        STRING, INTEGER, SHORT, BYTE, LONG, FLOAT, DOUBLE, BIG_DECIMAL, BIG_INTEGER, BOOLEAN, PROPERTIES,
+        //passed as String
+        OTHER;
+
+        static ValueType of(Class type) {
+            String typeName = type.getName();
+            if (typeName.equals("java.lang.String") || typeName.equals("java.lang.Object")) {
+                return STRING;
+            } else if (typeName.equals("int") || typeName.equals("java.lang.Integer")) {
+                return INTEGER;
+            } else if (typeName.equals("short") || typeName.equals("java.lang.Short")) {
+                return SHORT;
+            } else if (typeName.equals("byte") || typeName.equals("java.lang.Byte")) {
+                return BYTE;
+            } else if (typeName.equals("long") || typeName.equals("java.lang.Long")) {
+                return LONG;
+            } else if (typeName.equals("float") || typeName.equals("java.lang.Float")) {
+                return FLOAT;
+            } else if (typeName.equals("double") || typeName.equals("java.lang.Double")) {
+                return DOUBLE;
+            } else if (typeName.equals("java.math.BigDecimal")) {
+                return BIG_DECIMAL;
+            } else if (typeName.equals("java.math.BigInteger")) {
+                return BIG_INTEGER;
+            } else if (typeName.equals("boolean") || typeName.equals("java.lang.Boolean")) {
+                return BOOLEAN;
+            } else if (typeName.equals("java.util.Properties")) {
+                return PROPERTIES;
+            }
+            return OTHER;
+        }
+
+        Object convert(String parameter) {
+            switch (this) {
+                case INTEGER:
+                    return Integer.valueOf(parameter);
+                case SHORT:
+                    return Short.valueOf(parameter);
+                case BYTE:
+                    return Byte.valueOf(parameter);
+                case LONG:
+                    return Long.valueOf(parameter);
+                case FLOAT:
+                    return Float.valueOf(parameter);
+                case DOUBLE:
+                    return Double.valueOf(parameter);
+                case BIG_DECIMAL:
+                    return new BigDecimal(parameter);
+                case BIG_INTEGER:
+                    return new BigInteger(parameter);
+                case BOOLEAN:
+                    return Boolean.valueOf(parameter);
+                case PROPERTIES:
+                    Properties p = MethodExecutor.stringToProperties(parameter);
+                    if (p != null) {
+                        return p;
+                    }
+                    return parameter;
+                default:
+                    return parameter;
+            }
+        }
+    }
+
+    /**
+     * A public method of the class along with the conversions of its parameters.
+     */
+    private static final class Setter {
+        private final Method method;
+        private final Class<?>[] parameterTypes;
+        private final ValueType[] types;
+        //(Object target, Object[] args)Object, created on first use.
+        private volatile MethodHandle invoker;
+
+        Setter(Method method) {
+            this.method = method;
+            parameterTypes = method.getParameterTypes();
+            types = new ValueType[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                types[i] = ValueType.of(parameterTypes[i]);
+            }
+        }
+
+        private MethodHandle getInvoker() throws IllegalAccessException {
+            MethodHandle result = invoker;
+            if (result == null) {
+                AccessController.doPrivileged(new PrivilegedAction<Object>() {
+                    public Object run() {
+                        method.setAccessible(true);
+                        return null;
+                    }
+                });
+                result = MethodHandles.lookup().unreflect(method)
+                        .asType(MethodType.genericMethodType(parameterTypes.length + 1))
+                        .asSpreader(Object[].class, parameterTypes.length);
+                invoker = result;
+            }
+            return result;
+        }
+
+        /**
+         * check that the values can be passed to the method without any further conversion
+         */
+        private boolean isAssignable(Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                Class<?> type = parameterTypes[i];
+                if (values[i] == null) {
+                    if (type.isPrimitive()) {
+                        return false;
+                    }
+                } else if (type.isPrimitive()) {
+                    if (!MethodType.methodType(type).wrap().returnType().isInstance(values[i])) {
+                        return false;
+                    }
+                } else if (!type.isInstance(values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void invoke(Object obj, Object[] values, Object valueForLog) throws ResourceException {
+            if (!isAssignable(values)) {
+                _logger.log(Level.SEVERE, "jdbc.exc_jb_val", valueForLog);
+                String msg = sm.getString("me.illegal_args", method.getName());
+                throw new ResourceException(msg);
+            }
+            try {
+                Object ignore = (Object) getInvoker().invokeExact(obj, values);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                _logger.log(Level.SEVERE, "jdbc.exc_jb_val", valueForLog);
+                _logger.log(Level.SEVERE, "", t);
+                String msg = sm.getString("me.access_denied", method.getName());
+                throw new ResourceException(msg);
+            }
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.gjc.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded aggregator of the sql queries executed by applications, used to
+ * report the most frequently used queries along with their execution times.
+ * <p/>
+ * Follows the space-saving algorithm : a fixed number of counters is
+ * maintained and a query that is not tracked yet takes over the counter with
+ * the least number of executions, inheriting its count. Frequently used
+ * queries hence never lose their counter, while the memory used stays bounded
+ * irrespective of the number of distinct queries.
+ * The counter with the least number of executions is found with a min-heap
+ * of the counters ordered by their count when they were last placed in the
+ * heap. As counts only grow, the counter at the top of the heap is the least
+ * used one when its count did not change since, otherwise it is placed again
+ * with its current count. Replacing a counter is hence O(log n), amortized
+ * over the executions recorded.
+ * Queries are tracked by their normalized form (literals replaced by '?' and
+ * white spaces collapsed) so that executions differing only by the values
+ * used are counted together.
+ * <p/>
+ * Recording an execution of a tracked query does not acquire any lock, only
+ * the replacement of a counter does.
+ */
+public class SQLTraceAggregator {
+
+    //Execution times are recorded in buckets of powers of two microseconds.
+    private static final int EXECUTION_TIME_BUCKETS = 32;
+
+    private static final Comparator<QueryStatistics> MOST_FREQUENTLY_USED_FIRST =
+            new Comparator<QueryStatistics>() {
+                public int compare(QueryStatistics o1, QueryStatistics o2) {
+                    long count1 = o1.getNumExecutions();
+                    long count2 = o2.getNumExecutions();
+                    if (count1 != count2) {
+                        return count1 > count2 ? -1 : 1;
+                    }
+                    long time1 = o1.getLastUsageTime();
+                    long time2 = o2.getLastUsageTime();
+                    return time1 > time2 ? -1 : (time1 == time2 ? 0 : 1);
+                }
+            };
+
+    private static final Comparator<QueryStatistics> LEAST_COUNTED_FIRST =
+            new Comparator<QueryStatistics>() {
+                public int compare(QueryStatistics o1, QueryStatistics o2) {
+                    return o1.heapCount < o2.heapCount ? -1 : (o1.heapCount == o2.heapCount ? 0 : 1);
+                }
+            };
+
+    private final ConcurrentMap<String, QueryStatistics> queries;
+    private final int maxQueries;
+    //Serializes the addition of new queries, when the least used one is replaced.
+    private final Object replaceLock = new Object();
+    //Tracked queries ordered by their count when they were added, guarded by replaceLock.
+    private final PriorityQueue<QueryStatistics> leastUsed;
+
+    /**
+     * @param maxQueries number of distinct queries to track
+     */
+    public SQLTraceAggregator(int maxQueries) {
+        this.maxQueries = maxQueries;
+        queries = new ConcurrentHashMap<String, QueryStatistics>(maxQueries * 2);
+        leastUsed = new PriorityQueue<QueryStatistics>(Math.max(1, maxQueries), LEAST_COUNTED_FIRST);
+    }
+
+    /**
+     * Record an execution of the query.
+     *
+     * @param sql           sql query executed
+     * @param executionTime execution time in nano seconds, -1 when not known
+     */
+    public void record(String sql, long executionTime) {
+        String query = normalize(sql);
+        QueryStatistics statistics = queries.get(query);
+        if (statistics == null) {
+            statistics = addQuery(query);
+        }
+        statistics.recordExecution(System.currentTimeMillis(), executionTime);
+    }
+
+    /**
+     * Record the execution time of the query, without counting it as an
+     * execution. Nothing is recorded if the query is not tracked.
+     *
+     * @param sql           sql query executed
+     * @param executionTime execution time in nano seconds
+     */
+    public void recordExecutionTime(String sql, long executionTime) {
+        QueryStatistics statistics = queries.get(normalize(sql));
+        if (statistics != null) {
+            statistics.recordExecutionTime(executionTime);
+        }
+    }
+
+    private QueryStatistics addQuery(String query) {
+        synchronized (replaceLock) {
+            QueryStatistics statistics = queries.get(query);
+            if (statistics != null) {
+                return statistics;
+            }
+            long inheritedCount = 0;
+            if (queries.size() >= maxQueries) {
+                QueryStatistics replaced = pollLeastUsed();
+                if (replaced != null && queries.remove(replaced.getQuery(), replaced)) {
+                    inheritedCount = replaced.getNumExecutions();
+                }
+            }
+            statistics = new QueryStatistics(query, inheritedCount);
+            statistics.heapCount = inheritedCount;
+            queries.put(query, statistics);
+            leastUsed.add(statistics);
+            return statistics;
+        }
+    }
+
+    /**
+     * Remove the tracked query with the least number of executions from the
+     * heap. The caller must hold replaceLock.
+     */
+    private QueryStatistics pollLeastUsed() {
+        //bounds the number of counters placed again when executions keep being recorded
+        int retries = leastUsed.size();
+        QueryStatistics statistics;
+        while ((statistics = leastUsed.poll()) != null) {
+            if (queries.get(statistics.getQuery()) != statistics) {
+                continue;
+            }
+            long count = statistics.getNumExecutions();
+            if (count == statistics.heapCount || retries-- <= 0) {
+                return statistics;
+            }
+            statistics.heapCount = count;
+            leastUsed.add(statistics);
+        }
+        return null;
+    }
+
+    /**
+     * Remove the queries that are not used since the given time.
+     *
+     * @param time in milli seconds
+     */
+    public void purgeQueriesNotUsedSince(long time) {
+        synchronized (replaceLock) {
+            Iterator<QueryStatistics> iterator = queries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getLastUsageTime() < time) {
+                    iterator.remove();
+                }
+            }
+            leastUsed.clear();
+            leastUsed.addAll(queries.values());
+        }
+    }
+
+    /**
+     * Returns the most frequently used queries, followed by the most recently
+     * used ones in case of equal number of executions.
+     *
+     * @param numQueries maximum number of queries to return
+     * @return list of snapshots of the query statistics
+     */
+    public List<QueryStatistics> getTopQueries(int numQueries) {
+        List<QueryStatistics> result = new ArrayList<QueryStatistics>(queries.size());
+        for (QueryStatistics statistics : queries.values()) {
+            result.add(statistics.snapshot());
+        }
+        Collections.sort(result, MOST_FREQUENTLY_USED_FIRST);
+        if (result.size() > numQueries) {
+            return new ArrayList<QueryStatistics>(result.subList(0, numQueries));
+        }
+        return result;
+    }
+
+    /**
+     * Normalize the sql query by replacing the string and numeric literals by
+     * '?' and collapsing white spaces.
+     *
+     * @param sql sql query
+     * @return normalized query
+     */
+    static String normalize(String sql) {
+        int length = sql.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                //skip the string literal, a quote is escaped by another quote
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    i++;
+                }
+                sb.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierPart(sb)) {
+                while (i + 1 < length && (Character.isLetterOrDigit(sql.charAt(i + 1))
+                        || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                sb.append('?');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isIdentifierPart(StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char previous = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+
+    /**
+     * Statistics of a normalized sql query.
+     */
+    public static class QueryStatistics {
+
+        private final String query;
+        //over estimation of the number of executions, inherited from the replaced query.
+        private final long error;
+        private final AtomicLong numExecutions;
+        private volatile long lastUsageTime;
+        private final AtomicLongArray executionTimes = new AtomicLongArray(EXECUTION_TIME_BUCKETS);
+        //number of executions when placed in the heap of the aggregator, guarded by its replaceLock.
+        private long heapCount;
+
+        QueryStatistics(String query, long inheritedCount) {
+            this.query = query;
+            this.error = inheritedCount;
+            this.numExecutions = new AtomicLong(inheritedCount);
+        }
+
+        /**
+         * @return copy of these statistics that is not updated anymore
+         */
+        QueryStatistics snapshot() {
+            QueryStatistics copy = new QueryStatistics(query, error);
+            copy.numExecutions.set(numExecutions.get());
+            copy.lastUsageTime = lastUsageTime;
+            for (int i = 0; i < EXECUTION_TIME_BUCKETS; i++) {
+                copy.executionTimes.set(i, executionTimes.get(i));
+            }
+            return copy;
+        }
+
+        void recordExecution(long time, long executionTime) {
+            numExecutions.incrementAndGet();
+            lastUsageTime = time;
+            recordExecutionTime(executionTime);
+        }
+
+        void recordExecutionTime(long executionTime) {
+            if (executionTime >= 0) {
+                long micros = executionTime / 1000;
+                int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), EXECUTION_TIME_BUCKETS - 1);
+                executionTimes.incrementAndGet(bucket);
+            }
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public long getNumExecutions() {
+            return numExecutions.get();
+        }
+
+        /**
+         * @return maximum over estimation of the number of executions
+         */
+        public long getError() {
+            return error;
+        }
+
+        public long getLastUsageTime() {
+            return lastUsageTime;
+        }
+
+        /**
+         * Returns the upper bound of the execution time below which the given
+         * fraction of the recorded executions completed.
+         *
+         * @param percentile between 0 and 1
+         * @return execution time in micro seconds, -1 if no execution time is recorded
+         */
+        public long getExecutionTimePercentile(double percentile) {
+            long[] counts = new long[EXECUTION_TIME_BUCKETS];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = executionTimes.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return -1;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile * total));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return (1L << i) - 1;
+                }
+            }
+            return (1L << (counts.length - 1)) - 1;
+        }
+    }
+}
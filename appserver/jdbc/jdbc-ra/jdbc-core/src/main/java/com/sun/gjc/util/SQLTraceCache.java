@@ -42,8 +42,6 @@ package com.sun.gjc.util;
 
 import com.sun.logging.LogDomains;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Timer;
 import java.util.logging.Level;
@@ -53,13 +51,17 @@ import java.util.logging.Logger;
  * Maintains the Sql Tracing Cache used to store SQL statements used by the
  * applications. This is used by the JDBCRA monitoring to display the most
  * frequently used queries by applications.
+ * The queries are aggregated by a bounded {@link SQLTraceAggregator} which
+ * keeps track of a few more queries than reported, to improve the accuracy
+ * of the top queries.
  *
  * @author Shalini M
  */
 public class SQLTraceCache {
 
-    //List of sql trace objects
-    private final List<SQLTrace> list;
+    //Number of queries tracked per query reported.
+    private static final int TRACKED_QUERIES_FACTOR = 4;
+    private final SQLTraceAggregator aggregator;
     //Maximum size of the cache.
     private int numTopQueriesToReport = 10;
     private long timeToKeepQueries = 60 * 1000;
@@ -76,12 +78,24 @@ public class SQLTraceCache {
         this.appName = appName;
         this.moduleName = moduleName;
         this.numTopQueriesToReport = maxSize;
-        list = new ArrayList<SQLTrace>();
+        aggregator = new SQLTraceAggregator(Math.max(1, maxSize) * TRACKED_QUERIES_FACTOR);
         this.timeToKeepQueries = timeToKeepQueries * 60 * 1000;
     }
 
+    /**
+     * Returns a snapshot of the most frequently used queries.
+     *
+     * @return list of SQLTrace objects
+     */
     public List<SQLTrace> getSqlTraceList() {
-        return list;
+        List<SQLTrace> result = new ArrayList<SQLTrace>();
+        for (SQLTraceAggregator.QueryStatistics statistics :
+                aggregator.getTopQueries(numTopQueriesToReport)) {
+            result.add(new SQLTrace(statistics.getQuery(),
+                    (int) Math.min(Integer.MAX_VALUE, statistics.getNumExecutions()),
+                    statistics.getLastUsageTime()));
+        }
+        return result;
     }
 
     public String getPoolName() {
@@ -138,60 +152,38 @@ public class SQLTraceCache {
 
     /**
      * Request for adding a sql query in the form of SQLTrace to this cache.
-     * If the query is already found
-     * in the list, the number of times it is executed is incremented by one
+     * The number of times the query is executed is incremented by one
      * along with the timestamp.
-     * If the query is a new one, it is added to the list.
      * 
      * @param cacheObj
-     * @return
      */
     public void checkAndUpdateCache(SQLTrace cacheObj) {
-        synchronized (list) {
-            if (cacheObj != null) {
-                int index = list.indexOf(cacheObj);
-                if (index != -1) {
-                    //If already found in the cache
-                    //equals is invoked here and hence comparison based on query name is done
-                    //Get the object at the index to update the numExecutions
-                    SQLTrace cache = (SQLTrace) list.get(index);
-                    cache.setNumExecutions(cache.getNumExecutions() + 1);
-                    cache.setLastUsageTime(System.currentTimeMillis());
-                } else {
-                    //First occurrence of the query. query to be added.
-                    cacheObj.setNumExecutions(1);
-                    cacheObj.setLastUsageTime(System.currentTimeMillis());
-                    list.add(cacheObj);
-                }
-            }
+        if (cacheObj != null && cacheObj.getQueryName() != null) {
+            aggregator.record(cacheObj.getQueryName(), -1);
         }
     }
 
     /**
-     * Entries are removed from the list after sorting
-     * them in the least frequently used order. Only numTopQueriesToReport number of
-     * entries are maintained in the list after the purgeEntries.
+     * Request for adding the execution time of the sql query to this cache.
+     * The time is recorded only if the query is in the cache.
+     *
+     * @param sql           sql query executed
+     * @param executionTime execution time in nano seconds
      */
-    public void purgeEntries() {
-        synchronized(list) {
-            Collections.sort(list, Collections.reverseOrder());
-            Iterator i = list.iterator();
-            while (i.hasNext()) {
-                SQLTrace cacheObj = (SQLTrace) i.next();
-                if (list.size() > numTopQueriesToReport) {
-                    if(_logger.isLoggable(Level.FINEST)) {
-                        _logger.finest("removing sql=" + cacheObj.getQueryName());
-                    }
-                    i.remove();
-                } else {
-                    break;
-                }
-            }
-            //sort by most frequently used queries first
-            Collections.sort(list);
+    public void recordExecutionTime(String sql, long executionTime) {
+        if (sql != null) {
+            aggregator.recordExecutionTime(sql, executionTime);
         }
     }
 
+    /**
+     * Queries that are not used in the last timeToKeepQueries are removed
+     * from the cache.
+     */
+    public void purgeEntries() {
+        aggregator.purgeQueriesNotUsedSince(System.currentTimeMillis() - timeToKeepQueries);
+    }
+
     /**
      * Returns the String representation of the list of traced sql queries
      * ordered by the number most frequently used, followed by the usage
@@ -201,12 +193,40 @@ public class SQLTraceCache {
      * @return string representation of the list of sql queries sorted
      */
     public String getTopQueries() {
-        purgeEntries();
-        StringBuffer sb = new StringBuffer();
-        for(SQLTrace cache : list) {
+        StringBuilder sb = new StringBuilder();
+        for (SQLTraceAggregator.QueryStatistics statistics :
+                aggregator.getTopQueries(numTopQueriesToReport)) {
             sb.append(LINE_BREAK);
-            sb.append(cache.getQueryName());
+            sb.append(statistics.getQuery());
         }
         return sb.toString();
     }
+
+    /**
+     * Returns the String representation of the top 'n' traced sql queries
+     * along with their number of executions and the 50th, 95th and 99th
+     * percentiles of their execution times in milli seconds.
+     *
+     * @return string representation of the statistics of the sql queries
+     */
+    public String getTopQueriesStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (SQLTraceAggregator.QueryStatistics statistics :
+                aggregator.getTopQueries(numTopQueriesToReport)) {
+            sb.append(LINE_BREAK);
+            sb.append(statistics.getQuery());
+            sb.append(" [executions=").append(statistics.getNumExecutions());
+            appendPercentile(sb, "p50", statistics.getExecutionTimePercentile(0.50));
+            appendPercentile(sb, "p95", statistics.getExecutionTimePercentile(0.95));
+            appendPercentile(sb, "p99", statistics.getExecutionTimePercentile(0.99));
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    private static void appendPercentile(StringBuilder sb, String name, long micros) {
+        if (micros >= 0) {
+            sb.append(", ").append(name).append('=').append(micros / 1000.0).append("ms");
+        }
+    }
 }
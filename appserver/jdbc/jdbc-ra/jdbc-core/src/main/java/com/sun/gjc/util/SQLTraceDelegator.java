@@ -116,26 +116,63 @@ public class SQLTraceDelegator implements SQLTraceListener {
 
         if (record != null) {
             record.setPoolName(poolName);
-            String methodName = record.getMethodName();
-            //Check if the method name is one in which sql query is used
-            if (isMethodValidForCaching(methodName)) {
-                Object[] params = record.getParams();
-                if (params != null && params.length > 0) {
-                    String sqlQuery = null;
-                    for (Object param : params) {
-                        if(param instanceof String) {
-                            sqlQuery = param.toString();
-                        }
-                        break;
-                    }
-                    if (sqlQuery != null) {
-                        probeProvider.traceSQLEvent(poolName, appName, moduleName, sqlQuery);
-                    }
-                }
+            String sqlQuery = getSqlQuery(record);
+            if (sqlQuery != null) {
+                probeProvider.traceSQLEvent(poolName, appName, moduleName, sqlQuery);
             }
         }
     }
 
+    /**
+     * Check if the method executes sql, so that its execution time is to be
+     * monitored.
+     *
+     * @param methodName name of the method of the statement
+     * @return true if the method executes sql
+     */
+    public boolean isExecutionMethod(String methodName) {
+        return JdbcRAConstants.sqlExecutionMethodNames.contains(methodName);
+    }
+
+    /**
+     * Notify the completion of the statement method traced by the record so
+     * that the execution time of the sql query is monitored.
+     *
+     * @param record        sql trace record of the method executed
+     * @param preparedSql   sql of the prepared / callable statement, null for a statement
+     * @param executionTime time taken by the method in nano seconds
+     */
+    public void sqlExecuted(SQLTraceRecord record, String preparedSql, long executionTime) {
+        if (record != null && isExecutionMethod(record.getMethodName())) {
+            String sqlQuery = getSqlQuery(record);
+            if (sqlQuery == null) {
+                sqlQuery = preparedSql;
+            }
+            //batch of a statement has no single sql query.
+            if (sqlQuery != null) {
+                probeProvider.sqlExecutionTimeEvent(poolName, appName, moduleName, sqlQuery, executionTime);
+            }
+        }
+    }
+
+    /**
+     * Get the sql query used by the method traced by the record.
+     *
+     * @param record sql trace record
+     * @return sql query or null if the method does not use one.
+     */
+    private String getSqlQuery(SQLTraceRecord record) {
+        String sqlQuery = null;
+        //Check if the method name is one in which sql query is used
+        if (isMethodValidForCaching(record.getMethodName())) {
+            Object[] params = record.getParams();
+            if (params != null && params.length > 0 && params[0] instanceof String) {
+                sqlQuery = params[0].toString();
+            }
+        }
+        return sqlQuery;
+    }
+
    /**
     * Check if the method name from the sql trace record can be used to 
     * retrieve a sql string for caching purpose. Most of the method names do not
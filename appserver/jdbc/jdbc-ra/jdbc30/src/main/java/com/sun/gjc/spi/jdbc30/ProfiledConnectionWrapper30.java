@@ -174,7 +174,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         try{
             output = (java.sql.CallableStatement)getProxyObject(
                     mc.prepareCachedCallableStatement(this,sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), 
-                    intf);
+                    intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -200,7 +200,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         try{
             output = (java.sql.CallableStatement)getProxyObject(
                     mc.prepareCachedCallableStatement(this, sql, resultSetType, resultSetConcurrency), 
-                    intf);
+                    intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -228,7 +228,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         try{
             output = (java.sql.CallableStatement)getProxyObject(
                     mc.prepareCachedCallableStatement(this, sql, resultSetType, resultSetConcurrency, resultSetHoldability), 
-                    intf);
+                    intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -251,7 +251,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         try{
             output = (PreparedStatement)getProxyObject(
                     mc.prepareCachedStatement(this, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY),
-                    intf);
+                    intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -274,7 +274,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         Class intf[] = new Class[]{java.sql.PreparedStatement.class};
         try{
             output = (PreparedStatement)getProxyObject(
-                    mc.prepareCachedStatement(this, sql, autoGeneratedKeys), intf);
+                    mc.prepareCachedStatement(this, sql, autoGeneratedKeys), intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -298,7 +298,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         Class intf[] = new Class[]{java.sql.PreparedStatement.class};
         try{
             output = (PreparedStatement)getProxyObject(
-                    mc.prepareCachedStatement(this, sql, columnIndexes), intf);
+                    mc.prepareCachedStatement(this, sql, columnIndexes), intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -324,7 +324,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         try{
             output = (PreparedStatement)getProxyObject(
                     mc.prepareCachedStatement(this, sql, resultSetType, resultSetConcurrency), 
-                    intf);
+                    intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -352,7 +352,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         try{
             output = (PreparedStatement)getProxyObject(
                     mc.prepareCachedStatement(this, sql, resultSetType, resultSetConcurrency, resultSetHoldability), 
-                    intf);
+                    intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -377,7 +377,7 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
         Class intf[] = new Class[]{java.sql.PreparedStatement.class};
         try{
             output = (PreparedStatement)getProxyObject(mc.prepareCachedStatement(this, sql, columnNames), 
-                    intf);
+                    intf, sql);
         }catch(Exception e){
             SQLException se = new SQLException(e.getMessage());
             se.initCause(e);
@@ -439,9 +439,17 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
                 enableCaching);
     }
 
-    //TODO refactor this method and move to a higher level
     private <T> T getProxyObject(final Object actualObject, Class<T>[] ifaces) throws Exception {
-        
+        return getProxyObject(actualObject, ifaces, null);
+    }
+
+    //TODO refactor this method and move to a higher level
+    /**
+     * @param sql sql of the prepared / callable statement, used to monitor
+     * its execution times
+     */
+    private <T> T getProxyObject(final Object actualObject, Class<T>[] ifaces,
+            final String sql) throws Exception {
         
         T result;
         InvocationHandler ih = new InvocationHandler() {
@@ -455,7 +463,15 @@ public class ProfiledConnectionWrapper30 extends ConnectionHolder30 implements C
                 record.setThreadID(Thread.currentThread().getId());
                 record.setTimeStamp(System.currentTimeMillis());
                 sqlTraceDelegator.sqlTrace(record);
-                return method.invoke(actualObject, args);
+                if (!sqlTraceDelegator.isExecutionMethod(record.getMethodName())) {
+                    return method.invoke(actualObject, args);
+                }
+                long startTime = System.nanoTime();
+                try {
+                    return method.invoke(actualObject, args);
+                } finally {
+                    sqlTraceDelegator.sqlExecuted(record, sql, System.nanoTime() - startTime);
+                }
             }
         };
         result = (T) Proxy.newProxyInstance(actualObject.getClass().getClassLoader(), ifaces, ih);
@@ -491,6 +491,20 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer {
                     conConnPool.setPreferValidateOverRecreate(toBoolean(value, false));
                     logFine("PREFER-VALIDATE-OVER-RECREATE : " + value);
 
+                } else if ("CONNECTION-CREATION-PARALLELISM".equals(name.toUpperCase(Locale.getDefault()))) {
+                    String value = rp.getValue();
+                    try {
+                        conConnPool.setConnectionCreationParallelism(Integer.parseInt(value));
+                        logFine("CONNECTION-CREATION-PARALLELISM : " + value);
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'connection-creation-parallelism' : " + value);
+                    }
+
+                } else if ("ADAPTIVE-RESIZE".equals(name.toUpperCase(Locale.getDefault()))) {
+                    String value = rp.getValue();
+                    conConnPool.setAdaptiveResize(toBoolean(value, false));
+                    logFine("ADAPTIVE-RESIZE : " + value);
+
                 } else if ("STATEMENT-CACHE-TYPE".equals(name.toUpperCase(Locale.getDefault()))) {
 
 		    if(adminPool.getStatementCacheType() != null) {
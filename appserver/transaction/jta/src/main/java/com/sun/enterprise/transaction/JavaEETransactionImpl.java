@@ -41,6 +41,7 @@
 package com.sun.enterprise.transaction;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.*;
 
 import javax.transaction.*;
@@ -67,13 +68,13 @@ import com.sun.logging.LogDomains;
  * If jtsTx!=null, all calls are delegated to jtsTx.
  *
 
- * Time out capability is added to the local transactions. This class extends the TimerTask.
- * When the transaction needs to be timedout, this schedules with the timer. At the commit 
- * and rollback time, task will be cancelled.  If the transaction is timedout, run() method
+ * Time out capability is added to the local transactions. When the transaction needs to be
+ * timedout, this schedules with the TransactionTimeoutScheduler. At the commit and rollback
+ * time, the timeout will be cancelled.  If the transaction is timedout, run() method
  * will be called and transaction will be marked for rollback.
  */
-public final class JavaEETransactionImpl extends TimerTask implements
-        JavaEETransaction {
+public final class JavaEETransactionImpl implements
+        JavaEETransaction, Runnable {
 
     static Logger _logger = LogDomains.getLogger(JavaEETransactionImpl.class, LogDomains.JTA_LOGGER);
 
@@ -84,7 +85,7 @@ public final class JavaEETransactionImpl extends TimerTask implements
 
     // Local Tx ids are just numbers: they dont need to be unique across
     // processes or across multiple activations of this server process.
-    private static long txIdCounter = 1;
+    private static final AtomicLong txIdCounter = new AtomicLong(1);
 
     // Fall back to the old (wrong) behavior for the case when setRollbackOnly
     // was called before XA transaction started
@@ -108,6 +109,7 @@ public final class JavaEETransactionImpl extends TimerTask implements
     private boolean timedOut = false;
     private boolean isTimerTask = false;
     private int timeout = 0;
+    private TransactionTimeoutScheduler.Timeout timeoutHandle;
     // END: local transaction timeout
     private boolean imported = false;
 
@@ -128,17 +130,6 @@ public final class JavaEETransactionImpl extends TimerTask implements
     // tx-specific ejb container info associated with this tx
     private Object containerData = null;
 
-    static private boolean isTimerInitialized = false;
-    static private Timer timer = null;
-    static private long timerTasksScheduled = 0; // Global counter
-
-    static synchronized private void initializeTimer() {
-        if (isTimerInitialized)
-            return;
-        timer = new Timer(true); // daemon 
-        isTimerInitialized = true;
-    }
-
     JavaEETransactionImpl(JavaEETransactionManager javaEETM) {
         this.javaEETM = javaEETM;
         this.txId = getNewTxId();
@@ -154,10 +145,7 @@ public final class JavaEETransactionImpl extends TimerTask implements
     // START: local transaction timeout
     JavaEETransactionImpl(int timeout, JavaEETransactionManager javaEETM) {
         this(javaEETM);
-        if (!isTimerInitialized)
-            initializeTimer();
-        timer.schedule(this,timeout * 1000L);
-        timerTasksScheduled++;
+        timeoutHandle = TransactionTimeoutScheduler.getInstance().schedule(this, timeout * 1000L);
         isTimerTask = true;
         this.timeout = timeout;
     }
@@ -170,7 +158,7 @@ public final class JavaEETransactionImpl extends TimerTask implements
     }
 
     // START: local transaction timeout
-    // TimerTask run() method implementation
+    // Run by the TransactionTimeoutScheduler when the transaction times out
     public void run() {
         timedOut = true;
         try {
@@ -192,16 +180,11 @@ public final class JavaEETransactionImpl extends TimerTask implements
         return isTimerTask;
     }
 
-    // Cancels the timertask and returns the timeout
+    // Cancels the timeout and returns the timeout value. The cancelled
+    // timeout is removed from the scheduler right away, there is nothing
+    // to purge.
     public int cancelTimerTask() {
-        cancel();
-        int mod = javaEETM.getPurgeCancelledTtransactionsAfter();
-        if (mod > 0 && timerTasksScheduled % mod == 0) {
-            int purged = timer.purge();
-            if (_logger.isLoggable(Level.FINE)) {
-                _logger.log(Level.FINE, "Purged " + purged + " timer tasks from canceled queue");
-            } 
-        }
+        timeoutHandle.cancel();
         return timeout;
     }
 
@@ -210,9 +193,8 @@ public final class JavaEETransactionImpl extends TimerTask implements
     }
     // END: local transaction timeout
 
-    private static synchronized long getNewTxId() {
-        long newTxId = txIdCounter++;
-        return newTxId;
+    private static long getNewTxId() {
+        return txIdCounter.getAndIncrement();
     }
 
     public boolean equals(Object other) {
@@ -41,6 +41,7 @@
 package com.sun.enterprise.transaction;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.*;
 import java.rmi.RemoteException;
 
@@ -131,28 +132,35 @@ public class JavaEETransactionManagerSimplified
     private int purgeCancelledTtransactions = 0;
 
     // admin and monitoring related parameters
-    private  static final Hashtable statusMap = new Hashtable();
-    private List activeTransactions = Collections.synchronizedList(new ArrayList());
+    private  static final String[] statusNames = new String[10];
+
+    // The in-flight transactions, added and removed in constant time without
+    // a shared monitor. Iterating over it is weakly consistent, it does not
+    // block the transactions that begin or complete meanwhile.
+    private final Set<Object> activeTransactions =
+            Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
     private boolean monitoringEnabled = false;
 
     private TransactionServiceProbeProvider monitor;
-    private Hashtable txnTable = null;
+
+    // Snapshot of the transactions by id, replaced by getActiveTransactions
+    private volatile Map<String, Transaction> txnTable = null;
 
     private Cache resourceTable;
 
     private  Timer _timer = new Timer("transaction-manager", true);
 
     static {
-        statusMap.put(Status.STATUS_ACTIVE, "Active");
-        statusMap.put(Status.STATUS_MARKED_ROLLBACK, "MarkedRollback");
-        statusMap.put(Status.STATUS_PREPARED, "Prepared");
-        statusMap.put(Status.STATUS_COMMITTED, "Committed");
-        statusMap.put(Status.STATUS_ROLLEDBACK, "RolledBack");
-        statusMap.put(Status.STATUS_UNKNOWN, "UnKnown");
-        statusMap.put(Status.STATUS_NO_TRANSACTION, "NoTransaction");
-        statusMap.put(Status.STATUS_PREPARING, "Preparing");
-        statusMap.put(Status.STATUS_COMMITTING, "Committing");
-        statusMap.put(Status.STATUS_ROLLING_BACK, "RollingBack");
+        statusNames[Status.STATUS_ACTIVE] = "Active";
+        statusNames[Status.STATUS_MARKED_ROLLBACK] = "MarkedRollback";
+        statusNames[Status.STATUS_PREPARED] = "Prepared";
+        statusNames[Status.STATUS_COMMITTED] = "Committed";
+        statusNames[Status.STATUS_ROLLEDBACK] = "RolledBack";
+        statusNames[Status.STATUS_UNKNOWN] = "UnKnown";
+        statusNames[Status.STATUS_NO_TRANSACTION] = "NoTransaction";
+        statusNames[Status.STATUS_PREPARING] = "Preparing";
+        statusNames[Status.STATUS_COMMITTING] = "Committing";
+        statusNames[Status.STATUS_ROLLING_BACK] = "RollingBack";
 
     }
     public JavaEETransactionManagerSimplified() {
@@ -1125,12 +1133,12 @@ public class JavaEETransactionManagerSimplified
     *  @see TransactionAdminBean
     */
     public ArrayList getActiveTransactions() {
-        ArrayList tranBeans = new ArrayList();
-        txnTable = new Hashtable();
-        Object[] activeCopy = activeTransactions.toArray(); // get the clone of the active transactions
-        for(int i=0;i<activeCopy.length;i++){
+        ArrayList tranBeans = new ArrayList(activeTransactions.size());
+        Map<String, Transaction> table = new HashMap<String, Transaction>();
+        // iterating does not block the transactions that begin or complete
+        for(Object active : activeTransactions){
             try{
-                Transaction tran = (Transaction)activeCopy[i];
+                Transaction tran = (Transaction)active;
                 TransactionAdminBean tBean = getDelegate().getTransactionAdminBean(tran);
                 if (tBean == null) {
                     // Shouldn't happen
@@ -1139,7 +1147,7 @@ public class JavaEETransactionManagerSimplified
                     if (_logger.isLoggable(Level.FINE))
                         _logger.log(Level.FINE, "TM: Adding txnId " + tBean.getId() + " to txnTable");
 
-                    txnTable.put(tBean.getId(), tran);
+                    table.put(tBean.getId(), tran);
                     tranBeans.add(tBean);
                 }
             }catch(Exception ex){
@@ -1147,6 +1155,7 @@ public class JavaEETransactionManagerSimplified
                     "transaction.monitor.error_while_getting_monitor_attr", ex);
             }
         }
+        txnTable = table;
         return tranBeans;
     }
 
@@ -1179,14 +1188,15 @@ public class JavaEETransactionManagerSimplified
              getActiveTransactions();
          // XXX - WORK AROUND MONITORING BUG
 
-         if (txnTable == null || txnTable.get(txnId) == null) {
+         Transaction tran = txnTable.get(txnId);
+         if (tran == null) {
             String result = sm.getString("transaction.monitor.rollback_invalid_id");
             throw new  IllegalStateException(result);
         } else {
             if (_logger.isLoggable(Level.FINE))
                 _logger.log(Level.FINE, "TM: Marking txnId " + txnId + " for rollback");
 
-             ((Transaction) txnTable.get(txnId)).setRollbackOnly();
+             tran.setRollbackOnly();
          }
 
     }
@@ -1256,7 +1266,7 @@ public class JavaEETransactionManagerSimplified
 /************************* Helper Methods ***********************************/
 /****************************************************************************/
     public static String getStatusAsString(int status) {
-        return (String)statusMap.get(status);
+        return (status >= 0 && status < statusNames.length) ? statusNames[status] : null;
     }
 
     private void delistComponentResources(ComponentInvocation inv,
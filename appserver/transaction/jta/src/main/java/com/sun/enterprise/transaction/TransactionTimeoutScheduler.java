@@ -0,0 +1,432 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.transaction;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.logging.LogDomains;
+
+/**
+ * Schedules the transaction timeouts, of the local transactions of
+ * JavaEETransactionManagerSimplified as well as of the JTS transactions.
+ * <p/>
+ * The timeouts are kept in a hierarchical timing wheel : LEVELS wheels of
+ * WHEEL_SIZE buckets, a bucket of the wheel of level n holding the timeouts
+ * that expire within one tick of that wheel, WHEEL_SIZE^n ticks of the
+ * scheduler. When the scheduler enters the span of a bucket of an upper
+ * wheel, its timeouts are cascaded down to the lower wheels. Adding and
+ * removing a timeout to a bucket is O(1), whatever the number of timeouts.
+ * <p/>
+ * The wheels are only accessed by the timeout thread. The threads that
+ * schedule or cancel a timeout hand it over to the timeout thread through
+ * queues, striped by thread so that transaction begin and completion on
+ * many threads do not contend. A cancelled timeout is unlinked from its
+ * bucket at the next tick, rather than kept until it would have expired.
+ * <p/>
+ * The tasks of the expired timeouts run on the timeout thread, they must
+ * not block.
+ */
+public final class TransactionTimeoutScheduler {
+
+    static final Logger _logger = LogDomains.getLogger(TransactionTimeoutScheduler.class, LogDomains.JTA_LOGGER);
+
+    private static final long DEFAULT_TICK_MILLIS = 100;
+
+    private static final int WHEEL_BITS = 8;
+
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // With ticks of 100 ms, the wheels span more than 13 years
+    private static final int LEVELS = 4;
+
+    private static class SingletonHolder {
+        private static final TransactionTimeoutScheduler SINGLETON =
+                new TransactionTimeoutScheduler("Transaction Timeout Thread", DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * @return the scheduler shared by the transaction managers
+     */
+    public static TransactionTimeoutScheduler getInstance() {
+        return SingletonHolder.SINGLETON;
+    }
+
+    private final String threadName;
+
+    private final long tickNanos;
+
+    private final long startNanos = System.nanoTime();
+
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+
+    private final ConcurrentLinkedQueue<Timeout>[] scheduledQueues;
+
+    private final ConcurrentLinkedQueue<Timeout>[] cancelledQueues;
+
+    private final int stripeMask;
+
+    // Number of timeouts linked in the wheels, only used by the timeout thread
+    private long wheelCount;
+
+    // Next tick to process, only used by the timeout thread
+    private long currentTick;
+
+    private Thread timeoutThread;
+
+    // true while the timeout thread waits for a timeout to be scheduled
+    private volatile boolean idle;
+
+    /**
+     * @param threadName name of the timeout thread
+     * @param tickMillis precision of the timeouts
+     */
+    @SuppressWarnings("unchecked")
+    TransactionTimeoutScheduler(String threadName, long tickMillis) {
+        this.threadName = threadName;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheels[level][i] = new Bucket();
+            }
+        }
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        stripeMask = stripes - 1;
+        scheduledQueues = new ConcurrentLinkedQueue[stripes];
+        cancelledQueues = new ConcurrentLinkedQueue[stripes];
+        for (int i = 0; i < stripes; i++) {
+            scheduledQueues[i] = new ConcurrentLinkedQueue<Timeout>();
+            cancelledQueues[i] = new ConcurrentLinkedQueue<Timeout>();
+        }
+    }
+
+    /**
+     * Schedule a task to run on the timeout thread once the delay elapsed,
+     * unless the returned timeout is cancelled before.
+     *
+     * @param task the task to run when the timeout expires
+     * @param delayMillis the delay in milliseconds
+     * @return the timeout, to cancel it
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        long delayNanos = delayMillis <= 0 ? 0 :
+                (delayMillis >= Long.MAX_VALUE / 2000000L ? Long.MAX_VALUE / 2 :
+                TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + delayNanos);
+        ensureStarted();
+        stripe(scheduledQueues).add(timeout);
+        if (idle) {
+            LockSupport.unpark(timeoutThread);
+        }
+        return timeout;
+    }
+
+    private synchronized void ensureStarted() {
+        if (timeoutThread != null) {
+            return;
+        }
+        timeoutThread = new Thread(threadName) {
+            @Override
+            public void run() {
+                runTimeoutThread();
+            }
+        };
+        timeoutThread.setDaemon(true);
+        timeoutThread.setContextClassLoader(null);
+        timeoutThread.start();
+    }
+
+    private ConcurrentLinkedQueue<Timeout> stripe(ConcurrentLinkedQueue<Timeout>[] queues) {
+        return queues[(int) Thread.currentThread().getId() & stripeMask];
+    }
+
+    void cancelled(Timeout timeout) {
+        stripe(cancelledQueues).add(timeout);
+    }
+
+    private void runTimeoutThread() {
+        while (true) {
+            try {
+                transferCancelled();
+                if (wheelCount == 0) {
+                    // Nothing to cascade nor expire in the elapsed ticks
+                    currentTick = Math.max(currentTick, tickOf(System.nanoTime()));
+                }
+                transferScheduled();
+                if (wheelCount == 0) {
+                    awaitScheduled();
+                    continue;
+                }
+                long nowTick = tickOf(System.nanoTime());
+                while (currentTick <= nowTick) {
+                    processTick(currentTick);
+                    currentTick++;
+                }
+                long wait = startNanos + currentTick * tickNanos - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                }
+            } catch (Throwable t) {
+                _logger.log(Level.WARNING, "enterprise_distributedtx.some_excep", t);
+            }
+        }
+    }
+
+    private void awaitScheduled() {
+        idle = true;
+        try {
+            if (isEmpty(scheduledQueues)) {
+                LockSupport.park(this);
+            }
+        } finally {
+            idle = false;
+        }
+    }
+
+    private static boolean isEmpty(ConcurrentLinkedQueue<Timeout>[] queues) {
+        for (ConcurrentLinkedQueue<Timeout> queue : queues) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long tickOf(long nanos) {
+        long elapsed = nanos - startNanos;
+        return elapsed <= 0 ? 0 : elapsed / tickNanos;
+    }
+
+    private void transferCancelled() {
+        for (ConcurrentLinkedQueue<Timeout> queue : cancelledQueues) {
+            Timeout timeout;
+            while ((timeout = queue.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                    wheelCount--;
+                }
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (ConcurrentLinkedQueue<Timeout> queue : scheduledQueues) {
+            Timeout timeout;
+            while ((timeout = queue.poll()) != null) {
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                // The first tick that starts at or after the deadline
+                long elapsed = timeout.deadlineNanos - startNanos;
+                timeout.deadlineTick = elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+                place(timeout);
+                wheelCount++;
+            }
+        }
+    }
+
+    /**
+     * Link the timeout to the bucket of the lowest wheel whose current
+     * revolution includes its deadline.
+     */
+    private void place(Timeout timeout) {
+        long tick = Math.max(timeout.deadlineTick, currentTick);
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * (level + 1);
+            if ((tick >>> shift) == (currentTick >>> shift)) {
+                wheels[level][(int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK].add(timeout);
+                return;
+            }
+        }
+        // Beyond the span of the wheels, wait in the last bucket of the top
+        // wheel to be placed again when the scheduler reaches it
+        int shift = WHEEL_BITS * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) ((currentTick >>> shift) - 1) & WHEEL_MASK].add(timeout);
+    }
+
+    private void processTick(long tick) {
+        // Cascade from the upper wheels whose bucket starts at this tick,
+        // the upper ones first as they may feed the lower ones
+        for (int level = LEVELS - 1; level > 0; level--) {
+            long spanMask = (1L << (WHEEL_BITS * level)) - 1;
+            if ((tick & spanMask) == 0) {
+                Bucket bucket = wheels[level][(int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK];
+                Timeout timeout;
+                while ((timeout = bucket.poll()) != null) {
+                    place(timeout);
+                }
+            }
+        }
+        Bucket bucket = wheels[0][(int) tick & WHEEL_MASK];
+        Timeout timeout;
+        while ((timeout = bucket.poll()) != null) {
+            wheelCount--;
+            timeout.expire();
+        }
+    }
+
+    /**
+     * A scheduled task, returned by schedule to cancel it.
+     */
+    public static final class Timeout {
+
+        private static final int ST_SCHEDULED = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final TransactionTimeoutScheduler scheduler;
+
+        private final Runnable task;
+
+        final long deadlineNanos;
+
+        private final AtomicInteger state = new AtomicInteger(ST_SCHEDULED);
+
+        // Only used by the timeout thread
+        long deadlineTick;
+        Bucket bucket;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(TransactionTimeoutScheduler scheduler, Runnable task, long deadlineNanos) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancel the timeout.
+         *
+         * @return false if the timeout already expired or was cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_SCHEDULED, ST_CANCELLED)) {
+                return false;
+            }
+            scheduler.cancelled(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        /**
+         * @return the number of milliseconds before the timeout expires,
+         * 0 if it expired
+         */
+        public long getRemainingMillis() {
+            long remaining = deadlineNanos - System.nanoTime();
+            return remaining <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(remaining);
+        }
+
+        void expire() {
+            if (!state.compareAndSet(ST_SCHEDULED, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                _logger.log(Level.WARNING, "enterprise_distributedtx.some_excep", t);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        Timeout poll() {
+            Timeout timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
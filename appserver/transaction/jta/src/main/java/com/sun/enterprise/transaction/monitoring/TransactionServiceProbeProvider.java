@@ -65,4 +65,8 @@ public class TransactionServiceProbeProvider {
 
     @Probe(name="freeze")
     public void freezeEvent(@ProbeParam("isFrozen") boolean b) {}
+
+    @Probe(name="logforced")
+    public void logForcedEvent(@ProbeParam("recordCount") int recordCount,
+            @ProbeParam("forceTime") long forceTime) {}
 }
@@ -44,9 +44,13 @@ import java.util.List;
 import java.util.logging.*;
 
 import org.glassfish.external.statistics.CountStatistic;
+import org.glassfish.external.statistics.RangeStatistic;
 import org.glassfish.external.statistics.StringStatistic;
+import org.glassfish.external.statistics.TimeStatistic;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
+import org.glassfish.external.statistics.impl.RangeStatisticImpl;
 import org.glassfish.external.statistics.impl.StringStatisticImpl;
+import org.glassfish.external.statistics.impl.TimeStatisticImpl;
 import org.glassfish.external.probe.provider.annotations.*;
 import org.glassfish.gmbal.AMXMetadata;
 import org.glassfish.gmbal.Description;
@@ -68,6 +72,7 @@ public class TransactionServiceStatsProvider {
 
     private static final int COLUMN_LENGTH = 25;
     private static final String LINE_BREAK = "%%%EOL%%%";
+    private static final long THROUGHPUT_SAMPLING_INTERVAL = 1000L;
 
     private CountStatisticImpl activeCount = new CountStatisticImpl("ActiveCount", "count", 
             "Provides the number of transactions that are currently active.");
@@ -86,6 +91,30 @@ public class TransactionServiceStatsProvider {
     private StringStatisticImpl state = new StringStatisticImpl("State", "String", 
                 "Indicates if the transaction service has been frozen.");
 
+    private CountStatisticImpl commitThroughput = new CountStatisticImpl("CommitThroughput", "count/second",
+            "Provides the number of transactions committed per second, measured between two reads "
+            + "of this statistic at least one second apart.");
+
+    private CountStatisticImpl logForceCount = new CountStatisticImpl("LogForceCount", "count",
+            "Provides the number of times the transaction log has been forced to permanent storage.");
+
+    private CountStatisticImpl logForcedRecordCount = new CountStatisticImpl("LogForcedRecordCount", "count",
+            "Provides the number of forced transaction log records.");
+
+    private RangeStatisticImpl logForceBatchSize = new RangeStatisticImpl(0, 0, 0,
+            "LogForceBatchSize", "count",
+            "Provides the number of records forced at once to the transaction log, which is above "
+            + "one when the forced writes are group committed.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+
+    private TimeStatisticImpl logForceTime = new TimeStatisticImpl(0, 0, 0, 0,
+            "LogForceTime", "millisecond",
+            "Provides the time taken to force the transaction log to permanent storage.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+
+    private long throughputSampleTime = System.currentTimeMillis();
+    private long throughputSampleCount = 0;
+
     private boolean isFrozen = false;
 
     private JavaEETransactionManager txMgr;
@@ -115,6 +144,48 @@ public class TransactionServiceStatsProvider {
         return rolledbackCount;
     }
     
+    @ManagedAttribute(id="committhroughput")
+    @Description( "Provides the number of transactions committed per second." )
+    public synchronized CountStatistic getCommitThroughput() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - throughputSampleTime;
+        if (elapsed >= THROUGHPUT_SAMPLING_INTERVAL) {
+            long committed = committedCount.getCount();
+            if (committed < throughputSampleCount) {
+                // the statistics have been reset
+                throughputSampleCount = 0;
+            }
+            commitThroughput.setCount((committed - throughputSampleCount) * 1000L / elapsed);
+            throughputSampleTime = now;
+            throughputSampleCount = committed;
+        }
+        return commitThroughput;
+    }
+
+    @ManagedAttribute(id="logforcecount")
+    @Description( "Provides the number of times the transaction log has been forced." )
+    public CountStatistic getLogForceCount() {
+        return logForceCount;
+    }
+
+    @ManagedAttribute(id="logforcedrecordcount")
+    @Description( "Provides the number of forced transaction log records." )
+    public CountStatistic getLogForcedRecordCount() {
+        return logForcedRecordCount;
+    }
+
+    @ManagedAttribute(id="logforcebatchsize")
+    @Description( "Provides the number of records forced at once to the transaction log." )
+    public RangeStatistic getLogForceBatchSize() {
+        return logForceBatchSize;
+    }
+
+    @ManagedAttribute(id="logforcetime")
+    @Description( "Provides the time taken to force the transaction log." )
+    public TimeStatistic getLogForceTime() {
+        return logForceTime;
+    }
+
     @ManagedAttribute(id="state")
     @Description( "Indicates if the transaction service has been frozen." )
     public StringStatistic getState() {
@@ -217,6 +288,18 @@ public class TransactionServiceStatsProvider {
         isFrozen = b;
     }
 
+    @ProbeListener("glassfish:transaction:transaction-service:logforced")
+    public void logForcedEvent(@ProbeParam("recordCount") int recordCount,
+            @ProbeParam("forceTime") long forceTime) {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("=== transaction-service log forced: " + recordCount + " records");
+        }
+        logForceCount.increment();
+        logForcedRecordCount.increment(recordCount);
+        logForceBatchSize.setCurrent(recordCount);
+        logForceTime.incrementCount(forceTime);
+    }
+
     private void appendColumn(StringBuffer buf, String text, int length) {
         buf.append(text);
         for (int i=text.length(); i<length; i++){
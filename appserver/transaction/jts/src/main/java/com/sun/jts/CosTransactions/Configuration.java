@@ -222,6 +222,36 @@ public class Configuration extends Object {
      */
     public final static String TIMEOUT_INTERVAL = "com.sun.jts.timeoutInterval" ;
 
+    /**The property key used to specify whether the forced writes to the transaction
+     * log are group committed: the records written concurrently are forced to
+     * permanent storage at once, rather than each with its own sync.
+     * <p>
+     * The value is <em><b>com.sun.jts.logGroupCommit</b></em>.
+     * <p>
+     * The default value for this property is false.
+     */
+    public final static String LOG_GROUP_COMMIT = "com.sun.jts.logGroupCommit";
+
+    /**The property key used to specify the time in microseconds for which a group
+     * commit waits for more records before forcing the log. A higher value results
+     * in larger groups, at the cost of a longer commit time.
+     * <p>
+     * The value is <em><b>com.sun.jts.logGroupCommitMaxDelay</b></em>.
+     * <p>
+     * The default value for this property is 0: the log is forced for the records
+     * written while the previous force was in progress, without further wait.
+     */
+    public final static String LOG_GROUP_COMMIT_MAX_DELAY = "com.sun.jts.logGroupCommitMaxDelay";
+
+    /**The property key used to specify the number of records after which a group
+     * commit stops waiting for more records and forces the log.
+     * <p>
+     * The value is <em><b>com.sun.jts.logGroupCommitMaxBatch</b></em>.
+     * <p>
+     * The default value for this property is 64.
+     */
+    public final static String LOG_GROUP_COMMIT_MAX_BATCH = "com.sun.jts.logGroupCommitMaxBatch";
+
     /**The default subdirectory in which log and repository files are stored.
      */
     public final static String JTS_SUBDIRECTORY = "jts"/*#Frozen*/;
@@ -40,6 +40,8 @@
 
 package com.sun.jts.CosTransactions;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.sql.*;
@@ -69,6 +71,8 @@ class LogDBHelper {
 
     private DataSource ds = null;
     private Method getNonTxConnectionMethod = null;
+    private BatchWriter batchWriter = null;
+    private boolean nonTxConnectionForAddRecord = useNonTxConnectionForAddRecord;
     private static final String insertStatement = 
 	         System.getProperty("com.sun.jts.dblogging.insertquery",
                  "insert into  txn_log_table values ( ? , ? , ? , ? )");
@@ -84,6 +88,10 @@ class LogDBHelper {
     private static final String createTableStatement = 
                  "create table txn_log_table (localtid varchar(20), servername varchar(150), instancename varchar(150), gtrid blob)";
     private static final boolean useNonTxConnectionForAddRecord = Boolean.getBoolean("com.sun.jts.dblogging.use.nontx.connection.for.add");
+    private static final boolean useBatchWriter = Boolean.getBoolean("com.sun.jts.dblogging.batch");
+    private static final long batchFlushInterval = Long.getLong("com.sun.jts.dblogging.batch.flushinterval", 100L);
+    private static final int batchMaxSize = Integer.getInteger("com.sun.jts.dblogging.batch.maxsize", 100);
+    private static final long FLUSH_TIMEOUT = 30000L;
     private static Logger _logger = LogDomains.getLogger(LogDBHelper.class, LogDomains.TRANSACTION_LOGGER);
     private static LogDBHelper _instance = new LogDBHelper();
 
@@ -104,6 +112,14 @@ class LogDBHelper {
 
             createTable();
 
+            if (useBatchWriter) {
+                batchWriter = new BatchWriter();
+                if (!nonTxConnectionForAddRecord) {
+                    _logger.info("LogDBHelper.BatchWriter batches the deletes only: " +
+                            "the inserts are enlisted in the transactions");
+                }
+            }
+
         } catch (Throwable t) {
             _logger.log(Level.SEVERE,"jts.unconfigured_db_log_resource",resName);
             _logger.log(Level.SEVERE,"",t);
@@ -112,9 +128,23 @@ class LogDBHelper {
             _logger.fine("LogDBHelper.resName: " + resName);
             _logger.fine("LogDBHelper.ds: " + ds);
             _logger.fine("LogDBHelper.getNonTxConnectionMethod: " + getNonTxConnectionMethod);
+            _logger.fine("LogDBHelper.batchWriter: " + batchWriter);
         }
     }
 
+    /**
+     * Creates a helper with a batch writer that logs to the given data
+     * source, which is not looked up. Used by the tests.
+     */
+    LogDBHelper(DataSource ds, String instanceName, boolean nonTxConnectionForAddRecord)
+            throws NoSuchMethodException {
+        this.instanceName = instanceName;
+        this.ds = ds;
+        this.nonTxConnectionForAddRecord = nonTxConnectionForAddRecord;
+        getNonTxConnectionMethod = ds.getClass().getMethod("getNonTxConnection", null);
+        batchWriter = new BatchWriter();
+    }
+
     void setServerName() {
         // Add a mapping between the serverName and the instanceName
         String serverName0 = Configuration.getServerName();
@@ -145,6 +175,14 @@ class LogDBHelper {
         }
     }
 
+    /**
+     * Adds the record of a transaction. With the batch writer and the non
+     * transactional connection, the record is inserted together with the
+     * records of the concurrent transactions, and the call returns once the
+     * batch has been executed. An insert on the enlisted connection is never
+     * batched: it has to commit along with the transaction, not on its own
+     * ahead of it.
+     */
     boolean addRecord(long localTID, byte[] data) {
         if (ds != null) {
             if (_logger.isLoggable(Level.FINE)) {
@@ -152,10 +190,14 @@ class LogDBHelper {
                 _logger.fine("LogDBHelper.addRecord for serverName: " + serverName);
                 _logger.fine("LogDBHelper.addRecord for instanceName: " + instanceName);
             }
+            if (batchWriter != null && nonTxConnectionForAddRecord && data != null) {
+                // The server to instance mapping record is written right away
+                return batchWriter.addRecord(localTID, serverName, data);
+            }
             Connection conn = null;
             PreparedStatement prepStmt1 = null;    
             try {
-                if (useNonTxConnectionForAddRecord)
+                if (nonTxConnectionForAddRecord)
 		    conn = (Connection)(getNonTxConnectionMethod.invoke(ds, null)); 
                 else 
                     conn = ds.getConnection();
@@ -191,11 +233,22 @@ class LogDBHelper {
         return deleteRecord(localTID, serverName);
     }
 
+    /**
+     * Deletes the record of a completed transaction. With the batch writer,
+     * the record is queued and deleted within the flush interval, together
+     * with the records of the other transactions completed meanwhile. A
+     * record whose delete is lost in a crash only leaves a record of a
+     * transaction that is not in doubt.
+     */
     boolean deleteRecord(long localTID, String serverName0) {
         if (ds != null) {
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.fine("LogDBHelper.deleteRecord for localTID: " + localTID + " and serverName: " + serverName0);
             }
+            if (batchWriter != null && localTID != 0) {
+                batchWriter.deleteRecord(localTID, serverName0);
+                return true;
+            }
             Connection conn = null;
             PreparedStatement prepStmt1 = null;    
             try {
@@ -223,6 +276,15 @@ class LogDBHelper {
         return false;
     }
 
+    /**
+     * Executes the queued deletes, if the batch writer is used.
+     */
+    void flush() {
+        if (batchWriter != null) {
+            batchWriter.flush();
+        }
+    }
+
     Map getGlobalTIDMap() {
         return getGlobalTIDMap(serverName);
     }
@@ -354,4 +416,233 @@ class LogDBHelper {
             }
         }
     }   
+
+    /**
+     * Coalesces the inserts and deletes of the transaction records into JDBC
+     * batches, executed by a single writer thread on the non transactional
+     * connection. The writer commits the batches itself, so it is only given
+     * the inserts when the records are not enlisted in the transactions.
+     * <p>
+     * The writer executes the pending inserts as soon as there are any, while
+     * the transactions that requested them wait: the inserts requested while a
+     * batch is executed go to the next batch. The deletes are executed along
+     * with the inserts, or after the flush interval, or once there are
+     * batchMaxSize of them. The inserts of a batch are executed before its
+     * deletes, so that the record of a transaction is never deleted before
+     * it is inserted.
+     */
+    private class BatchWriter implements Runnable {
+
+        private final Object lock = new Object();
+        private List<Record> inserts = new ArrayList<Record>();
+        private List<Record> deletes = new ArrayList<Record>();
+        private long flushRequests = 0;
+        private long flushedRequests = 0;
+
+        BatchWriter() {
+            Thread thread = new Thread(this, "JTS DB Log Writer");
+            thread.setDaemon(true);
+            thread.start();
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.fine("LogDBHelper.BatchWriter started with flush interval: " +
+                        batchFlushInterval + " and max size: " + batchMaxSize);
+            }
+        }
+
+        boolean addRecord(long localTID, String serverName0, byte[] data) {
+            Record record = new Record(localTID, serverName0, data);
+            boolean interrupted = false;
+            synchronized (lock) {
+                inserts.add(record);
+                lock.notifyAll();
+                while (!record.done) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return record.success;
+        }
+
+        void deleteRecord(long localTID, String serverName0) {
+            synchronized (lock) {
+                deletes.add(new Record(localTID, serverName0, null));
+                if (deletes.size() >= batchMaxSize) {
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits until the records queued so far are written.
+         */
+        void flush() {
+            boolean interrupted = false;
+            synchronized (lock) {
+                long request = ++flushRequests;
+                lock.notifyAll();
+                long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT;
+                while (flushedRequests < request) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        _logger.log(Level.WARNING, "LogDBHelper.BatchWriter flush timed out");
+                        break;
+                    }
+                    try {
+                        lock.wait(remaining);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public void run() {
+            for (;;) {
+                List<Record> insertBatch;
+                List<Record> deleteBatch;
+                long servedRequests;
+                try {
+                    synchronized (lock) {
+                        long deadline = System.currentTimeMillis() + batchFlushInterval;
+                        while (inserts.isEmpty() && deletes.size() < batchMaxSize
+                                && flushRequests == flushedRequests) {
+                            long remaining = deadline - System.currentTimeMillis();
+                            if (remaining <= 0) {
+                                break;
+                            }
+                            lock.wait(remaining);
+                        }
+                        insertBatch = inserts;
+                        deleteBatch = deletes;
+                        inserts = new ArrayList<Record>();
+                        deletes = new ArrayList<Record>();
+                        servedRequests = flushRequests;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                try {
+                    if (!insertBatch.isEmpty()) {
+                        executeBatch(insertStatement, insertBatch);
+                    }
+                    if (!deleteBatch.isEmpty()) {
+                        executeBatch(deleteStatement, deleteBatch);
+                    }
+                } catch (Throwable t) {
+                    _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",t);
+                } finally {
+                    synchronized (lock) {
+                        for (Record record : insertBatch) {
+                            record.done = true;
+                        }
+                        flushedRequests = servedRequests;
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Executes the statement for the records, in chunks of batchMaxSize
+         * records, each in its own local transaction. If a chunk fails, its
+         * records are written one by one, so that each insert gets its own
+         * result.
+         */
+        private void executeBatch(String statement, List<Record> records) {
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.fine("LogDBHelper.BatchWriter executing " + records.size() + " records: " + statement);
+            }
+            Connection conn = null;
+            PreparedStatement prepStmt1 = null;
+            boolean autoCommit = true;
+            try {
+                // To avoid compile time dependency to get NonTxConnection
+                conn = (Connection)(getNonTxConnectionMethod.invoke(ds, null));
+                autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                prepStmt1 = conn.prepareStatement(statement);
+                for (int start = 0; start < records.size(); start += batchMaxSize) {
+                    List<Record> chunk = records.subList(start, Math.min(records.size(), start + batchMaxSize));
+                    try {
+                        for (Record record : chunk) {
+                            setParameters(prepStmt1, record);
+                            prepStmt1.addBatch();
+                        }
+                        prepStmt1.executeBatch();
+                        conn.commit();
+                        for (Record record : chunk) {
+                            record.success = true;
+                        }
+                    } catch (SQLException ex) {
+                        _logger.log(Level.FINE,"LogDBHelper.BatchWriter batch failed, writing the records one by one",ex);
+                        prepStmt1.clearBatch();
+                        conn.rollback();
+                        for (Record record : chunk) {
+                            try {
+                                setParameters(prepStmt1, record);
+                                prepStmt1.executeUpdate();
+                                conn.commit();
+                                record.success = true;
+                            } catch (SQLException ex1) {
+                                _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",ex1);
+                                conn.rollback();
+                            }
+                        }
+                    }
+                }
+            } catch (Throwable ex) {
+                _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",ex);
+            } finally {
+                try {
+                    if (prepStmt1 != null)
+                        prepStmt1.close();
+                } catch (Exception ex1) {
+                    _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",ex1);
+                }
+                try {
+                    if (conn != null) {
+                        conn.setAutoCommit(autoCommit);
+                        conn.close();
+                    }
+                } catch (Exception ex1) {
+                    _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",ex1);
+                }
+            }
+        }
+
+        private void setParameters(PreparedStatement prepStmt1, Record record) throws SQLException {
+            prepStmt1.setString(1,Long.toString(record.localTID));
+            prepStmt1.setString(2,record.serverName);
+            if (record.data != null) {
+                prepStmt1.setString(3,instanceName);
+                prepStmt1.setBytes(4,record.data);
+            }
+        }
+    }
+
+    private static class Record {
+        final long localTID;
+        final String serverName;
+        final byte[] data;
+        // Set by the writer thread before done, which is guarded by the
+        // BatchWriter lock
+        boolean success = false;
+        boolean done = false;
+
+        Record(long localTID, String serverName, byte[] data) {
+            this.localTID = localTID;
+            this.serverName = serverName;
+            this.data = data;
+        }
+    }
 }
@@ -65,10 +65,12 @@ package com.sun.jts.CosTransactions;
 // Import required classes.
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import com.sun.logging.LogDomains;
 import com.sun.jts.utils.LogFormatter;
+import com.sun.enterprise.transaction.monitoring.TransactionServiceProbeProvider;
 
 /**The LogFile interface provides operations that control the
  * individual log entries that make up the physical log. It allows writing to
@@ -109,10 +111,39 @@ class LogFile {
 	
 	static Logger _logger = LogDomains.getLogger(LogFile.class, LogDomains.TRANSACTION_LOGGER);
 
+    /**Default values of the group commit properties.
+     */
+    final static long DEFAULT_GROUP_COMMIT_MAX_DELAY = 0;
+    final static int  DEFAULT_GROUP_COMMIT_MAX_BATCH = 64;
+
+    private static TransactionServiceProbeProvider monitor =
+        new TransactionServiceProbeProvider();
+
     /**The handle of the log file.
      */
     LogHandle handle = null;
 
+    /**Group commit settings.
+     */
+    private boolean groupCommit = false;
+    private long    groupCommitMaxDelay = DEFAULT_GROUP_COMMIT_MAX_DELAY;
+    private int     groupCommitMaxBatch = DEFAULT_GROUP_COMMIT_MAX_BATCH;
+
+    /**Number of records written with a group committed force, updated while
+     * holding the LogFile lock.
+     */
+    private volatile long writeSequence = 0;
+
+    /**Group commit state, guarded by forceLock: the number of records known to
+     * be forced, whether a thread is forcing the log, and whether it is waiting
+     * for more records before doing so.
+     */
+    private final Object forceLock = new Object();
+    private long    forcedSequence = 0;
+    private boolean forceInProgress = false;
+    private boolean forceGathering = false;
+    private long    forceGatherBase = 0;
+
     /**LogFile constructor.
      *
      * @param LogHandle
@@ -127,6 +158,26 @@ class LogFile {
 
         this.handle = handle;
 
+        // Read the group commit settings.
+
+        groupCommit = Boolean.parseBoolean(
+            Configuration.getPropertyValue(Configuration.LOG_GROUP_COMMIT));
+        if( groupCommit ) {
+            try {
+                String value = Configuration.getPropertyValue(Configuration.LOG_GROUP_COMMIT_MAX_DELAY);
+                if( value != null )
+                    groupCommitMaxDelay = Math.max(0, TimeUnit.MICROSECONDS.toNanos(Long.parseLong(value)));
+                value = Configuration.getPropertyValue(Configuration.LOG_GROUP_COMMIT_MAX_BATCH);
+                if( value != null )
+                    groupCommitMaxBatch = Math.max(1, Integer.parseInt(value));
+            } catch( NumberFormatException e ) {
+                _logger.log(Level.WARNING, e.getMessage());
+            }
+            if(_logger.isLoggable(Level.FINE))
+                _logger.log(Level.FINE,"Log group commit enabled, max delay: " +
+                            groupCommitMaxDelay + "ns, max batch: " + groupCommitMaxBatch);
+        }
+
     }
 
     /**Writes a log record to the physical log.
@@ -135,6 +186,11 @@ class LogFile {
      * write to the log and unforced keeping the data until a force is done somewhere
      * else in the log service.
      * <p>
+     * With group commit, a forced record is written as an unforced one and the
+     * caller then waits until the log is forced.  One of the waiting callers forces
+     * the log for all the records written so far, while the others wait for it, so
+     * that concurrent forced writes share a single sync.
+     * <p>
      * The LSN of the written log record is an output parameter.
      * <p>
      * Returns true if the write completed successfully and false if the write
@@ -149,32 +205,176 @@ class LogFile {
      *
      * @see
      */
-    synchronized boolean write( int    writeType,
-                                byte[] record,
-                                int    recordType,
-                                LogLSN recordLSN ) {
+    boolean write( int    writeType,
+                   byte[] record,
+                   int    recordType,
+                   LogLSN recordLSN ) {
 
         boolean result = true;
 
         // Write the record.
         // Set the result based on return code from log write.
 
+        if( writeType != LogFile.FORCED ) {
+            synchronized( this ) {
+                writeRecord(record,recordType,LogHandle.BUFFER,recordLSN);
+            }
+        } else if( groupCommit ) {
+            long sequence;
+            synchronized( this ) {
+                writeRecord(record,recordType,LogHandle.BUFFER,recordLSN);
+                sequence = ++writeSequence;
+            }
+            awaitForced(sequence);
+        } else {
+            long startTime = System.currentTimeMillis();
+            synchronized( this ) {
+                writeRecord(record,recordType,LogHandle.FORCE,recordLSN);
+            }
+            monitor.logForcedEvent(1, System.currentTimeMillis() - startTime);
+        }
+
+        return result;
+    }
+
+    /**Writes a log record to the log handle.
+     * <p>
+     * The caller must hold the LogFile lock.
+     *
+     * @param record      Log record data.
+     * @param recordType  Log record type.
+     * @param writeMode   The log handle write mode.
+     * @param recordLSN   LSN of the written record.
+     *
+     * @return
+     *
+     * @see
+     */
+    private void writeRecord( byte[] record,
+                              int    recordType,
+                              int    writeMode,
+                              LogLSN recordLSN ) {
         try {
-            LogLSN resultLSN = handle.writeRecord(record,recordType,
-                                                  (writeType==LogFile.FORCED ? LogHandle.FORCE : LogHandle.BUFFER));
+            LogLSN resultLSN = handle.writeRecord(record,recordType,writeMode);
             if( recordLSN != null )
                 recordLSN.copy(resultLSN);
         } catch( LogException le ) {
-			_logger.log(Level.SEVERE,"jts.log_error",le.toString());
-			 String msg = LogFormatter.getLocalizedMessage(_logger,"jts.log_error",
-                                        new java.lang.Object[] {le.toString()});
-			 throw (org.omg.CORBA.INTERNAL) (new org.omg.CORBA.INTERNAL(msg)).initCause(le);
+            throw logError(le);
             //if( recordLSN != null )
             //recordLSN.copy(LogLSN.NULL_LSN);
             //result = false;
         }
+    }
 
-        return result;
+    /**Waits until the record with the given group commit sequence number is
+     * forced to permanent storage.
+     * <p>
+     * If no other thread is forcing the log, the caller forces it for all the
+     * records written so far, after waiting up to the maximum group commit delay
+     * for more records to be written.  If the force fails, the exception is thrown
+     * to the caller, and each waiting thread retries the force for its own record.
+     *
+     * @param sequence  The sequence number of the record.
+     *
+     * @return
+     *
+     * @see
+     */
+    private void awaitForced( long sequence ) {
+        boolean interrupted = false;
+        long previousForced;
+
+        synchronized( forceLock ) {
+            for(;;) {
+                if( forcedSequence >= sequence ) {
+                    if( interrupted )
+                        Thread.currentThread().interrupt();
+                    return;
+                }
+                if( !forceInProgress )
+                    break;
+
+                // Wake up the thread waiting for more records if there are enough.
+
+                if( forceGathering && sequence - forceGatherBase >= groupCommitMaxBatch )
+                    forceLock.notifyAll();
+
+                try {
+                    forceLock.wait();
+                } catch( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+
+            // This thread forces the log.
+
+            forceInProgress = true;
+            previousForced = forcedSequence;
+
+            if( groupCommitMaxDelay > 0 ) {
+                forceGathering = true;
+                forceGatherBase = previousForced;
+                long deadline = System.nanoTime() + groupCommitMaxDelay;
+                long remaining = groupCommitMaxDelay;
+                while( remaining > 0 && writeSequence - previousForced < groupCommitMaxBatch ) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(forceLock, remaining);
+                    } catch( InterruptedException e ) {
+                        interrupted = true;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+                forceGathering = false;
+            }
+        }
+
+        // The force is done without holding the LogFile lock, and the log
+        // handle only holds its own lock while writing out the buffered
+        // records, so that the next records are written during the sync.
+        // The records counted in writeSequence have already been written
+        // to the handle, so they are all covered by the force.
+
+        long forced = previousForced;
+        try {
+            long startTime = System.currentTimeMillis();
+            long written;
+            LogHandle forcedHandle;
+            synchronized( this ) {
+                written = writeSequence;
+                forcedHandle = handle;
+            }
+            try {
+                forcedHandle.force();
+            } catch( LogException le ) {
+                throw logError(le);
+            }
+            forced = written;
+            monitor.logForcedEvent((int)(forced - previousForced),
+                                   System.currentTimeMillis() - startTime);
+        } finally {
+            synchronized( forceLock ) {
+                forcedSequence = forced;
+                forceInProgress = false;
+                forceLock.notifyAll();
+            }
+            if( interrupted )
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**Logs a log error and returns the exception to throw to the caller.
+     *
+     * @param le  The log error.
+     *
+     * @return  The exception to throw.
+     *
+     * @see
+     */
+    private org.omg.CORBA.INTERNAL logError( LogException le ) {
+        _logger.log(Level.SEVERE,"jts.log_error",le.toString());
+        String msg = LogFormatter.getLocalizedMessage(_logger,"jts.log_error",
+                                   new java.lang.Object[] {le.toString()});
+        return (org.omg.CORBA.INTERNAL) (new org.omg.CORBA.INTERNAL(msg)).initCause(le);
     }
 
     /**Informs the log that all log records older than the one with the given LSN
@@ -144,6 +144,16 @@ class LogFileHandle {
     int bufferUpdateEnd   = -1;
     int buffPos = 0;
 
+    /**Number of buffered writes, used to know whether the file was updated while
+     * it was being synchronized by fileForce.
+     */
+    long updateCount = 0;
+
+    /**Whether buffered updates were written to the file by fileFlush and may not
+     * have been synchronized with the file system yet.
+     */
+    private boolean flushedSinceSync = false;
+
     static {
         dsyncProp = System.getProperty(DSYNC_PROPERTY);
         if (dsyncProp != null) {
@@ -328,6 +338,8 @@ class LogFileHandle {
 
                     if( buffPos > bufferUpdateEnd )
                         bufferUpdateEnd = buffPos;
+
+                    updateCount++;
                 }
 
                 // Otherwise write the data to the file.
@@ -402,7 +414,7 @@ class LogFileHandle {
             // If buffered, then ensure that the buffer is stored and synced with the
             // file system.
 
-            if( bufferUpdateStart != -1 )
+            if( bufferUpdateStart != -1 || flushedSinceSync )
                 fileSync();
 
             // Close the file.
@@ -479,20 +491,88 @@ class LogFileHandle {
         // Synchronization is only done for buffered files which have been updated.
         // Non-buffered files have every write synchronized with the file system.
 
+        if( bufferUpdateStart != -1 || flushedSinceSync )
+            try {
+                if( bufferUpdateStart != -1 ) {
+                    fhandle.seek(bufferUpdateStart);
+                    fhandle.write(bufferData,bufferUpdateStart,bufferUpdateEnd-bufferUpdateStart);
+                }
+                if (dsyncProp == null)
+                    fd.sync();
+
+                bufferUpdateStart = -1;
+                bufferUpdateEnd   = -1;
+                flushedSinceSync  = false;
+            } catch (Throwable e) {
+                throw new LogException(LogException.LOG_READ_FAILURE,1,
+                        sm.getString("jts.log_file_sync_failed"), e);
+            }
+
+    }
+
+    /**Writes the buffered updates to the file, without synchronizing the file
+     * with the file system.
+     * <p>
+     * The synchronization is then done with fileForce, which does not need to
+     * be called under the lock that guards the writes to this file.
+     *
+     * @param
+     *
+     * @return  The descriptor to pass to fileForce, or null if there is nothing
+     *          to synchronize.
+     *
+     * @exception LogException The write failed
+     *
+     * @see
+     */
+    FileDescriptor fileFlush() throws LogException {
+
         if( bufferUpdateStart != -1 )
             try {
                 fhandle.seek(bufferUpdateStart);
                 fhandle.write(bufferData,bufferUpdateStart,bufferUpdateEnd-bufferUpdateStart);
-                if (dsyncProp == null)
-                    fd.sync();
 
                 bufferUpdateStart = -1;
                 bufferUpdateEnd   = -1;
+                flushedSinceSync  = true;
             } catch (Throwable e) {
                 throw new LogException(LogException.LOG_READ_FAILURE,1,
                         sm.getString("jts.log_file_sync_failed"), e);
             }
 
+        return (flushedSinceSync && dsyncProp == null) ? fd : null;
+    }
+
+    /**Records that the updates written by fileFlush have been synchronized with
+     * the file system by fileForce.
+     *
+     * @param
+     *
+     * @return
+     *
+     * @see
+     */
+    void flushSynced() {
+        flushedSinceSync = false;
+    }
+
+    /**Synchronizes the file written by fileFlush with the file system.
+     *
+     * @param fd  The descriptor returned by fileFlush.
+     *
+     * @return
+     *
+     * @exception LogException The sync failed
+     *
+     * @see
+     */
+    static void fileForce( FileDescriptor fd ) throws LogException {
+        try {
+            fd.sync();
+        } catch (Throwable e) {
+            throw new LogException(LogException.LOG_READ_FAILURE,1,
+                    sm.getString("jts.log_file_sync_failed"), e);
+        }
     }
 
     /**Reads a vector of records from the file.
@@ -562,20 +562,8 @@ class LogHandle {
         //       Set 'extent written' flag to FALSE
         //   ENDLOOP
 
-        if( writeMode == FORCE ) {
-            Enumeration extents = extentTable.elements();
-            while( extents.hasMoreElements() ) {
-                LogExtent nextEDP = (LogExtent)extents.nextElement();
-                if( nextEDP.writtenSinceLastForce )
-                    try {
-                        nextEDP.fileHandle.fileSync();
-                        nextEDP.writtenSinceLastForce = false;
-                    } catch (LogException le) {
-                        throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14,
-                                sm.getString("jts.log_file_sync_failed"), le);
-                    }
-            }
-        }
+        if( writeMode == FORCE )
+            forceExtents();
 
         // Update the head LSN and 'next free' LSN in the Log_FileDescriptor
         // block
@@ -611,6 +599,94 @@ class LogHandle {
         return result;
     }
 
+    /**Forces the records written to the log since the last force to permanent
+     * storage.
+     * <p>
+     * This allows the records written with the BUFFER write mode by several
+     * callers to be forced at once.  The buffered records are written to the
+     * extent files while holding the LogHandle lock, but the files are
+     * synchronized with the file system after releasing it, so that records
+     * can be written meanwhile.  An extent is only marked as forced if it
+     * was not written again during the synchronization.
+     *
+     * @param
+     *
+     * @return
+     *
+     * @exception LogException The force failed.
+     *
+     * @see
+     */
+    void force()
+        throws LogException {
+
+        List<LogExtent> flushedExtents = new ArrayList<LogExtent>();
+        List<FileDescriptor> descriptors = new ArrayList<FileDescriptor>();
+        List<Long> updateCounts = new ArrayList<Long>();
+
+        synchronized( this ) {
+
+            // IF not valid Log_FileDescriptor
+            //   Return LOG_INVALID_FILE_DESCRIPTOR
+
+            if( blockValid != this )
+                throw new LogException(null,LogException.LOG_INVALID_FILE_DESCRIPTOR,1);
+
+            // IF not LogInitialised
+            //   Return LOG_NOT_INITIALISED
+
+            if( !logControl.logInitialised )
+                throw new LogException(null,LogException.LOG_NOT_INITIALISED,2);
+
+            // Write the buffered records of each extent written since the last
+            // force.  The 'extent written' flag stays set until the sync is done,
+            // so that a close or a control file update meanwhile still forces it.
+
+            Enumeration extents = extentTable.elements();
+            while( extents.hasMoreElements() ) {
+                LogExtent nextEDP = (LogExtent)extents.nextElement();
+                if( nextEDP.writtenSinceLastForce )
+                    try {
+                        FileDescriptor fd = nextEDP.fileHandle.fileFlush();
+                        if( fd == null ) {
+                            nextEDP.writtenSinceLastForce = false;
+                        } else {
+                            flushedExtents.add(nextEDP);
+                            descriptors.add(fd);
+                            updateCounts.add(nextEDP.fileHandle.updateCount);
+                        }
+                    } catch (LogException le) {
+                        throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14,
+                                sm.getString("jts.log_file_sync_failed"), le);
+                    }
+            }
+        }
+
+        for( int i = 0; i < flushedExtents.size(); i++ ) {
+            LogExtent nextEDP = flushedExtents.get(i);
+            LogException failure = null;
+            try {
+                LogFileHandle.fileForce(descriptors.get(i));
+            } catch (LogException le) {
+                failure = le;
+            }
+            synchronized( this ) {
+                boolean open = extentTable != null && extentTable.contains(nextEDP);
+                if( failure != null ) {
+
+                    // An extent closed meanwhile has been synchronized by the close.
+
+                    if( open )
+                        throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14,
+                                sm.getString("jts.log_file_sync_failed"), failure);
+                } else if( open && nextEDP.fileHandle.updateCount == updateCounts.get(i) ) {
+                    nextEDP.fileHandle.flushSynced();
+                    nextEDP.writtenSinceLastForce = false;
+                }
+            }
+        }
+    }
+
     /**Reads a record from the log.
      *
      * @param readLSN  The LSN of the record to be read.
@@ -1722,6 +1798,41 @@ class LogHandle {
 
     }
 
+    /**Forces the extent files written since the last force to permanent
+     * storage.
+     * <p>
+     * This internal method does not need to be synchronized.
+     *
+     * @param
+     *
+     * @return
+     *
+     * @exception LogException The force failed.
+     *
+     * @see
+     */
+    void forceExtents() throws LogException {
+
+        // LOOP through each extent chain in the hash table
+        //   IF 'extent written' flag is TRUE
+        //     Issue FSYNC for extent file descriptor
+        //     Set 'extent written' flag to FALSE
+        // ENDLOOP
+
+        Enumeration extents = extentTable.elements();
+        while( extents.hasMoreElements() ) {
+            LogExtent nextEDP = (LogExtent)extents.nextElement();
+            if( nextEDP.writtenSinceLastForce )
+                try {
+                    nextEDP.fileHandle.fileSync();
+                    nextEDP.writtenSinceLastForce = false;
+                } catch (LogException le) {
+                    throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14,
+                            sm.getString("jts.log_file_sync_failed"), le);
+                }
+        }
+    }
+
     /**Writes the control file.
      * This internal method does not need to be synchronized.
      *
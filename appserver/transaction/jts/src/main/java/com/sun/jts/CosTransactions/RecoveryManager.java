@@ -782,6 +782,12 @@ public class RecoveryManager {
             CoordinatorLog.finalizeAll();
         }
 
+        // Write the queued deletes of the transaction records.
+
+        if (!immediate && Configuration.isDBLoggingEnabled()) {
+            LogDBHelper.getInstance().flush();
+        }
+
         //$Continue with shutdown/quiesce.
     }
 
@@ -63,6 +63,10 @@
 package com.sun.jts.CosTransactions;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.omg.CosTransactions.*;
 import com.sun.jts.jtsxa.XID;
@@ -73,10 +77,13 @@ import java.util.logging.Logger;
 import java.util.logging.Level;
 import com.sun.logging.LogDomains;
 import com.sun.jts.utils.LogFormatter;
+import com.sun.enterprise.transaction.TransactionTimeoutScheduler;
 
 /**
- * This class records state for timing out transactions, and runs a thread
- * which performs occasional checks to time out transactions.
+ * This class records state for timing out transactions, and schedules
+ * their timeouts with the TransactionTimeoutScheduler. Setting and
+ * cancelling a timeout do not lock the timeout tables, so that beginning
+ * and completing transactions do not contend on them.
  *
  * @version 0.01
  *
@@ -106,12 +113,32 @@ class TimeoutManager {
      */
     private static boolean initialised = false;
 
-    private static Hashtable     pendingTimeouts = new Hashtable();
-    private static Hashtable     indoubtTimeouts = new Hashtable();
-    private static TimeoutThread timeoutThread = null;
-    private static boolean       timeoutActive = false;
-    private static boolean       quiescing = false;
-    private static boolean       isSetTimeout = false;
+    private static final Map<Long, TimeoutInfo> pendingTimeouts =
+            new ConcurrentHashMap<Long, TimeoutInfo>();
+    private static final Map<Long, TimeoutInfo> indoubtTimeouts =
+            new ConcurrentHashMap<Long, TimeoutInfo>();
+    private static volatile boolean timeoutActive = false;
+    private static volatile boolean quiescing = false;
+    private static volatile boolean isSetTimeout = false;
+
+    /**
+     * The interval in milliseconds after which a transaction that is still
+     * around is timed out again, com.sun.jts.timeoutInterval seconds.
+     */
+    private static long recheckInterval = 10000;
+
+    /**
+     * Runs the timeout actions, which lock the coordinator and may call the
+     * resources, off the TransactionTimeoutScheduler thread.
+     */
+    private static final ExecutorService timeoutExecutor =
+            Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "JTS Timeout Thread"/*#Frozen*/);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
 
 	/*
 		Logger to log transaction messages
@@ -138,7 +165,7 @@ class TimeoutManager {
 
         // Start the timeout thread.
 
-        if (!timeoutActive && timeoutThread == null) {
+        if (!timeoutActive) {
            //  timeoutThread = new TimeoutThread();
            //  timeoutThread.start();
             timeoutActive = true;
@@ -149,9 +176,19 @@ class TimeoutManager {
     static synchronized void initSetTimeout() {
 	if (isSetTimeout)
 	   return;
+        try {
+            String timeout_interval = Configuration.getPropertyValue(Configuration.TIMEOUT_INTERVAL);
+            if (timeout_interval != null) {
+                recheckInterval = Math.max(10000L, Integer.parseInt(timeout_interval) * 1000L);
+            }
+        } catch (Exception e) {
+            recheckInterval = 10000;
+        }
         isSetTimeout = true;
-        timeoutThread = new TimeoutThread();
-        timeoutThread.start();
+    }
+
+    static long getRecheckInterval() {
+        return recheckInterval;
     }
 
     /**
@@ -180,54 +217,58 @@ class TimeoutManager {
         if (timeoutActive) {
 
             TimeoutInfo timeoutInfo = null;
+            TimeoutInfo previous = null;
 
             switch (timeoutType) {
 
             // If the new type is active or in_doubt, then create a
-            // new TimeoutInfo if necessary, and set up the type and interval.
+            // new TimeoutInfo, replacing the current one if any, and
+            // schedule it.
 
             case TimeoutManager.ACTIVE_TIMEOUT :
-		 if (!isSetTimeout) {
-		     initSetTimeout();
-                 }
-                 timeoutInfo = new TimeoutInfo();
-                 timeoutInfo.expireTime  =
-                    new Date().getTime() + seconds * 1000L;
-                 timeoutInfo.localTID    = localTID;
-                 timeoutInfo.timeoutType = timeoutType;
-                 pendingTimeouts.put(localTID,timeoutInfo);
-                 break;
+                if (!isSetTimeout) {
+                    initSetTimeout();
+                }
+                timeoutInfo = new TimeoutInfo(localTID, timeoutType, seconds);
+                previous = pendingTimeouts.put(localTID, timeoutInfo);
+                if (previous != null) {
+                    previous.cancel();
+                }
+                timeoutInfo.schedule(seconds * 1000L);
+                break;
+
             case TimeoutManager.IN_DOUBT_TIMEOUT :
-		 if (!isSetTimeout) {
-		     initSetTimeout();
-		     // isSetTimeout = true;
-                 }
-                timeoutInfo = new TimeoutInfo();
-                timeoutInfo.expireTime  =
-                    new Date().getTime() + seconds * 1000L;
-                timeoutInfo.localTID    = localTID;
-                timeoutInfo.timeoutType = timeoutType;
-                indoubtTimeouts.put(localTID,timeoutInfo);
+                if (!isSetTimeout) {
+                    initSetTimeout();
+                }
+                timeoutInfo = new TimeoutInfo(localTID, timeoutType, seconds);
+                previous = indoubtTimeouts.put(localTID, timeoutInfo);
+                if (previous != null) {
+                    previous.cancel();
+                }
+                timeoutInfo.schedule(seconds * 1000L);
                 break;
 
             // For any other type, remove the timeout if there is one.
 
             default:
-		if (!isSetTimeout)
-		  break;
-                   result = (pendingTimeouts.remove(localTID) != null);
-		   if (!result)
-                      result = (indoubtTimeouts.remove(localTID) != null);
-
-                    // If the transaction service is quiescing and
-                    // there are no more pending timeouts,
-                    // deactivate timeout and stop the timeout thread.
-
-                    if (quiescing && pendingTimeouts.isEmpty() && indoubtTimeouts.isEmpty()) {
-                        timeoutThread.stop();
-                        timeoutActive = false;
-                        // pendingTimeouts = null;
-                    }
+                if (!isSetTimeout)
+                    break;
+                previous = pendingTimeouts.remove(localTID);
+                if (previous == null)
+                    previous = indoubtTimeouts.remove(localTID);
+                result = (previous != null);
+                if (result) {
+                    previous.cancel();
+                }
+
+                // If the transaction service is quiescing and
+                // there are no more pending timeouts,
+                // deactivate timeout.
+
+                if (quiescing && pendingTimeouts.isEmpty() && indoubtTimeouts.isEmpty()) {
+                    timeoutActive = false;
+                }
                 break;
             }
         } else {
@@ -238,6 +279,13 @@ class TimeoutManager {
         return result;
     }
 
+    /**
+     * Hands the action of an expired timeout over to the JTS timeout thread.
+     */
+    static void runTimeout(Runnable action) {
+        timeoutExecutor.execute(action);
+    }
+
     /**
      * Takes appropriate action for a timeout.
      * <p>
@@ -359,132 +407,28 @@ class TimeoutManager {
         }
     }
 
-    /**
-     * Periodically checks the existing timeouts.
-     * <p>
-     * This is done to discover if any transactions have overrun their allotted
-     * time.  Those which have are returned as an Enumeration.
-     * <p>
-     * Note that this method should not do anything that will cause a
-     * synchronized method in the RecoveryManager to be called, as this could
-     * cause a deadlock when RecoveryManager methods on other threads call
-     * setTimeout.
-     *
-     * @param
-     *
-     * @return  The information for transactions which have timed out.
-     *
-     * @see
-     */
-     static Enumeration checkTimeouts() {
-        if (!isSetTimeout)
-           return null;
-
-        Enumeration result = null;
-
-        // When woken up, go through all current timeouts and identify those
-        // which have expired.
-
-        if (timeoutActive && ((pendingTimeouts.size() != 0) || (indoubtTimeouts.size() != 0))) {
-            Vector timedOut = null;
-
-            Enumeration timeouts = null;
-          
-            synchronized (pendingTimeouts) {
-                timeouts = pendingTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    TimeoutInfo timeoutInfo = (TimeoutInfo)timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                       // Add the TimeoutInfo to the queue of
-                       //those that have timed out.
-
-                       if (timedOut == null) {
-                           timedOut = new Vector();
-                       }
-
-                       timedOut.addElement(timeoutInfo);
-                    }
-               }
-            }
-
-	    synchronized (indoubtTimeouts) {
-
-                timeouts = indoubtTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    TimeoutInfo timeoutInfo = (TimeoutInfo)timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                       // Add the TimeoutInfo to the queue of
-                       //those that have timed out.
-
-                       if (timedOut == null) {
-                           timedOut = new Vector();
-                       }
-
-                       timedOut.addElement(timeoutInfo);
-                    }
-                }
-
-            }
-            // Enumerate the transactions which have timed out.
-
-            if (timedOut != null) {
-                result = timedOut.elements();
-            }
-           }
-
-        // The remainder of the timeout processing is not carried out here
-        // because we would get deadlocked with addCoordinator or
-        // removeCoordinator that also update the timeout list.  Hence the
-        // returned enumeration, which may be processed with
-        // no concurrency control.
-
-        return result;
-    }
-
     /**
      * @return a set of in-doubt transaction ids.
      */
     static XID[] getInDoubtXids() {
-        
-       synchronized (indoubtTimeouts) {
         Vector inDoubtList = new Vector();
-        
-        Enumeration timeouts = indoubtTimeouts.elements();
-
-        while (timeouts.hasMoreElements()) {
-
-            TimeoutInfo timeoutInfo = (TimeoutInfo) timeouts.nextElement();
+        for (TimeoutInfo timeoutInfo : indoubtTimeouts.values()) {
 
             // Look up the Coordinator for the transaction.
             // If there is none, then the transaction has already gone.
             // Otherwise do something with the transaction.
-                
-            CoordinatorImpl coord = 
+
+            CoordinatorImpl coord =
                 RecoveryManager.getLocalCoordinator(timeoutInfo.localTID);
-                                
+
             if (coord != null) {
                 XID xid = new XID();
                 xid.copy(coord.getGlobalTID());
                 inDoubtList.addElement(xid);
             }
         }
-        
+
         return (XID[]) inDoubtList.toArray(new XID[] {});
-       }
     }
 
     /**
@@ -499,13 +443,13 @@ class TimeoutManager {
      * @see
      */
     static long timeLeft(Long localTID) {
-
-        TimeoutInfo timeoutInfo = (TimeoutInfo) pendingTimeouts.get(localTID);
+        TimeoutInfo timeoutInfo = pendingTimeouts.get(localTID);
         if (timeoutInfo == null)
-            timeoutInfo = (TimeoutInfo) indoubtTimeouts.get(localTID);
+            timeoutInfo = indoubtTimeouts.get(localTID);
+
         long result = -1;
         if (timeoutInfo != null) {
-            result = timeoutInfo.expireTime - new Date().getTime();
+            result = timeoutInfo.expireTime - System.currentTimeMillis();
             if (result < 0) {
                 result = 0;
             }
@@ -514,12 +458,25 @@ class TimeoutManager {
         return result;
     }
 
+    /**
+     * Returns the current timeout of the given type for the transaction.
+     *
+     * @param localTID     The local identifier for the transaction.
+     * @param timeoutType  The type of timeout.
+     *
+     * @return  The timeout information, or null if there is none.
+     */
+    static TimeoutInfo getTimeoutInfo(Long localTID, int timeoutType) {
+        return timeoutType == IN_DOUBT_TIMEOUT ?
+            indoubtTimeouts.get(localTID) : pendingTimeouts.get(localTID);
+    }
+
     /**
      * Informs the TimeoutManager that the transaction service
-     * is being shut down. For immediate shutdown, the timeout thread is
-     * stopped and all timeout information discarded.
+     * is being shut down. For immediate shutdown, the timeouts are
+     * cancelled and all timeout information discarded.
      *
-     * For quiesce, the timeout thread is stopped when there are no running
+     * For quiesce, timeouts are deactivated when there are no running
      * transactions left.
      *
      * @param immediate  Indicates whether to stop immediately.
@@ -530,24 +487,20 @@ class TimeoutManager {
      */
     static void shutdown(boolean immediate) {
 
-        // For immediate, kill the timeout thread and throw
+        // For immediate, cancel the scheduled timeouts and throw
         // away all information. Also, if there are no pending
         // timeouts, there is nothing to quiesce so
         // shutdown immediately regardless.
 
-        if (immediate ||
-                pendingTimeouts == null || pendingTimeouts.isEmpty()) {
-            if (timeoutThread != null) {
-                timeoutThread.stop();
+        if (immediate || pendingTimeouts.isEmpty()) {
+            timeoutActive = false;
+            for (TimeoutInfo timeoutInfo : pendingTimeouts.values()) {
+                timeoutInfo.cancel();
             }
-
-            if (pendingTimeouts != null) {
-                pendingTimeouts.clear();
+            for (TimeoutInfo timeoutInfo : indoubtTimeouts.values()) {
+                timeoutInfo.cancel();
             }
-
-            pendingTimeouts = null;
-            timeoutThread = null;
-            timeoutActive = false;
+            pendingTimeouts.clear();
         } else {
             quiescing = true;
         }
@@ -614,110 +567,61 @@ class TimeoutManager {
 //   0.1   SAJH   Initial implementation.
 //----------------------------------------------------------------------------
 
-class TimeoutInfo extends Object {
+class TimeoutInfo extends Object implements Runnable {
     Long localTID = null;
     long expireTime = 0;
     int  timeoutType = TimeoutManager.NO_TIMEOUT;
-}
+    private volatile TransactionTimeoutScheduler.Timeout timeout;
 
-/**
- * This class represents a thread on which the TimeoutManager can perform
- * timeout checking.
- *
- * @version 0.01
- *
- * @author Simon Holdsworth, IBM Corporation
- *
- * @see
- */
-
-//----------------------------------------------------------------------------
-// CHANGE HISTORY
-//
-// Version By     Change Description
-//   0.01  SAJH   Initial implementation.
-//----------------------------------------------------------------------------
+    TimeoutInfo(Long localTID, int timeoutType, int seconds) {
+        this.localTID = localTID;
+        this.timeoutType = timeoutType;
+        this.expireTime = System.currentTimeMillis() + seconds * 1000L;
+    }
 
-class TimeoutThread extends Thread {
+    void schedule(long delayMillis) {
+        timeout = TransactionTimeoutScheduler.getInstance().schedule(this, delayMillis);
+    }
 
-    private int TIMEOUT_INTERVAL ;
+    void cancel() {
+        TransactionTimeoutScheduler.Timeout t = timeout;
+        if (t != null) {
+            t.cancel();
+        }
+    }
 
-    static Logger _logger = LogDomains.getLogger(TimeoutThread.class, LogDomains.TRANSACTION_LOGGER);
     /**
-     * TimeoutThread constructor.
-     * <p>
-     * This sets the thread name, and sets the thread to be a daemon thread so
-     * that it does not prevent the process from terminating.
-     *
-     * @param
-     *
-     * @return
-     *
-     * @see
+     * Called on the scheduler thread when the timeout expires, hands the
+     * action for the timeout over to the JTS timeout thread, as it blocks
+     * on the coordinator and may call remote or XA resources.
      */
-    TimeoutThread() {
-        setName("JTS Timeout Thread"/*#Frozen*/);
-        setDaemon(true);
-        try{
-            String timeout_interval = Configuration.getPropertyValue(Configuration.TIMEOUT_INTERVAL);
-            if(timeout_interval!=null){
-                TIMEOUT_INTERVAL= Integer.parseInt(timeout_interval);
-		TIMEOUT_INTERVAL*=1000;
-                if(TIMEOUT_INTERVAL<10000)
-                    TIMEOUT_INTERVAL=10000;
-            }
-            else{
-                TIMEOUT_INTERVAL=10000;
-            }
-        }catch(Exception e){
-            TIMEOUT_INTERVAL=10000;
+    public void run() {
+        if (!isCurrent()) {
+            return;
         }
+        TimeoutManager.runTimeout(new Runnable() {
+            public void run() {
+                expire();
+            }
+        });
     }
 
     /**
-     * Performs timeout checking on a regular basis (every ten seconds or so).
-     *
-     * @param
-     *
-     * @return
-     *
-     * @see
+     * Takes the action for the timeout, unless it has been replaced or
+     * cancelled meanwhile. As long as the transaction is around, the timeout
+     * is taken again after the recheck interval.
      */
-    public void run() {
-        try {
-            while (true) {
-
-                // Sleep for a while between checks.
-
-                Thread.sleep(TIMEOUT_INTERVAL);
-
-                // Perform timeout checks, getting a list of timed-out
-                // transactions.
-
-                Enumeration timedOut = TimeoutManager.checkTimeouts();
-
-                // Now we must go through the list, telling each
-                // timed-out Coordinator to do something appropriate.
-
-                if (timedOut != null) {
-                    while (timedOut.hasMoreElements()) {
-                        TimeoutInfo timeoutInfo =
-                            (TimeoutInfo) timedOut.nextElement();
-
-                        // Look up the Coordinator and tell it to roll back
-                        // if it still exists. Note that we rely on the
-                        // Coordinator calling removeCoordinator when it
-                        // has finished, which will remove the timeout from 
-                        // the list, and remove other associations as well.
-
-                        TimeoutManager.
-                            timeoutCoordinator(timeoutInfo.localTID,
-                                               timeoutInfo.timeoutType);
-                    }
-                }
-            }
-        } catch (InterruptedException exc) {
-			_logger.log(Level.INFO,"jts.time_out_thread_stopped");
+    private void expire() {
+        if (!isCurrent()) {
+            return;
+        }
+        TimeoutManager.timeoutCoordinator(localTID, timeoutType);
+        if (isCurrent()) {
+            schedule(TimeoutManager.getRecheckInterval());
         }
     }
+
+    private boolean isCurrent() {
+        return TimeoutManager.getTimeoutInfo(localTID, timeoutType) == this;
+    }
 }
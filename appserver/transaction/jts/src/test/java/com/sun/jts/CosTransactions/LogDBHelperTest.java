@@ -0,0 +1,270 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.jts.CosTransactions;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Unit test for the batch writer of LogDBHelper.
+ */
+public class LogDBHelperTest extends TestCase {
+
+    public LogDBHelperTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() throws Exception {
+        return new TestSuite(LogDBHelperTest.class);
+    }
+
+    /**
+     * Test that an insert on the enlisted connection is not batched.
+     */
+    public void testEnlistedInsertIsNotBatched() throws Exception {
+        TestDataSource ds = new TestDataSource();
+        LogDBHelper helper = new LogDBHelper(ds, "instance", false);
+        assertTrue(helper.addRecord(1, new byte[] {1}));
+        assertEquals(1, ds.txConnections);
+        assertEquals(0, ds.batches);
+        assertTrue(ds.table.contains("1"));
+    }
+
+    /**
+     * Test that an insert on the non transactional connection is batched.
+     */
+    public void testNonTxInsertIsBatched() throws Exception {
+        TestDataSource ds = new TestDataSource();
+        LogDBHelper helper = new LogDBHelper(ds, "instance", true);
+        assertTrue(helper.addRecord(1, new byte[] {1}));
+        assertEquals(0, ds.txConnections);
+        assertEquals(1, ds.batches);
+        assertTrue(ds.table.contains("1"));
+    }
+
+    /**
+     * Test that the records of a failed batch are written one by one.
+     */
+    public void testFailedBatchIsWrittenOneByOne() throws Exception {
+        TestDataSource ds = new TestDataSource();
+        ds.failBatches = true;
+        ds.failedRecords.add("2");
+        LogDBHelper helper = new LogDBHelper(ds, "instance", true);
+        assertTrue(helper.addRecord(1, new byte[] {1}));
+        assertFalse(helper.addRecord(2, new byte[] {2}));
+        assertTrue(ds.table.contains("1"));
+        assertFalse(ds.table.contains("2"));
+    }
+
+    /**
+     * Test that the queued deletes are executed by a flush.
+     */
+    public void testDeletesAreBatched() throws Exception {
+        TestDataSource ds = new TestDataSource();
+        LogDBHelper helper = new LogDBHelper(ds, "instance", false);
+        assertTrue(helper.addRecord(1, new byte[] {1}));
+        assertTrue(helper.addRecord(2, new byte[] {2}));
+        assertTrue(helper.deleteRecord(1));
+        assertTrue(helper.deleteRecord(2));
+        helper.flush();
+        assertEquals(1, ds.batches);
+        assertTrue(ds.table.isEmpty());
+    }
+
+    /**
+     * A data source whose connections keep a table of the localtids in
+     * memory. The batches fail if failBatches is set, and the statements on
+     * the failedRecords fail.
+     */
+    public static class TestDataSource implements DataSource {
+
+        final Set<String> table = new HashSet<String>();
+        final Set<String> failedRecords = new HashSet<String>();
+        volatile boolean failBatches = false;
+        volatile int txConnections = 0;
+        volatile int batches = 0;
+
+        public Connection getNonTxConnection() {
+            return newConnection();
+        }
+
+        public Connection getConnection() {
+            txConnections++;
+            return newConnection();
+        }
+
+        public Connection getConnection(String user, String password) {
+            return getConnection();
+        }
+
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        public void setLoginTimeout(int seconds) {
+        }
+
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException();
+        }
+
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+
+        private Connection newConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[] {Connection.class}, new TestConnection());
+        }
+
+        private void apply(String sql, List<String> records) {
+            synchronized (table) {
+                if (sql.startsWith("insert")) {
+                    table.addAll(records);
+                } else {
+                    table.removeAll(records);
+                }
+            }
+        }
+
+        private class TestConnection implements InvocationHandler {
+
+            private boolean autoCommit = true;
+            private final List<String> uncommitted = new ArrayList<String>();
+            private String uncommittedSql = null;
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("prepareStatement")) {
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                            new Class[] {PreparedStatement.class}, new TestStatement(this, (String) args[0]));
+                } else if (name.equals("getAutoCommit")) {
+                    return autoCommit;
+                } else if (name.equals("setAutoCommit")) {
+                    autoCommit = (Boolean) args[0];
+                } else if (name.equals("commit") && !uncommitted.isEmpty()) {
+                    apply(uncommittedSql, uncommitted);
+                    uncommitted.clear();
+                } else if (name.equals("rollback")) {
+                    uncommitted.clear();
+                }
+                return null;
+            }
+
+            void execute(String sql, List<String> records) {
+                if (autoCommit) {
+                    apply(sql, records);
+                } else {
+                    uncommittedSql = sql;
+                    uncommitted.addAll(records);
+                }
+            }
+        }
+
+        private class TestStatement implements InvocationHandler {
+
+            private final TestConnection connection;
+            private final String sql;
+            private final List<String> batch = new ArrayList<String>();
+            private String localTID = null;
+
+            TestStatement(TestConnection connection, String sql) {
+                this.connection = connection;
+                this.sql = sql;
+            }
+
+            public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+                String name = method.getName();
+                if (name.equals("setString") && (Integer) args[0] == 1) {
+                    localTID = (String) args[1];
+                } else if (name.equals("addBatch")) {
+                    batch.add(localTID);
+                } else if (name.equals("clearBatch")) {
+                    batch.clear();
+                } else if (name.equals("executeBatch")) {
+                    batches++;
+                    List<String> records = new ArrayList<String>(batch);
+                    batch.clear();
+                    if (failBatches) {
+                        throw new SQLException("batch failed");
+                    }
+                    connection.execute(sql, records);
+                    return new int[records.size()];
+                } else if (name.equals("executeUpdate")) {
+                    if (failedRecords.contains(localTID)) {
+                        throw new SQLException("update failed");
+                    }
+                    List<String> records = new ArrayList<String>();
+                    records.add(localTID);
+                    connection.execute(sql, records);
+                    return 1;
+                }
+                return null;
+            }
+        }
+    }
+}
@@ -43,11 +43,14 @@ package org.glassfish.web.admin.monitor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.external.statistics.CountStatistic;
+import org.glassfish.external.statistics.TimeStatistic;
 import org.glassfish.external.statistics.annotations.Reset;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
 import org.glassfish.external.statistics.impl.StatisticImpl;
 import org.glassfish.external.statistics.impl.TimeStatisticImpl;
 import org.glassfish.external.probe.provider.annotations.*;
+import org.glassfish.flashlight.statistics.HistogramStatistic;
+import org.glassfish.flashlight.statistics.factory.HistogramStatisticFactory;
 import org.glassfish.gmbal.AMXMetadata;
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.ManagedObject;
@@ -74,6 +77,8 @@ public class RequestStatsProvider {
         "Longest response time for a request; not a cumulative value, but the largest response time from among the response times";
     private static final String PROCESSING_TIME_DESCRIPTION = 
         "Average request processing time";
+    private static final String PROCESSING_TIME_DISTRIBUTION_DESCRIPTION =
+        "Distribution of the request processing times, with the 50th, 90th, 99th and 99.9th percentiles";
 
     private CountStatisticImpl errorCount = new CountStatisticImpl("ErrorCount",
             StatisticImpl.UNIT_COUNT, ERROR_COUNT_DESCRIPTION);
@@ -86,6 +91,9 @@ public class RequestStatsProvider {
 
     private TimeStatisticImpl requestProcessTime = new TimeStatisticImpl(0L, 0L, 0L, 0L,
             "", "", "", System.currentTimeMillis(), -1L);
+    private HistogramStatistic processingTimeDistribution =
+            HistogramStatisticFactory.createHistogramMillis("ProcessingTimeDistribution",
+            PROCESSING_TIME_DISTRIBUTION_DESCRIPTION);
     
     private String virtualServerName = null;
     private String moduleName = null;
@@ -142,6 +150,12 @@ public class RequestStatsProvider {
         return processingTime;
     }
 
+    @ManagedAttribute(id="processingtimedistribution")
+    @Description(PROCESSING_TIME_DISTRIBUTION_DESCRIPTION)
+    public TimeStatistic getProcessingTimeDistribution() {
+        return processingTimeDistribution;
+    }
+
     @ProbeListener("glassfish:web:http-service:requestStartEvent")
     public void requestStartEvent(
             @ProbeParam("appName") String appName,
@@ -218,6 +232,7 @@ public class RequestStatsProvider {
                 TimeStatData tsd = timeStatDataLocal.get();
                 tsd.setExitTime(System.currentTimeMillis());
                 requestProcessTime.incrementCount(tsd.getTotalTime());
+                processingTimeDistribution.record(tsd.getTotalTime());
 
                 if (statusCode >= 400) {
                     errorCount.increment();
@@ -236,6 +251,7 @@ public class RequestStatsProvider {
             TimeStatData tsd = timeStatDataLocal.get();
             tsd.setExitTime(System.currentTimeMillis());
             requestProcessTime.incrementCount(tsd.getTotalTime());
+            processingTimeDistribution.record(tsd.getTotalTime());
 
             if (statusCode >= 400) {
                 errorCount.increment();
@@ -268,6 +284,7 @@ public class RequestStatsProvider {
     @Reset
     public void reset() {
         this.requestProcessTime.reset();
+        this.processingTimeDistribution.reset();
         this.errorCount.reset();
         this.maxTime.reset();
         this.processingTime.reset();
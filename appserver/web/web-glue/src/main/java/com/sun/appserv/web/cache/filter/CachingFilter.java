@@ -45,17 +45,26 @@ import com.sun.appserv.web.cache.CacheHelper;
 import com.sun.appserv.web.cache.CacheManager;
 import com.sun.appserv.web.cache.CacheManagerListener;
 import com.sun.appserv.web.cache.DefaultCacheHelper;
+import com.sun.appserv.web.cache.mapping.CacheMapping;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.catalina.connector.CoyoteOutputStream;
 import org.glassfish.web.LogFacade;
 
 public class CachingFilter implements Filter, CacheManagerListener {
@@ -63,6 +72,9 @@ public class CachingFilter implements Filter, CacheManagerListener {
     private static final String PROCESSING_SET =
         "com.sun.appserv.web.cache.filter.CachingFilter.PROCESSING_SET";
 
+    // size of the chunks used to copy a cached body to a wrapped response
+    private static final int COPY_BUFFER_SIZE = 8192;
+
     // this servlet filter name
     String filterName;
     String servletName;
@@ -75,6 +87,15 @@ public class CachingFilter implements Filter, CacheManagerListener {
 
     boolean isEnabled = false;
 
+    // time in milli seconds an expired entry may be served while it is
+    // refreshed; 0 when expired entries are never served
+    long staleWhileRevalidate = 0;
+
+    // keys of the entries being generated, with the latch released once
+    // the entry is available; only used when stale entries may be served
+    private final ConcurrentMap<String, CountDownLatch> refreshing =
+        new ConcurrentHashMap<String, CountDownLatch>();
+
     private static final Logger _logger = LogFacade.getLogger();
 
     /** 
@@ -99,6 +120,11 @@ public class CachingFilter implements Filter, CacheManagerListener {
             this.cache = manager.getDefaultCache();
             this.helper = manager.getCacheHelperByFilterName(filterName);
 
+            CacheMapping mapping = manager.getCacheMapping(filterName);
+            if (mapping != null) {
+                staleWhileRevalidate = mapping.getStaleWhileRevalidate() * 1000L;
+            }
+
             // add filter as a listener so caching can be disabled at runtime.
             manager.addCacheManagerListener(this);
             isEnabled = true;
@@ -127,6 +153,9 @@ public class CachingFilter implements Filter, CacheManagerListener {
      * - Check if we have a response entry in the cache already. 
      * - If there is entry and is valid, write out the response from that
      *   entry. 
+     * - If stale-while-revalidate is configured, a single request per key
+     *   regenerates an expired entry while the other requests are served
+     *   the expired entry, or wait for the new one if it expired too long ago.
      * - create a CachingResponse and CachingOutputStream wrappers and call 
      *   the downstream filter
      */
@@ -163,9 +192,54 @@ public class CachingFilter implements Filter, CacheManagerListener {
 
             HttpCacheEntry entry = null;
             boolean entryReady = false, waitForRefresh = true;
+            CountDownLatch refreshLatch = null;
             
             // if refresh is not needed then check the cache first
-            if (!helper.isRefreshNeeded(request)) {
+            boolean refreshNeeded = helper.isRefreshNeeded(request);
+            if (staleWhileRevalidate > 0 && !refreshNeeded) {
+                HashSet<String> processingSet = getProcessingSet(request);
+                while (true) {
+                    entry = (HttpCacheEntry) cache.get(key);
+
+                    if (entry != null && entry.isValid()) {
+                        entryReady = true;
+                        break;
+                    }
+
+                    // being generated by this very request (include/forward)
+                    if (processingSet.contains(key)) {
+                        break;
+                    }
+
+                    // single flight: only the first request generates the entry
+                    CountDownLatch latch = new CountDownLatch(1);
+                    CountDownLatch inFlight = refreshing.putIfAbsent(key, latch);
+                    if (inFlight == null) {
+                        processingSet.add(key);
+                        refreshLatch = latch;
+                        break;
+                    }
+
+                    if (entry != null && entry.isServableStale(staleWhileRevalidate)) {
+                        if (isFine) {
+                            _logger.log(Level.FINE, LogFacade.CACHING_FILTER_SERVING_STALE_RESPONSE, new Object[]{request.getServletPath(), key});
+                        }
+                        entryReady = true;
+                        break;
+                    }
+
+                    // wait for the request generating the entry, at most the
+                    // stale window; past it, generate the page here as well
+                    try {
+                        if (!inFlight.await(staleWhileRevalidate, TimeUnit.MILLISECONDS)) {
+                            break;
+                        }
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            } else if (!refreshNeeded) {
                 do {
                     // lookup cache
                     entry = (HttpCacheEntry) cache.get(key);
@@ -195,7 +269,7 @@ public class CachingFilter implements Filter, CacheManagerListener {
                 if (isFine) {
                     _logger.log(Level.FINE, LogFacade.CACHING_FILTER_SERVING_RESPONSE, new Object[]{request.getServletPath(), key});
                 }
-                sendCachedResponse(entry, response);
+                sendCachedResponse(entry, request, response);
             } else {
                 // call the target servlet
 
@@ -238,11 +312,11 @@ public class CachingFilter implements Filter, CacheManagerListener {
 
                         cache.put(key, entry, entry.getSize());
 
-                        cache.notifyRefresh(index);
+                        notifyRefresh(key, index, refreshLatch);
                         needNotify = false;
 
                         // transmit the response body content
-                        writeBody(entry, response);
+                        writeBody(entry.getBody(false), response);
                     } else {
                         /** either there was an error or response from this
                          *  resource is not cacheable anymore; so, remove the
@@ -253,7 +327,7 @@ public class CachingFilter implements Filter, CacheManagerListener {
                 } finally {
                     // IT 12891
                     if (needNotify) {
-                        cache.notifyRefresh(index);
+                        notifyRefresh(key, index, refreshLatch);
                     }
 
                     // clear the wrapper (XXX: cache these??)
@@ -288,10 +362,12 @@ public class CachingFilter implements Filter, CacheManagerListener {
     /**
      * called by doFilter to send out the cached response
      * @param entry cached response entry
+     * @param request request being served, to negotiate the content encoding
      * @param response response object to write out the response
      * @throws IOException and ServletException.
      */
     private void sendCachedResponse(HttpCacheEntry entry, 
+                                    HttpServletRequest request,
                                     HttpServletResponse response)
             throws IOException {
 
@@ -327,8 +403,21 @@ public class CachingFilter implements Filter, CacheManagerListener {
             response.addCookie(entry.cookies.get(i));
         }
 
+        // content encoding; the compressed body is only available when
+        // the response did not set its own encoding
+        ByteBuffer body = null;
+        if (entry.compressedBody != null) {
+            addVary(response, "Accept-Encoding");
+            if (acceptsGzip(request)) {
+                body = entry.getBody(true);
+                response.setHeader("Content-Encoding", "gzip");
+            }
+        }
+
         // content type, length and locale
-        if (entry.contentLength != HttpCacheEntry.VALUE_NOT_SET) {
+        if (body != null) {
+            response.setContentLength(body.remaining());
+        } else if (entry.contentLength != HttpCacheEntry.VALUE_NOT_SET) {
             response.setContentLength(entry.contentLength);
         }
         if (entry.contentType != null) {
@@ -339,20 +428,84 @@ public class CachingFilter implements Filter, CacheManagerListener {
         }
 
         // the response body
-        writeBody(entry, response);
+        writeBody((body != null) ? body : entry.getBody(false), response);
+    }
+
+    /**
+     * add a request header to the Vary header of the response, merging it
+     * with the values set by the cached response headers
+     * @param response response object to write out the response
+     * @param header name of the request header the response varies on
+     */
+    private void addVary(HttpServletResponse response, String header) {
+        StringBuilder vary = new StringBuilder();
+        for (String value : response.getHeaders("Vary")) {
+            for (String name : value.split(",")) {
+                name = name.trim();
+                if (name.equals("*") || name.equalsIgnoreCase(header)) {
+                    return;
+                }
+            }
+            if (vary.length() > 0) {
+                vary.append(", ");
+            }
+            vary.append(value.trim());
+        }
+        if (vary.length() > 0) {
+            vary.append(", ");
+        }
+        response.setHeader("Vary", vary.append(header).toString());
+    }
+
+    /**
+     * does the client accept a gzip encoded response?
+     * @param request request being served
+     * @return true if gzip is listed in Accept-Encoding with a non zero quality
+     */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders("Accept-Encoding");
+        while (values != null && values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                String[] params = coding.split(";");
+                if (params[0].trim().equalsIgnoreCase("gzip")) {
+                    for (int i = 1; i < params.length; i++) {
+                        String param = params[i].trim().toLowerCase(Locale.ENGLISH);
+                        if (param.startsWith("q=")) {
+                            try {
+                                return Float.parseFloat(param.substring(2)) > 0;
+                            } catch (NumberFormatException nfe) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
      * called by doFilter/sendCachedResponse to write the body content
-     * @param entry cached response entry
+     * @param body view of the cached response body
      * @param response response object to write out the response
      * @throws IOException and ServletException.
      */
-    private void writeBody(HttpCacheEntry entry, 
+    private void writeBody(ByteBuffer body, 
                            HttpServletResponse response)
                            throws IOException {
         ServletOutputStream out = response.getOutputStream();
-        out.write(entry.bytes);
+        if (out instanceof CoyoteOutputStream) {
+            // hand the buffer over to the connector without copying it
+            ((CoyoteOutputStream) out).write(body);
+        } else {
+            byte[] chunk = new byte[Math.min(body.remaining(), COPY_BUFFER_SIZE)];
+            while (body.hasRemaining()) {
+                int len = Math.min(body.remaining(), chunk.length);
+                body.get(chunk, 0, len);
+                out.write(chunk, 0, len);
+            }
+        }
     }
 
     /**
@@ -360,6 +513,34 @@ public class CachingFilter implements Filter, CacheManagerListener {
      * See IT 17377.
      */
     private boolean waitForRefresh(HttpServletRequest req, String key, int index) {
+        if (getProcessingSet(req).add(key)) {
+            return cache.waitRefresh(index);
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * release the requests waiting for the entry being generated
+     * @param key cache key of the entry
+     * @param index cache index of the key
+     * @param refreshLatch latch claimed to generate the entry; null when the
+     *        cache refresh flags are used instead
+     */
+    private void notifyRefresh(String key, int index,
+                               CountDownLatch refreshLatch) {
+        if (refreshLatch != null) {
+            refreshing.remove(key, refreshLatch);
+            refreshLatch.countDown();
+        } else if (staleWhileRevalidate == 0) {
+            cache.notifyRefresh(index);
+        }
+    }
+
+    /**
+     * get the keys of the entries being generated by the given request
+     */
+    private HashSet<String> getProcessingSet(HttpServletRequest req) {
         Object obj = req.getAttribute(PROCESSING_SET);
         HashSet<String> processingSet = null;
         if (obj == null) {
@@ -372,12 +553,7 @@ public class CachingFilter implements Filter, CacheManagerListener {
         } else {
             throw new IllegalStateException();
         }
-
-        if (processingSet.add(key)) {
-            return cache.waitRefresh(index);
-        } else {
-            return false;
-        }
+        return processingSet;
     }
 
     /**
@@ -50,10 +50,10 @@ import java.io.IOException;
  */
 public class CachingOutputStreamWrapper extends ServletOutputStream {
 
-    ByteArrayOutputStream baos;
+    ResponseBytes baos;
 
     public CachingOutputStreamWrapper() {
-        this.baos = new ByteArrayOutputStream(4096);
+        this.baos = new ResponseBytes(4096);
     }
 
     /**
@@ -134,4 +134,27 @@ public class CachingOutputStreamWrapper extends ServletOutputStream {
     public byte[] getBytes() {
         return baos.toByteArray();
     }
+
+    /**
+     * set the cached bytes as the body of the entry, without an
+     * intermediate copy
+     * @param entry cache entry of the response
+     */
+    void setBody(HttpCacheEntry entry) throws IOException {
+        baos.setBody(entry);
+    }
+
+    /**
+     * gives access to the buffered bytes
+     */
+    static final class ResponseBytes extends ByteArrayOutputStream {
+
+        ResponseBytes(int size) {
+            super(size);
+        }
+
+        void setBody(HttpCacheEntry entry) throws IOException {
+            entry.setBody(buf, 0, count);
+        }
+    }
 }
@@ -389,7 +389,11 @@ public class CachingResponseWrapper extends HttpServletResponseWrapper {
 
 
         // IT 12891
-        entry.bytes = ((cosw != null)? cosw.getBytes() : EMPTY_BYTE_ARRAY);
+        if (cosw != null) {
+            cosw.setBody(entry);
+        } else {
+            entry.setBody(EMPTY_BYTE_ARRAY, 0, 0);
+        }
 
         return entry;
     }
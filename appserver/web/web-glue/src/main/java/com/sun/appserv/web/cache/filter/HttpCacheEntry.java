@@ -40,9 +40,13 @@
 
 package com.sun.appserv.web.cache.filter;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.http.Cookie;
 
 /** HttpCacheEntry 
@@ -51,12 +55,25 @@ import javax.servlet.http.Cookie;
  *  d) parameterEncoding used e) entryKey this entry represents, 
  *  to match the entry within the hash bucket. 
  *
+ *  The response bytes are held in read-only buffers, along with their gzip
+ *  compressed form for compressible content. Large bodies are held in direct
+ *  buffers, so that cache hits are written out by the connector without
+ *  copying them on the heap.
+ *
  *  XXX: should implement methods to enable serialization of cached response?
  */
 public class HttpCacheEntry {
 
     public static final int VALUE_NOT_SET = -1;
 
+    // responses smaller than this are not worth compressing
+    static final int MIN_COMPRESSION_SIZE = 512;
+
+    // bodies smaller than this are kept on the heap: direct buffers are
+    // costly to allocate and only freed by the GC, which churns the direct
+    // memory for the many small entries of a cache
+    static final int MIN_DIRECT_SIZE = 64 * 1024;
+
     int statusCode;
 
     HashMap<String, ArrayList<String>> responseHeaders = new HashMap<String, ArrayList<String>>();
@@ -68,7 +85,10 @@ public class HttpCacheEntry {
     int contentLength;
 
     // XXX: other cacheable response info 
-    byte[] bytes; 
+    ByteBuffer body;
+
+    // gzip compressed body; null if the response is not compressed
+    ByteBuffer compressedBody;
 
     volatile long expireTime = 0;
 
@@ -99,11 +119,88 @@ public class HttpCacheEntry {
         return (expireTime > System.currentTimeMillis() || expireTime == -1);
     }
 
+    /**
+     * may this response be served while a fresh one is being generated?
+     * @param staleWhileRevalidate time in milli seconds an expired response
+     *        remains servable
+     */
+    public boolean isServableStale(long staleWhileRevalidate) {
+        return (expireTime == -1 ||
+                expireTime + staleWhileRevalidate > System.currentTimeMillis());
+    }
+
+    /**
+     * set the response bytes; a gzip compressed copy is kept as well when
+     * the content is compressible and its compressed form is smaller.
+     * @param bytes response body
+     * @param offset of the body in the array
+     * @param length of the body
+     * @throws IOException if the body could not be compressed
+     */
+    void setBody(byte[] bytes, int offset, int length) throws IOException {
+        body = toBuffer(bytes, offset, length);
+
+        if (length >= MIN_COMPRESSION_SIZE && isCompressible()) {
+            CompressedBytes compressed = new CompressedBytes(length / 2);
+            GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+            gzip.write(bytes, offset, length);
+            gzip.close();
+            if (compressed.size() < length) {
+                compressedBody = compressed.toBuffer();
+            }
+        }
+    }
+
+    /**
+     * can the response body be served gzip compressed?
+     */
+    private boolean isCompressible() {
+        if (contentType == null || 
+                (statusCode != VALUE_NOT_SET && statusCode != 200)) {
+            return false;
+        }
+        for (String name : responseHeaders.keySet()) {
+            if (name.equalsIgnoreCase("Content-Encoding")) {
+                return false;
+            }
+        }
+
+        String type = contentType.toLowerCase(Locale.ENGLISH);
+        return (type.startsWith("text/") || type.startsWith("application/json") ||
+                type.startsWith("application/javascript") ||
+                type.startsWith("application/xml") ||
+                type.contains("+xml") || type.contains("+json"));
+    }
+
+    /**
+     * get the response body
+     * @param compressed whether the gzip compressed body is requested
+     * @return a read-only view of the body positioned at its beginning;
+     * null if no compressed body is available
+     */
+    ByteBuffer getBody(boolean compressed) {
+        ByteBuffer buffer = (compressed) ? compressedBody : body;
+        return (buffer != null) ? buffer.duplicate() : null;
+    }
+
+    private static ByteBuffer toBuffer(byte[] bytes, int offset, int length) {
+        ByteBuffer buffer;
+        if (length < MIN_DIRECT_SIZE) {
+            buffer = ByteBuffer.allocate(length);
+        } else {
+            buffer = ByteBuffer.allocateDirect(length);
+        }
+        buffer.put(bytes, offset, length);
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
     /** 
      * clear the contents
      */
     public void clear() {
-        bytes = null;
+        body = null;
+        compressedBody = null;
         responseHeaders = null;
         cookies = null;
     }
@@ -115,11 +212,28 @@ public class HttpCacheEntry {
      */
     public int getSize() {
         int size = 0;
-        if (bytes != null) {
-            size = bytes.length;
+        if (body != null) {
+            size = body.capacity();
+        }
+        if (compressedBody != null) {
+            size += compressedBody.capacity();
         }
 
         // size of response bytes plus headers (each approx 20 chars or 40 bytes)
         return (size + (40 * responseHeaders.size()) );
     }
+
+    /**
+     * gzip output, copied in a buffer once complete
+     */
+    private static final class CompressedBytes extends ByteArrayOutputStream {
+
+        CompressedBytes(int size) {
+            super(size);
+        }
+
+        ByteBuffer toBuffer() {
+            return HttpCacheEntry.toBuffer(buf, 0, count);
+        }
+    }
 }
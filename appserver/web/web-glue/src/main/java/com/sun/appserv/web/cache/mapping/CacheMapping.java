@@ -56,6 +56,9 @@ public class CacheMapping {
     private int timeout = CacheHelper.TIMEOUT_VALUE_NOT_SET;
     private Field timeoutField = null; 
 
+    // seconds an expired entry may be served while it is being refreshed
+    private int staleWhileRevalidate = 0;
+
     // a field to force caching engine to refresh entry
     private Field refreshField = null; 
 
@@ -111,6 +114,14 @@ public class CacheMapping {
         this.timeoutField = field;
     }
 
+    /** set the time an expired entry may still be served while a single
+     *  request refreshes it
+     * @param staleWhileRevalidate in seconds; 0 to never serve expired entries
+     */
+    public void setStaleWhileRevalidate(int staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
     /** set the refresh field
      * @param field Boolean field for controlling when a refresh is needed
      */
@@ -240,6 +251,15 @@ public class CacheMapping {
         return timeoutField;
     }
 
+    /**
+     * get the time an expired entry may still be served while it is
+     * being refreshed
+     * @return stale-while-revalidate value configured, in seconds
+     */
+    public int getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
     /**
      * get the key fields
      * @return key fields configured
@@ -290,6 +290,20 @@ public final class CacheModule {
                 mapping.setTimeoutField(new Field(name, scope));
         }
 
+        /**
+         * <timeout stale-while-revalidate="30">600</timeout>
+         */
+        value = mapConfig.getAttributeValue(
+                org.glassfish.web.deployment.runtime.CacheMapping.TIMEOUT,
+                org.glassfish.web.deployment.runtime.CacheMapping.STALE_WHILE_REVALIDATE);
+        if (value != null) {
+            try {
+                mapping.setStaleWhileRevalidate(Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                throw new Exception("invalid stale-while-revalidate", e);
+            }
+        }
+
         /**
          * <refresh-field name="refreshNow" scope="request.attribute" />
          */
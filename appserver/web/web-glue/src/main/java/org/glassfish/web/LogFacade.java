@@ -1571,4 +1571,9 @@ public class LogFacade {
         message = "Exception getting Validator Factory from JNDI: {0}",
         level = "WARNING")
     public static final String EXCEPTION_GETTING_VALIDATOR_FACTORY = prefix + "00285";
+
+    @LogMessageInfo(
+            message = "CachingFilter {0} serving expired response from the cache {1} while it is refreshed",
+            level = "FINE")
+    public static final String CACHING_FILTER_SERVING_STALE_RESPONSE = prefix + "00286";
 }
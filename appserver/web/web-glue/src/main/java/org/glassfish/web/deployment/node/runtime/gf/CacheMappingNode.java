@@ -108,6 +108,9 @@ public class CacheMappingNode extends RuntimeDescriptorNode<CacheMapping> {
                         index++;
                     }
 		    descriptor.setAttributeValue(CacheMapping.TIMEOUT, index-1, CacheMapping.SCOPE, attributes.getValue(i));
+	        } else
+                if (RuntimeTagNames.STALE_WHILE_REVALIDATE.equals(attributes.getQName(i))) {
+		    descriptor.setAttributeValue(CacheMapping.TIMEOUT, CacheMapping.STALE_WHILE_REVALIDATE, attributes.getValue(i));
 	        }  
             }
  	} else 
@@ -176,6 +179,10 @@ public class CacheMappingNode extends RuntimeDescriptorNode<CacheMapping> {
         if (scope!=null) {
             setAttribute(timeout, RuntimeTagNames.SCOPE, scope);
         }
+        String staleWhileRevalidate = descriptor.getAttributeValue(CacheMapping.TIMEOUT, CacheMapping.STALE_WHILE_REVALIDATE);
+        if (staleWhileRevalidate!=null) {
+            setAttribute(timeout, RuntimeTagNames.STALE_WHILE_REVALIDATE, staleWhileRevalidate);
+        }
 	
         //refresh-field?, 
 	if (descriptor.isRefreshField()) {
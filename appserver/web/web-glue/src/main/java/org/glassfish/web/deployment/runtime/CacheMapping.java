@@ -58,6 +58,7 @@ public class CacheMapping extends RuntimeDescriptor
     static public final String TIMEOUT = "Timeout";	// NOI18N
     static public final String NAME = "Name";
     static public final String SCOPE = "Scope";
+    static public final String STALE_WHILE_REVALIDATE = "StaleWhileRevalidate";
     static public final String REFRESH_FIELD = "RefreshField";	// NOI18N
     static public final String HTTP_METHOD = "HttpMethod";	// NOI18N
     static public final String DISPATCHER = "Dispatcher";	// NOI18N
@@ -49,6 +49,7 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  *
@@ -70,6 +71,11 @@ public abstract class AbstractTreeNode implements TreeNode, Comparable<TreeNode>
     protected boolean enabled = false;
     private static String NAME_SEPARATOR = ".";
     private static String REGEX = "(?<!\\\\)\\.";
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile(REGEX);
+    // The monitoring clients poll the same few patterns over and over
+    private static final int PATTERN_CACHE_SIZE = 256;
+    private static final ConcurrentMap<String, Pattern> patternCache =
+            new ConcurrentHashMap<String, Pattern>();
     private TreeNode parent = null;
     // Special character Regex to be converted to .* for v2 compatibility
     private String STAR = "*";
@@ -249,8 +255,7 @@ public abstract class AbstractTreeNode implements TreeNode, Comparable<TreeNode>
             return null;
         }
         completeName = encodePath(completeName);
-        Pattern pattern = Pattern.compile(AbstractTreeNode.REGEX);
-        String[] tokens = pattern.split(completeName);
+        String[] tokens = SEPARATOR_PATTERN.split(completeName);
         TreeNode n = findNodeInTree(tokens);
 
         if (n == null)
@@ -360,34 +365,64 @@ public abstract class AbstractTreeNode implements TreeNode, Comparable<TreeNode>
             if (gfv2Compatible)
                 pattern = convertGFv2PatternToRegex(pattern);
 
-            Pattern mPattern = Pattern.compile(pattern);
-            List<TreeNode> completeTree = traverse(ignoreDisabled);
+            Matcher matcher = compilePattern(pattern).matcher("");
+            collectMatchingNodes(this, getCompletePathName(), matcher, ignoreDisabled, regexMatchedTree);
+        }
+        catch (PatternSyntaxException e) {
+            // log this
+            // e.printStackTrace ();
+        }
+        return regexMatchedTree;
+    }
 
-            for (TreeNode node : completeTree) {
-                String path = node.getCompletePathName();
-                String path2 = null;
+    /**
+     * Collects the nodes of the subtree of node whose complete path name
+     * matches, in the order of traverse. The complete path names of the
+     * descendants of a node all start with its own path name, so a subtree
+     * is skipped as soon as the matcher tells that no longer input can match
+     * the path name of its root : the cost of a lookup follows the number of
+     * candidate nodes rather than the size of the tree.
+     */
+    private static void collectMatchingNodes(TreeNode node, String path, Matcher matcher,
+            boolean ignoreDisabled, List<TreeNode> matches) {
+        if (ignoreDisabled && !node.isEnabled())
+            return;
+
+        boolean matched = matcher.reset(path).matches();
+        // hitEnd is meaningless once a match succeeded, e.g. for a|ab
+        boolean mayMatchBelow = matched || matcher.hitEnd();
+
+        if (path.indexOf("\\") >= 0 && !(matched && mayMatchBelow)) {
+            String path2 = path.replace("\\", "");
+            boolean matched2 = matcher.reset(path2).matches();
+            mayMatchBelow = mayMatchBelow || matched2 || matcher.hitEnd();
+            matched = matched || matched2;
+        }
 
-                if (path.indexOf("\\") >= 0)
-                    path2 = path.replace("\\", "");
+        if (matched)
+            matches.add(node);
 
-                Matcher matcher = mPattern.matcher(path);
+        if (!mayMatchBelow || !node.hasChildNodes())
+            return;
 
-                if (matcher.matches()) {
-                    regexMatchedTree.add(node);
-                }
-                else if (path2 != null) {
-                    Matcher matcher2 = mPattern.matcher(path2);
-                    if (matcher2.matches()) {
-                        regexMatchedTree.add(node);
-                    }
-                }
-            }
+        for (TreeNode child : node.getChildNodes()) {
+            collectMatchingNodes(child, path + NAME_SEPARATOR + child.getName(),
+                    matcher, ignoreDisabled, matches);
         }
-        catch (java.util.regex.PatternSyntaxException e) {
-            // log this
-            // e.printStackTrace ();
+    }
+
+    private static Pattern compilePattern(String regex) {
+        Pattern pattern = patternCache.get(regex);
+
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+
+            if (patternCache.size() >= PATTERN_CACHE_SIZE)
+                patternCache.clear();
+
+            patternCache.put(regex, pattern);
         }
-        return regexMatchedTree;
+        return pattern;
     }
 
     @Override
@@ -447,29 +482,34 @@ public abstract class AbstractTreeNode implements TreeNode, Comparable<TreeNode>
         if (pattern == null || pattern.length() <= 0 || pattern.indexOf('*') >= 0)
             return null;
 
-        TreeNode node = null;
-        int longest = 0;
-
-        for (TreeNode n : traverse(true)) {
-            String aname = n.getCompletePathName();
+        if (!isEnabled())
+            return null;
 
-            if (aname == null)
-                continue;   // defensive pgming
+        return findPossibleParentNode(this, getCompletePathName(), pattern, null);
+    }
 
-            // JIRA 15500 -- there may be a backslash in the name!
+    /**
+     * Returns the enabled node of the subtree of node with the longest
+     * complete path name that is a prefix of the pattern, or best if there is
+     * no longer one. Only the children of such nodes may qualify.
+     */
+    private static TreeNode findPossibleParentNode(TreeNode node, String path,
+            String pattern, TreeNode best) {
+        // JIRA 15500 -- there may be a backslash in the name!
+        if (!pattern.startsWith(path) && !pattern.startsWith(path.replace("\\", "")))
+            return best;
 
-            if (pattern.startsWith(aname) || pattern.startsWith(aname.replace("\\", ""))) {
-                int thisLength = aname.length();
+        // keep the longest match ONLY!
+        if (best == null || path.length() > best.getCompletePathName().length())
+            best = node;
 
-                // keep the longest match ONLY!
-                if (node == null || thisLength > longest) {
-                    node = n;
-                    longest = thisLength;
-                }
-            }
+        for (TreeNode child : node.getChildNodes()) {
+            if (child.isEnabled())
+                best = findPossibleParentNode(child, path + NAME_SEPARATOR + child.getName(),
+                        pattern, best);
         }
 
-        return node;
+        return best;
     }
 
     private String encodeNodeName(String nodeName) {
@@ -0,0 +1,77 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.flashlight.statistics.factory;
+
+import org.glassfish.flashlight.statistics.HistogramStatistic;
+import org.glassfish.flashlight.statistics.impl.HistogramStatisticImpl;
+
+/**
+ * Creates the histogram statistics, that the stats providers return as
+ * TimeStatistic attributes with percentiles.
+ */
+public class HistogramStatisticFactory {
+
+    /** One hour, in milliseconds */
+    public static final long DEFAULT_HIGHEST_TRACKABLE_MILLIS = 3600L * 1000L;
+
+    /** Two significant digits, hence a precision of 1% */
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * Creates a histogram of times in milliseconds, up to one hour, with a
+     * precision of 1%.
+     */
+    public static HistogramStatistic createHistogramMillis(String name, String description) {
+        return new HistogramStatisticImpl(name, "millisecond", description,
+                DEFAULT_HIGHEST_TRACKABLE_MILLIS, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * @param highestTrackableValue highest time that is tracked precisely
+     * @param significantDigits precision of the tracked times, between 1
+     * and 3
+     */
+    public static HistogramStatistic createHistogram(String name, String unit,
+            String description, long highestTrackableValue, int significantDigits) {
+        return new HistogramStatisticImpl(name, unit, description,
+                highestTrackableValue, significantDigits);
+    }
+}
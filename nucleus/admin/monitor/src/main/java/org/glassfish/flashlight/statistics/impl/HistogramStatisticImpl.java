@@ -0,0 +1,258 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.flashlight.statistics.impl;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.glassfish.external.statistics.impl.StatisticImpl;
+import org.glassfish.flashlight.statistics.HistogramStatistic;
+
+/**
+ * A histogram of times in a fixed amount of memory, in the spirit of
+ * HdrHistogram. The times are counted in buckets whose width grows with
+ * the times : the times below 2 * subBucketHalfCount have a bucket each,
+ * then each power of two range is split in subBucketHalfCount buckets,
+ * which keeps the relative error below 1 / subBucketHalfCount.
+ * <p/>
+ * Recording a time increments a few atomic counters and takes no lock.
+ * The percentiles are computed from a copy of the buckets, that may miss
+ * the times being recorded concurrently.
+ * <p/>
+ * The statistic map holds the count, min, max and total times, as a
+ * TimeStatistic, and the 50th, 90th, 99th and 99.9th percentiles.
+ */
+public class HistogramStatisticImpl extends StatisticImpl implements HistogramStatistic {
+
+    private static final double[] REPORTED_PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private static final String[] PERCENTILE_KEYS = {"p50", "p90", "p99", "p999"};
+
+    private final long highestTrackableValue;
+
+    private final int subBucketHalfCountMagnitude;
+
+    private final int subBucketHalfCount;
+
+    private final int subBucketCount;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong totalTime = new AtomicLong();
+
+    private final AtomicLong minTime = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong maxTime = new AtomicLong();
+
+    private final AtomicLong lastSampleTime = new AtomicLong(-1L);
+
+    /**
+     * @param highestTrackableValue highest time that is tracked precisely
+     * @param significantDigits precision of the tracked times, between 1
+     * and 3
+     */
+    public HistogramStatisticImpl(String name, String unit, String description,
+            long highestTrackableValue, int significantDigits) {
+        super(name, unit, description);
+        if (significantDigits < 1 || significantDigits > 3) {
+            throw new IllegalArgumentException(
+                    "significantDigits must be between 1 and 3: " + significantDigits);
+        }
+        if (highestTrackableValue < 1) {
+            throw new IllegalArgumentException(
+                    "highestTrackableValue must be positive: " + highestTrackableValue);
+        }
+        long precision = 1;
+        for (int i = 0; i < significantDigits; i++) {
+            precision *= 10;
+        }
+        int magnitude = 0;
+        while ((1L << magnitude) < precision) {
+            magnitude++;
+        }
+        this.subBucketHalfCountMagnitude = magnitude;
+        this.subBucketHalfCount = 1 << magnitude;
+        this.subBucketCount = subBucketHalfCount << 1;
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(countsIndex(highestTrackableValue) + 1);
+    }
+
+    @Override
+    public void record(long time) {
+        if (time < 0) {
+            time = 0;
+        }
+        counts.incrementAndGet(countsIndex(Math.min(time, highestTrackableValue)));
+        totalCount.incrementAndGet();
+        totalTime.addAndGet(time);
+        long min;
+        while (time < (min = minTime.get()) && !minTime.compareAndSet(min, time)) {
+            // retry
+        }
+        long max;
+        while (time > (max = maxTime.get()) && !maxTime.compareAndSet(max, time)) {
+            // retry
+        }
+        lastSampleTime.set(System.currentTimeMillis());
+    }
+
+    @Override
+    public long getValueAtPercentile(double percentile) {
+        return getValuesAtPercentiles(new double[] {percentile})[0];
+    }
+
+    /**
+     * Computes several percentiles from the same copy of the buckets.
+     *
+     * @param percentiles percentiles in ascending order
+     */
+    public long[] getValuesAtPercentiles(double[] percentiles) {
+        long[] values = new long[percentiles.length];
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return values;
+        }
+        long max = maxTime.get();
+        int p = 0;
+        long accumulated = 0;
+        for (int i = 0; i < snapshot.length && p < percentiles.length; i++) {
+            accumulated += snapshot[i];
+            while (p < percentiles.length && accumulated >= rank(percentiles[p], total)) {
+                values[p++] = Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    @Override
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    @Override
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    @Override
+    public long getMinTime() {
+        long min = minTime.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    @Override
+    public long getTotalTime() {
+        return totalTime.get();
+    }
+
+    @Override
+    public long getLastSampleTime() {
+        return lastSampleTime.get();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalTime.set(0);
+        minTime.set(Long.MAX_VALUE);
+        maxTime.set(0);
+        lastSampleTime.set(-1L);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map getStaticAsMap() {
+        Map map = super.getStaticAsMap();
+        map.put("count", getCount());
+        map.put("maxtime", getMaxTime());
+        map.put("mintime", getMinTime());
+        map.put("totaltime", getTotalTime());
+        long[] values = getValuesAtPercentiles(REPORTED_PERCENTILES);
+        for (int i = 0; i < values.length; i++) {
+            map.put(PERCENTILE_KEYS[i], values[i]);
+        }
+        return map;
+    }
+
+    private static long rank(double percentile, long total) {
+        double p = Math.min(Math.max(percentile, 0.0), 100.0);
+        return Math.max(1L, (long) Math.ceil(p / 100.0 * total));
+    }
+
+    int countsIndex(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        // value has at least subBucketHalfCountMagnitude + 2 significant bits,
+        // keep the highest subBucketHalfCountMagnitude + 1 of them
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketHalfCountMagnitude;
+        int subBucket = (int) (value >>> shift);
+        return subBucketCount + (shift - 1) * subBucketHalfCount
+                + (subBucket - subBucketHalfCount);
+    }
+
+    long highestEquivalentValue(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int bucket = index - subBucketCount;
+        int shift = bucket / subBucketHalfCount + 1;
+        long subBucket = bucket % subBucketHalfCount + subBucketHalfCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
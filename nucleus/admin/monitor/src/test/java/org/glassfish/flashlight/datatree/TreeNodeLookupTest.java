@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.flashlight.datatree;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.glassfish.flashlight.datatree.factory.TreeNodeFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TreeNodeLookupTest {
+
+    private TreeNode server;
+
+    @Before
+    public void setUp() {
+        server = createNode("server");
+        TreeNode wto = createNode("wto");
+        server.addChild(wto);
+        TreeNode wtoson = createNode("wtoson");
+        wto.addChild(wtoson);
+        wtoson.addChild(createNode("wtosonsson"));
+        wtoson.addChild(createNode("wtosonsdaughter"));
+        TreeNode wtodaughter = createNode("wtodaughter");
+        wto.addChild(wtodaughter);
+        wtodaughter.addChild(createNode("wtodaughtersdaughter"));
+        wto.addChild(createNode("jdbc/pool"));
+    }
+
+    @Test
+    public void testGetAll() {
+        assertEquals(8, server.getNodes("*", false, true).size());
+    }
+
+    @Test
+    public void testGetNodesUnderPrefix() {
+        List<TreeNode> list = server.getNodes("server.wto.wtoson.*", false, true);
+        assertEquals(2, list.size());
+        for (TreeNode node : list) {
+            assertTrue(node.getCompletePathName().startsWith("server.wto.wtoson."));
+        }
+    }
+
+    @Test
+    public void testGetNodesBySuffix() {
+        assertEquals(2, server.getNodes("*wtodaughter*", false, true).size());
+        assertEquals(1, server.getNodes(".*wtodaughter", false, false).size());
+    }
+
+    @Test
+    public void testGetNodesAlternation() {
+        // the shorter alternative matches first, the longer one must still be found
+        List<TreeNode> list = server.getNodes("server.wto|server.wto.wtodaughter", false, false);
+        assertEquals(2, list.size());
+    }
+
+    @Test
+    public void testGetNodesWithSlash() {
+        assertEquals(1, server.getNodes("server.wto.jdbc/pool", false, true).size());
+    }
+
+    @Test
+    public void testGetNodesIgnoreDisabled() {
+        server.getNode("wto.wtoson").setEnabled(false);
+        assertEquals(0, server.getNodes("*wtosonsson", true, true).size());
+        assertEquals(1, server.getNodes("*wtosonsson", false, true).size());
+    }
+
+    @Test
+    public void testGetNodesInvalidPattern() {
+        assertTrue(server.getNodes("server.wto[", false, false).isEmpty());
+    }
+
+    @Test
+    public void testGetPossibleParentNode() {
+        TreeNode parent = server.getPossibleParentNode("server.wto.wtoson.requestcount");
+        assertEquals("server.wto.wtoson", parent.getCompletePathName());
+        assertNull(server.getPossibleParentNode("other.wto"));
+
+        server.getNode("wto.wtoson").setEnabled(false);
+        parent = server.getPossibleParentNode("server.wto.wtoson.requestcount");
+        assertEquals("server.wto", parent.getCompletePathName());
+    }
+
+    private TreeNode createNode(String name) {
+        return TreeNodeFactory.createTreeNode(name, this, "web");
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.flashlight.statistics.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HistogramStatisticImplTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        HistogramStatisticImpl histogram = new HistogramStatisticImpl(
+                "Test", "millisecond", "", 3600000L, 2);
+        int previous = -1;
+        for (long value = 0; value < 100000; value++) {
+            int index = histogram.countsIndex(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(histogram.highestEquivalentValue(index) >= value);
+            if (index != previous && value > 0) {
+                assertEquals(value - 1, histogram.highestEquivalentValue(previous));
+            }
+            previous = index;
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        HistogramStatisticImpl histogram = new HistogramStatisticImpl(
+                "Test", "millisecond", "", 3600000L, 2);
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(1, histogram.getMinTime());
+        assertEquals(10000, histogram.getMaxTime());
+        assertEquals(50005000L, histogram.getTotalTime());
+        assertWithinPrecision(5000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(9900, histogram.getValueAtPercentile(99));
+        assertWithinPrecision(9990, histogram.getValueAtPercentile(99.9));
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testValuesOutOfRange() {
+        HistogramStatisticImpl histogram = new HistogramStatisticImpl(
+                "Test", "millisecond", "", 1000L, 1);
+        histogram.record(-5);
+        histogram.record(5000);
+        assertEquals(0, histogram.getMinTime());
+        assertEquals(5000, histogram.getMaxTime());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertTrue(histogram.getValueAtPercentile(100) >= 1000);
+    }
+
+    @Test
+    public void testReset() {
+        HistogramStatisticImpl histogram = new HistogramStatisticImpl(
+                "Test", "millisecond", "", 3600000L, 2);
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(random.nextInt(100000));
+        }
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxTime());
+        assertEquals(0, histogram.getMinTime());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        Map map = histogram.getStaticAsMap();
+        assertEquals(0L, map.get("count"));
+        assertEquals(0L, map.get("p99"));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final HistogramStatisticImpl histogram = new HistogramStatisticImpl(
+                "Test", "millisecond", "", 3600000L, 2);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        histogram.record(i % 1000);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400000, histogram.getCount());
+        assertEquals(0, histogram.getMinTime());
+        assertEquals(999, histogram.getMaxTime());
+        assertWithinPrecision(500, histogram.getValueAtPercentile(50));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 100 + 1);
+    }
+}
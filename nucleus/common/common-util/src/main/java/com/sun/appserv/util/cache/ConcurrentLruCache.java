@@ -0,0 +1,923 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.appserv.util.cache;
+
+import com.sun.enterprise.util.CULoggerInfo;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrentLruCache -- in-memory bounded cache with lock-free lookups.
+ * <p>
+ * Entries are kept in a <code>ConcurrentHashMap</code>; lookups do not
+ * acquire any lock and only record the access time of the entry. Updates
+ * of a key are serialized by a striped lock, which is also used for the
+ * refresh notifications (see <code>waitRefresh</code>).
+ * <p>
+ * Instead of maintaining an exact LRU list, a victim is chosen amongst a
+ * sample of entries when the cache overflows: the least recently used one,
+ * weighted by its size when the cache exceeds its <code>MaxSize</code>.
+ * A new entry is admitted at the expense of the victim only if it is not
+ * used less frequently, as estimated by a count-min sketch of the recent
+ * accesses (TinyLFU), so that a burst of one time keys does not flush the
+ * frequently used entries.
+ * <p>
+ * Supported properties:
+ * <ul>
+ * <li>MaxSize: upper bound on the cache size in bytes, KB or MB</li>
+ * <li>SampleSize: number of entries sampled to select a victim (default 8)</li>
+ * <li>FrequencyAdmission: admit new entries based on their frequency of
+ * use (default true)</li>
+ * </ul>
+ */
+public class ConcurrentLruCache implements Cache {
+
+    static final int MAX_ENTRIES = 1 << 30;
+    static final int MAX_LOCKS = 1 << 14;
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    static final int DEFAULT_SAMPLE_SIZE = 8;
+
+    // maximum number of entries this cache may hold
+    protected int maxEntries;
+
+    // upper bound on the cache size
+    protected long maxSize = Constants.DEFAULT_MAX_CACHE_SIZE;
+
+    // number of entries sampled to select a victim
+    protected int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+    // whether new entries have to be used as frequently as the victim
+    protected boolean frequencyAdmission = true;
+
+    private ConcurrentHashMap<Object, ConcurrentCacheItem> entries;
+
+    // key-wide locks, also used for thread-safe refreshes
+    private Object[] locks;
+    private boolean[] refreshFlags;
+
+    private final AtomicInteger entryCount = new AtomicInteger();
+    private final AtomicLong currentSize = new AtomicLong();
+
+    private FrequencySketch frequencySketch;
+
+    // serializes the evictions; the cursor is guarded by this lock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<ConcurrentCacheItem> evictionCursor;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder removalCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder addCount = new LongAdder();
+    private final LongAdder overflowCount = new LongAdder();
+    private final LongAdder trimCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    protected List listeners = new CopyOnWriteArrayList();
+
+    /**
+     * default constructor for the concurrent cache
+     */
+    public ConcurrentLruCache() { }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    public void init(int maxEntries, Properties props) throws Exception {
+        init(maxEntries, DEFAULT_LOAD_FACTOR, props);
+    }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param loadFactor the load factor of the underlying table
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    public void init(int maxEntries, float loadFactor, Properties props) {
+        if (maxEntries <= 0) {
+            String msg = CULoggerInfo.getString(CULoggerInfo.illegalMaxEntries);
+
+            Object[] params = { Integer.valueOf(maxEntries) };
+            msg = MessageFormat.format(msg, params);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (maxEntries > MAX_ENTRIES)
+            maxEntries = MAX_ENTRIES;
+
+        this.maxEntries = maxEntries;
+
+        if (props != null) {
+            String prop = props.getProperty("MaxSize");
+            if (prop != null) {
+                maxSize = BoundedMultiLruCache.parseMaxSize(prop);
+            }
+
+            prop = props.getProperty("SampleSize");
+            if (prop != null) {
+                try {
+                    int size = Integer.parseInt(prop.trim());
+                    if (size > 0)
+                        sampleSize = size;
+                } catch (NumberFormatException nfe) {}
+            }
+
+            prop = props.getProperty("FrequencyAdmission");
+            if (prop != null) {
+                frequencyAdmission = Boolean.parseBoolean(prop.trim());
+            }
+        }
+
+        //Cannot have the loadfactor as a negative or a zero value
+        if (loadFactor <= 0)
+            loadFactor = DEFAULT_LOAD_FACTOR;
+
+        entries = new ConcurrentHashMap<Object, ConcurrentCacheItem>(
+                (int) Math.min(MAX_ENTRIES, maxEntries / loadFactor + 1), loadFactor);
+
+        // find a power of 2 >= maxEntries for the locks
+        int maxLocks = 1;
+        while (maxLocks < maxEntries && maxLocks < MAX_LOCKS)
+            maxLocks <<= 1;
+
+        locks = new Object[maxLocks];
+        refreshFlags = new boolean[maxLocks];
+        for (int i = 0; i < maxLocks; i++) {
+            locks[i] = new Object();
+        }
+
+        frequencySketch = new FrequencySketch(maxEntries);
+    }
+
+    /**
+     * add the cache module listener
+     * @param listener <code>CacheListener</code> implementation
+     */
+    public void addCacheListener(CacheListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns a hash code for non-null Object x.
+     * @See also <code>BaseCache</code>
+     */
+    protected int hash(Object x) {
+        int h = x.hashCode();
+        return h - (h << 7);  // i.e., -127 * h
+    }
+
+    /**
+     * get the index of the item given a key
+     * @param key of the entry
+     * @return the index to be used in the cache
+     */
+    public final int getIndex(Object key) {
+        return getIndex(hash(key));
+    }
+
+    private int getIndex(int hashCode) {
+        return (hashCode & (locks.length - 1));
+    }
+
+    /**
+     * @return the weight of an item of the given size in the cache
+     */
+    private static long weight(int size) {
+        return (size > 0) ? size : 0;
+    }
+
+    /**
+     * get the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    public Object get(Object key) {
+        ConcurrentCacheItem item = entries.get(key);
+        frequencySketch.increment(hash(key));
+
+        if (item != null) {
+            item.accessTime = System.nanoTime();
+            hitCount.increment();
+            return item.value;
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * get all the items stored at the key.
+     * @param key lookup key
+     * @returns an Iterator over the items with the given key.
+     */
+    public Iterator getAll(Object key) {
+        ArrayList valueList = new ArrayList();
+        long now = System.nanoTime();
+
+        for (ConcurrentCacheItem item = entries.get(key); item != null;
+                                item = item.next) {
+            item.accessTime = now;
+            hitCount.increment();
+            valueList.add(item.value);
+        }
+        return valueList.iterator();
+    }
+
+    /**
+     * check if the cache contains the item at the key
+     * @param key lookup key
+     * @returns true if there is an item stored at the key; false if not.
+     */
+    public boolean contains(Object key) {
+        return (get(key) != null);
+    }
+
+    /**
+     * get an Iterator for the keys stored in the cache
+     * @returns an Iterator
+     */
+    public Iterator keys() {
+        ArrayList keyList = new ArrayList(entryCount.get());
+
+        for (ConcurrentCacheItem head : entries.values()) {
+            for (ConcurrentCacheItem item = head; item != null; item = item.next) {
+                keyList.add(item.key);
+            }
+        }
+        return keyList.iterator();
+    }
+
+    /**
+     * get an Enumeration for the keys stored in the cache
+     * @returns an Enumeration
+     */
+    public Enumeration elements() {
+        Vector keyList = new Vector();
+
+        for (ConcurrentCacheItem head : entries.values()) {
+            for (ConcurrentCacheItem item = head; item != null; item = item.next) {
+                keyList.addElement(item.key);
+            }
+        }
+        return keyList.elements();
+    }
+
+    /**
+     * get an Iterator for the values stored in the cache
+     * @returns an Iterator
+     */
+    public Iterator values() {
+        ArrayList valueList = new ArrayList(entryCount.get());
+
+        for (ConcurrentCacheItem head : entries.values()) {
+            for (ConcurrentCacheItem item = head; item != null; item = item.next) {
+                valueList.add(item.value);
+            }
+        }
+        return valueList.iterator();
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @returns the previous item stored at the key; null if not found.
+     */
+    public Object put(Object key, Object value) {
+        return _put(key, value, -1, false);
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being cached
+     * @returns the previous item stored at the key; null if not found.
+     */
+    public Object put(Object key, Object value, int size) {
+        return _put(key, value, size, false);
+    }
+
+    /**
+     * add the given value to the cache at the specified key
+     * @param key lookup key
+     * @param object item value to be stored
+     */
+    public void add(Object key, Object value) {
+        _put(key, value, -1, true);
+    }
+
+    /**
+     * add the given value with specified size to the cache at specified key
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being added
+     */
+    public void add(Object key, Object value, int size) {
+        _put(key, value, size, true);
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being cached
+     * @param addValue treat this operation as an add (default is to replace)
+     * @returns the previous item stored at the key; null if not found.
+     */
+    protected Object _put(Object key, Object value, int size, boolean addValue) {
+        int hashCode = hash(key);
+        ConcurrentCacheItem newItem = null;
+        Object oldValue = null;
+
+        synchronized (locks[getIndex(hashCode)]) {
+            ConcurrentCacheItem head = entries.get(key);
+
+            if (addValue || head == null) {
+                // add the item at the head of the key list
+                newItem = new ConcurrentCacheItem(key, value, size, head);
+                entries.put(key, newItem);
+            } else {
+                oldValue = head.value;
+                long oldWeight = weight(head.size);
+                head.value = value;
+                head.size = size;
+                head.accessTime = System.nanoTime();
+                currentSize.addAndGet(weight(size) - oldWeight);
+            }
+        }
+
+        if (newItem != null) {
+            entryCount.incrementAndGet();
+            currentSize.addAndGet(weight(size));
+            addCount.increment();
+            frequencySketch.increment(hashCode);
+        } else {
+            refreshCount.increment();
+        }
+
+        // make sure we are not crossing the bounds
+        if (isOverflowing()) {
+            trimCache(newItem);
+        }
+        return oldValue;
+    }
+
+    /**
+     * remove the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    public Object remove(Object key) {
+        return remove(key, null);
+    }
+
+    /**
+     * remove the given value stored at the key; value-specific removals.
+     * @param key lookup key
+     * @param value to match (for a multi-valued keys)
+     * @returns the item stored at the key; null if not found.
+     */
+    public Object remove(Object key, Object value) {
+        ConcurrentCacheItem removed = null;
+
+        synchronized (locks[getIndex(key)]) {
+            for (ConcurrentCacheItem item = entries.get(key); item != null;
+                                    item = item.next) {
+                if (value == null || value == item.value) {
+                    if (unlink(item)) {
+                        removed = item;
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (removed != null) {
+            itemRemoved(removed);
+            removalCount.increment();
+            hitCount.increment();
+            return removed.value;
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * remove all the item with the given key.
+     * @param key lookup key
+     */
+    public void removeAll(Object key) {
+        ConcurrentCacheItem head;
+
+        synchronized (locks[getIndex(key)]) {
+            head = entries.remove(key);
+        }
+
+        for (ConcurrentCacheItem item = head; item != null; item = item.next) {
+            itemRemoved(item);
+            removalCount.increment();
+        }
+    }
+
+    /**
+     * unlink the item from the list of items of its key.
+     * The key-wide lock must be held by the caller.
+     * @param target item to be unlinked
+     * @return true if the item was still in the cache
+     */
+    private boolean unlink(ConcurrentCacheItem target) {
+        ConcurrentCacheItem prev = null;
+
+        for (ConcurrentCacheItem item = entries.get(target.key); item != null;
+                                item = item.next) {
+            if (item == target) {
+                if (prev != null) {
+                    prev.next = item.next;
+                } else if (item.next != null) {
+                    entries.put(target.key, item.next);
+                } else {
+                    entries.remove(target.key);
+                }
+                return true;
+            }
+            prev = item;
+        }
+        return false;
+    }
+
+    /**
+     * update the counters once the item is removed from the cache
+     */
+    private void itemRemoved(ConcurrentCacheItem item) {
+        entryCount.decrementAndGet();
+        currentSize.addAndGet(-weight(item.size));
+    }
+
+    /**
+     * has cache exceeded its bounds
+     * @return true when the cache holds more entries or bytes than allowed
+     */
+    protected boolean isOverflowing() {
+        return (entryCount.get() > maxEntries || currentSize.get() > maxSize);
+    }
+
+    /**
+     * trim the cache till it is within its bounds and notify listeners
+     * @param candidate item just added to the cache; may be null
+     */
+    protected void trimCache(ConcurrentCacheItem candidate) {
+        ArrayList<ConcurrentCacheItem> trimmed = new ArrayList<ConcurrentCacheItem>();
+
+        overflowCount.increment();
+        evictionLock.lock();
+        try {
+            while (isOverflowing()) {
+                ConcurrentCacheItem victim = selectVictim(candidate);
+                if (victim == null) {
+                    break;
+                }
+
+                // the new item is admitted only if it is used at least
+                // as frequently as the victim
+                if (candidate != null && frequencyAdmission &&
+                        frequencySketch.frequency(hash(candidate.key)) <
+                        frequencySketch.frequency(hash(victim.key))) {
+                    victim = candidate;
+                    rejectedCount.increment();
+                }
+                candidate = null;
+
+                boolean removed;
+                synchronized (locks[getIndex(victim.key)]) {
+                    removed = unlink(victim);
+                }
+                if (removed) {
+                    itemRemoved(victim);
+                    trimmed.add(victim);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        for (ConcurrentCacheItem item : trimmed) {
+            trimCount.increment();
+            for (Object listener : listeners) {
+                ((CacheListener) listener).trimEvent(item.key, item.value);
+            }
+        }
+    }
+
+    /**
+     * select the item to be trimmed among the next sampled items.
+     * The eviction lock must be held by the caller.
+     * @param exclude item that may not be selected
+     * @return least recently used of the sampled items, weighted by their
+     * size when the cache exceeds its maximum size; null if none is found
+     */
+    private ConcurrentCacheItem selectVictim(ConcurrentCacheItem exclude) {
+        ConcurrentCacheItem victim = null;
+        double victimScore = -1;
+        boolean bySize = currentSize.get() > maxSize;
+        boolean restarted = false;
+        long now = System.nanoTime();
+        int sampled = 0;
+
+        while (sampled < sampleSize) {
+            if (evictionCursor == null || !evictionCursor.hasNext()) {
+                // go over the entries at most once
+                if (restarted) {
+                    break;
+                }
+                evictionCursor = entries.values().iterator();
+                restarted = true;
+                if (!evictionCursor.hasNext()) {
+                    break;
+                }
+            }
+
+            for (ConcurrentCacheItem item = evictionCursor.next(); item != null;
+                                    item = item.next) {
+                if (item == exclude) {
+                    continue;
+                }
+                sampled++;
+                double score = (double) (now - item.accessTime);
+                if (bySize) {
+                    score *= Math.max(1, weight(item.size));
+                }
+                if (score > victimScore) {
+                    victim = item;
+                    victimScore = score;
+                }
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * wait for a refresh on the object associated with the key
+     * @param index index of the entry
+     * @returns true on successful notification, or false if there is
+     *  no thread refreshing this entry.
+     */
+    public boolean waitRefresh(int index) {
+        synchronized (locks[index]) {
+            if (refreshFlags[index] == false) {
+                refreshFlags[index] = true;
+                return false;
+            }
+
+            // wait till refresh is finished
+            try {
+                while (refreshFlags[index])
+                    locks[index].wait();
+            } catch (InterruptedException ie) {}
+        }
+        return true;
+    }
+
+    /**
+     * notify threads waiting for a refresh on the object associated with the key
+     * @param index index of the entry
+     */
+    public void notifyRefresh(int index) {
+        // notify other threads waiting for refresh
+        synchronized (locks[index]) {
+            refreshFlags[index] = false;
+            locks[index].notifyAll();
+        }
+    }
+
+    /**
+     * clear all the entries from the cache.
+     * @returns the number of entries cleared from the cache
+     */
+    public int clear() {
+        int count = 0;
+
+        for (Object key : entries.keySet()) {
+            ConcurrentCacheItem head;
+            synchronized (locks[getIndex(key)]) {
+                head = entries.remove(key);
+            }
+            for (ConcurrentCacheItem item = head; item != null; item = item.next) {
+                itemRemoved(item);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * trim the expired entries from the cache.
+     * @param maxCount maximum number of invalid entries to trim
+     *        specify Integer.MAX_VALUE to trim all timedout entries
+     *
+     * This call is to be scheduled by a thread managed by the container.
+     */
+    public void trimExpiredEntries(int maxCount) {}
+
+    /**
+     * is this cache empty?
+     * @returns true if the cache is empty; false otherwise.
+     */
+    public boolean isEmpty() {
+        return (entryCount.get() == 0);
+    }
+
+    /**
+     * get the number of entries in the cache
+     * @return the number of entries the cache currently holds
+     */
+    public int getEntryCount() {
+        return entryCount.get();
+    }
+
+    /**
+     * get the desired statistic counter
+     * @param key to corresponding stat
+     * @return an Object corresponding to the stat
+     * See also: Constant.java for the key
+     */
+    public Object getStatByName(String key) {
+        Object stat = null;
+
+        if (key == null)
+            return null;
+
+        if (key.equals(Constants.STAT_BASECACHE_MAX_ENTRIES))
+            stat = Integer.valueOf(maxEntries);
+        else if (key.equals(Constants.STAT_BASECACHE_THRESHOLD))
+            stat = Integer.valueOf(maxEntries);
+        else if (key.equals(Constants.STAT_BASECACHE_TABLE_SIZE))
+            stat = Integer.valueOf(locks.length);
+        else if (key.equals(Constants.STAT_BASECACHE_ENTRY_COUNT))
+            stat = Integer.valueOf(entryCount.get());
+        else if (key.equals(Constants.STAT_BASECACHE_HIT_COUNT))
+            stat = Integer.valueOf(hitCount.intValue());
+        else if (key.equals(Constants.STAT_BASECACHE_MISS_COUNT))
+            stat = Integer.valueOf(missCount.intValue());
+        else if (key.equals(Constants.STAT_BASECACHE_REMOVAL_COUNT))
+            stat = Integer.valueOf(removalCount.intValue());
+        else if (key.equals(Constants.STAT_BASECACHE_REFRESH_COUNT))
+            stat = Integer.valueOf(refreshCount.intValue());
+        else if (key.equals(Constants.STAT_BASECACHE_OVERFLOW_COUNT))
+            stat = Integer.valueOf(overflowCount.intValue());
+        else if (key.equals(Constants.STAT_BASECACHE_ADD_COUNT))
+            stat = Integer.valueOf(addCount.intValue());
+        else if (key.equals(Constants.STAT_CONCURRENTLRUCACHE_CURRENT_SIZE))
+            stat = Long.valueOf(currentSize.get());
+        else if (key.equals(Constants.STAT_CONCURRENTLRUCACHE_MAX_SIZE)) {
+            if (maxSize == Constants.DEFAULT_MAX_CACHE_SIZE)
+                stat = Constants.STAT_DEFAULT;
+            else
+                stat = Long.valueOf(maxSize);
+        }
+        else if (key.equals(Constants.STAT_CONCURRENTLRUCACHE_TRIM_COUNT))
+            stat = Integer.valueOf(trimCount.intValue());
+        else if (key.equals(Constants.STAT_CONCURRENTLRUCACHE_REJECTED_COUNT))
+            stat = Integer.valueOf(rejectedCount.intValue());
+
+        return stat;
+    }
+
+    /**
+     * get the stats snapshot
+     * @return a Map of stats
+     * See also: Constant.java for the keys
+     */
+    public Map getStats() {
+        HashMap stats = new HashMap();
+
+        String[] keys = {
+            Constants.STAT_BASECACHE_MAX_ENTRIES,
+            Constants.STAT_BASECACHE_THRESHOLD,
+            Constants.STAT_BASECACHE_TABLE_SIZE,
+            Constants.STAT_BASECACHE_ENTRY_COUNT,
+            Constants.STAT_BASECACHE_HIT_COUNT,
+            Constants.STAT_BASECACHE_MISS_COUNT,
+            Constants.STAT_BASECACHE_REMOVAL_COUNT,
+            Constants.STAT_BASECACHE_REFRESH_COUNT,
+            Constants.STAT_BASECACHE_OVERFLOW_COUNT,
+            Constants.STAT_BASECACHE_ADD_COUNT,
+            Constants.STAT_CONCURRENTLRUCACHE_CURRENT_SIZE,
+            Constants.STAT_CONCURRENTLRUCACHE_MAX_SIZE,
+            Constants.STAT_CONCURRENTLRUCACHE_TRIM_COUNT,
+            Constants.STAT_CONCURRENTLRUCACHE_REJECTED_COUNT
+        };
+        for (String key : keys) {
+            stats.put(key, getStatByName(key));
+        }
+        return stats;
+    }
+
+    /**
+     * clear the stats
+     */
+    public void clearStats() {
+        hitCount.reset();
+        missCount.reset();
+        removalCount.reset();
+        refreshCount.reset();
+        addCount.reset();
+        overflowCount.reset();
+        trimCount.reset();
+        rejectedCount.reset();
+    }
+
+    /**
+     * Clears the cache and its listeners. This method should be called
+     * at the end of this object's life cycle.
+     */
+    public void destroy() {
+        if (entries != null) {
+            clear();
+        }
+        listeners.clear();
+    }
+
+    /** CacheItem of the concurrent cache ***/
+    protected static class ConcurrentCacheItem {
+        final Object key;
+        volatile Object value;
+        volatile int size;
+        volatile long accessTime;
+
+        // next item with the same key; updated under the key-wide lock
+        volatile ConcurrentCacheItem next;
+
+        ConcurrentCacheItem(Object key, Object value, int size,
+                            ConcurrentCacheItem next) {
+            this.key = key;
+            this.value = value;
+            this.size = size;
+            this.next = next;
+            this.accessTime = System.nanoTime();
+        }
+
+        /**
+         * get the item's key
+         */
+        public Object getKey() {
+            return key;
+        }
+
+        /**
+         * get the item's value
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * @return size of the entry in bytes
+         * a value of -1 indicates unknown size
+         */
+        public int getSize() {
+            return size;
+        }
+
+        public String toString() {
+            return "key: " + key + "; value: " + value;
+        }
+    }
+
+    /**
+     * Count-min sketch of the frequency of use of the keys, with 4 bit
+     * counters. The counters are halved periodically so that the
+     * frequencies reflect the recent use.
+     */
+    static final class FrequencySketch {
+        private static final int[] SEEDS = {
+            0x97cb3127, 0xb0f3d6a5, 0x5cb1f7c3, 0x6ab8b35f };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final int MAX_TABLE_SIZE = 1 << 20;
+
+        private final AtomicLongArray table;
+        private final int tableMask;
+        private final int resetThreshold;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int maxEntries) {
+            int tableSize = 8;
+            while (tableSize < maxEntries && tableSize < MAX_TABLE_SIZE)
+                tableSize <<= 1;
+            table = new AtomicLongArray(tableSize);
+            tableMask = tableSize - 1;
+            resetThreshold = (int) Math.min(Integer.MAX_VALUE, 10L * maxEntries);
+        }
+
+        /**
+         * @return estimated number of recent uses of the hash code
+         */
+        int frequency(int hashCode) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int h = spread(hashCode, i);
+                long counter = (table.get(h & tableMask) >>> ((h >>> 28) << 2)) & 0xfL;
+                frequency = Math.min(frequency, (int) counter);
+            }
+            return frequency;
+        }
+
+        /**
+         * record a use of the hash code
+         */
+        void increment(int hashCode) {
+            boolean incremented = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int h = spread(hashCode, i);
+                incremented |= incrementAt(h & tableMask, (h >>> 28) << 2);
+            }
+            if (incremented && additions.incrementAndGet() == resetThreshold) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int shift) {
+            while (true) {
+                long word = table.get(index);
+                if (((word >>> shift) & 0xfL) == 0xfL) {
+                    // saturated counters are not updated
+                    return false;
+                }
+                if (table.compareAndSet(index, word, word + (1L << shift))) {
+                    return true;
+                }
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length(); i++) {
+                long word;
+                do {
+                    word = table.get(i);
+                } while (!table.compareAndSet(i, word, (word >>> 1) & RESET_MASK));
+            }
+            additions.addAndGet(-(resetThreshold >>> 1));
+        }
+
+        private static int spread(int hashCode, int i) {
+            int h = hashCode * SEEDS[i];
+            return h ^ (h >>> 15);
+        }
+    }
+}
@@ -76,4 +76,9 @@ public class Constants {
 
     public final static String STAT_BOUNDEDMULTILRUCACHE_CURRENT_SIZE="cache.BoundedMultiLruCache.stat_currentSize";
     public final static String STAT_BOUNDEDMULTILRUCACHE_MAX_SIZE="cache.BoundedMultiLruCache.stat_maxSize";
+
+    public final static String STAT_CONCURRENTLRUCACHE_CURRENT_SIZE="cache.ConcurrentLruCache.stat_currentSize";
+    public final static String STAT_CONCURRENTLRUCACHE_MAX_SIZE="cache.ConcurrentLruCache.stat_maxSize";
+    public final static String STAT_CONCURRENTLRUCACHE_TRIM_COUNT="cache.ConcurrentLruCache.stat_trimCount";
+    public final static String STAT_CONCURRENTLRUCACHE_REJECTED_COUNT="cache.ConcurrentLruCache.stat_rejectedCount";
 }
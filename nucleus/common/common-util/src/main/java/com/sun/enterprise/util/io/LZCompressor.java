@@ -0,0 +1,251 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.util.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A fast LZ77 compressor for byte arrays, in the spirit of the LZ4 block
+ * format. It favors speed over compression ratio : a single hash table
+ * lookup is made per position and no entropy coding is done, which makes
+ * it cheap enough to be applied to serialized state on every write.
+ * <p/>
+ * The compressed form starts with a header holding a magic number and the
+ * uncompressed length, followed by sequences made of a token, literals and
+ * an offset / length back reference. {@link #isCompressed(byte[])} tells
+ * apart compressed data from Java serialization streams.
+ */
+public final class LZCompressor {
+
+    private static final int MAGIC = 0x4c5a4746;
+    private static final int HEADER_LENGTH = 8;
+
+    private static final int MIN_MATCH = 4;
+    //The last bytes are always literals and no match starts in the last
+    //MF_LIMIT bytes, which keeps the match search within bounds.
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xffff;
+
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0x0f;
+
+    private LZCompressor() {
+    }
+
+    /**
+     * Compress the data.
+     *
+     * @param src data to compress
+     * @return compressed data, that may be larger than src if it is not
+     * compressible
+     */
+    public static byte[] compress(byte[] src) {
+        int length = src.length;
+        byte[] dst = new byte[HEADER_LENGTH + length + length / 255 + 16];
+        writeInt(dst, 0, MAGIC);
+        writeInt(dst, 4, length);
+        int dp = HEADER_LENGTH;
+        int anchor = 0;
+
+        if (length > MF_LIMIT) {
+            int[] table = new int[1 << HASH_LOG];
+            Arrays.fill(table, -1);
+            int limit = length - MF_LIMIT;
+            int matchLimit = length - LAST_LITERALS;
+            int sp = 0;
+            while (sp < limit) {
+                int sequence = readInt(src, sp);
+                int h = hash(sequence);
+                int ref = table[h];
+                table[h] = sp;
+                if (ref < 0 || sp - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    sp++;
+                    continue;
+                }
+
+                //extend the match backwards, into the pending literals
+                while (sp > anchor && ref > 0 && src[sp - 1] == src[ref - 1]) {
+                    sp--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (sp + matchLength < matchLimit && src[sp + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+
+                dp = writeSequence(src, anchor, sp - anchor, sp - ref, matchLength, dst, dp);
+                sp += matchLength;
+                anchor = sp;
+            }
+        }
+
+        dp = writeLiterals(src, anchor, length - anchor, 0, dst, dp);
+        return Arrays.copyOf(dst, dp);
+    }
+
+    /**
+     * Decompress data compressed by {@link #compress(byte[])}.
+     *
+     * @param src compressed data
+     * @return uncompressed data
+     * @throws IOException if the data is not valid compressed data
+     */
+    public static byte[] decompress(byte[] src) throws IOException {
+        if (!isCompressed(src)) {
+            throw new IOException("Not compressed data");
+        }
+        int length = readInt(src, 4);
+        if (length < 0) {
+            throw new IOException("Corrupted compressed data");
+        }
+        byte[] dst = new byte[length];
+        int sp = HEADER_LENGTH;
+        int dp = 0;
+        try {
+            while (sp < src.length) {
+                int token = src[sp++] & 0xff;
+
+                int literalLength = token >>> 4;
+                if (literalLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xff;
+                        literalLength += b;
+                    } while (b == 0xff);
+                }
+                if (dp + literalLength > length || sp + literalLength > src.length) {
+                    throw new IOException("Corrupted compressed data");
+                }
+                System.arraycopy(src, sp, dst, dp, literalLength);
+                sp += literalLength;
+                dp += literalLength;
+                if (sp >= src.length) {
+                    //the last sequence has no match
+                    break;
+                }
+
+                int offset = (src[sp] & 0xff) | ((src[sp + 1] & 0xff) << 8);
+                sp += 2;
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xff;
+                        matchLength += b;
+                    } while (b == 0xff);
+                }
+                matchLength += MIN_MATCH;
+                if (offset == 0 || offset > dp || dp + matchLength > length) {
+                    throw new IOException("Corrupted compressed data");
+                }
+                //the match may overlap the bytes being written
+                for (int ref = dp - offset, end = dp + matchLength; dp < end; ) {
+                    dst[dp++] = dst[ref++];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IOException("Corrupted compressed data", ex);
+        }
+        if (dp != length) {
+            throw new IOException("Corrupted compressed data");
+        }
+        return dst;
+    }
+
+    /**
+     * @param data data to check
+     * @return true if the data has been compressed by {@link #compress(byte[])}
+     */
+    public static boolean isCompressed(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && readInt(data, 0) == MAGIC;
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength,
+            int offset, int matchLength, byte[] dst, int dp) {
+        int matchRun = matchLength - MIN_MATCH;
+        dp = writeLiterals(src, literalStart, literalLength, Math.min(matchRun, RUN_MASK), dst, dp);
+        dst[dp++] = (byte) offset;
+        dst[dp++] = (byte) (offset >>> 8);
+        if (matchRun >= RUN_MASK) {
+            dp = writeLength(matchRun - RUN_MASK, dst, dp);
+        }
+        return dp;
+    }
+
+    private static int writeLiterals(byte[] src, int literalStart, int literalLength,
+            int matchToken, byte[] dst, int dp) {
+        if (literalLength >= RUN_MASK) {
+            dst[dp++] = (byte) ((RUN_MASK << 4) | matchToken);
+            dp = writeLength(literalLength - RUN_MASK, dst, dp);
+        } else {
+            dst[dp++] = (byte) ((literalLength << 4) | matchToken);
+        }
+        System.arraycopy(src, literalStart, dst, dp, literalLength);
+        return dp + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dp) {
+        while (length >= 0xff) {
+            dst[dp++] = (byte) 0xff;
+            length -= 0xff;
+        }
+        dst[dp++] = (byte) length;
+        return dp;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readInt(byte[] buf, int i) {
+        return ((buf[i] & 0xff) << 24) | ((buf[i + 1] & 0xff) << 16)
+                | ((buf[i + 2] & 0xff) << 8) | (buf[i + 3] & 0xff);
+    }
+
+    private static void writeInt(byte[] buf, int i, int value) {
+        buf[i] = (byte) (value >>> 24);
+        buf[i + 1] = (byte) (value >>> 16);
+        buf[i + 2] = (byte) (value >>> 8);
+        buf[i + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.appserv.util.cache;
+
+import com.sun.appserv.util.cache.mbeans.JmxConcurrentLruCache;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentLruCacheTest {
+
+    private static ConcurrentLruCache createCache(int maxEntries, String... props)
+            throws Exception {
+        Properties properties = new Properties();
+        for (int i = 0; i < props.length; i += 2) {
+            properties.setProperty(props[i], props[i + 1]);
+        }
+        ConcurrentLruCache cache = new ConcurrentLruCache();
+        cache.init(maxEntries, properties);
+        return cache;
+    }
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        ConcurrentLruCache cache = createCache(16);
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.put("a", "2"));
+        assertEquals("2", cache.get("a"));
+        assertTrue(cache.contains("a"));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals("2", cache.remove("a"));
+        assertNull(cache.get("a"));
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testMultiValuedKeys() throws Exception {
+        ConcurrentLruCache cache = createCache(16);
+        cache.add("a", "1");
+        cache.add("a", "2");
+        cache.add("b", "3");
+        assertEquals(3, cache.getEntryCount());
+
+        List<Object> values = new ArrayList<Object>();
+        for (Iterator it = cache.getAll("a"); it.hasNext(); ) {
+            values.add(it.next());
+        }
+        assertEquals(2, values.size());
+        assertTrue(values.contains("1") && values.contains("2"));
+
+        assertEquals("1", cache.remove("a", "1"));
+        assertEquals("2", cache.get("a"));
+        cache.removeAll("a");
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.clear());
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testBoundedByEntries() throws Exception {
+        ConcurrentLruCache cache = createCache(32, "FrequencyAdmission", "false");
+        final List<Object> trimmed = new ArrayList<Object>();
+        cache.addCacheListener(new CacheListener() {
+            public void trimEvent(Object key, Object value) {
+                trimmed.add(key);
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, Integer.valueOf(i));
+        }
+        assertEquals(32, cache.getEntryCount());
+        assertEquals(68, trimmed.size());
+        // the most recently added entry is never the one trimmed
+        assertEquals(Integer.valueOf(99), cache.get("key99"));
+    }
+
+    @Test
+    public void testFrequentlyUsedEntriesAreRetained() throws Exception {
+        ConcurrentLruCache cache = createCache(16);
+        for (int i = 0; i < 16; i++) {
+            cache.put("hot" + i, Integer.valueOf(i));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 16; i++) {
+                assertNotNull(cache.get("hot" + i));
+            }
+        }
+        // a scan of keys used only once does not flush the hot entries
+        for (int i = 0; i < 200; i++) {
+            cache.put("cold" + i, Integer.valueOf(i));
+            cache.get("hot" + (i % 16));
+        }
+        int retained = 0;
+        for (int i = 0; i < 16; i++) {
+            if (cache.get("hot" + i) != null) {
+                retained++;
+            }
+        }
+        assertEquals(16, cache.getEntryCount());
+        assertTrue("hot entries retained: " + retained, retained >= 15);
+        assertTrue(((Integer) cache.getStatByName(
+                Constants.STAT_CONCURRENTLRUCACHE_REJECTED_COUNT)).intValue() > 0);
+    }
+
+    @Test
+    public void testBoundedBySize() throws Exception {
+        ConcurrentLruCache cache = createCache(1000, "MaxSize", "1KB");
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, new byte[100], 100);
+        }
+        long currentSize = ((Long) cache.getStatByName(
+                Constants.STAT_CONCURRENTLRUCACHE_CURRENT_SIZE)).longValue();
+        assertTrue(currentSize <= 1024);
+        assertEquals(currentSize, cache.getEntryCount() * 100L);
+
+        JmxConcurrentLruCache mbean = new JmxConcurrentLruCache(cache, "test");
+        assertEquals(Long.valueOf(1024), mbean.getMaxSize());
+        assertEquals(Integer.valueOf(cache.getEntryCount()), mbean.getEntryCount());
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        final ConcurrentLruCache cache = createCache(16);
+        final int index = cache.getIndex("a");
+        assertFalse(cache.waitRefresh(index));
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicReference<Object> seen = new AtomicReference<Object>();
+        Thread waiter = new Thread() {
+            public void run() {
+                started.countDown();
+                if (cache.waitRefresh(index)) {
+                    seen.set(cache.get("a"));
+                }
+            }
+        };
+        waiter.start();
+        started.await();
+        cache.put("a", "refreshed");
+        cache.notifyRefresh(index);
+        waiter.join(10000);
+        assertFalse(waiter.isAlive());
+        Object value = seen.get();
+        assertTrue(value == null || "refreshed".equals(value));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final ConcurrentLruCache cache = createCache(64, "FrequencyAdmission", "false");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 1000;
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.put(Integer.valueOf(offset + i), "value");
+                        cache.get(Integer.valueOf(offset + i / 2));
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(64, cache.getEntryCount());
+        int count = 0;
+        for (Iterator it = cache.keys(); it.hasNext(); it.next()) {
+            count++;
+        }
+        assertEquals(64, count);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.util.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LZCompressorTest {
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void testShortInputs() throws IOException {
+        for (int i = 1; i < 40; i++) {
+            byte[] data = new byte[i];
+            Arrays.fill(data, (byte) 'a');
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void testRepetitiveInputIsCompressed() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("java.lang.String session-attribute-").append(i % 7).append(';');
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = assertRoundTrip(data);
+        assertTrue(compressed.length < data.length / 4);
+    }
+
+    @Test
+    public void testLongRuns() throws IOException {
+        byte[] data = new byte[100000];
+        Arrays.fill(data, 0, 70000, (byte) 1);
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void testRandomInputs() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            byte[] data = new byte[random.nextInt(5000)];
+            //small alphabet, so that there are matches of various lengths
+            int alphabet = 1 + random.nextInt(255);
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) random.nextInt(alphabet);
+            }
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void testIsCompressed() {
+        assertFalse(LZCompressor.isCompressed(null));
+        assertFalse(LZCompressor.isCompressed(new byte[] {(byte) 0xac, (byte) 0xed, 0, 5, 0, 0, 0, 0}));
+        assertTrue(LZCompressor.isCompressed(LZCompressor.compress(new byte[10])));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedData() throws IOException {
+        byte[] compressed = LZCompressor.compress(new byte[1000]);
+        LZCompressor.decompress(Arrays.copyOf(compressed, compressed.length - 3));
+    }
+
+    private static byte[] assertRoundTrip(byte[] data) throws IOException {
+        byte[] compressed = LZCompressor.compress(data);
+        assertTrue(LZCompressor.isCompressed(compressed));
+        assertArrayEquals(data, LZCompressor.decompress(compressed));
+        return compressed;
+    }
+}
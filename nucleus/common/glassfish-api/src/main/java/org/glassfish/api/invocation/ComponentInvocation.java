@@ -289,6 +289,27 @@ public class ComponentInvocation
         return moduleName;
     }
 
+    /**
+     * Clears the state of this invocation that is specific to a call, so
+     * that the invocation object can be reused for another call of the same
+     * component. The component, container, application and module names are
+     * kept.
+     */
+    protected void clearCallState() {
+        auth = null;
+        preInvokeDoneStatus = false;
+        instance = null;
+        instanceName = null;
+        jndiEnvironment = null;
+        transaction = null;
+        transactionCompleting = false;
+        oldSecurityContext = null;
+        resourceTableKey = null;
+        resourceHandler = null;
+        transactionOperationsManager = null;
+        clearRegistry();
+    }
+
     public ComponentInvocation clone() {
         ComponentInvocation newInv = null;
         try {
@@ -121,4 +121,66 @@ public class DeploymentOrder {
     }
     return appList.iterator();
   }
+
+  /**
+   * Returns the applications to deploy in the same order as
+   * <CODE>getApplicationDeployments</CODE>, split in groups of consecutive
+   * applications that have the same deployment type and the same
+   * deployment-order attribute. The applications of a group do not depend
+   * on each other through the deployment ordering, so they may be loaded
+   * concurrently, provided a group is loaded after the previous ones.
+   */
+  public static List<DeploymentGroup> getApplicationDeploymentGroups() {
+    List<DeploymentGroup> groups = new ArrayList<DeploymentGroup>();
+    DeploymentGroup group = null;
+    Iterator<ApplicationOrderInfo> it = application_deployments.iterator();
+    while (it.hasNext()) {
+      ApplicationOrderInfo appOrderInfo = it.next();
+      DeploymentType depType = getDeploymentType(appOrderInfo);
+      String order = appOrderInfo.getApplication().getDeploymentOrder();
+      if (group == null || group.type != depType ||
+          Integer.parseInt(group.deploymentOrder) != Integer.parseInt(order)) {
+        group = new DeploymentGroup(depType, order);
+        groups.add(group);
+      }
+      group.applications.add(appOrderInfo.getApplication());
+    }
+    return groups;
+  }
+
+  private static DeploymentType getDeploymentType(ApplicationOrderInfo app) {
+    for (int i = 0; i < APPLICATION_DEPLOYMENT_ORDER.length; i++) {
+      if (APPLICATION_DEPLOYMENT_ORDER[i].isInstance(app)) {
+        return APPLICATION_DEPLOYMENT_ORDER[i];
+      }
+    }
+    // unrecognized type
+    throw new RuntimeException("unrecognized type");
+  }
+
+  /**
+   * Applications of the same deployment type and deployment-order.
+   */
+  public static class DeploymentGroup {
+    private final DeploymentType type;
+    private final String deploymentOrder;
+    private final List<Application> applications = new ArrayList<Application>();
+
+    DeploymentGroup(DeploymentType type, String deploymentOrder) {
+      this.type = type;
+      this.deploymentOrder = deploymentOrder;
+    }
+
+    public DeploymentType getType() {
+      return type;
+    }
+
+    public String getDeploymentOrder() {
+      return deploymentOrder;
+    }
+
+    public List<Application> getApplications() {
+      return applications;
+    }
+  }
 }
@@ -49,6 +49,12 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.inject.Inject;
@@ -145,6 +151,16 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
 
     private String deploymentTracingEnabled = null;
 
+    /**
+     * Number of threads loading the user applications of a same
+     * deployment-order concurrently at startup, set with the system property
+     * org.glassfish.deployment.startup.threads. With 1, the default, the
+     * applications are loaded one after the other.
+     */
+    private int loaderThreads = 1;
+
+    private static final int SLOWEST_APPLICATIONS_REPORTED = 5;
+
     private Map<String,Integer> appOrderInfoMap = new HashMap<String, Integer>();
     private int appOrder = 0;
 
@@ -172,6 +188,15 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
         deploymentTracingEnabled = System.getProperty(
             "org.glassfish.deployment.trace");
 
+        String threads = System.getProperty("org.glassfish.deployment.startup.threads");
+        if (threads != null) {
+            try {
+                loaderThreads = Math.max(1, Integer.parseInt(threads.trim()));
+            } catch (NumberFormatException e) {
+                logger.log(Level.FINE, "Ignoring invalid org.glassfish.deployment.startup.threads " + threads);
+            }
+        }
+
         domain = habitat.getService(Domain.class);
 
         /*
@@ -236,12 +261,7 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
             }
         }
 
-        Iterator iter = DeploymentOrder.getApplicationDeployments();
-        while (iter.hasNext()) {
-          Application app = (Application)iter.next();
-          ApplicationRef appRef = server.getApplicationRef(app.getName());
-          processApplication(app, appRef);
-        }
+        loadApplications(DeploymentOrder.getApplicationDeploymentGroups());
 
         // does the user want us to run a particular application
         String defaultParam = env.getStartupContext().getArguments().getProperty("default");
@@ -345,6 +365,138 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
     }
 
 
+    /**
+     * Loads the applications, a deployment group after the other. The user
+     * applications of a group are loaded concurrently when more than one
+     * loader thread is configured. The system applications and the
+     * standalone resource adapters are always loaded one after the other,
+     * as the applications of the following groups may depend on them.
+     */
+    private void loadApplications(List<DeploymentOrder.DeploymentGroup> groups) {
+        long startTime = System.currentTimeMillis();
+        List<LoadTime> loadTimes = Collections.synchronizedList(new ArrayList<LoadTime>());
+        ExecutorService executor = null;
+        try {
+            for (DeploymentOrder.DeploymentGroup group : groups) {
+                List<Application> apps = group.getApplications();
+                if (loaderThreads > 1 && apps.size() > 1 &&
+                        group.getType() == DeploymentType.DEFAULT_APP) {
+                    if (executor == null) {
+                        executor = createLoaderExecutor();
+                    }
+                    loadConcurrently(executor, apps, loadTimes);
+                } else {
+                    for (Application app : apps) {
+                        loadApplication(app, loadTimes);
+                    }
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        if (!loadTimes.isEmpty()) {
+            logger.log(Level.INFO, KernelLoggerInfo.loadingApplicationsTime, new Object[] {
+                    loadTimes.size(), (System.currentTimeMillis() - startTime),
+                    loaderThreads, getSlowestApplications(loadTimes)});
+        }
+    }
+
+    /**
+     * Loads the applications on the executor and waits until all of them are
+     * loaded. The first runtime exception or error thrown by a load is thrown
+     * once the others completed, as it would have been by a sequential load.
+     */
+    private void loadConcurrently(ExecutorService executor, List<Application> apps,
+            final List<LoadTime> loadTimes) {
+        initializeRuntimeDependencies();
+        List<Future<?>> futures = new ArrayList<Future<?>>(apps.size());
+        for (final Application app : apps) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    loadApplication(app, loadTimes);
+                }
+            }));
+        }
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                for (Future<?> f : futures) {
+                    f.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    private void loadApplication(Application app, List<LoadTime> loadTimes) {
+        long startTime = System.currentTimeMillis();
+        processApplication(app, server.getApplicationRef(app.getName()));
+        loadTimes.add(new LoadTime(app.getName(), System.currentTimeMillis() - startTime));
+    }
+
+    private ExecutorService createLoaderExecutor() {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return Executors.newFixedThreadPool(loaderThreads, new ThreadFactory() {
+            private final AtomicInteger threadId = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "application-loader-" + threadId.incrementAndGet());
+                t.setDaemon(true);
+                t.setContextClassLoader(contextClassLoader);
+                return t;
+            }
+        });
+    }
+
+    private static String getSlowestApplications(List<LoadTime> loadTimes) {
+        List<LoadTime> sorted;
+        synchronized (loadTimes) {
+            sorted = new ArrayList<LoadTime>(loadTimes);
+        }
+        Collections.sort(sorted, new Comparator<LoadTime>() {
+            @Override
+            public int compare(LoadTime t1, LoadTime t2) {
+                return t1.millis < t2.millis ? 1 : (t1.millis == t2.millis ? 0 : -1);
+            }
+        });
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sorted.size() && i < SLOWEST_APPLICATIONS_REPORTED; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(sorted.get(i).appName).append(" (").append(sorted.get(i).millis).append(" ms)");
+        }
+        return sb.toString();
+    }
+
+    private static class LoadTime {
+        final String appName;
+        final long millis;
+
+        LoadTime(String appName, long millis) {
+            this.appName = appName;
+            this.millis = millis;
+        }
+    }
+
     public void processApplication(Application app, ApplicationRef appRef) {
 
         long operationStartTime = Calendar.getInstance().getTimeInMillis();
@@ -647,4 +647,9 @@ public class KernelLoggerInfo {
             level = "INFO")
     public static final String checkpointAutoResumeDone = LOGMSG_PREFIX + "-00096";
 
+    @LogMessageInfo(
+            message = "Loading {0} applications done in {1} ms with {2} loader threads. Slowest applications: {3}",
+            level = "INFO")
+    public static final String loadingApplicationsTime = LOGMSG_PREFIX + "-00097";
+
 }
@@ -47,6 +47,13 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.text.FieldPosition;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -58,6 +65,7 @@ import java.util.ResourceBundle;
 import java.util.Vector;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.ErrorManager;
 import java.util.logging.Formatter;
@@ -142,6 +150,19 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
 
     private BlockingQueue<LogRecord> pendingRecords = new ArrayBlockingQueue<LogRecord>(5000);
 
+    // Used in place of pendingRecords when a ring buffer size is configured
+    private LogRecordRingBuffer ringBuffer;
+
+    private RingBufferWriter ringBufferWriter;
+
+    private long reportedDroppedCount;
+
+    private static final int DEFAULT_OVERFLOW_SAMPLE_RATE = 10;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final long RING_BUFFER_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     // Rotation can be done in 3 ways
     // 1. Based on the Size: Rotate when some Threshold number of bytes are 
     //    written to server.log
@@ -252,6 +273,8 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
             currentgffileHandlerFormatter = "com.sun.enterprise.server.logging.UniformLogFormatter";
         }
 
+        initializeRingBuffer(manager, cname);
+
         // start the Queue consumer thread.
         initializePump();
         
@@ -532,6 +555,58 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         }        
     }
     
+    /**
+     * Use a ring buffer of pre-allocated events in place of the record
+     * queue if the ringBufferSize property is set.
+     */
+    private void initializeRingBuffer(LogManager manager, String cname) {
+        int ringBufferSize = 0;
+        String propValue = manager.getProperty(cname + ".ringBufferSize");
+        if (propValue != null) {
+            try {
+                ringBufferSize = Integer.parseInt(propValue.trim());
+            } catch (NumberFormatException e) {
+                addInvalidAttributeValueMessage(propValue, "ringBufferSize");
+            }
+        }
+        if (ringBufferSize <= 0) {
+            return;
+        }
+
+        LogRecordRingBuffer.OverflowPolicy overflowPolicy = LogRecordRingBuffer.OverflowPolicy.BLOCK;
+        propValue = manager.getProperty(cname + ".overflowPolicy");
+        if (propValue != null) {
+            try {
+                overflowPolicy = LogRecordRingBuffer.OverflowPolicy.valueOf(
+                        propValue.trim().toUpperCase(java.util.Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                addInvalidAttributeValueMessage(propValue, "overflowPolicy");
+            }
+        }
+
+        int sampleRate = DEFAULT_OVERFLOW_SAMPLE_RATE;
+        propValue = manager.getProperty(cname + ".overflowSampleRate");
+        if (propValue != null) {
+            try {
+                sampleRate = Integer.parseInt(propValue.trim());
+            } catch (NumberFormatException e) {
+                addInvalidAttributeValueMessage(propValue, "overflowSampleRate");
+            }
+        }
+
+        ringBuffer = new LogRecordRingBuffer(ringBufferSize, overflowPolicy, sampleRate);
+        ringBufferWriter = new RingBufferWriter();
+    }
+
+    private void addInvalidAttributeValueMessage(String propValue, String attribute) {
+        LogRecord lr = new LogRecord(Level.WARNING, LogFacade.INVALID_ATTRIBUTE_VALUE);
+        lr.setParameters(new Object[]{propValue, attribute});
+        lr.setResourceBundle(ResourceBundle.getBundle(LogFacade.LOGGING_RB_NAME));
+        lr.setThreadID((int) Thread.currentThread().getId());
+        lr.setLoggerName(LogFacade.LOGGING_LOGGER_NAME);
+        EarlyLogHandler.earlyMessages.add(lr);
+    }
+
     void initializePump() {
         pump = new Thread() {
             public void run() {
@@ -557,6 +632,14 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         done.tryReleaseShared(1);
         pump.interrupt();
 
+        if (ringBuffer != null) {
+            ringBuffer.close();
+            synchronized (ringBufferWriter) {
+                ringBufferWriter.drain();
+            }
+            return;
+        }
+
         // drain and return
         final int size = pendingRecords.size();
         if (size > 0) {
@@ -631,12 +714,26 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         OutputStream out;
         long written;
 
-        MeteredStream(OutputStream out, long written) {
+        FileChannel channel;
+
+        MeteredStream(OutputStream out, long written, FileChannel channel) {
             this.out = out;
             this.written = written;
+            this.channel = channel;
             isOpen = true;
         }
 
+        /**
+         * Write the bytes directly to the file channel, after the bytes
+         * that have been written to the stream.
+         */
+        void write(ByteBuffer buffer) throws IOException {
+            out.flush();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+        }
+
         public void write(int b) throws IOException {
             out.write(b);
             written++;
@@ -679,7 +776,7 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         }
         FileOutputStream fout = new FileOutputStream(file, true);
         BufferedOutputStream bout = new BufferedOutputStream(fout);
-        meter = new MeteredStream(bout, file.length());
+        meter = new MeteredStream(bout, file.length(), fout.getChannel());
         setOutputStream(meter);        
     }
 
@@ -818,6 +915,19 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
      */
     public void log() {
 
+        if (ringBuffer != null) {
+            try {
+                ringBuffer.awaitEvents(RING_BUFFER_POLL_NANOS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            synchronized (ringBufferWriter) {
+                ringBufferWriter.drain();
+            }
+            rotateIfNeeded();
+            return;
+        }
+
         LogRecord record;
         
         // take is blocking so we take one record off the queue
@@ -836,6 +946,10 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         }
 
         flush();
+        rotateIfNeeded();
+    }
+
+    private void rotateIfNeeded() {
         if ((rotationRequested.get())
                 || ((limitForFileRotation > 0)
                 && (meter.written >= limitForFileRotation))) {
@@ -864,6 +978,14 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         // capture the name of the logging thread so that a formatter can
         // output correct thread-name if done asynchronously. Note that 
         // this fix is limited to records published through this handler only.
+        if (ringBuffer != null) {
+            // The pump thread must not wait for itself to free a slot
+            Thread current = Thread.currentThread();
+            ringBuffer.offer(record, current.getName(), current != pump);
+            notifyLogEventListeners(record);
+            return;
+        }
+
         GFLogRecord recordWrapper = new GFLogRecord(record);
         recordWrapper.setThreadName(Thread.currentThread().getName());
 
@@ -880,12 +1002,126 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
             }
         }
         
+        notifyLogEventListeners(record);
+    }
+
+    private void notifyLogEventListeners(LogRecord record) {
         Formatter formatter = this.getFormatter();
         if (!(formatter instanceof LogEventBroadcaster)) {
             LogEvent logEvent = new LogEventImpl(record);
             informLogEventListeners(logEvent);
         }
-        
+    }
+
+    /**
+     * @return the number of log records dropped because the ring buffer
+     * was full, 0 if no ring buffer is used
+     */
+    public long getDroppedRecordCount() {
+        return ringBuffer == null ? 0 : ringBuffer.getDroppedCount();
+    }
+
+    /**
+     * Formats the events drained from the ring buffer and writes them to
+     * the log file through its FileChannel. The characters and bytes of the
+     * formatted records go through buffers that are reused from one record
+     * to the next, the only allocation is the String returned by the
+     * formatter.
+     */
+    private final class RingBufferWriter implements LogRecordRingBuffer.EventWriter {
+
+        private final ByteBuffer bytes = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+        private char[] chars = new char[1024];
+
+        private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+        private CharsetEncoder encoder;
+
+        private String encoding;
+
+        /**
+         * Write the events of the ring buffer and report the records
+         * dropped since the last call.
+         */
+        void drain() {
+            ringBuffer.drainTo(this, ringBuffer.getCapacity());
+            long droppedCount = ringBuffer.getDroppedCount();
+            if (droppedCount > reportedDroppedCount) {
+                LogRecord lr = new LogRecord(Level.WARNING, LogFacade.LOG_RECORDS_DROPPED);
+                lr.setParameters(new Object[]{droppedCount - reportedDroppedCount});
+                lr.setResourceBundle(ResourceBundle.getBundle(LogFacade.LOGGING_RB_NAME));
+                lr.setThreadID((int) Thread.currentThread().getId());
+                lr.setLoggerName(LogFacade.LOGGING_LOGGER_NAME);
+                reportedDroppedCount = droppedCount;
+                write(new GFLogRecord(lr));
+            }
+            writeBytes();
+        }
+
+        public void write(GFLogRecord event) {
+            if (!isLoggable(event)) {
+                return;
+            }
+            String msg;
+            try {
+                msg = getFormatter().format(event);
+            } catch (Exception ex) {
+                reportError(null, ex, ErrorManager.FORMAT_FAILURE);
+                return;
+            }
+            int length = msg.length();
+            if (length > chars.length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+                charBuffer = CharBuffer.wrap(chars);
+            }
+            msg.getChars(0, length, chars, 0);
+            charBuffer.clear();
+            charBuffer.limit(length);
+
+            CharsetEncoder enc = getEncoder();
+            enc.reset();
+            while (true) {
+                CoderResult result = enc.encode(charBuffer, bytes, true);
+                if (result.isOverflow()) {
+                    writeBytes();
+                } else {
+                    break;
+                }
+            }
+            while (enc.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+        }
+
+        private CharsetEncoder getEncoder() {
+            String currentEncoding = getEncoding();
+            if (encoder == null || (currentEncoding != null && !currentEncoding.equals(encoding))) {
+                Charset charset = currentEncoding == null
+                        ? Charset.defaultCharset() : Charset.forName(currentEncoding);
+                encoder = charset.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                encoding = currentEncoding;
+            }
+            return encoder;
+        }
+
+        private void writeBytes() {
+            if (bytes.position() == 0) {
+                return;
+            }
+            bytes.flip();
+            try {
+                synchronized (rotationLock) {
+                    meter.write(bytes);
+                }
+            } catch (IOException ex) {
+                reportError(null, ex, ErrorManager.WRITE_FAILURE);
+            } finally {
+                bytes.clear();
+            }
+        }
     }
 
     protected File getLogFileName() {
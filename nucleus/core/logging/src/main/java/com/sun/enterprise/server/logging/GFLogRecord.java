@@ -62,7 +62,16 @@ public class GFLogRecord extends LogRecord {
         
     public GFLogRecord(LogRecord record) {
         this(record.getLevel(), record.getMessage());
-        
+        copyFrom(record);
+    }
+
+    /**
+     * Copy the attributes of the record into this one, so that a
+     * GFLogRecord can be reused for several records.
+     */
+    void copyFrom(LogRecord record) {
+        this.setLevel(record.getLevel());
+        this.setMessage(record.getMessage());
         this.setLoggerName(record.getLoggerName());
         this.setMillis(record.getMillis());
         this.setParameters(record.getParameters());
@@ -75,6 +84,21 @@ public class GFLogRecord extends LogRecord {
         this.setThrown(record.getThrown());
     }
 
+    /**
+     * Release the references held by this record once it has been written.
+     */
+    void clear() {
+        this.setMessage(null);
+        this.setLoggerName(null);
+        this.setParameters(null);
+        this.setResourceBundle(null);
+        this.setResourceBundleName(null);
+        this.setSourceClassName(null);
+        this.setSourceMethodName(null);
+        this.setThrown(null);
+        this.threadName = null;
+    }
+
     public String getThreadName() {
         return threadName;
     }
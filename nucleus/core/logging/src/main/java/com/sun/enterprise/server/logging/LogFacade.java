@@ -116,4 +116,8 @@ public class LogFacade {
     @LogMessageInfo(message = "The formatter class {0} could not be instantiated.", level="WARNING")
     public static final String INVALID_FORMATTER_CLASS_NAME = "NCLS-LOGGING-00013";    
 
+    @LogMessageInfo(message = "{0} log records have been dropped because the log buffer was full.", level="WARNING")
+    public static final String LOG_RECORDS_DROPPED = "NCLS-LOGGING-00014";
+
+
 }
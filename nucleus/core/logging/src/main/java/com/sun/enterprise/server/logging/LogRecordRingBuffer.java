@@ -0,0 +1,249 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.server.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A bounded ring of pre-allocated log events, used by GFFileHandler in
+ * place of its record queue when a ring buffer size is configured. Any
+ * number of threads publish records, a single pump thread drains them.
+ * <p/>
+ * Each slot of the ring holds a GFLogRecord that is allocated once : the
+ * publishing thread copies the fields of its record, and the name of the
+ * thread, into the slot. Publishing a record hence neither allocates nor
+ * takes a lock.
+ * <p/>
+ * The overflow policy tells what a publishing thread does when the ring
+ * is full :
+ * <ul>
+ * <li>BLOCK : wait for a free slot</li>
+ * <li>DROP : drop the record</li>
+ * <li>SAMPLE : wait for a free slot for the records of level WARNING and
+ * above and for one record out of sampleRate, drop the others</li>
+ * </ul>
+ */
+final class LogRecordRingBuffer {
+
+    enum OverflowPolicy { BLOCK, DROP, SAMPLE }
+
+    /**
+     * Receives the events drained from the ring. The event must not be
+     * kept once write returned, as its slot is then reused.
+     */
+    interface EventWriter {
+        void write(GFLogRecord event);
+    }
+
+    private static final long PRODUCER_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int sampleRate;
+
+    // Sequence of the next slot to claim by a publishing thread
+    private final AtomicLong tail = new AtomicLong();
+
+    // Sequence of the next slot to drain, only used by the pump thread
+    private long head;
+
+    // The pump thread, while it waits for records
+    private volatile Thread waitingConsumer;
+
+    private volatile boolean closed;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     * @param overflowPolicy what to do when the ring is full
+     * @param sampleRate with the SAMPLE policy, one record out of sampleRate
+     * is kept when the ring is full
+     */
+    LogRecordRingBuffer(int capacity, OverflowPolicy overflowPolicy, int sampleRate) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+        mask = size - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Publish a record.
+     *
+     * @param applyOverflowPolicy false to drop the record if the ring is
+     * full, whatever the overflow policy
+     * @return false if the record has been dropped
+     */
+    boolean offer(LogRecord record, String threadName, boolean applyOverflowPolicy) {
+        boolean mayWait = false;
+        while (true) {
+            long pos = tail.get();
+            Slot slot = slots[(int) pos & mask];
+            long dif = slot.sequence - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slot.event.copyFrom(record);
+                    slot.event.setThreadName(threadName);
+                    slot.sequence = pos + 1;
+                    Thread consumer = waitingConsumer;
+                    if (consumer != null) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+            } else if (dif < 0) {
+                // the ring is full
+                if (!mayWait && applyOverflowPolicy) {
+                    mayWait = mayWaitForSlot(record);
+                }
+                if (!mayWait || closed || Thread.currentThread().isInterrupted()) {
+                    droppedCount.incrementAndGet();
+                    return false;
+                }
+                LockSupport.parkNanos(this, PRODUCER_WAIT_NANOS);
+            }
+            // else another thread claimed the slot, retry with the next one
+        }
+    }
+
+    private boolean mayWaitForSlot(LogRecord record) {
+        switch (overflowPolicy) {
+            case DROP:
+                return false;
+            case SAMPLE:
+                return record.getLevel().intValue() >= Level.WARNING.intValue()
+                        || overflowCount.incrementAndGet() % sampleRate == 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Drain the published events, in their order of publication. Only
+     * called by the pump thread.
+     *
+     * @return the number of events drained
+     */
+    int drainTo(EventWriter writer, int maxEvents) {
+        int count = 0;
+        while (count < maxEvents) {
+            Slot slot = slots[(int) head & mask];
+            if (slot.sequence != head + 1) {
+                break;
+            }
+            try {
+                writer.write(slot.event);
+            } finally {
+                slot.event.clear();
+                slot.sequence = head + slots.length;
+                head++;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Wait until a record is published, or the timeout elapsed. Only called
+     * by the pump thread.
+     */
+    void awaitEvents(long timeoutNanos) throws InterruptedException {
+        waitingConsumer = Thread.currentThread();
+        try {
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    boolean isEmpty() {
+        return slots[(int) head & mask].sequence != head + 1;
+    }
+
+    /**
+     * Stop waiting for free slots, the threads publishing records to a full
+     * ring drop them.
+     */
+    void close() {
+        closed = true;
+    }
+
+    int getCapacity() {
+        return slots.length;
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private static final class Slot {
+        // sequence == position + 1 once the event is published at position,
+        // sequence == position when the slot is free for position
+        volatile long sequence;
+        final GFLogRecord event = new GFLogRecord(Level.INFO, null);
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
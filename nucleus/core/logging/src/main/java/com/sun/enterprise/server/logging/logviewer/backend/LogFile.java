@@ -56,6 +56,7 @@ import java.util.logging.Level;
 
 import com.sun.enterprise.server.logging.LogFacade;
 import com.sun.enterprise.server.logging.parser.LogParser;
+import com.sun.enterprise.server.logging.parser.LogParserException;
 import com.sun.enterprise.server.logging.parser.LogParserFactory;
 import com.sun.enterprise.server.logging.parser.LogParserListener;
 import com.sun.enterprise.server.logging.parser.ParsedLogRecord;
@@ -137,16 +138,7 @@ public class LogFile implements java.io.Serializable {
                         return;
                     }
                     if (results.size() < maxRecords) {
-                        LogEntry entry = new LogEntry(logRecord.getFormattedLogRecord(),
-                                startingRecord + results.size());                    
-                        entry.setLoggedDateTime(new Date(logRecord.getTimeMillis()));
-                        entry.setLoggedLevel(logRecord.getLevel());
-                        entry.setLoggedLoggerName(logRecord.getLogger());
-                        entry.setLoggedMessage(logRecord.getMessage());
-                        entry.setLoggedNameValuePairs(logRecord.getSupplementalAttributes().toString());
-                        entry.setLoggedProduct(logRecord.getComponentId());
-                        entry.setMessageId(logRecord.getMessageId());                        
-                        results.add(entry);
+                        results.add(createLogEntry(logRecord, startingRecord + results.size()));
                     }
                 }
                 
@@ -169,6 +161,72 @@ public class LogFile implements java.io.Serializable {
         return results;
     }
 
+    /**
+     * This method returns the LogEntries of the given records, read through
+     * the index of the log file.
+     *
+     * @param    index    The index returned by getIndex()
+     * @param    recordNumbers    The numbers of the records to return
+     * @param    count    The number of records to return
+     */
+    List getLogEntries(LogFileIndex index, long[] recordNumbers, int count)
+            throws IOException {
+        final List results = new ArrayList();
+        List<String> records = index.readRecords(recordNumbers, count);
+        try {
+            LogParser logParser = LogParserFactory.getInstance().createLogParser(
+                    new File(getLogFileName()));
+            for (int i = 0; i < count; i++) {
+                ParsedLogRecord logRecord = LogFileIndex.parseRecord(logParser, records.get(i));
+                if (logRecord == null) {
+                    throw new IOException("Record " + recordNumbers[i]
+                            + " of the index does not match " + getLogFileName());
+                }
+                results.add(createLogEntry(logRecord, recordNumbers[i]));
+            }
+        } catch (LogParserException ex) {
+            throw new IOException(ex);
+        }
+        return results;
+    }
+
+    /**
+     * This method returns the index of the log file, if it covers all the
+     * records of the file, and null otherwise.  The records appended since
+     * the last query are indexed by the calling thread, while the index of
+     * a new or replaced file is built in the background.
+     */
+    LogFileIndex getIndex() {
+        if (!LogFileIndex.ENABLED) {
+            return null;
+        }
+        LogFileIndex index = _index;
+        if (index == null) {
+            synchronized (LogFileIndex.class) {
+                index = _index;
+                if (index == null) {
+                    File logFile = new File(getLogFileName()).getAbsoluteFile();
+                    LogFileIndex.deleteStaleIndexFiles(logFile.getParentFile());
+                    index = LogFileIndex.getInstance(logFile);
+                    _index = index;
+                }
+            }
+        }
+        return index.isUpToDate(MAX_SYNC_INDEX_BYTES) ? index : null;
+    }
+
+    private LogEntry createLogEntry(ParsedLogRecord logRecord, long recordNumber) {
+        LogEntry entry = new LogEntry(logRecord.getFormattedLogRecord(), recordNumber);
+        entry.setLoggedDateTime(new Date(logRecord.getTimeMillis()));
+        entry.setLoggedLevel(logRecord.getLevel());
+        entry.setLoggedLoggerName(logRecord.getLogger());
+        entry.setLoggedMessage(logRecord.getMessage());
+        entry.setLoggedNameValuePairs(logRecord.getSupplementalAttributes().toString());
+        entry.setLoggedProduct(logRecord.getComponentId());
+        entry.setMessageId(logRecord.getMessageId());
+        return entry;
+    }
+
 
     /**
      * This method builds the file index in the beginning.  The index is for
@@ -283,6 +341,10 @@ public class LogFile implements java.io.Serializable {
      * will ensure that the indexes are up-to-date.
      */
     public long getLastIndexNumber() {
+        LogFileIndex index = getIndex();
+        if (index != null) {
+            return (index.getRecordCount() + getIndexSize() - 1) / getIndexSize();
+        }
         buildLogFileIndex();
         return _recordIdx.size() - 1;
     }
@@ -446,5 +508,10 @@ public class LogFile implements java.io.Serializable {
     private long _indexSize = 10;
     private String _logFileName = null;
     private List _recordIdx   = new ArrayList();
+    private transient volatile LogFileIndex _index = null;
+
+    // The records appended to the log file are indexed by the querying
+    // thread up to this size, beyond it the index is updated in the background
+    private static final long MAX_SYNC_INDEX_BYTES = 1024 * 1024;
     
 }
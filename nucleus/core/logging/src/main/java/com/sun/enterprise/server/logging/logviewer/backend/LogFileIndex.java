@@ -0,0 +1,748 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.server.logging.logviewer.backend;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+import com.sun.enterprise.server.logging.LogFacade;
+import com.sun.enterprise.server.logging.parser.LogParser;
+import com.sun.enterprise.server.logging.parser.LogParserException;
+import com.sun.enterprise.server.logging.parser.LogParserFactory;
+import com.sun.enterprise.server.logging.parser.LogParserListener;
+import com.sun.enterprise.server.logging.parser.ParsedLogRecord;
+
+/**
+ * A compact index of the records of a log file, kept in a side file of the
+ * .logindex directory next to the log file. The index holds, for each
+ * record, its byte offset and length in the log file, its time, level and
+ * the hash of its logger name, so that a query selects the records that may
+ * match without parsing the log file, and then reads and parses these
+ * records only.
+ * <p/>
+ * The index is built by a background thread. The records appended to the
+ * log file are indexed incrementally, and the index is built again when the
+ * log file is replaced, which is detected by a checksum of its first bytes.
+ * <p/>
+ * The record numbers of the index are those given by the sequential parsing
+ * of the log file, as the records are split by the same rule as the parser
+ * and each record is parsed by the parser of the log file.
+ */
+final class LogFileIndex {
+
+    static final String INDEX_DIRECTORY = ".logindex";
+
+    static final String INDEX_SUFFIX = ".idx";
+
+    static final boolean ENABLED = !Boolean.getBoolean(
+            "com.sun.enterprise.server.logging.logviewer.disableIndex");
+
+    // Level value of the records whose level name cannot be parsed
+    static final int UNKNOWN_LEVEL = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x47464c49;
+
+    private static final int VERSION = 1;
+
+    // magic, version, parser hash, fingerprint length, fingerprint,
+    // indexed length, record count
+    private static final int HEADER_SIZE = 40;
+
+    // offset, length, time, level, logger hash
+    private static final int ENTRY_SIZE = 28;
+
+    private static final int FINGERPRINT_LENGTH = 1024;
+
+    private static final int COMMIT_ENTRIES = 4096;
+
+    // Number of entries mapped at a time while scanning the index
+    private static final int WINDOW_ENTRIES = 1 << 20;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private static final ExecutorService INDEXER = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "GlassFish Log File Indexer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    // One index per log file, whatever the number of LogFile instances and
+    // the names they use, since all of them share the same index file
+    private static final ConcurrentMap<File, LogFileIndex> INDEXES =
+            new ConcurrentHashMap<File, LogFileIndex>();
+
+    private final File logFile;
+
+    private final File indexFile;
+
+    private final Charset charset = Charset.defaultCharset();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+    private volatile boolean loaded;
+
+    private int parserHash;
+
+    private int fingerprintLength;
+
+    private long fingerprint;
+
+    private volatile long indexedLength;
+
+    private volatile long recordCount;
+
+    // Offset of the last indexed record, which is indexed again when the log
+    // file grows as it may not have been complete
+    private long lastRecordOffset;
+
+    LogFileIndex(File logFile) {
+        this.logFile = logFile.getAbsoluteFile();
+        this.indexFile = getIndexFile(this.logFile);
+    }
+
+    /**
+     * @return the index of the given log file, keyed by its canonical path
+     */
+    static LogFileIndex getInstance(File logFile) {
+        File key;
+        try {
+            key = logFile.getCanonicalFile();
+        } catch (IOException e) {
+            key = logFile.getAbsoluteFile();
+        }
+        LogFileIndex index = INDEXES.get(key);
+        if (index == null) {
+            LogFileIndex newIndex = new LogFileIndex(key);
+            index = INDEXES.putIfAbsent(key, newIndex);
+            if (index == null) {
+                index = newIndex;
+            }
+        }
+        return index;
+    }
+
+    static File getIndexFile(File logFile) {
+        return new File(new File(logFile.getParentFile(), INDEX_DIRECTORY),
+                logFile.getName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * @return the number of indexed records
+     */
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Tells whether the index covers the whole log file. If the log file
+     * grew by no more than maxSyncBytes since the last update, the new
+     * records are indexed by the calling thread, otherwise the index is
+     * updated in the background and false is returned.
+     */
+    boolean isUpToDate(long maxSyncBytes) {
+        long length = logFile.length();
+        if (length == 0) {
+            return false;
+        }
+        long dif = length - indexedLength;
+        if (dif == 0 && loaded) {
+            return true;
+        }
+        if (loaded && dif > 0 && dif <= maxSyncBytes) {
+            try {
+                update();
+                return indexedLength == logFile.length();
+            } catch (Exception ex) {
+                if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
+                    LogFacade.LOGGING_LOGGER.log(Level.FINE, "Error indexing log file " + logFile, ex);
+                }
+                return false;
+            }
+        }
+        scheduleUpdate();
+        return false;
+    }
+
+    /**
+     * Update the index in the background.
+     */
+    void scheduleUpdate() {
+        if (!updateScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        INDEXER.execute(new Runnable() {
+            @Override
+            public void run() {
+                updateScheduled.set(false);
+                try {
+                    update();
+                } catch (Exception ex) {
+                    if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
+                        LogFacade.LOGGING_LOGGER.log(Level.FINE, "Error indexing log file " + logFile, ex);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Index the records appended to the log file since the last update, or
+     * all the records if the log file has been replaced.
+     */
+    synchronized void update() throws IOException, LogParserException {
+        long length = logFile.length();
+        if (length == 0) {
+            return;
+        }
+        LogParser parser = LogParserFactory.getInstance().createLogParser(logFile);
+        int hash = parser.getClass().getName().hashCode();
+
+        RandomAccessFile index = openIndex();
+        try {
+            FileChannel indexChannel = index.getChannel();
+            if (!loaded) {
+                readHeader(indexChannel);
+                loaded = true;
+            }
+            long currentFingerprint = computeFingerprint(fingerprintLength);
+            if (hash != parserHash || length < indexedLength
+                    || currentFingerprint != fingerprint
+                    || (fingerprintLength < FINGERPRINT_LENGTH && length > fingerprintLength)) {
+                // The log file has been replaced, or was too small to have a
+                // full fingerprint : index it from the beginning
+                reset(hash, length);
+            } else if (length == indexedLength) {
+                return;
+            }
+
+            long from = 0;
+            long firstRecordNumber = 0;
+            if (recordCount > 0) {
+                from = lastRecordOffset;
+                firstRecordNumber = recordCount - 1;
+            }
+            if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
+                LogFacade.LOGGING_LOGGER.log(Level.FINE, "Indexing " + logFile
+                        + " from record " + firstRecordNumber + " at " + from);
+            }
+            new Scanner(parser, indexChannel, firstRecordNumber).scan(from, length);
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Find the records that may match the filter, starting at fromRecord and
+     * going forward or backward.
+     *
+     * @param recordNumbers filled with the record numbers found
+     * @return the number of records found, less than the length of
+     * recordNumbers if there are no more records
+     */
+    int findRecords(long fromRecord, boolean forward, Filter filter,
+            long[] recordNumbers) throws IOException {
+        lock.readLock().lock();
+        try {
+            long count = recordCount;
+            if (forward && fromRecord < 0) {
+                fromRecord = 0;
+            }
+            if (!forward && fromRecord >= count) {
+                fromRecord = count - 1;
+            }
+            if (fromRecord < 0 || fromRecord >= count) {
+                return 0;
+            }
+            RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+            try {
+                FileChannel channel = index.getChannel();
+                int found = 0;
+                long windowStart = -1;
+                MappedByteBuffer window = null;
+                for (long record = fromRecord; record >= 0 && record < count
+                        && found < recordNumbers.length; record += forward ? 1 : -1) {
+                    if (window == null || record < windowStart
+                            || record >= windowStart + WINDOW_ENTRIES) {
+                        windowStart = forward ? record : Math.max(0, record - WINDOW_ENTRIES + 1);
+                        window = mapEntries(channel, windowStart, count);
+                    }
+                    int pos = (int) (record - windowStart) * ENTRY_SIZE;
+                    if (filter.mayMatch(window.getLong(pos + 12),
+                            window.getInt(pos + 20), window.getInt(pos + 24))) {
+                        recordNumbers[found++] = record;
+                    }
+                }
+                return found;
+            } finally {
+                index.close();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read the text of the given records from the log file.
+     */
+    List<String> readRecords(long[] recordNumbers, int count) throws IOException {
+        List<String> records = new ArrayList<String>(count);
+        lock.readLock().lock();
+        try {
+            RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+            RandomAccessFile log = new RandomAccessFile(logFile, "r");
+            try {
+                FileChannel indexChannel = index.getChannel();
+                FileChannel logChannel = log.getChannel();
+                long total = recordCount;
+                ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+                ByteBuffer data = ByteBuffer.allocate(READ_BUFFER_SIZE);
+                for (int i = 0; i < count; i++) {
+                    long record = recordNumbers[i];
+                    if (record < 0 || record >= total) {
+                        throw new IOException("Record " + record + " is not indexed in " + logFile);
+                    }
+                    entry.clear();
+                    readFully(indexChannel, entry, HEADER_SIZE + record * ENTRY_SIZE);
+                    long offset = entry.getLong(0);
+                    int length = entry.getInt(8);
+                    if (data.capacity() < length) {
+                        data = ByteBuffer.allocate(length);
+                    }
+                    data.clear();
+                    data.limit(length);
+                    readFully(logChannel, data, offset);
+                    data.flip();
+                    records.add(charset.decode(data).toString());
+                }
+            } finally {
+                log.close();
+                index.close();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return records;
+    }
+
+    /**
+     * Parse the text of a single record.
+     *
+     * @return the parsed record, or null if the text is not a valid record
+     */
+    static ParsedLogRecord parseRecord(LogParser parser, String text)
+            throws LogParserException {
+        final ParsedLogRecord[] result = new ParsedLogRecord[1];
+        parser.parseLog(new BufferedReader(new StringReader(text)), new LogParserListener() {
+
+            @Override
+            public void outputSummary(BufferedWriter writer, Object... objects)
+                    throws IOException {
+            }
+
+            @Override
+            public void foundLogRecord(long position, ParsedLogRecord object) {
+                result[0] = object;
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        });
+        return result[0];
+    }
+
+    /**
+     * Delete the index files whose log file no longer exists.
+     */
+    static void deleteStaleIndexFiles(File logDirectory) {
+        File[] indexFiles = new File(logDirectory, INDEX_DIRECTORY).listFiles();
+        if (indexFiles == null) {
+            return;
+        }
+        for (File indexFile : indexFiles) {
+            String name = indexFile.getName();
+            if (indexFile.isFile() && name.endsWith(INDEX_SUFFIX)) {
+                File logFile = new File(logDirectory,
+                        name.substring(0, name.length() - INDEX_SUFFIX.length()));
+                if (!logFile.exists() && !indexFile.delete()
+                        && LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
+                    LogFacade.LOGGING_LOGGER.log(Level.FINE, "Could not delete " + indexFile);
+                }
+            }
+        }
+    }
+
+    private RandomAccessFile openIndex() throws IOException {
+        File dir = indexFile.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        return new RandomAccessFile(indexFile, "rw");
+    }
+
+    private void readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE) {
+            return;
+        }
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            return;
+        }
+        long count = header.getLong(32);
+        if (count < 0 || channel.size() < HEADER_SIZE + count * ENTRY_SIZE) {
+            return;
+        }
+        parserHash = header.getInt(8);
+        fingerprintLength = header.getInt(12);
+        fingerprint = header.getLong(16);
+        indexedLength = header.getLong(24);
+        recordCount = count;
+        if (count > 0) {
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            readFully(channel, entry, HEADER_SIZE + (count - 1) * ENTRY_SIZE);
+            lastRecordOffset = entry.getLong(0);
+        }
+    }
+
+    private void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(parserHash);
+        header.putInt(fingerprintLength);
+        header.putLong(fingerprint);
+        header.putLong(indexedLength);
+        header.putLong(recordCount);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private void reset(int hash, long length) throws IOException {
+        lock.writeLock().lock();
+        try {
+            parserHash = hash;
+            fingerprintLength = (int) Math.min(length, FINGERPRINT_LENGTH);
+            fingerprint = computeFingerprint(fingerprintLength);
+            indexedLength = 0;
+            recordCount = 0;
+            lastRecordOffset = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long computeFingerprint(int length) throws IOException {
+        RandomAccessFile log = new RandomAccessFile(logFile, "r");
+        try {
+            if (log.length() < length) {
+                return -1;
+            }
+            byte[] bytes = new byte[length];
+            log.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            return crc.getValue();
+        } finally {
+            log.close();
+        }
+    }
+
+    private MappedByteBuffer mapEntries(FileChannel channel, long firstRecord, long count)
+            throws IOException {
+        long entries = Math.min(WINDOW_ENTRIES, count - firstRecord);
+        return channel.map(FileChannel.MapMode.READ_ONLY,
+                HEADER_SIZE + firstRecord * ENTRY_SIZE, entries * ENTRY_SIZE);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += n;
+        }
+    }
+
+    private static int levelValue(String level) {
+        if (level == null) {
+            return UNKNOWN_LEVEL;
+        }
+        try {
+            return Level.parse(level).intValue();
+        } catch (IllegalArgumentException ex) {
+            return UNKNOWN_LEVEL;
+        }
+    }
+
+    private static int loggerHash(String logger) {
+        return logger == null ? 0 : logger.trim().hashCode();
+    }
+
+    /**
+     * Splits the log file in records, parses them and writes their entries
+     * to the index. Entries are committed by batches, the header being
+     * written after the entries.
+     */
+    private class Scanner {
+
+        private final LogParser parser;
+
+        private final FileChannel indexChannel;
+
+        private final ByteBuffer entries = ByteBuffer.allocate(COMMIT_ENTRIES * ENTRY_SIZE);
+
+        // Number of the first record of the entries not committed yet
+        private long nextRecordNumber;
+
+        private long pendingLastOffset;
+
+        private long pendingEnd;
+
+        private long segmentStart;
+
+        private final StringBuilder segment = new StringBuilder();
+
+        Scanner(LogParser parser, FileChannel indexChannel, long firstRecordNumber) {
+            this.parser = parser;
+            this.indexChannel = indexChannel;
+            this.nextRecordNumber = firstRecordNumber;
+        }
+
+        void scan(long from, long to) throws IOException, LogParserException {
+            RandomAccessFile log = new RandomAccessFile(logFile, "r");
+            try {
+                FileChannel channel = log.getChannel();
+                ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+                byte[] line = new byte[256];
+                int lineLength = 0;
+                long lineStart = from;
+                boolean skipLineFeed = false;
+                long pos = from;
+                segmentStart = from;
+                while (pos < to) {
+                    buffer.clear();
+                    if (to - pos < buffer.capacity()) {
+                        buffer.limit((int) (to - pos));
+                    }
+                    int n = channel.read(buffer, pos);
+                    if (n <= 0) {
+                        break;
+                    }
+                    for (int i = 0; i < n; i++, pos++) {
+                        byte b = buffer.get(i);
+                        if (skipLineFeed) {
+                            skipLineFeed = false;
+                            if (b == '\n') {
+                                lineStart = pos + 1;
+                                continue;
+                            }
+                        }
+                        if (b == '\n' || b == '\r') {
+                            onLine(lineStart, new String(line, 0, lineLength, charset));
+                            lineLength = 0;
+                            lineStart = pos + 1;
+                            skipLineFeed = b == '\r';
+                        } else {
+                            if (lineLength == line.length) {
+                                byte[] larger = new byte[line.length * 2];
+                                System.arraycopy(line, 0, larger, 0, lineLength);
+                                line = larger;
+                            }
+                            line[lineLength++] = b;
+                        }
+                    }
+                }
+                if (lineLength > 0) {
+                    onLine(lineStart, new String(line, 0, lineLength, charset));
+                }
+                endSegment(pos);
+                commit(pos);
+            } finally {
+                log.close();
+            }
+        }
+
+        private void onLine(long lineStart, String line)
+                throws IOException, LogParserException {
+            if (LogParserFactory.getInstance().isLogRecordBeginLine(parser, line)) {
+                endSegment(lineStart);
+                segmentStart = lineStart;
+            }
+            segment.append(line).append(NEWLINE);
+        }
+
+        private void endSegment(long end) throws IOException, LogParserException {
+            if (segment.length() == 0) {
+                return;
+            }
+            ParsedLogRecord record = parseRecord(parser, segment.toString());
+            segment.setLength(0);
+            if (record == null) {
+                return;
+            }
+            if (!entries.hasRemaining()) {
+                commit(pendingEnd);
+            }
+            entries.putLong(segmentStart);
+            entries.putInt((int) (end - segmentStart));
+            entries.putLong(record.getTimeMillis());
+            entries.putInt(levelValue(record.getLevel()));
+            entries.putInt(loggerHash(record.getLogger()));
+            pendingLastOffset = segmentStart;
+            pendingEnd = end;
+        }
+
+        private void commit(long indexedTo) throws IOException {
+            entries.flip();
+            int count = entries.remaining() / ENTRY_SIZE;
+            lock.writeLock().lock();
+            try {
+                long position = HEADER_SIZE + nextRecordNumber * ENTRY_SIZE;
+                while (entries.hasRemaining()) {
+                    position += indexChannel.write(entries, position);
+                }
+                nextRecordNumber += count;
+                if (count > 0) {
+                    lastRecordOffset = pendingLastOffset;
+                }
+                recordCount = nextRecordNumber;
+                indexedLength = indexedTo;
+                writeHeader(indexChannel);
+            } finally {
+                lock.writeLock().unlock();
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Selects the records that may match a query, from the fields of the
+     * index. The records selected are then checked against the query by
+     * the LogFilter.
+     */
+    static final class Filter {
+
+        private final boolean checkTime;
+
+        private final long fromTime;
+
+        private final long toTime;
+
+        private final int levelValue;
+
+        private final boolean onlyLevel;
+
+        private final Set<Integer> loggerHashes;
+
+        Filter(Date fromDate, Date toDate, String queryLevel,
+                boolean onlyLevel, List listOfModules) {
+            // As LogFilter.dateTimeCheck, the dates are only checked if
+            // both are given
+            checkTime = fromDate != null && toDate != null;
+            fromTime = checkTime ? fromDate.getTime() : 0;
+            toTime = checkTime ? toDate.getTime() : 0;
+            int value = UNKNOWN_LEVEL;
+            if (queryLevel != null) {
+                // As LogFilter.levelCheck, the level is trimmed for the
+                // exact match only
+                value = levelValue(onlyLevel ? queryLevel.trim() : queryLevel);
+            }
+            this.levelValue = value;
+            this.onlyLevel = onlyLevel;
+            if (listOfModules == null || listOfModules.isEmpty()) {
+                loggerHashes = null;
+            } else {
+                loggerHashes = new HashSet<Integer>();
+                for (Object module : listOfModules) {
+                    loggerHashes.add(loggerHash((String) module));
+                }
+            }
+        }
+
+        boolean mayMatch(long timeMillis, int recordLevel, int loggerHash) {
+            if (checkTime && (timeMillis < fromTime || timeMillis > toTime)) {
+                return false;
+            }
+            if (levelValue != UNKNOWN_LEVEL && recordLevel != UNKNOWN_LEVEL) {
+                if (onlyLevel ? recordLevel != levelValue : recordLevel < levelValue) {
+                    return false;
+                }
+            }
+            return loggerHashes == null || loggerHashes.contains(loggerHash);
+        }
+    }
+}
@@ -483,6 +483,22 @@ public class LogFilter {
             LogFile logFile, long startingRecord, boolean next, boolean forward,
             long requestedCount, Date fromDate, Date toDate, String logLevel,
             boolean onlyLevel, List listOfModules, Properties nameValueMap, String anySearch) {
+        // Use the index of the log file when it is up to date
+        LogFileIndex index = logFile.getIndex();
+        if (index != null) {
+            try {
+                List results = fetchRecordsUsingIndex(logFile, index, startingRecord,
+                        next, requestedCount, fromDate, toDate, logLevel, onlyLevel,
+                        listOfModules, nameValueMap, anySearch);
+                return convertResultsToTheStructure(orderResults(results, next, forward));
+            } catch (IOException ex) {
+                // The log file changed while it was read, search it sequentially
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Cannot use the index of " + logFile.getLogFileName(), ex);
+                }
+            }
+        }
+
         // If !next, then set to search in reverse
         boolean origForward = forward;
         if (next) {
@@ -572,15 +588,7 @@ public class LogFilter {
             }
         }
 
-        // Deal with previous&forward or next&reverse
-        if (next ^ origForward) {
-            List reversedResults = new ArrayList();
-            // Reverse the results
-            for (int count = results.size() - 1; count > -1; count--) {
-                reversedResults.add(results.get(count));
-            }
-            results = reversedResults;
-        }
+        results = orderResults(results, next, origForward);
 
         // Return the matches.  If this is less than requested, then there are
         // no more.
@@ -590,6 +598,63 @@ public class LogFilter {
         return convertResultsToTheStructure(results);
     }
 
+    /**
+     * This method searches the records through the index of the log file.
+     * The index selects the records that may match the date, level and
+     * module criteria, only these records are read from the log file and
+     * checked against the query.  The matches are returned in the order
+     * of the search, as with fetchRecordsUsingQuery(), records after the
+     * startingRecord in ascending order if next, records before the
+     * startingRecord in descending order otherwise.
+     */
+    private List fetchRecordsUsingIndex(
+            LogFile logFile, LogFileIndex index, long startingRecord, boolean next,
+            long requestedCount, Date fromDate, Date toDate, String logLevel,
+            boolean onlyLevel, List listOfModules, Properties nameValueMap, String anySearch)
+            throws IOException {
+        LogFileIndex.Filter filter = new LogFileIndex.Filter(
+                fromDate, toDate, logLevel, onlyLevel, listOfModules);
+        long[] recordNumbers = new long[(int) Math.max(1,
+                Math.min(requestedCount, INDEX_SEARCH_CHUNK))];
+        long fromRecord = next ? startingRecord + 1 : startingRecord - 1;
+        List results = new ArrayList();
+        while (results.size() < requestedCount) {
+            int found = index.findRecords(fromRecord, next, filter, recordNumbers);
+            if (found == 0) {
+                break;
+            }
+            List records = logFile.getLogEntries(index, recordNumbers, found);
+            for (int count = 0;
+                 (count < found) && (results.size() < requestedCount); count++) {
+                LogFile.LogEntry entry = (LogFile.LogEntry) records.get(count);
+                if (allChecks(entry, fromDate, toDate, logLevel, onlyLevel,
+                        listOfModules, nameValueMap, anySearch)) {
+                    results.add(entry);
+                }
+            }
+            if (found < recordNumbers.length) {
+                break;
+            }
+            fromRecord = recordNumbers[found - 1] + (next ? 1 : -1);
+        }
+        return results;
+    }
+
+    /**
+     * Deal with previous&forward or next&reverse
+     */
+    private List orderResults(List results, boolean next, boolean forward) {
+        if (next ^ forward) {
+            List reversedResults = new ArrayList();
+            // Reverse the results
+            for (int count = results.size() - 1; count > -1; count--) {
+                reversedResults.add(results.get(count));
+            }
+            results = reversedResults;
+        }
+        return results;
+    }
+
     /**
      * This method converts the results to the appropriate structure for
      * LogMBean to return to the Admin Front End.
@@ -838,6 +903,9 @@ public class LogFilter {
     }
 
 
+    // Maximum number of records read at once from an indexed log file
+    private static final int INDEX_SEARCH_CHUNK = 1000;
+
     static final String[] LOG_LEVELS = {"SEVERE", "WARNING",
             "INFO", "CONFIG", "FINE", "FINER", "FINEST"};
 
@@ -107,7 +107,24 @@ public class LogParserFactory {
     }
     
     Pattern getODLDateFormatPattern() {
-        return odlDateFormatPattern;    
+        return odlDateFormatPattern;
+    }
+
+    /**
+     * Determines whether the given line begins a new log record for the
+     * given parser, by the same rule the parser splits its input.
+     * @param parser
+     * @param line
+     * @return
+     */
+    public boolean isLogRecordBeginLine(LogParser parser, String line) {
+        if (parser instanceof UniformLogParser) {
+            return line.startsWith(UniformLogParser.LOG_RECORD_BEGIN_MARKER);
+        } else if (parser instanceof ODLLogParser) {
+            return odlDateFormatPattern.matcher(line).matches();
+        }
+        // Raw log files have a record per line
+        return true;
     }
     
     private LogFormat detectLogFormat(String line) {
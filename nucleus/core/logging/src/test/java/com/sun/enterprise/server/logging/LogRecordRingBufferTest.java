@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.server.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+/**
+ * Test class for the ring buffer used by GFFileHandler.
+ */
+public class LogRecordRingBufferTest {
+
+    private static class MessageCollector implements LogRecordRingBuffer.EventWriter {
+        final List<String> messages = new ArrayList<String>();
+        final List<String> threadNames = new ArrayList<String>();
+
+        public void write(GFLogRecord event) {
+            messages.add(event.getMessage());
+            threadNames.add(event.getThreadName());
+        }
+    }
+
+    @Test
+    public void testEventsAreDrainedInOrder() {
+        LogRecordRingBuffer ring = new LogRecordRingBuffer(4, LogRecordRingBuffer.OverflowPolicy.BLOCK, 1);
+        MessageCollector collector = new MessageCollector();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(ring.offer(new LogRecord(Level.INFO, "m" + round + i), "t" + i, true));
+            }
+            assertEquals(3, ring.drainTo(collector, 10));
+            assertTrue(ring.isEmpty());
+        }
+        assertEquals(9, collector.messages.size());
+        assertEquals("m00", collector.messages.get(0));
+        assertEquals("m22", collector.messages.get(8));
+        assertEquals("t2", collector.threadNames.get(8));
+    }
+
+    @Test
+    public void testDropPolicy() {
+        LogRecordRingBuffer ring = new LogRecordRingBuffer(4, LogRecordRingBuffer.OverflowPolicy.DROP, 1);
+        assertEquals(4, ring.getCapacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(new LogRecord(Level.INFO, "m" + i), "t", true));
+        }
+        assertFalse(ring.offer(new LogRecord(Level.SEVERE, "dropped"), "t", true));
+        assertEquals(1, ring.getDroppedCount());
+
+        MessageCollector collector = new MessageCollector();
+        assertEquals(4, ring.drainTo(collector, 10));
+        assertEquals("m3", collector.messages.get(3));
+    }
+
+    @Test
+    public void testSamplePolicyDropsLowLevelRecords() {
+        LogRecordRingBuffer ring = new LogRecordRingBuffer(2, LogRecordRingBuffer.OverflowPolicy.SAMPLE, 100);
+        assertTrue(ring.offer(new LogRecord(Level.INFO, "m0"), "t", true));
+        assertTrue(ring.offer(new LogRecord(Level.INFO, "m1"), "t", true));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(ring.offer(new LogRecord(Level.FINE, "dropped"), "t", true));
+        }
+        assertEquals(10, ring.getDroppedCount());
+    }
+
+    @Test
+    public void testBlockPolicyWaitsForFreeSlot() throws Exception {
+        final LogRecordRingBuffer ring = new LogRecordRingBuffer(2, LogRecordRingBuffer.OverflowPolicy.BLOCK, 1);
+        final int count = 1000;
+        Thread producer = new Thread() {
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    ring.offer(new LogRecord(Level.INFO, "m" + i), getName(), true);
+                }
+            }
+        };
+        producer.start();
+        MessageCollector collector = new MessageCollector();
+        while (collector.messages.size() < count) {
+            ring.awaitEvents(1000000L);
+            ring.drainTo(collector, 10);
+        }
+        producer.join();
+        assertEquals(0, ring.getDroppedCount());
+        assertEquals("m" + (count - 1), collector.messages.get(count - 1));
+    }
+
+    @Test
+    public void testNoWaitWhenOverflowPolicyNotApplied() {
+        LogRecordRingBuffer ring = new LogRecordRingBuffer(2, LogRecordRingBuffer.OverflowPolicy.BLOCK, 1);
+        assertTrue(ring.offer(new LogRecord(Level.INFO, "m0"), "t", true));
+        assertTrue(ring.offer(new LogRecord(Level.INFO, "m1"), "t", true));
+        assertFalse(ring.offer(new LogRecord(Level.INFO, "m2"), "t", false));
+        assertEquals(1, ring.getDroppedCount());
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.server.logging.logviewer.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LogFileIndexTest {
+
+    private static final String UNIFORM_SERVER_LOG_FILE =
+            "/com/sun/enterprise/server/logging/parser/uniform-server.log";
+
+    private static final String ODL_SERVER_LOG_FILE =
+            "/com/sun/enterprise/server/logging/parser/odl-server.log";
+
+    private File logDir;
+
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException {
+        logDir = File.createTempFile("logindex", "");
+        logDir.delete();
+        logDir.mkdirs();
+        logFile = new File(logDir, "server.log");
+    }
+
+    @After
+    public void tearDown() {
+        delete(logDir);
+    }
+
+    @Test
+    public void testUniformLogFormatIndex() throws Exception {
+        write(readResource(UNIFORM_SERVER_LOG_FILE), false);
+        LogFileIndex index = new LogFileIndex(logFile);
+        index.update();
+        assertEquals(138, index.getRecordCount());
+        assertSameEntries(index);
+    }
+
+    @Test
+    public void testODLLogFormatIndex() throws Exception {
+        write(readResource(ODL_SERVER_LOG_FILE), false);
+        LogFileIndex index = new LogFileIndex(logFile);
+        index.update();
+        assertEquals(45, index.getRecordCount());
+        assertSameEntries(index);
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        byte[] content = readResource(UNIFORM_SERVER_LOG_FILE);
+        // Split in the middle of a record
+        int split = content.length / 2 + 7;
+        write(Arrays.copyOfRange(content, 0, split), false);
+        LogFileIndex index = new LogFileIndex(logFile);
+        index.update();
+        long partialCount = index.getRecordCount();
+        assertTrue(partialCount > 0 && partialCount < 138);
+
+        write(Arrays.copyOfRange(content, split, content.length), true);
+        assertTrue(index.isUpToDate(content.length));
+        assertEquals(138, index.getRecordCount());
+        assertSameEntries(index);
+    }
+
+    @Test
+    public void testIndexIsReloaded() throws Exception {
+        write(readResource(UNIFORM_SERVER_LOG_FILE), false);
+        new LogFileIndex(logFile).update();
+        assertTrue(LogFileIndex.getIndexFile(logFile).isFile());
+
+        LogFileIndex index = new LogFileIndex(logFile);
+        index.update();
+        assertTrue(index.isUpToDate(0));
+        assertEquals(138, index.getRecordCount());
+    }
+
+    @Test
+    public void testOneIndexPerLogFile() throws Exception {
+        File sameLogFile = new File(new File(logDir, "."), "server.log");
+        assertSame(LogFileIndex.getInstance(logFile),
+                LogFileIndex.getInstance(sameLogFile));
+    }
+
+    @Test
+    public void testReplacedFileIsIndexedAgain() throws Exception {
+        write(readResource(UNIFORM_SERVER_LOG_FILE), false);
+        LogFileIndex index = new LogFileIndex(logFile);
+        index.update();
+        assertEquals(138, index.getRecordCount());
+
+        write(readResource(ODL_SERVER_LOG_FILE), false);
+        index.update();
+        assertEquals(45, index.getRecordCount());
+        assertSameEntries(index);
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        write(readResource(UNIFORM_SERVER_LOG_FILE), false);
+        LogFileIndex index = new LogFileIndex(logFile);
+        index.update();
+        LogFile sequential = new LogFile(logFile.getPath());
+        List entries = sequential.getLogEntries(0, Long.MAX_VALUE);
+
+        LogFileIndex.Filter filter = new LogFileIndex.Filter(
+                null, null, "WARNING", false, null);
+        long[] found = new long[200];
+        int count = index.findRecords(0, true, filter, found);
+        int expected = 0;
+        for (Object o : entries) {
+            LogFile.LogEntry entry = (LogFile.LogEntry) o;
+            if (Level.parse(entry.getLoggedLevel()).intValue() >= Level.WARNING.intValue()) {
+                assertEquals(entry.getRecordNumber(), found[expected++]);
+            }
+        }
+        assertEquals(expected, count);
+
+        // Backward search, starting past the last record
+        int backwardCount = index.findRecords(1000, false, filter, found);
+        assertEquals(count, backwardCount);
+
+        filter = new LogFileIndex.Filter(null, null, null, false,
+                Arrays.asList("javax.enterprise.logging"));
+        count = index.findRecords(0, true, filter, found);
+        assertTrue(count > 0);
+        List matches = sequential.getLogEntries(index, found, count);
+        for (Object o : matches) {
+            assertEquals("javax.enterprise.logging",
+                    ((LogFile.LogEntry) o).getLoggedLoggerName());
+        }
+    }
+
+    private void assertSameEntries(LogFileIndex index) throws IOException {
+        LogFile sequential = new LogFile(logFile.getPath());
+        List expected = sequential.getLogEntries(0, Long.MAX_VALUE);
+        assertEquals(expected.size(), index.getRecordCount());
+
+        long[] recordNumbers = new long[expected.size()];
+        for (int i = 0; i < recordNumbers.length; i++) {
+            recordNumbers[i] = i;
+        }
+        List actual = sequential.getLogEntries(index, recordNumbers, recordNumbers.length);
+        for (int i = 0; i < recordNumbers.length; i++) {
+            LogFile.LogEntry e = (LogFile.LogEntry) expected.get(i);
+            LogFile.LogEntry a = (LogFile.LogEntry) actual.get(i);
+            assertEquals(e.getRecordNumber(), a.getRecordNumber());
+            assertEquals(e.getLoggedDateTime(), a.getLoggedDateTime());
+            assertEquals(e.getLoggedLevel(), a.getLoggedLevel());
+            assertEquals(e.getLoggedLoggerName(), a.getLoggedLoggerName());
+            assertEquals(e.getLoggedMessage(), a.getLoggedMessage());
+        }
+    }
+
+    private byte[] readResource(String name) throws IOException {
+        InputStream in = LogFileIndexTest.class.getResourceAsStream(name);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private void write(byte[] content, boolean append) throws IOException {
+        FileOutputStream out = new FileOutputStream(logFile, append);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -42,6 +42,7 @@ package com.sun.enterprise.security;
 
 import java.security.Principal;
 import java.security.PrivilegedExceptionAction;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 
 import javax.security.auth.Subject;
@@ -122,5 +123,15 @@ public interface SecurityManager {
 
     public Object invoke(Method beanClassMethod, boolean isLocal, Object o, Object[] oa)
             throws Throwable;
+
+    /**
+     * Same as invoke(Method, boolean, Object, Object[]), but the method
+     * may be dispatched through beanMethodInvoker, a handle of type
+     * (Object, Object[])Object linked to beanClassMethod, instead of
+     * reflection. The exception semantics of Method.invoke are kept.
+     */
+    public Object invoke(MethodHandle beanMethodInvoker, Method beanClassMethod,
+            boolean isLocal, Object o, Object[] oa)
+            throws Throwable;
      
 }